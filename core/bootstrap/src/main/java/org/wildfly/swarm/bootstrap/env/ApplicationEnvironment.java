@@ -18,8 +18,11 @@ package org.wildfly.swarm.bootstrap.env;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -192,9 +195,35 @@ public class ApplicationEnvironment {
         this.applicationManifest = new WildFlySwarmManifest(url);
         this.bootstrapModules.addAll(this.applicationManifest.bootstrapModules());
         this.bootstrapArtifacts.addAll(this.applicationManifest.bootstrapArtifacts());
+        loadBootIndex(cl);
         return true;
     }
 
+    private void loadBootIndex(ClassLoader cl) throws IOException {
+        URL url = cl.getResource(BootIndex.CLASSPATH_LOCATION);
+        if (url == null) {
+            return;
+        }
+        try (InputStream in = url.openStream()) {
+            BootIndex index = new BootIndex(in);
+            String urlString = url.toExternalForm();
+            int endLoc = urlString.indexOf("!/");
+            if (urlString.startsWith("jar:file:") && endLoc > 0) {
+                index.setSource(URLDecoder.decode(urlString.substring(9, endLoc), StandardCharsets.UTF_8.name()));
+            }
+            this.bootIndex = Optional.of(index);
+        }
+    }
+
+    /**
+     * Retrieve the build-time boot index, if the uberjar contains one.
+     *
+     * @return The boot index.
+     */
+    public Optional<BootIndex> bootIndex() {
+        return this.bootIndex;
+    }
+
     private void loadFractionManifestsFromClasspath() throws IOException {
         loadFractionManifests(ClassLoader.getSystemClassLoader());
     }
@@ -228,6 +257,14 @@ public class ApplicationEnvironment {
 
         bootstrapArtifactsAsCoordinates().forEach((coords) -> {
             try {
+                String key = BootIndex.key(coords.getGroupId(), coords.getArtifactId(), coords.getVersion(), coords.getClassifier());
+                if (this.bootIndex.isPresent() && this.bootIndex.get().containsArtifact(key)) {
+                    FractionManifest manifest = this.bootIndex.get().fractionManifest(key);
+                    if (manifest != null && !modulesManifests.contains(manifest.getGroupId() + manifest.getArtifactId())) {
+                        this.manifests.add(manifest);
+                    }
+                    return;
+                }
                 File artifactFile = MavenResolvers.get().resolveJarArtifact(coords);
                 if (artifactFile == null) {
                     throw new RuntimeException("Unable to resolve artifact from coordinates: " + coords);
@@ -444,6 +481,8 @@ public class ApplicationEnvironment {
 
     private WildFlySwarmManifest applicationManifest;
 
+    private Optional<BootIndex> bootIndex = Optional.empty();
+
     private List<String> bootstrapModules = new ArrayList<>();
 
     private List<String> bootstrapArtifacts = new ArrayList<>();
@@ -0,0 +1,193 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.env;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact binary index written into the uberjar at build time.
+ *
+ * <p>Records what the bootstrap would otherwise discover by scanning archives at every boot:
+ * the fraction manifest and <code>module.xml</code> locations of each bootstrap artifact, and
+ * whether the uberjar contains module resources requiring it to be exploded. The index is read
+ * in a single sequential pass; artifacts missing from it are scanned as before.</p>
+ */
+public class BootIndex {
+
+    public static final String CLASSPATH_LOCATION = "META-INF/wildfly-swarm-boot.idx";
+
+    private static final int MAGIC = 0x53574249;
+
+    private static final int VERSION = 1;
+
+    public BootIndex() {
+
+    }
+
+    public BootIndex(InputStream in) throws IOException {
+        read(in);
+    }
+
+    public static String key(String groupId, String artifactId, String version, String classifier) {
+        StringBuilder key = new StringBuilder(groupId).append(':').append(artifactId).append(':').append(version);
+        if (classifier != null && !classifier.isEmpty()) {
+            key.append(':').append(classifier);
+        }
+        return key.toString();
+    }
+
+    public void read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a boot index");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported boot index version: " + version);
+        }
+
+        this.explosionRequired = data.readBoolean();
+
+        this.artifacts.clear();
+        int numArtifacts = data.readInt();
+        for (int i = 0; i < numArtifacts; ++i) {
+            String key = data.readUTF();
+            byte[] fractionManifest = null;
+            int manifestLength = data.readInt();
+            if (manifestLength >= 0) {
+                fractionManifest = new byte[manifestLength];
+                data.readFully(fractionManifest);
+            }
+            int numModules = data.readInt();
+            Set<String> moduleXmls = new LinkedHashSet<>();
+            for (int j = 0; j < numModules; ++j) {
+                moduleXmls.add(data.readUTF());
+            }
+            this.artifacts.put(key, new IndexedArtifact(fractionManifest, moduleXmls));
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeBoolean(this.explosionRequired);
+        data.writeInt(this.artifacts.size());
+        for (Map.Entry<String, IndexedArtifact> each : this.artifacts.entrySet()) {
+            data.writeUTF(each.getKey());
+            byte[] fractionManifest = each.getValue().fractionManifest;
+            if (fractionManifest == null) {
+                data.writeInt(-1);
+            } else {
+                data.writeInt(fractionManifest.length);
+                data.write(fractionManifest);
+            }
+            data.writeInt(each.getValue().moduleXmls.size());
+            for (String moduleXml : each.getValue().moduleXmls) {
+                data.writeUTF(moduleXml);
+            }
+        }
+        data.flush();
+    }
+
+    public void addArtifact(String key, byte[] fractionManifest, Collection<String> moduleXmls) {
+        this.artifacts.put(key, new IndexedArtifact(fractionManifest, new LinkedHashSet<>(moduleXmls)));
+    }
+
+    public boolean containsArtifact(String key) {
+        return this.artifacts.containsKey(key);
+    }
+
+    /**
+     * Retrieve the fraction manifest of an indexed artifact.
+     *
+     * @param key The artifact key.
+     * @return The manifest, or <code>null</code> if the artifact is not a fraction or is not indexed.
+     * @throws IOException If the manifest cannot be parsed.
+     */
+    public FractionManifest fractionManifest(String key) throws IOException {
+        IndexedArtifact artifact = this.artifacts.get(key);
+        if (artifact == null || artifact.fractionManifest == null) {
+            return null;
+        }
+        return new FractionManifest(new ByteArrayInputStream(artifact.fractionManifest));
+    }
+
+    /**
+     * Retrieve the <code>module.xml</code> paths contained in an indexed artifact.
+     *
+     * @param key The artifact key.
+     * @return The paths, or <code>null</code> if the artifact is not indexed.
+     */
+    public Set<String> moduleXmls(String key) {
+        IndexedArtifact artifact = this.artifacts.get(key);
+        if (artifact == null) {
+            return null;
+        }
+        return Collections.unmodifiableSet(artifact.moduleXmls);
+    }
+
+    /**
+     * Retrieve the path of the jar this index was loaded from.
+     *
+     * @return The jar path, or <code>null</code> if not loaded from a jar.
+     */
+    public String getSource() {
+        return this.source;
+    }
+
+    void setSource(String source) {
+        this.source = source;
+    }
+
+    public void setExplosionRequired(boolean explosionRequired) {
+        this.explosionRequired = explosionRequired;
+    }
+
+    public boolean isExplosionRequired() {
+        return this.explosionRequired;
+    }
+
+    private String source;
+
+    private boolean explosionRequired = true;
+
+    private final Map<String, IndexedArtifact> artifacts = new LinkedHashMap<>();
+
+    private static final class IndexedArtifact {
+
+        IndexedArtifact(byte[] fractionManifest, Set<String> moduleXmls) {
+            this.fractionManifest = fractionManifest;
+            this.moduleXmls = moduleXmls;
+        }
+
+        private final byte[] fractionManifest;
+
+        private final Set<String> moduleXmls;
+    }
+}
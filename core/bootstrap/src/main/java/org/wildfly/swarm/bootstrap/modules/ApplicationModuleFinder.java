@@ -20,6 +20,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.jar.JarFile;
 
 import org.jboss.modules.DependencySpec;
@@ -35,8 +37,7 @@ import org.jboss.modules.filter.PathFilters;
 import org.jboss.modules.maven.ArtifactCoordinates;
 import org.wildfly.swarm.bootstrap.env.ApplicationEnvironment;
 import org.wildfly.swarm.bootstrap.logging.BootstrapLogger;
-import org.wildfly.swarm.bootstrap.util.BootstrapUtil;
-import org.wildfly.swarm.bootstrap.util.TempFileManager;
+import org.wildfly.swarm.bootstrap.util.ExplodedJarCache;
 
 /**
  * Module-finder used only for loading the module <code>swarm.application</code> when run in an fat-jar scenario.
@@ -131,10 +132,8 @@ public class ApplicationModuleFinder extends AbstractSingleModuleFinder {
         final String jarName = tmp.getName().toString();
         final JarFile jarFile = new JarFile(tmp);
 
-        File tmpDir = TempFileManager.INSTANCE.newTempDirectory(name, ext);
-
         //Explode jar due to some issues in Windows on stopping (JarFiles cannot be deleted)
-        BootstrapUtil.explodeJar(jarFile, tmpDir.getAbsolutePath());
+        File tmpDir = ExplodedJarCache.INSTANCE.explode(jarFile, path, name, ext);
 
         jarFile.close();
         tmp.delete();
@@ -151,6 +150,7 @@ public class ApplicationModuleFinder extends AbstractSingleModuleFinder {
     }
 
     protected void addDependencies(ModuleSpec.Builder builder, ApplicationEnvironment env) {
+        List<ArtifactCoordinates> dependencies = new ArrayList<>();
         env.getDependencies()
                 .forEach((dep) -> {
                     String[] parts = dep.split(":");
@@ -165,23 +165,31 @@ public class ApplicationModuleFinder extends AbstractSingleModuleFinder {
                     } else if (parts.length == 5) {
                         coords = new ArtifactCoordinates(parts[0], parts[1], parts[4], parts[3]);
                     }
-                    try {
-                        File artifact = MavenResolvers.get().resolveJarArtifact(coords);
-                        if (artifact == null) {
-                            LOG.error("Unable to find artifact for " + coords);
-                            return;
-                        }
-                        JarFile jar = new JarFile(artifact);
-
-                        builder.addResourceRoot(
-                                ResourceLoaderSpec.createResourceLoaderSpec(
-                                        ResourceLoaders.createJarResourceLoader(artifact.getName(), jar)
-                                )
-                        );
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
-                    }
+                    dependencies.add(coords);
                 });
+
+        try {
+            List<ResourceLoader> loaders = ParallelResolution.resolveAll(dependencies, (coords) -> {
+                ResourceLoader mapped = UberJarMavenResolver.mappedLoader(coords, "jar");
+                if (mapped != null) {
+                    return mapped;
+                }
+                File artifact = MavenResolvers.get().resolveJarArtifact(coords);
+                if (artifact == null) {
+                    LOG.error("Unable to find artifact for " + coords);
+                    return null;
+                }
+                return ResourceLoaders.createJarResourceLoader(artifact.getName(), new JarFile(artifact));
+            });
+
+            for (ResourceLoader each : loaders) {
+                if (each != null) {
+                    builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(each));
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     private static final BootstrapLogger LOG = BootstrapLogger.logger("org.wildfly.swarm.modules.application");
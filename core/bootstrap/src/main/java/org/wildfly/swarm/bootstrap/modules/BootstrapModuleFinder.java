@@ -16,24 +16,27 @@
 package org.wildfly.swarm.bootstrap.modules;
 
 import java.io.File;
-import java.io.IOException;
-import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
-import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
 import org.jboss.modules.DependencySpec;
+import org.jboss.modules.IterableResourceLoader;
 import org.jboss.modules.ModuleIdentifier;
 import org.jboss.modules.ModuleLoadException;
 import org.jboss.modules.ModuleLoader;
 import org.jboss.modules.ModuleSpec;
+import org.jboss.modules.Resource;
 import org.jboss.modules.ResourceLoader;
 import org.jboss.modules.ResourceLoaderSpec;
 import org.jboss.modules.ResourceLoaders;
 import org.jboss.modules.filter.PathFilter;
 import org.jboss.modules.filter.PathFilters;
+import org.jboss.modules.maven.ArtifactCoordinates;
 import org.wildfly.swarm.bootstrap.env.ApplicationEnvironment;
+import org.wildfly.swarm.bootstrap.env.BootIndex;
 import org.wildfly.swarm.bootstrap.logging.BootstrapLogger;
 import org.wildfly.swarm.bootstrap.performance.Performance;
 
@@ -61,26 +64,23 @@ public class BootstrapModuleFinder extends AbstractSingleModuleFinder {
 
             ApplicationEnvironment env = ApplicationEnvironment.get();
 
-            env.bootstrapArtifactsAsCoordinates()
-                    .forEach((coords) -> {
-                        try {
-                            File artifact = MavenResolvers.get().resolveJarArtifact(coords);
-                            if (artifact == null) {
-                                throw new RuntimeException("Unable to resolve artifact from coordinates: " + coords);
-                            }
-                            JarFile jar = new JarFile(artifact);
-                            ResourceLoader originaloader = ResourceLoaders.createJarResourceLoader(artifact.getName(), jar);
-
-                            PathFilter filter = getModuleFilter(jar);
-                            builder.addResourceRoot(
-                                    ResourceLoaderSpec.createResourceLoaderSpec(
-                                            ResourceLoaders.createFilteredResourceLoader(filter, originaloader)
-                                    )
-                            );
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
+            List<ResourceLoader> loaders = ParallelResolution.resolveAll(env.bootstrapArtifactsAsCoordinates(), (coords) -> {
+                IterableResourceLoader originaloader = UberJarMavenResolver.mappedLoader(coords, "jar");
+                if (originaloader == null) {
+                    File artifact = MavenResolvers.get().resolveJarArtifact(coords);
+                    if (artifact == null) {
+                        throw new RuntimeException("Unable to resolve artifact from coordinates: " + coords);
+                    }
+                    originaloader = (IterableResourceLoader) ResourceLoaders.createJarResourceLoader(artifact.getName(), new JarFile(artifact));
+                }
+
+                PathFilter filter = getModuleFilter(env, coords, originaloader);
+                return ResourceLoaders.createFilteredResourceLoader(filter, originaloader);
+            });
+
+            for (ResourceLoader each : loaders) {
+                builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(each));
+            }
 
             builder.addDependency(DependencySpec.createLocalDependencySpec());
             builder.addDependency(DependencySpec.createModuleDependencySpec(ModuleIdentifier.create("org.jboss.modules")));
@@ -100,18 +100,23 @@ public class BootstrapModuleFinder extends AbstractSingleModuleFinder {
 
     }
 
-    private PathFilter getModuleFilter(JarFile jar) {
+    private PathFilter getModuleFilter(ApplicationEnvironment env, ArtifactCoordinates coords, IterableResourceLoader loader) {
+        if (env.bootIndex().isPresent()) {
+            Set<String> indexed = env.bootIndex().get().moduleXmls(
+                    BootIndex.key(coords.getGroupId(), coords.getArtifactId(), coords.getVersion(), coords.getClassifier()));
+            if (indexed != null) {
+                return PathFilters.in(indexed);
+            }
+        }
+
         Set<String> paths = new HashSet<>();
 
-        Enumeration<JarEntry> jarEntries = jar.entries();
+        Iterator<Resource> resources = loader.iterateResources("", true);
 
-        while (jarEntries.hasMoreElements()) {
-            JarEntry jarEntry = jarEntries.nextElement();
-            if (!jarEntry.isDirectory()) {
-                String name = jarEntry.getName();
-                if (name.endsWith("/module.xml")) {
-                    paths.add(name);
-                }
+        while (resources.hasNext()) {
+            String name = resources.next().getName();
+            if (name.endsWith("/module.xml")) {
+                paths.add(name);
             }
         }
         return PathFilters.in(paths);
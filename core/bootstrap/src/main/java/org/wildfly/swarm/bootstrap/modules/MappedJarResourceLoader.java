@@ -0,0 +1,262 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipException;
+
+import org.jboss.modules.AbstractResourceLoader;
+import org.jboss.modules.ClassSpec;
+import org.jboss.modules.IterableResourceLoader;
+import org.jboss.modules.PackageSpec;
+import org.jboss.modules.Resource;
+import org.wildfly.swarm.bootstrap.logging.BootstrapLogger;
+import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
+
+/**
+ * Resource-loader serving a jar nested as a STORED entry of another jar, straight from a memory-mapped
+ * view of the outer jar.
+ *
+ * <p>Nothing is extracted to disk, and since the mapping is backed by the page cache, multiple processes
+ * booting the same uberjar share its pages. Nested jars stored DEFLATED cannot be addressed in place, so
+ * {@link #forEntry(File, String, String)} returns <code>null</code> for them and callers fall back to
+ * extraction.</p>
+ *
+ * <p>May be disabled by setting <code>swarm.io.mapped</code> to <code>false</code>.</p>
+ */
+public class MappedJarResourceLoader extends AbstractResourceLoader implements IterableResourceLoader {
+
+    public static final String MAPPED_PROPERTY = "swarm.io.mapped";
+
+    private MappedJarResourceLoader(String rootName, MappedZip zip, URL rootUrl) {
+        this.rootName = rootName;
+        this.zip = zip;
+        this.rootUrl = rootUrl;
+        this.codeSource = new CodeSource(rootUrl, (CodeSigner[]) null);
+    }
+
+    public static boolean isEnabled() {
+        return BootstrapProperties.flagIsSet(MAPPED_PROPERTY, true);
+    }
+
+    /**
+     * Determine if the named entry of a jar could be served in place.
+     *
+     * @param outer     The outer jar.
+     * @param entryName The name of the nested jar entry.
+     * @return <code>true</code> if {@link #forEntry(File, String, String)} would succeed for the entry.
+     */
+    public static boolean canServe(File outer, String entryName) {
+        if (!isEnabled()) {
+            return false;
+        }
+        try {
+            MappedZip.Entry entry = MappedZip.map(outer).getEntry(entryName);
+            return entry != null && entry.getMethod() == MappedZip.STORED;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Create a loader for a jar nested within another jar.
+     *
+     * @param outer     The outer jar.
+     * @param entryName The name of the nested jar entry.
+     * @param rootName  The name of the resource root.
+     * @return The loader, or <code>null</code> if the entry is absent or cannot be served in place.
+     */
+    public static MappedJarResourceLoader forEntry(File outer, String entryName, String rootName) {
+        if (!isEnabled()) {
+            return null;
+        }
+        try {
+            MappedZip outerZip = MappedZip.map(outer);
+            MappedZip.Entry entry = outerZip.getEntry(entryName);
+            if (entry == null || entry.getMethod() != MappedZip.STORED) {
+                return null;
+            }
+            URL rootUrl = new URL("jar:" + outer.toURI().toURL().toExternalForm() + "!/" + entryName);
+            return new MappedJarResourceLoader(rootName, outerZip.nested(entry), rootUrl);
+        } catch (ZipException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("unable to map " + entryName + " from " + outer + ": " + e.getMessage());
+            }
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public String getRootName() {
+        return this.rootName;
+    }
+
+    @Override
+    public ClassSpec getClassSpec(String fileName) throws IOException {
+        MappedZip.Entry entry = this.zip.getEntry(fileName);
+        if (entry == null) {
+            return null;
+        }
+        ClassSpec spec = new ClassSpec();
+        spec.setBytes(this.zip.readBytes(entry));
+        spec.setCodeSource(this.codeSource);
+        return spec;
+    }
+
+    @Override
+    public PackageSpec getPackageSpec(String name) throws IOException {
+        return getPackageSpec(name, getManifest(), this.rootUrl);
+    }
+
+    @Override
+    public Resource getResource(String name) {
+        String canonical = name.startsWith("/") ? name.substring(1) : name;
+        MappedZip.Entry entry = this.zip.getEntry(canonical);
+        if (entry == null) {
+            return null;
+        }
+        return new MappedResource(entry);
+    }
+
+    @Override
+    public Iterator<Resource> iterateResources(String startPath, boolean recursive) {
+        String prefix = startPath.startsWith("/") ? startPath.substring(1) : startPath;
+        if (!prefix.isEmpty() && !prefix.endsWith("/")) {
+            prefix = prefix + "/";
+        }
+        Set<Resource> resources = new LinkedHashSet<>();
+        for (MappedZip.Entry each : this.zip.entries()) {
+            if (each.isDirectory() || !each.getName().startsWith(prefix)) {
+                continue;
+            }
+            if (!recursive && each.getName().indexOf('/', prefix.length()) >= 0) {
+                continue;
+            }
+            resources.add(new MappedResource(each));
+        }
+        return resources.iterator();
+    }
+
+    @Override
+    public Collection<String> getPaths() {
+        Set<String> paths = new LinkedHashSet<>();
+        paths.add("");
+        for (MappedZip.Entry each : this.zip.entries()) {
+            String name = each.getName();
+            int slashLoc = name.lastIndexOf('/');
+            if (slashLoc <= 0) {
+                continue;
+            }
+            String path = name.substring(0, slashLoc);
+            if (!path.endsWith("/")) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    private synchronized Manifest getManifest() throws IOException {
+        if (this.manifest == null) {
+            MappedZip.Entry entry = this.zip.getEntry(JarFile.MANIFEST_NAME);
+            if (entry == null) {
+                return null;
+            }
+            this.manifest = new Manifest(new ByteArrayInputStream(this.zip.readBytes(entry)));
+        }
+        return this.manifest;
+    }
+
+    private static final BootstrapLogger LOG = BootstrapLogger.logger("org.wildfly.swarm.modules.mapped");
+
+    private final String rootName;
+
+    private final MappedZip zip;
+
+    private final URL rootUrl;
+
+    private final CodeSource codeSource;
+
+    private Manifest manifest;
+
+    private class MappedResource implements Resource {
+
+        MappedResource(MappedZip.Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public String getName() {
+            return this.entry.getName();
+        }
+
+        @Override
+        public URL getURL() {
+            try {
+                return new URL(null, rootUrl.toExternalForm() + "!/" + this.entry.getName(), new URLStreamHandler() {
+                    @Override
+                    protected URLConnection openConnection(URL url) {
+                        return new URLConnection(url) {
+                            @Override
+                            public void connect() {
+                            }
+
+                            @Override
+                            public InputStream getInputStream() throws IOException {
+                                return openStream();
+                            }
+
+                            @Override
+                            public long getContentLengthLong() {
+                                return getSize();
+                            }
+                        };
+                    }
+                });
+            } catch (MalformedURLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return zip.openStream(this.entry);
+        }
+
+        @Override
+        public long getSize() {
+            return this.entry.getSize();
+        }
+
+        private final MappedZip.Entry entry;
+    }
+}
@@ -0,0 +1,331 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Read-only view of a zip archive held in a {@link ByteBuffer}.
+ *
+ * <p>Top-level archives are memory-mapped once and shared; archives nested as STORED entries are
+ * exposed as slices of their parent's buffer, so their contents are read straight from the page cache
+ * without being copied or extracted. DEFLATED entries are inflated from the mapped bytes on demand.</p>
+ *
+ * <p>Only what the bootstrap needs is supported: no ZIP64, no encryption, no multi-disk archives.
+ * Anything else raises a {@link ZipException} so callers can fall back to extraction.</p>
+ */
+final class MappedZip {
+
+    static final int STORED = 0;
+
+    static final int DEFLATED = 8;
+
+    private static final int LOC_SIG = 0x04034b50;
+
+    private static final int CEN_SIG = 0x02014b50;
+
+    private static final int END_SIG = 0x06054b50;
+
+    private static final int LOC_HEADER = 30;
+
+    private static final int CEN_HEADER = 46;
+
+    private static final int END_HEADER = 22;
+
+    private static final int MAX_COMMENT = 0xFFFF;
+
+    private static final Map<String, MappedZip> MAPPED = new ConcurrentHashMap<>();
+
+    private MappedZip(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        this.entries = Collections.unmodifiableMap(readCentralDirectory());
+    }
+
+    static MappedZip map(File file) throws IOException {
+        String key = file.getCanonicalPath();
+        MappedZip zip = MAPPED.get(key);
+        if (zip == null) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new ZipException("Archive too large to map: " + file);
+                }
+                zip = new MappedZip(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+            MappedZip existing = MAPPED.putIfAbsent(key, zip);
+            if (existing != null) {
+                zip = existing;
+            }
+        }
+        return zip;
+    }
+
+    MappedZip nested(Entry entry) throws IOException {
+        if (entry.method != STORED) {
+            throw new ZipException("Nested archive is not STORED: " + entry.name);
+        }
+        return new MappedZip(data(entry));
+    }
+
+    Entry getEntry(String name) {
+        return this.entries.get(name);
+    }
+
+    Collection<Entry> entries() {
+        return this.entries.values();
+    }
+
+    byte[] readBytes(Entry entry) throws IOException {
+        ByteBuffer data = data(entry);
+        byte[] bytes = new byte[(int) entry.size];
+        if (entry.method == STORED) {
+            data.get(bytes);
+            return bytes;
+        }
+        // the inflater requires an extra dummy byte when running without the zlib wrapper
+        byte[] compressed = new byte[data.remaining() + 1];
+        data.get(compressed, 0, compressed.length - 1);
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            int read = 0;
+            while (read < bytes.length && !inflater.finished()) {
+                int n = inflater.inflate(bytes, read, bytes.length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != bytes.length) {
+                throw new ZipException("Truncated entry: " + entry.name);
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt entry: " + entry.name + ": " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        return bytes;
+    }
+
+    InputStream openStream(Entry entry) throws IOException {
+        InputStream in = new BufferInputStream(data(entry), entry.method == DEFLATED);
+        if (entry.method == STORED) {
+            return in;
+        }
+        Inflater inflater = new Inflater(true);
+        return new InflaterInputStream(in, inflater) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                inflater.end();
+            }
+        };
+    }
+
+    private ByteBuffer data(Entry entry) throws IOException {
+        if (entry.method != STORED && entry.method != DEFLATED) {
+            throw new ZipException("Unsupported compression method " + entry.method + ": " + entry.name);
+        }
+        int loc = (int) entry.localHeaderOffset;
+        if (this.buffer.getInt(loc) != LOC_SIG) {
+            throw new ZipException("Invalid local header: " + entry.name);
+        }
+        int start = loc + LOC_HEADER + u16(loc + 26) + u16(loc + 28);
+        ByteBuffer data = this.buffer.duplicate();
+        data.position(start);
+        data.limit(start + (int) entry.compressedSize);
+        return data.slice();
+    }
+
+    private Map<String, Entry> readCentralDirectory() throws IOException {
+        int end = findEnd();
+        int total = u16(end + 10);
+        long size = u32(end + 12);
+        long offset = u32(end + 16);
+        if (total == 0xFFFF || size == 0xFFFFFFFFL || offset == 0xFFFFFFFFL) {
+            throw new ZipException("ZIP64 archives are not supported");
+        }
+        // tolerate data prepended to the archive, such as the launch script of executable uberjars
+        int cen = end - (int) size;
+        long prefix = cen - offset;
+        if (prefix < 0) {
+            throw new ZipException("Invalid central directory offset");
+        }
+
+        Map<String, Entry> result = new LinkedHashMap<>(total * 2);
+        int pos = cen;
+        for (int i = 0; i < total; ++i) {
+            if (this.buffer.getInt(pos) != CEN_SIG) {
+                throw new ZipException("Invalid central directory header");
+            }
+            if ((u16(pos + 8) & 1) != 0) {
+                throw new ZipException("Encrypted entries are not supported");
+            }
+            int nameLength = u16(pos + 28);
+            byte[] name = new byte[nameLength];
+            ByteBuffer nameBuffer = this.buffer.duplicate();
+            nameBuffer.position(pos + CEN_HEADER);
+            nameBuffer.get(name);
+
+            Entry entry = new Entry(
+                    new String(name, StandardCharsets.UTF_8),
+                    u16(pos + 10),
+                    u32(pos + 16),
+                    u32(pos + 20),
+                    u32(pos + 24),
+                    u32(pos + 42) + prefix);
+            result.put(entry.name, entry);
+
+            pos += CEN_HEADER + nameLength + u16(pos + 30) + u16(pos + 32);
+        }
+        return result;
+    }
+
+    private int findEnd() throws IOException {
+        int limit = Math.max(0, this.buffer.limit() - END_HEADER - MAX_COMMENT);
+        for (int pos = this.buffer.limit() - END_HEADER; pos >= limit; --pos) {
+            if (this.buffer.getInt(pos) == END_SIG && pos + END_HEADER + u16(pos + 20) == this.buffer.limit()) {
+                return pos;
+            }
+        }
+        throw new ZipException("End of central directory not found");
+    }
+
+    private int u16(int pos) {
+        return this.buffer.getShort(pos) & 0xFFFF;
+    }
+
+    private long u32(int pos) {
+        return this.buffer.getInt(pos) & 0xFFFFFFFFL;
+    }
+
+    private final ByteBuffer buffer;
+
+    private final Map<String, Entry> entries;
+
+    static final class Entry {
+
+        Entry(String name, int method, long crc, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        String getName() {
+            return this.name;
+        }
+
+        int getMethod() {
+            return this.method;
+        }
+
+        long getCrc() {
+            return this.crc;
+        }
+
+        long getSize() {
+            return this.size;
+        }
+
+        boolean isDirectory() {
+            return this.name.endsWith("/");
+        }
+
+        private final String name;
+
+        private final int method;
+
+        private final long crc;
+
+        private final long compressedSize;
+
+        private final long size;
+
+        private final long localHeaderOffset;
+    }
+
+    private static final class BufferInputStream extends InputStream {
+
+        BufferInputStream(ByteBuffer buffer, boolean dummyByte) {
+            this.buffer = buffer;
+            this.dummyByte = dummyByte;
+        }
+
+        @Override
+        public int read() {
+            if (this.buffer.hasRemaining()) {
+                return this.buffer.get() & 0xFF;
+            }
+            if (this.dummyByte) {
+                this.dummyByte = false;
+                return 0;
+            }
+            return -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!this.buffer.hasRemaining()) {
+                int c = read();
+                if (c < 0) {
+                    return -1;
+                }
+                b[off] = (byte) c;
+                return 1;
+            }
+            int n = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.min(n, this.buffer.remaining());
+            this.buffer.position(this.buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+
+        private final ByteBuffer buffer;
+
+        private boolean dummyByte;
+    }
+}
@@ -30,7 +30,7 @@ public class MavenResolvers {
 
     private static BootstrapLogger LOGGER = BootstrapLogger.logger("org.wildfly.swarm.bootstrap");
 
-    public static synchronized MavenResolver get() {
+    public static MavenResolver get() {
         return INSTANCE;
     }
 
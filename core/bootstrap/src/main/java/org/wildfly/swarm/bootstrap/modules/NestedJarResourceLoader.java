@@ -17,17 +17,18 @@ package org.wildfly.swarm.bootstrap.modules;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -35,9 +36,10 @@ import java.util.jar.JarFile;
 import org.jboss.modules.AbstractResourceLoader;
 import org.jboss.modules.ResourceLoader;
 import org.jboss.modules.ResourceLoaders;
+import org.wildfly.swarm.bootstrap.env.ApplicationEnvironment;
+import org.wildfly.swarm.bootstrap.env.BootIndex;
 import org.wildfly.swarm.bootstrap.performance.Performance;
-import org.wildfly.swarm.bootstrap.util.BootstrapUtil;
-import org.wildfly.swarm.bootstrap.util.TempFileManager;
+import org.wildfly.swarm.bootstrap.util.ExplodedJarCache;
 
 /**
  * @author Bob McWhirter
@@ -66,12 +68,22 @@ public class NestedJarResourceLoader {
                     if (explosionNotRequired.contains(jarPath)) {
                         return false;
                     }
-                    try (JarFile jarFile = new JarFile(jarPath)) {
+                    Optional<BootIndex> index = ApplicationEnvironment.get().bootIndex();
+                    if (index.isPresent() && jarPath.equals(index.get().getSource()) && !index.get().isExplosionRequired()) {
+                        explosionNotRequired.add(jarPath);
+                        return false;
+                    }
+                    File jar = new File(jarPath);
+                    try (JarFile jarFile = new JarFile(jar)) {
                         Enumeration<JarEntry> entries = jarFile.entries();
                         while (entries.hasMoreElements()) {
                             JarEntry each = entries.nextElement();
                             if (!each.isDirectory()) {
                                 if (each.getName().startsWith("modules") && !each.getName().endsWith("/module.xml")) {
+                                    // STORED jars are served in place by loaderFor(), no need to explode for them
+                                    if (isArchive(each.getName()) && MappedJarResourceLoader.canServe(jar, each.getName())) {
+                                        continue;
+                                    }
                                     return true;
                                 }
                             }
@@ -103,19 +115,8 @@ public class NestedJarResourceLoader {
                     File exp = exploded.get(jarPath);
                     if (exp == null) {
                         try (AutoCloseable explodingHandle = Performance.accumulate("Exploding JAR")) {
-                            exp = TempFileManager.INSTANCE.newTempDirectory("module-jar", ".jar_d");
                             try (JarFile jarFile = new JarFile(jarPath)) {
-                                Enumeration<JarEntry> entries = jarFile.entries();
-                                while (entries.hasMoreElements()) {
-                                    JarEntry each = entries.nextElement();
-                                    if (!each.isDirectory()) {
-                                        File out = new File(exp, each.getName());
-                                        out.getParentFile().mkdirs();
-                                        InputStream in = jarFile.getInputStream(each);
-                                        Files.copy(in, out.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                                        in.close();
-                                    }
-                                }
+                                exp = ExplodedJarCache.INSTANCE.explode(jarFile, "", "module-jar", ".jar_d");
                             }
                             exploded.put(jarPath, exp);
                         }
@@ -137,10 +138,25 @@ public class NestedJarResourceLoader {
     }
 
     public static ResourceLoader loaderFor(URL base, String rootPath, String loaderPath, String loaderName) throws IOException {
-        Path exp = explodedJar(base);
-
         String urlString = base.toExternalForm();
 
+        if (urlString.startsWith("jar:file:") && isArchive(loaderPath)) {
+            int endLoc = urlString.indexOf(JAR_SUFFIX);
+            if (endLoc > 0) {
+                String jarPath = URLDecoder.decode(urlString.substring(9, endLoc + 4), StandardCharsets.UTF_8.name());
+                String entryName = urlString.substring(endLoc + JAR_SUFFIX.length());
+                if (entryName.startsWith("/")) {
+                    entryName = entryName.substring(1);
+                }
+                ResourceLoader mapped = MappedJarResourceLoader.forEntry(new File(jarPath), normalize(entryName + loaderPath), loaderName);
+                if (mapped != null) {
+                    return mapped;
+                }
+            }
+        }
+
+        Path exp = explodedJar(base);
+
         if (exp != null) {
             int endLoc = urlString.indexOf(JAR_SUFFIX);
             if (endLoc > 0) {
@@ -149,9 +165,8 @@ public class NestedJarResourceLoader {
                     final File file = resourceRoot.toFile();
                     final JarFile jarFile = new JarFile(file);
 
-                    File tmpDir = TempFileManager.INSTANCE.newTempDirectory("nestedjarloader", null);
                     //Explode jar due to some issues in Windows on stopping (JarFiles cannot be deleted)
-                    BootstrapUtil.explodeJar(jarFile, tmpDir.getAbsolutePath());
+                    File tmpDir = ExplodedJarCache.INSTANCE.explode(jarFile, loaderPath, "nestedjarloader", null);
 
                     jarFile.close();
 
@@ -165,9 +180,8 @@ public class NestedJarResourceLoader {
                 final File file = new File(urlString.substring(5), loaderPath);
                 final JarFile jarFile = new JarFile(file);
 
-                File tmpDir = TempFileManager.INSTANCE.newTempDirectory("nestedjarloader", null);
                 //Explode jar due to some issues in Windows on stopping (JarFiles cannot be deleted)
-                BootstrapUtil.explodeJar(jarFile, tmpDir.getAbsolutePath());
+                File tmpDir = ExplodedJarCache.INSTANCE.explode(jarFile, loaderPath, "nestedjarloader", null);
 
                 jarFile.close();
 
@@ -186,6 +200,25 @@ public class NestedJarResourceLoader {
         throw new IllegalArgumentException("Illegal module loader base: " + base + " // " + loaderPath + " // " + loaderName);
     }
 
+    private static boolean isArchive(String path) {
+        return path.endsWith(".jar") || path.endsWith(".war");
+    }
+
+    private static String normalize(String entryName) {
+        Deque<String> segments = new ArrayDeque<>();
+        for (String each : entryName.split("/")) {
+            if (each.isEmpty() || ".".equals(each)) {
+                continue;
+            }
+            if ("..".equals(each)) {
+                segments.pollLast();
+            } else {
+                segments.addLast(each);
+            }
+        }
+        return String.join("/", segments);
+    }
+
     private static Map<String, File> exploded = new HashMap<>();
 
     private static Set<String> explosionNotRequired = new HashSet<>();
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
+
+/**
+ * Resolves module artifacts, optionally in parallel on a bounded fork-join pool.
+ *
+ * <p>Parallel resolution is enabled with <code>swarm.bootstrap.parallel</code>; the pool size defaults to
+ * the number of available processors, capped at 8, and may be set with <code>swarm.bootstrap.parallelism</code>.
+ * Results are always returned in input order, so the resource roots of a module do not depend on
+ * which resolution finished first.</p>
+ */
+public final class ParallelResolution {
+
+    public static final String PARALLEL_PROPERTY = "swarm.bootstrap.parallel";
+
+    public static final String PARALLELISM_PROPERTY = "swarm.bootstrap.parallelism";
+
+    private static final int MAX_DEFAULT_PARALLELISM = 8;
+
+    private ParallelResolution() {
+    }
+
+    public static boolean isEnabled() {
+        return BootstrapProperties.flagIsSet(PARALLEL_PROPERTY);
+    }
+
+    /**
+     * Apply a resolution to each input, preserving order.
+     *
+     * @param inputs     The inputs to resolve.
+     * @param resolution The resolution to apply.
+     * @param <T>        The input type.
+     * @param <R>        The result type.
+     * @return The results, in the same order as the inputs.
+     * @throws IOException If any resolution fails.
+     */
+    public static <T, R> List<R> resolveAll(List<T> inputs, Resolution<T, R> resolution) throws IOException {
+        List<R> results = new ArrayList<>(inputs.size());
+
+        if (!isEnabled() || inputs.size() < 2) {
+            for (T each : inputs) {
+                results.add(resolution.resolve(each));
+            }
+            return results;
+        }
+
+        ForkJoinPool pool = pool();
+        List<ForkJoinTask<R>> tasks = new ArrayList<>(inputs.size());
+        for (T each : inputs) {
+            tasks.add(pool.submit(() -> {
+                try {
+                    return resolution.resolve(each);
+                } catch (IOException e) {
+                    throw new ResolutionException(e);
+                }
+            }));
+        }
+
+        for (ForkJoinTask<R> each : tasks) {
+            try {
+                results.add(each.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof ResolutionException) {
+                    throw (IOException) cause.getCause();
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
+
+        return results;
+    }
+
+    private static synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            int parallelism = Integer.getInteger(PARALLELISM_PROPERTY,
+                                                 Math.min(Runtime.getRuntime().availableProcessors(), MAX_DEFAULT_PARALLELISM));
+            pool = new ForkJoinPool(Math.max(1, parallelism));
+        }
+        return pool;
+    }
+
+    private static ForkJoinPool pool;
+
+    @FunctionalInterface
+    public interface Resolution<T, R> {
+        R resolve(T input) throws IOException;
+    }
+
+    private static final class ResolutionException extends RuntimeException {
+        ResolutionException(IOException cause) {
+            super(cause);
+        }
+    }
+}
@@ -18,6 +18,10 @@ package org.wildfly.swarm.bootstrap.modules;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.Map;
@@ -51,24 +55,69 @@ public class UberJarMavenResolver implements MavenResolver {
 
         File resolved = this.resolutionCache.get(coordinates);
         if (resolved == null) {
-
-            String artifactRelativePath = "m2repo/" + relativeArtifactPath('/', coordinates.getGroupId(), coordinates.getArtifactId(), coordinates.getVersion());
-            String classifier = "";
-            if (coordinates.getClassifier() != null && !coordinates.getClassifier().trim().isEmpty()) {
-                classifier = HYPHEN + coordinates.getClassifier();
+            // resolution may run on several threads, make sure each artifact is only copied once
+            try {
+                resolved = this.resolutionCache.computeIfAbsent(coordinates, (c) -> {
+                    try {
+                        return copyFromUberJar(c, packaging);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
             }
+        }
 
-            String jarPath = artifactRelativePath + classifier + DOT + packaging;
+        return resolved;
+    }
 
-            InputStream stream = UberJarMavenResolver.class.getClassLoader().getResourceAsStream(jarPath);
+    private static File copyFromUberJar(ArtifactCoordinates coordinates, String packaging) throws IOException {
+        String jarPath = uberJarPath(coordinates, packaging);
 
-            if (stream != null) {
-                resolved = copyTempJar(coordinates.getArtifactId() + HYPHEN + coordinates.getVersion(), stream, packaging);
-                this.resolutionCache.put(coordinates, resolved);
+        try (InputStream stream = UberJarMavenResolver.class.getClassLoader().getResourceAsStream(jarPath)) {
+            if (stream == null) {
+                return null;
             }
+            return copyTempJar(coordinates.getArtifactId() + HYPHEN + coordinates.getVersion(), stream, packaging);
         }
+    }
 
-        return resolved;
+    /**
+     * Create a loader serving an artifact in place from the uberjar, without copying it out.
+     *
+     * @param coordinates The artifact coordinates.
+     * @param packaging   The artifact packaging.
+     * @return The loader, or <code>null</code> if the artifact is not bundled or cannot be served in place.
+     * @throws IOException If the uberjar location cannot be determined.
+     */
+    public static MappedJarResourceLoader mappedLoader(ArtifactCoordinates coordinates, String packaging) throws IOException {
+        if (!MappedJarResourceLoader.isEnabled()) {
+            return null;
+        }
+        String jarPath = uberJarPath(coordinates, packaging);
+        URL url = UberJarMavenResolver.class.getClassLoader().getResource(jarPath);
+        if (url == null) {
+            return null;
+        }
+        String urlString = url.toExternalForm();
+        int endLoc = urlString.indexOf("!/");
+        if (!urlString.startsWith("jar:file:") || endLoc < 0) {
+            return null;
+        }
+        File uberJar = new File(URLDecoder.decode(urlString.substring(9, endLoc), StandardCharsets.UTF_8.name()));
+        String name = coordinates.getArtifactId() + HYPHEN + coordinates.getVersion() + DOT + packaging;
+        return MappedJarResourceLoader.forEntry(uberJar, urlString.substring(endLoc + 2), name);
+    }
+
+    private static String uberJarPath(ArtifactCoordinates coordinates, String packaging) {
+        String artifactRelativePath = "m2repo/" + relativeArtifactPath('/', coordinates.getGroupId(), coordinates.getArtifactId(), coordinates.getVersion());
+        String classifier = "";
+        if (coordinates.getClassifier() != null && !coordinates.getClassifier().trim().isEmpty()) {
+            classifier = HYPHEN + coordinates.getClassifier();
+        }
+
+        return artifactRelativePath + classifier + DOT + packaging;
     }
 
     static String relativeArtifactPath(char separator, String groupId, String artifactId, String version) {
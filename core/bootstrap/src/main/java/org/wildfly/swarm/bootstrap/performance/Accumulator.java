@@ -15,9 +15,7 @@
  */
 package org.wildfly.swarm.bootstrap.performance;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Bob McWhirter
@@ -26,23 +24,36 @@ public class Accumulator {
 
     private final String description;
 
-    private List<TimedEvent> children = new ArrayList<>();
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAdder count = new LongAdder();
 
     Accumulator(String description) {
         this.description = description;
     }
 
-    TimedEvent newChild() {
-        TimedEvent event = new TimedEvent();
-        this.children.add(event);
-        return event;
+    AutoCloseable newChild() {
+        long start = System.nanoTime();
+        return () -> {
+            this.totalNanos.add(System.nanoTime() - start);
+            this.count.increment();
+        };
+    }
+
+    String description() {
+        return this.description;
     }
 
-    public void dump(long l, StringBuilder str) {
-        long ms = this.children.stream()
-                .collect(Collectors.summingLong(e -> e.durationMs()));
+    long totalNanos() {
+        return this.totalNanos.sum();
+    }
+
+    long count() {
+        return this.count.sum();
+    }
 
-        str.append(String.format("%-80s...%s", this.description, Performance.formatTime(ms)));
+    public void dump(long totalTime, StringBuilder str) {
+        str.append(String.format("%-80s...%s (%d)", this.description, Performance.formatTime(totalNanos()), count()));
         str.append("\n");
     }
 }
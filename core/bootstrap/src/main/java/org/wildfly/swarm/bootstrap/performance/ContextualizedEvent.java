@@ -15,40 +15,61 @@
  */
 package org.wildfly.swarm.bootstrap.performance;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
+ * A timed event nested within the events open on the same thread.
+ *
  * @author Bob McWhirter
  */
 public class ContextualizedEvent implements AutoCloseable {
 
-    ContextualizedEvent(String description) {
+    ContextualizedEvent(String description, Thread thread) {
         this.description = description;
+        this.threadId = thread.getId();
+        this.threadName = thread.getName();
         this.event = new TimedEvent();
     }
 
     @Override
-    public void close() throws Exception {
+    public void close() {
         this.event.close();
-        Performance.CONTEXT_STACK.pop();
-        if (Performance.CONTEXT_STACK.isEmpty()) {
-            Performance.TOTAL_MEASURED_TIME.addAndGet(this.event.durationMs());
-        }
+        Performance.closed(this);
     }
 
-    ContextualizedEvent newChild(String description) {
-        ContextualizedEvent child = new ContextualizedEvent(description);
+    ContextualizedEvent newChild(String description, Thread thread) {
+        ContextualizedEvent child = new ContextualizedEvent(description, thread);
         this.children.add(child);
         return child;
     }
 
+    String description() {
+        return this.description;
+    }
+
+    long threadId() {
+        return this.threadId;
+    }
+
+    String threadName() {
+        return this.threadName;
+    }
+
+    TimedEvent event() {
+        return this.event;
+    }
+
+    Collection<ContextualizedEvent> children() {
+        return this.children;
+    }
+
     public void dump(String indent, long totalTime, StringBuilder str) {
 
-        double percentage = (((double) this.event.durationMs() / (double) totalTime) * 100);
+        double percentage = (((double) this.event.durationNanos() / (double) totalTime) * 100);
         String descFormat = "%-" + (80 - indent.length()) + "s";
         str.append(indent);
-        str.append(String.format(descFormat + "...%s (%6.2f%%)", this.description, Performance.formatTime(this.event.durationMs()), percentage));
+        str.append(String.format(descFormat + "...%s (%6.2f%%)", this.description, Performance.formatTime(this.event.durationNanos()), percentage));
         str.append("\n");
 
         this.children.forEach(e -> {
@@ -58,8 +79,12 @@ public class ContextualizedEvent implements AutoCloseable {
 
     private final String description;
 
+    private final long threadId;
+
+    private final String threadName;
+
     private final TimedEvent event;
 
-    private List<ContextualizedEvent> children = new ArrayList<>();
+    private final Collection<ContextualizedEvent> children = new ConcurrentLinkedQueue<>();
 
 }
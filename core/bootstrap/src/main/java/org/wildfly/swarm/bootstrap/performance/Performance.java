@@ -15,36 +15,75 @@
  */
 package org.wildfly.swarm.bootstrap.performance;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.Map;
-import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
+
 /**
+ * Records timed boot phases.
+ *
+ * <p>Each thread nests its own events, so concurrent work is attributed correctly. Times are measured
+ * in nanoseconds. Recording may be disabled with <code>swarm.bootstrap.profile=false</code>, in which
+ * case {@link #time(String)} and {@link #accumulate(String)} return a shared no-op handle.</p>
+ *
+ * <p>Besides the text {@link #dump()}, the recorded events may be exported as JSON ({@link #dumpJson()})
+ * or in the Chrome trace-event format ({@link #dumpTraceEvents()}), loadable in <code>chrome://tracing</code>
+ * for flame-chart analysis. If <code>swarm.bootstrap.profile.output</code> names a file, {@link #export()}
+ * writes to it, in the format given by <code>swarm.bootstrap.profile.format</code>
+ * (<code>trace</code>, the default, or <code>json</code>).</p>
+ *
  * @author Bob McWhirter
  */
 public class Performance {
 
-    private static long START_TIME = -1;
+    public static final String PROFILE_PROPERTY = "swarm.bootstrap.profile";
+
+    public static final String OUTPUT_PROPERTY = "swarm.bootstrap.profile.output";
+
+    public static final String FORMAT_PROPERTY = "swarm.bootstrap.profile.format";
+
+    private static final AutoCloseable NOOP = () -> {
+    };
 
-    static Map<String, Accumulator> ACCUMULATORS = new HashMap<>();
+    private static final boolean ENABLED = BootstrapProperties.flagIsSet(PROFILE_PROPERTY, true);
 
-    static Stack<ContextualizedEvent> CONTEXT_STACK = new Stack<>();
+    private static volatile long START_TIME = -1;
 
-    static List<ContextualizedEvent> ROOT_CONTEXTS = new ArrayList<>();
+    private static final long ORIGIN = System.nanoTime();
 
-    static AtomicLong TOTAL_MEASURED_TIME = new AtomicLong();
+    static final Map<String, Accumulator> ACCUMULATORS = new ConcurrentHashMap<>();
+
+    static final ThreadLocal<Deque<ContextualizedEvent>> CONTEXT_STACK = ThreadLocal.withInitial(ArrayDeque::new);
+
+    static final Collection<ContextualizedEvent> ROOT_CONTEXTS = new ConcurrentLinkedQueue<>();
+
+    static final AtomicLong TOTAL_MEASURED_TIME = new AtomicLong();
 
     private Performance() {
     }
 
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
     public static void start() {
-        START_TIME = System.currentTimeMillis();
+        START_TIME = System.nanoTime();
     }
 
-    static String formatTime(long ms) {
+    static String formatTime(long nanos) {
+        long ms = nanos / 1_000_000;
 
         long s = 0;
         long m = 0;
@@ -58,34 +97,65 @@ public class Performance {
         return String.format("%02d:%02d.%03d", m, s, ms);
     }
 
-    public static synchronized AutoCloseable time(String description) {
+    public static AutoCloseable time(String description) {
+        if (!ENABLED) {
+            return NOOP;
+        }
+
+        Thread thread = Thread.currentThread();
+        Deque<ContextualizedEvent> stack = CONTEXT_STACK.get();
         ContextualizedEvent event = null;
 
-        if (CONTEXT_STACK.isEmpty()) {
-            event = new ContextualizedEvent(description);
+        if (stack.isEmpty()) {
+            event = new ContextualizedEvent(description, thread);
             ROOT_CONTEXTS.add(event);
         } else {
-            event = CONTEXT_STACK.peek().newChild(description);
+            event = stack.peek().newChild(description, thread);
         }
 
-        CONTEXT_STACK.push(event);
+        stack.push(event);
         return event;
     }
 
-    public static synchronized AutoCloseable accumulate(String description) {
+    public static AutoCloseable accumulate(String description) {
+        if (!ENABLED) {
+            return NOOP;
+        }
+
+        // computeIfAbsent() locks the bin even when the key is present, serializing concurrent resolvers
         Accumulator accumulator = ACCUMULATORS.get(description);
         if (accumulator == null) {
-            accumulator = new Accumulator(description);
-            ACCUMULATORS.put(description, accumulator);
+            accumulator = ACCUMULATORS.computeIfAbsent(description, Accumulator::new);
         }
-
         return accumulator.newChild();
     }
 
+    static void closed(ContextualizedEvent event) {
+        Deque<ContextualizedEvent> stack = CONTEXT_STACK.get();
+        // tolerate out-of-order closes rather than corrupting the stack
+        stack.remove(event);
+        if (stack.isEmpty()) {
+            TOTAL_MEASURED_TIME.addAndGet(event.event().durationNanos());
+        }
+    }
+
+    static void reset() {
+        ACCUMULATORS.clear();
+        ROOT_CONTEXTS.clear();
+        CONTEXT_STACK.remove();
+        TOTAL_MEASURED_TIME.set(0);
+        START_TIME = -1;
+    }
+
+    private static long totalTime() {
+        long start = START_TIME;
+        return (start > 0 ? System.nanoTime() - start : TOTAL_MEASURED_TIME.get());
+    }
+
     public static String dump() {
         StringBuilder str = new StringBuilder();
 
-        long totalTime = (START_TIME > 0 ? System.currentTimeMillis() - START_TIME : TOTAL_MEASURED_TIME.get());
+        long totalTime = totalTime();
 
         ROOT_CONTEXTS.forEach(e -> {
             e.dump("", totalTime, str);
@@ -99,4 +169,165 @@ public class Performance {
 
         return str.toString().trim();
     }
+
+    /**
+     * Export the recorded events as a JSON document.
+     *
+     * <p>Events are nested as recorded; times are in nanoseconds relative to the start of recording.</p>
+     *
+     * @return The JSON document.
+     */
+    public static String dumpJson() {
+        StringBuilder str = new StringBuilder();
+        str.append("{\"totalNanos\":").append(totalTime());
+        str.append(",\"events\":[");
+        boolean first = true;
+        for (ContextualizedEvent each : ROOT_CONTEXTS) {
+            if (!first) {
+                str.append(',');
+            }
+            first = false;
+            appendJson(each, str);
+        }
+        str.append("],\"accumulators\":[");
+        first = true;
+        for (Accumulator each : ACCUMULATORS.values()) {
+            if (!first) {
+                str.append(',');
+            }
+            first = false;
+            str.append("{\"name\":");
+            appendString(each.description(), str);
+            str.append(",\"count\":").append(each.count());
+            str.append(",\"durationNanos\":").append(each.totalNanos());
+            str.append('}');
+        }
+        str.append("]}");
+        return str.toString();
+    }
+
+    /**
+     * Export the recorded events in the Chrome trace-event format.
+     *
+     * <p>Each event becomes a complete (<code>X</code>) event on the track of the thread that recorded it;
+     * accumulators, which have no single extent, are reported in the trace metadata.</p>
+     *
+     * @return The trace document.
+     */
+    public static String dumpTraceEvents() {
+        StringBuilder str = new StringBuilder();
+        str.append("{\"traceEvents\":[");
+        boolean[] first = {true};
+        for (ContextualizedEvent each : ROOT_CONTEXTS) {
+            appendTraceEvent(each, str, first);
+        }
+        str.append("],\"displayTimeUnit\":\"ms\",\"otherData\":{");
+        boolean firstAccumulator = true;
+        for (Accumulator each : ACCUMULATORS.values()) {
+            if (!firstAccumulator) {
+                str.append(',');
+            }
+            firstAccumulator = false;
+            appendString(each.description(), str);
+            str.append(':');
+            appendString(formatTime(each.totalNanos()) + " (" + each.count() + ")", str);
+        }
+        str.append("}}");
+        return str.toString();
+    }
+
+    /**
+     * Write the recorded events to the file named by <code>swarm.bootstrap.profile.output</code>, if any.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public static void export() throws IOException {
+        String output = System.getProperty(OUTPUT_PROPERTY);
+        if (!ENABLED || output == null) {
+            return;
+        }
+        String content = "json".equalsIgnoreCase(System.getProperty(FORMAT_PROPERTY)) ? dumpJson() : dumpTraceEvents();
+        Path path = Paths.get(output);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+    }
+
+    private static void appendJson(ContextualizedEvent event, StringBuilder str) {
+        str.append("{\"name\":");
+        appendString(event.description(), str);
+        str.append(",\"thread\":");
+        appendString(event.threadName(), str);
+        str.append(",\"startNanos\":").append(event.event().startNanos() - ORIGIN);
+        str.append(",\"durationNanos\":").append(event.event().durationNanos());
+        if (!event.children().isEmpty()) {
+            str.append(",\"children\":[");
+            boolean first = true;
+            for (ContextualizedEvent each : event.children()) {
+                if (!first) {
+                    str.append(',');
+                }
+                first = false;
+                appendJson(each, str);
+            }
+            str.append(']');
+        }
+        str.append('}');
+    }
+
+    private static void appendTraceEvent(ContextualizedEvent event, StringBuilder str, boolean[] first) {
+        if (!first[0]) {
+            str.append(',');
+        }
+        first[0] = false;
+        str.append("{\"name\":");
+        appendString(event.description(), str);
+        str.append(",\"cat\":\"boot\",\"ph\":\"X\",\"pid\":1,\"tid\":").append(event.threadId());
+        str.append(",\"ts\":").append(micros(event.event().startNanos() - ORIGIN));
+        str.append(",\"dur\":").append(micros(event.event().durationNanos()));
+        str.append(",\"args\":{\"thread\":");
+        appendString(event.threadName(), str);
+        str.append("}}");
+        for (ContextualizedEvent each : event.children()) {
+            appendTraceEvent(each, str, first);
+        }
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%d.%03d", nanos / 1000, nanos % 1000);
+    }
+
+    private static void appendString(String value, StringBuilder str) {
+        str.append('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    str.append("\\\"");
+                    break;
+                case '\\':
+                    str.append("\\\\");
+                    break;
+                case '\n':
+                    str.append("\\n");
+                    break;
+                case '\r':
+                    str.append("\\r");
+                    break;
+                case '\t':
+                    str.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        str.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        str.append(c);
+                    }
+            }
+        }
+        str.append('"');
+    }
 }
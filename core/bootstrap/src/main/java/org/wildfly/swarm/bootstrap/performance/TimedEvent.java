@@ -18,30 +18,34 @@ package org.wildfly.swarm.bootstrap.performance;
 /**
  * @author Bob McWhirter
  */
-class TimedEvent implements AutoCloseable {
+class TimedEvent {
 
     private final long start;
 
-    private long stop = -1;
+    private volatile long stop = -1;
 
     TimedEvent() {
-        this.start = System.currentTimeMillis();
+        this.start = System.nanoTime();
     }
 
     boolean isOpen() {
         return this.stop < 0;
     }
 
-    @Override
-    public void close() throws Exception {
-        this.stop = System.currentTimeMillis();
+    void close() {
+        this.stop = System.nanoTime();
     }
 
-    long durationMs() {
-        if (this.stop < 0) {
-            return System.currentTimeMillis() - this.start;
+    long startNanos() {
+        return this.start;
+    }
+
+    long durationNanos() {
+        long stop = this.stop;
+        if (stop < 0) {
+            return System.nanoTime() - this.start;
         }
 
-        return this.stop - this.start;
+        return stop - this.start;
     }
 }
@@ -0,0 +1,350 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.wildfly.swarm.bootstrap.logging.BootstrapLogger;
+
+/**
+ * Persistent, content-addressed cache of exploded jars.
+ *
+ * <p>Disabled unless <code>swarm.io.cachedir</code> is set. Each exploded jar is stored under a key derived
+ * from the jar's central directory (entry names, sizes, CRCs and times) plus the path of the entry being
+ * exploded, so a cache directory may safely be shared between restarts and between different uberjars.
+ * Cached directories are verified against the central directory before reuse and evicted least-recently-used
+ * first once the cache grows beyond <code>swarm.io.cachedir.maxsize</code> bytes. A process holds a shared
+ * lock on a <code>.lock</code> file beside each directory it hands out until it exits, as its resource
+ * loaders may still be reading them; eviction skips any directory whose lock it cannot take exclusively,
+ * so processes running concurrently from the same cache directory do not evict each other's jars. The
+ * lock files themselves are kept, so that a lease is never taken on a file that has just been deleted.</p>
+ *
+ * <p>When disabled, jars are exploded into directories managed by {@link TempFileManager}, as before.</p>
+ */
+public class ExplodedJarCache {
+
+    public static final String CACHE_DIR_PROPERTY = "swarm.io.cachedir";
+
+    public static final String MAX_SIZE_PROPERTY = "swarm.io.cachedir.maxsize";
+
+    public static final long DEFAULT_MAX_SIZE = 2L * 1024 * 1024 * 1024;
+
+    public static final ExplodedJarCache INSTANCE = new ExplodedJarCache(
+            System.getProperty(CACHE_DIR_PROPERTY) == null ? null : new File(System.getProperty(CACHE_DIR_PROPERTY)),
+            Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE)
+    );
+
+    private static final String COMPLETE_SUFFIX = ".complete";
+
+    private static final String PARTIAL_SUFFIX = ".partial";
+
+    private static final String LOCK_SUFFIX = ".lock";
+
+    ExplodedJarCache(File cacheDir, long maxSize) {
+        this.cacheDir = cacheDir;
+        this.maxSize = maxSize;
+    }
+
+    public boolean isEnabled() {
+        return this.cacheDir != null;
+    }
+
+    /**
+     * Explode a jar, reusing a previously cached copy if one exists.
+     *
+     * @param jarFile   The jar to explode.
+     * @param entryPath The path identifying the jar within its source (empty for top-level jars).
+     * @param base      The temporary directory prefix to use when caching is disabled.
+     * @param ext       The temporary directory suffix to use when caching is disabled.
+     * @return The directory containing the exploded jar.
+     * @throws IOException If the jar cannot be exploded.
+     */
+    public File explode(JarFile jarFile, String entryPath, String base, String ext) throws IOException {
+        if (!isEnabled()) {
+            File tmpDir = TempFileManager.INSTANCE.newTempDirectory(base, ext);
+            BootstrapUtil.explodeJar(jarFile, tmpDir.getAbsolutePath());
+            return tmpDir;
+        }
+
+        Files.createDirectories(this.cacheDir.toPath());
+
+        String key = key(jarFile, entryPath);
+        File dir = new File(this.cacheDir, key);
+        File marker = new File(this.cacheDir, key + COMPLETE_SUFFIX);
+
+        // before looking at the directory, so that no other process evicts it from under us
+        lease(key);
+
+        if (marker.exists()) {
+            if (verify(jarFile, dir)) {
+                marker.setLastModified(System.currentTimeMillis());
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("reusing cached exploded jar " + jarFile.getName() + " at " + dir);
+                }
+                return dir;
+            }
+            LOG.warn("discarding invalid cached exploded jar at " + dir);
+            marker.delete();
+            deleteRecursively(dir);
+        }
+
+        long size = extract(jarFile, key, dir);
+
+        Files.write(marker.toPath(), Long.toString(size).getBytes(StandardCharsets.UTF_8));
+        evict();
+
+        return dir;
+    }
+
+    static String key(JarFile jarFile, String entryPath) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+            JarEntry each = entries.nextElement();
+            digest.update(each.getName().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(longBytes(each.getSize()));
+            digest.update(longBytes(each.getCrc()));
+            digest.update(longBytes(each.getTime()));
+        }
+        digest.update((byte) '!');
+        digest.update(entryPath.getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder str = new StringBuilder();
+        for (byte b : digest.digest()) {
+            str.append(String.format("%02x", b));
+        }
+        return str.toString();
+    }
+
+    private long extract(JarFile jarFile, String key, File dir) throws IOException {
+        File partial = Files.createTempDirectory(this.cacheDir.toPath(), key + PARTIAL_SUFFIX).toFile();
+        long size = 0;
+
+        try {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry each = entries.nextElement();
+                if (each.isDirectory()) {
+                    continue;
+                }
+                File out = new File(partial, each.getName());
+                out.getParentFile().mkdirs();
+                try (InputStream in = jarFile.getInputStream(each)) {
+                    size += Files.copy(in, out.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                if (each.getTime() >= 0) {
+                    out.setLastModified(each.getTime());
+                }
+            }
+
+            try {
+                Files.move(partial.toPath(), dir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | AtomicMoveNotSupportedException e) {
+                // another process populated the same key concurrently, or left an incomplete copy behind
+                if (!verify(jarFile, dir)) {
+                    deleteRecursively(dir);
+                    Files.move(partial.toPath(), dir.toPath());
+                }
+            } catch (IOException e) {
+                if (!dir.isDirectory() || !verify(jarFile, dir)) {
+                    throw e;
+                }
+            }
+        } finally {
+            deleteRecursively(partial);
+        }
+
+        return size;
+    }
+
+    private boolean verify(JarFile jarFile, File dir) {
+        if (!dir.isDirectory()) {
+            return false;
+        }
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+            JarEntry each = entries.nextElement();
+            if (each.isDirectory()) {
+                continue;
+            }
+            File file = new File(dir, each.getName());
+            if (!file.isFile()) {
+                return false;
+            }
+            if (each.getSize() >= 0 && file.length() != each.getSize()) {
+                return false;
+            }
+            // filesystems differ in mtime granularity, so compare whole seconds only
+            if (each.getTime() >= 0 && (file.lastModified() / 1000) != (each.getTime() / 1000)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void lease(String key) throws IOException {
+        File lockFile = new File(this.cacheDir, key + LOCK_SUFFIX);
+        synchronized (LEASES) {
+            if (LEASES.containsKey(lockFile)) {
+                return;
+            }
+            FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                // shared, so that other processes may reuse the same directory; released when the process exits
+                channel.lock(0, Long.MAX_VALUE, true);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            LEASES.put(lockFile, channel);
+            this.leased.add(lockFile);
+        }
+    }
+
+    /**
+     * Release the leases taken by this cache, as exiting the process does.
+     */
+    void release() throws IOException {
+        synchronized (LEASES) {
+            for (File each : this.leased) {
+                LEASES.remove(each).close();
+            }
+            this.leased.clear();
+        }
+    }
+
+    private synchronized void evict() {
+        File[] markers = this.cacheDir.listFiles((d, name) -> name.endsWith(COMPLETE_SUFFIX));
+        if (markers == null) {
+            return;
+        }
+
+        List<File> candidates = new ArrayList<>(Arrays.asList(markers));
+        long total = 0;
+        for (File each : candidates) {
+            total += recordedSize(each);
+        }
+
+        if (total <= this.maxSize) {
+            return;
+        }
+
+        candidates.sort(Comparator.comparingLong(File::lastModified));
+
+        for (File each : candidates) {
+            if (total <= this.maxSize) {
+                break;
+            }
+            String key = each.getName().substring(0, each.getName().length() - COMPLETE_SUFFIX.length());
+            File lockFile = new File(this.cacheDir, key + LOCK_SUFFIX);
+            synchronized (LEASES) {
+                if (LEASES.containsKey(lockFile)) {
+                    continue;
+                }
+                try (FileChannel channel = FileChannel.open(lockFile.toPath(),
+                                                            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                     FileLock lock = channel.tryLock()) {
+                    if (lock == null) {
+                        // in use by another process
+                        continue;
+                    }
+                    long size = recordedSize(each);
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("evicting cached exploded jar " + key);
+                    }
+                    each.delete();
+                    deleteRecursively(new File(this.cacheDir, key));
+                    total -= size;
+                } catch (IOException e) {
+                    // left for a later eviction
+                }
+            }
+        }
+    }
+
+    private static long recordedSize(File marker) {
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(marker.toPath()), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static byte[] longBytes(long value) {
+        byte[] bytes = new byte[8];
+        for (int i = 7; i >= 0; --i) {
+            bytes[i] = (byte) (value & 0xFF);
+            value >>= 8;
+        }
+        return bytes;
+    }
+
+    private static void deleteRecursively(File file) {
+        if (!file.exists()) {
+            return;
+        }
+        if (file.isDirectory()) {
+            File[] files = file.listFiles();
+            if (files != null) {
+                for (File child : files) {
+                    deleteRecursively(child);
+                }
+            }
+        }
+
+        file.delete();
+    }
+
+    private static final BootstrapLogger LOG = BootstrapLogger.logger("org.wildfly.swarm.bootstrap.cache");
+
+    // per process rather than per cache, as closing any channel on a file may release every lock the process holds on it
+    private static final Map<File, FileChannel> LEASES = new HashMap<>();
+
+    private final File cacheDir;
+
+    private final long maxSize;
+
+    private final List<File> leased = new ArrayList<>();
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.env;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class BootIndexTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        String fractionManifest = "groupId: org.wildfly.swarm\n" +
+                "artifactId: undertow\n" +
+                "version: 1.0.0\n" +
+                "module: org.wildfly.swarm.undertow\n";
+
+        BootIndex index = new BootIndex();
+        index.setExplosionRequired(false);
+        index.addArtifact(BootIndex.key("org.wildfly.swarm", "undertow", "1.0", null),
+                          fractionManifest.getBytes(StandardCharsets.UTF_8),
+                          Arrays.asList("modules/org/wildfly/swarm/undertow/main/module.xml",
+                                        "modules/org/wildfly/swarm/undertow/runtime/module.xml"));
+        index.addArtifact(BootIndex.key("org.wildfly.swarm", "spi", "1.0", "tests"),
+                          null,
+                          Collections.emptyList());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.write(out);
+
+        BootIndex read = new BootIndex(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(read.isExplosionRequired()).isFalse();
+
+        String undertow = "org.wildfly.swarm:undertow:1.0";
+        assertThat(read.containsArtifact(undertow)).isTrue();
+        assertThat(read.moduleXmls(undertow)).containsOnly("modules/org/wildfly/swarm/undertow/main/module.xml",
+                                                           "modules/org/wildfly/swarm/undertow/runtime/module.xml");
+        FractionManifest manifest = read.fractionManifest(undertow);
+        assertThat(manifest).isNotNull();
+        assertThat(manifest.getArtifactId()).isEqualTo("undertow");
+        assertThat(manifest.getModule()).isEqualTo("org.wildfly.swarm.undertow");
+
+        String spi = "org.wildfly.swarm:spi:1.0:tests";
+        assertThat(read.containsArtifact(spi)).isTrue();
+        assertThat(read.fractionManifest(spi)).isNull();
+        assertThat(read.moduleXmls(spi)).isEmpty();
+
+        assertThat(read.containsArtifact("org.wildfly.swarm:other:1.0")).isFalse();
+        assertThat(read.moduleXmls("org.wildfly.swarm:other:1.0")).isNull();
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsForeignContent() throws Exception {
+        new BootIndex(new ByteArrayInputStream("not an index".getBytes(StandardCharsets.UTF_8)));
+    }
+}
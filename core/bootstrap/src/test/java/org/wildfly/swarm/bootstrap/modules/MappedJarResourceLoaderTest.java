@@ -0,0 +1,148 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jboss.modules.ClassSpec;
+import org.jboss.modules.Resource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MappedJarResourceLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStoredNestedJarIsServedInPlace() throws Exception {
+        File outer = createOuterJar("outer.jar", ZipEntry.STORED, false);
+
+        MappedJarResourceLoader loader = MappedJarResourceLoader.forEntry(outer, "m2repo/inner.jar", "inner.jar");
+        assertThat(loader).isNotNull();
+        assertThat(loader.getRootName()).isEqualTo("inner.jar");
+
+        Resource resource = loader.getResource("org/test/hello.txt");
+        assertThat(resource).isNotNull();
+        assertThat(resource.getSize()).isEqualTo(5);
+        assertThat(read(resource.openStream())).isEqualTo("hello");
+        assertThat(read(resource.getURL().openStream())).isEqualTo("hello");
+
+        ClassSpec spec = loader.getClassSpec("org/test/Big.class");
+        assertThat(spec).isNotNull();
+        assertThat(new String(spec.getBytes(), StandardCharsets.UTF_8)).isEqualTo(bigContent());
+
+        assertThat(loader.getResource("org/test/missing.txt")).isNull();
+        assertThat(loader.getPaths()).contains("", "org/test");
+    }
+
+    @Test
+    public void testExecutablePrefixIsTolerated() throws Exception {
+        File outer = createOuterJar("outer.jar", ZipEntry.STORED, true);
+
+        MappedJarResourceLoader loader = MappedJarResourceLoader.forEntry(outer, "m2repo/inner.jar", "inner.jar");
+        assertThat(loader).isNotNull();
+        assertThat(read(loader.getResource("org/test/hello.txt").openStream())).isEqualTo("hello");
+    }
+
+    @Test
+    public void testDeflatedNestedJarIsNotServed() throws Exception {
+        File outer = createOuterJar("outer.jar", ZipEntry.DEFLATED, false);
+
+        assertThat(MappedJarResourceLoader.canServe(outer, "m2repo/inner.jar")).isFalse();
+        assertThat(MappedJarResourceLoader.forEntry(outer, "m2repo/inner.jar", "inner.jar")).isNull();
+    }
+
+    private File createOuterJar(String name, int method, boolean prefix) throws IOException {
+        byte[] inner = createInnerJar();
+
+        File outer = new File(folder.getRoot(), name);
+        try (OutputStream fos = new FileOutputStream(outer)) {
+            if (prefix) {
+                fos.write("#!/bin/sh\nexec java -jar $0 \"$@\"\n".getBytes(StandardCharsets.UTF_8));
+            }
+            try (ZipOutputStream out = new ZipOutputStream(fos)) {
+                ZipEntry entry = new ZipEntry("m2repo/inner.jar");
+                entry.setMethod(method);
+                if (method == ZipEntry.STORED) {
+                    CRC32 crc = new CRC32();
+                    crc.update(inner);
+                    entry.setSize(inner.length);
+                    entry.setCompressedSize(inner.length);
+                    entry.setCrc(crc.getValue());
+                }
+                out.putNextEntry(entry);
+                out.write(inner);
+                out.closeEntry();
+            }
+        }
+        return outer;
+    }
+
+    private byte[] createInnerJar() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            byte[] hello = "hello".getBytes(StandardCharsets.UTF_8);
+            ZipEntry stored = new ZipEntry("org/test/hello.txt");
+            stored.setMethod(ZipEntry.STORED);
+            CRC32 crc = new CRC32();
+            crc.update(hello);
+            stored.setSize(hello.length);
+            stored.setCompressedSize(hello.length);
+            stored.setCrc(crc.getValue());
+            out.putNextEntry(stored);
+            out.write(hello);
+            out.closeEntry();
+
+            out.putNextEntry(new ZipEntry("org/test/Big.class"));
+            out.write(bigContent().getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String bigContent() {
+        StringBuilder str = new StringBuilder();
+        for (int i = 0; i < 1000; ++i) {
+            str.append("line ").append(i).append('\n');
+        }
+        return str.toString();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[64];
+            int len;
+            while ((len = stream.read(buf)) >= 0) {
+                out.write(buf, 0, len);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
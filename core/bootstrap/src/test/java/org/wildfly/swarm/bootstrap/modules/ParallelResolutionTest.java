@@ -0,0 +1,77 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ParallelResolutionTest {
+
+    @Before
+    public void enable() {
+        System.setProperty(ParallelResolution.PARALLEL_PROPERTY, "true");
+    }
+
+    @After
+    public void disable() {
+        System.clearProperty(ParallelResolution.PARALLEL_PROPERTY);
+    }
+
+    @Test
+    public void testOrderIsPreserved() throws Exception {
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            inputs.add(i);
+        }
+
+        List<String> results = ParallelResolution.resolveAll(inputs, (i) -> {
+            try {
+                // finish out of order
+                Thread.sleep((100 - i) % 7);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return "artifact-" + i;
+        });
+
+        assertThat(results).hasSize(100);
+        for (int i = 0; i < 100; ++i) {
+            assertThat(results.get(i)).isEqualTo("artifact-" + i);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testFailureIsPropagated() throws Exception {
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            inputs.add(i);
+        }
+
+        ParallelResolution.resolveAll(inputs, (i) -> {
+            if (i == 5) {
+                throw new IOException("unable to resolve " + i);
+            }
+            return i;
+        });
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.performance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class PerformanceTest {
+
+    @Before
+    public void setUp() {
+        Performance.reset();
+    }
+
+    @After
+    public void tearDown() {
+        Performance.reset();
+    }
+
+    @Test
+    public void testConcurrentThreadsNestIndependently() throws Exception {
+        CountDownLatch opened = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 2; ++i) {
+            String name = "outer-" + i;
+            Thread thread = new Thread(() -> {
+                try (AutoCloseable outer = Performance.time(name)) {
+                    opened.countDown();
+                    release.await();
+                    try (AutoCloseable inner = Performance.time("inner-" + name)) {
+                        // nothing
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        opened.await();
+        release.countDown();
+        for (Thread each : threads) {
+            each.join();
+        }
+
+        assertThat(Performance.ROOT_CONTEXTS).hasSize(2);
+        for (ContextualizedEvent root : Performance.ROOT_CONTEXTS) {
+            assertThat(root.children()).hasSize(1);
+            ContextualizedEvent child = root.children().iterator().next();
+            assertThat(child.description()).isEqualTo("inner-" + root.description());
+            assertThat(child.threadId()).isEqualTo(root.threadId());
+        }
+    }
+
+    @Test
+    public void testConcurrentAccumulation() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; ++i) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 1000; ++j) {
+                    try (AutoCloseable handle = Performance.accumulate("artifact-resolver")) {
+                        // nothing
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread each : threads) {
+            each.join();
+        }
+
+        assertThat(Performance.ACCUMULATORS).hasSize(1);
+        assertThat(Performance.ACCUMULATORS.get("artifact-resolver").count()).isEqualTo(8000);
+    }
+
+    @Test
+    public void testExports() throws Exception {
+        try (AutoCloseable outer = Performance.time("Bootstrap")) {
+            try (AutoCloseable inner = Performance.time("Weld \"initialize\"")) {
+                try (AutoCloseable accumulated = Performance.accumulate("Exploding JAR")) {
+                    // nothing
+                }
+            }
+        }
+
+        String json = Performance.dumpJson();
+        assertThat(json).startsWith("{\"totalNanos\":");
+        assertThat(json).contains("\"name\":\"Bootstrap\"");
+        assertThat(json).contains("\"children\":[{\"name\":\"Weld \\\"initialize\\\"\"");
+        assertThat(json).contains("{\"name\":\"Exploding JAR\",\"count\":1,");
+
+        String trace = Performance.dumpTraceEvents();
+        assertThat(trace).startsWith("{\"traceEvents\":[{\"name\":\"Bootstrap\",\"cat\":\"boot\",\"ph\":\"X\"");
+        assertThat(trace).contains("\"name\":\"Weld \\\"initialize\\\"\"");
+
+        assertThat(Performance.dump()).contains("Bootstrap").contains("Exploding JAR").contains("Total: ");
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ExplodedJarCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReusedAcrossInstances() throws Exception {
+        File cacheDir = folder.newFolder("cache");
+        File jar = createJar("app.jar", "hello");
+
+        File first;
+        try (JarFile jarFile = new JarFile(jar)) {
+            first = new ExplodedJarCache(cacheDir, Long.MAX_VALUE).explode(jarFile, "", "test", null);
+        }
+        File content = new File(first, "org/test/hello.txt");
+        assertThat(content.exists()).isTrue();
+        assertThat(new String(Files.readAllBytes(content.toPath()), StandardCharsets.UTF_8)).isEqualTo("hello");
+
+        File second;
+        try (JarFile jarFile = new JarFile(jar)) {
+            second = new ExplodedJarCache(cacheDir, Long.MAX_VALUE).explode(jarFile, "", "test", null);
+        }
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    public void testKeyDependsOnEntryPathAndContent() throws Exception {
+        File one = createJar("one.jar", "hello");
+        File two = createJar("two.jar", "goodbye");
+
+        try (JarFile jarOne = new JarFile(one); JarFile jarTwo = new JarFile(two)) {
+            assertThat(ExplodedJarCache.key(jarOne, "a")).isNotEqualTo(ExplodedJarCache.key(jarOne, "b"));
+            assertThat(ExplodedJarCache.key(jarOne, "a")).isNotEqualTo(ExplodedJarCache.key(jarTwo, "a"));
+        }
+    }
+
+    @Test
+    public void testInvalidEntryIsReplaced() throws Exception {
+        File cacheDir = folder.newFolder("cache");
+        File jar = createJar("app.jar", "hello");
+
+        File dir;
+        try (JarFile jarFile = new JarFile(jar)) {
+            dir = new ExplodedJarCache(cacheDir, Long.MAX_VALUE).explode(jarFile, "", "test", null);
+        }
+        File content = new File(dir, "org/test/hello.txt");
+        Files.write(content.toPath(), "corrupted".getBytes(StandardCharsets.UTF_8));
+
+        try (JarFile jarFile = new JarFile(jar)) {
+            dir = new ExplodedJarCache(cacheDir, Long.MAX_VALUE).explode(jarFile, "", "test", null);
+        }
+        assertThat(new String(Files.readAllBytes(new File(dir, "org/test/hello.txt").toPath()), StandardCharsets.UTF_8)).isEqualTo("hello");
+    }
+
+    @Test
+    public void testEntriesInUseAreNotEvicted() throws Exception {
+        File cacheDir = folder.newFolder("cache");
+        ExplodedJarCache cache = new ExplodedJarCache(cacheDir, 8);
+
+        File first;
+        try (JarFile jarFile = new JarFile(createJar("one.jar", "hello"))) {
+            first = cache.explode(jarFile, "", "test", null);
+        }
+        File second;
+        try (JarFile jarFile = new JarFile(createJar("two.jar", "goodbye"))) {
+            second = cache.explode(jarFile, "", "test", null);
+        }
+
+        // both are in use by this cache, even though together they exceed its size
+        assertThat(first.exists()).isTrue();
+        assertThat(second.exists()).isTrue();
+    }
+
+    @Test
+    public void testEntriesLeasedByAnotherProcessAreNotEvicted() throws Exception {
+        File cacheDir = folder.newFolder("cache");
+        ExplodedJarCache running = new ExplodedJarCache(cacheDir, 8);
+
+        File first;
+        try (JarFile jarFile = new JarFile(createJar("one.jar", "hello"))) {
+            first = running.explode(jarFile, "", "test", null);
+        }
+        File second;
+        try (JarFile jarFile = new JarFile(createJar("two.jar", "goodbye"))) {
+            second = new ExplodedJarCache(cacheDir, 8).explode(jarFile, "", "test", null);
+        }
+
+        // still leased by the first cache, even though together they exceed the size of the second
+        assertThat(first.exists()).isTrue();
+        assertThat(second.exists()).isTrue();
+        running.release();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        File cacheDir = folder.newFolder("cache");
+
+        File first;
+        ExplodedJarCache exited = new ExplodedJarCache(cacheDir, 8);
+        try (JarFile jarFile = new JarFile(createJar("one.jar", "hello"))) {
+            first = exited.explode(jarFile, "", "test", null);
+        }
+        exited.release();
+        File second;
+        exited = new ExplodedJarCache(cacheDir, 8);
+        try (JarFile jarFile = new JarFile(createJar("two.jar", "goodbye"))) {
+            second = exited.explode(jarFile, "", "test", null);
+        }
+        exited.release();
+
+        // a later process evicts entries no longer in use until the cache fits again
+        File third;
+        try (JarFile jarFile = new JarFile(createJar("three.jar", "hi"))) {
+            third = new ExplodedJarCache(cacheDir, 8).explode(jarFile, "", "test", null);
+        }
+
+        assertThat(first.exists()).isFalse();
+        assertThat(second.exists()).isFalse();
+        assertThat(third.exists()).isTrue();
+    }
+
+    private File createJar(String name, String content) throws IOException {
+        File jar = new File(folder.getRoot(), name);
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            JarEntry entry = new JarEntry("org/test/hello.txt");
+            entry.setTime(1500000000000L);
+            out.putNextEntry(entry);
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        return jar;
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.wildfly.swarm.spi.api.ConfigurationFilter;
+import org.wildfly.swarm.spi.api.config.ConfigKey;
+import org.wildfly.swarm.spi.api.config.SimpleKey;
+
+/**
+ * An immutable, flattened index of a sequence of {@link ConfigNode} trees.
+ *
+ * <p>Every key present in any of the nodes is mapped to the values found for it, in node
+ * order, along with the union of its immediate subkeys.  Lookups are then a single hash probe
+ * rather than a walk of each tree.  Only the unfiltered candidates are indexed; filters are
+ * applied on every lookup, as they may depend on state, such as system properties, that changes
+ * while the index is in use.</p>
+ *
+ * <p>The index reflects the nodes as they were when it was built, and must be discarded
+ * by its owner whenever the nodes or filters change.</p>
+ *
+ * @see ConfigResolutionStrategy
+ */
+class ConfigIndex {
+
+    ConfigIndex(List<ConfigNode> nodes, List<ConfigurationFilter> filters) {
+        this.filters = filters.toArray(new ConfigurationFilter[filters.size()]);
+        for (ConfigNode node : nodes) {
+            index(ConfigKey.EMPTY, new ArrayList<>(), node);
+        }
+    }
+
+    private void index(ConfigKey key, List<String> path, ConfigNode node) {
+        Entry entry = this.entries.get(path);
+        if (entry == null) {
+            entry = new Entry(key);
+            this.entries.put(new ArrayList<>(path), entry);
+        }
+
+        Object value = node.valueOf(ConfigKey.EMPTY);
+        if (value != node) {
+            entry.hasValue = true;
+        }
+        entry.candidates.add(value);
+        entry.subkeys.addAll(node.childrenKeys());
+
+        for (SimpleKey childKey : node.childrenKeys()) {
+            path.add(childKey.name());
+            index(key.append(childKey), path, node.child(childKey));
+            path.remove(path.size() - 1);
+        }
+    }
+
+    /**
+     * Retrieve the first filtered value for a key.
+     *
+     * @param key The possibly complex key.
+     * @return The value, otherwise {@code null}.
+     */
+    Object valueOf(ConfigKey key) {
+        Entry entry = this.entries.get(path(key));
+        if (entry == null) {
+            return null;
+        }
+
+        if (this.filters.length == 0) {
+            return entry.candidates.get(0);
+        }
+
+        return filter(key, entry);
+    }
+
+    private Object filter(ConfigKey key, Entry entry) {
+        String propertyName = key.propertyName();
+        for (Object candidate : entry.candidates) {
+            Object value = candidate;
+            for (ConfigurationFilter filter : this.filters) {
+                value = filter.filter(propertyName, value);
+            }
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    List<SimpleKey> simpleSubkeysOf(ConfigKey prefix) {
+        Entry entry = this.entries.get(path(prefix));
+        if (entry == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(entry.subkeys);
+    }
+
+    boolean hasKeyOrSubkeys(ConfigKey prefix) {
+        return this.entries.containsKey(path(prefix));
+    }
+
+    /**
+     * Retrieve every key holding a direct value in at least one node.
+     *
+     * @return The distinct keys, in node order.
+     */
+    List<ConfigKey> valuedKeys() {
+        List<ConfigKey> keys = new ArrayList<>();
+        for (Entry each : this.entries.values()) {
+            if (each.hasValue) {
+                keys.add(each.key);
+            }
+        }
+        return keys;
+    }
+
+    private static List<String> path(ConfigKey key) {
+        List<String> path = new ArrayList<>();
+        ConfigKey cur = key;
+        SimpleKey head;
+        while ((head = cur.head()) != ConfigKey.EMPTY) {
+            path.add(head.name());
+            cur = cur.subkey(1);
+        }
+        return path;
+    }
+
+    private final ConfigurationFilter[] filters;
+
+    private final Map<List<String>, Entry> entries = new LinkedHashMap<>();
+
+    private static final class Entry {
+
+        Entry(ConfigKey key) {
+            this.key = key;
+        }
+
+        private final ConfigKey key;
+
+        private final List<Object> candidates = new ArrayList<>(1);
+
+        private final Set<SimpleKey> subkeys = new LinkedHashSet<>();
+
+        private boolean hasValue;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.wildfly.swarm.container.config;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -159,25 +160,18 @@ public class ConfigNode implements ConfigTree {
      * @return A stream of all descendent keys.
      */
     public Stream<ConfigKey> allKeysRecursively() {
-        Stream<ConfigKey> str = Stream.empty();
+        List<ConfigKey> keys = new ArrayList<>();
+        collectKeys(ConfigKey.EMPTY, keys);
+        return keys.stream();
+    }
+
+    private void collectKeys(ConfigKey prefix, List<ConfigKey> keys) {
         if (this.value != null) {
-            str = Stream.of(ConfigKey.EMPTY);
+            keys.add(prefix);
+        }
+        for (Map.Entry<SimpleKey, ConfigNode> each : this.children.entrySet()) {
+            each.getValue().collectKeys(prefix.append(each.getKey()), keys);
         }
-        str = Stream.concat(str,
-                this.children.entrySet()
-                        .stream()
-                        .flatMap((kv) -> {
-                            ConfigKey key = kv.getKey();
-                            Object value = kv.getValue();
-                            if (value instanceof ConfigNode) {
-                                return ((ConfigNode) value).allKeysRecursively()
-                                        .map(childKey -> key.append(childKey));
-                            }
-
-                            return Stream.empty();
-                        }));
-
-        return str;
     }
 
     /**
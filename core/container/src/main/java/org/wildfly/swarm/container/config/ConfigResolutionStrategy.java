@@ -18,7 +18,6 @@ package org.wildfly.swarm.container.config;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.stream.Collectors;
@@ -38,7 +37,9 @@ import org.wildfly.swarm.spi.api.config.SimpleKey;
  * this will actively change properties as returned by {@code System.getProperty(...)}
  * and similar methods.</p>
  *
- * <p>The given {@code ConfigNode} objects will be search in-order for the first match.</p>
+ * <p>The given {@code ConfigNode} objects will be search in-order for the first match.
+ * Lookups are served from a {@link ConfigIndex} of all nodes, which is built upon activation
+ * and rebuilt only after nodes, properties or filters are added.</p>
  *
  * @author Bob McWhirter
  */
@@ -68,16 +69,19 @@ class ConfigResolutionStrategy {
 
     public void withFilter(ConfigurationFilter filter) {
         this.filters.add(filter);
+        invalidate();
     }
 
     void withProperties(Properties properties) {
         this.propertiesNode = PropertiesConfigNodeFactory.load(properties);
         this.nodes.add(this.propertiesNode);
         this.properties = PropertiesManipulator.forProperties(properties);
+        invalidate();
     }
 
     void withEnvironment(Map<String, String> environment) {
         this.nodes.add(EnvironmentConfigNodeFactory.load(environment));
+        invalidate();
     }
 
     /**
@@ -87,25 +91,44 @@ class ConfigResolutionStrategy {
      */
     void add(ConfigNode node) {
         this.nodes.add(node);
+        invalidate();
     }
 
     void defaults(ConfigNode defaults) {
         this.defaults = defaults;
+        invalidate();
     }
 
     void withProperty(String name, String value) {
         this.propertiesNode.recursiveChild(name, value);
+        invalidate();
     }
 
     /**
      * Activate the strategy.
      */
     void activate() {
-        nodes().flatMap(e -> e.allKeysRecursively())
-                .distinct()
-                .forEach(key -> {
-                    activate(key);
-                });
+        for (ConfigKey key : index().valuedKeys()) {
+            activate(key);
+        }
+    }
+
+    private ConfigIndex index() {
+        ConfigIndex index = this.index;
+        if (index == null) {
+            synchronized (this) {
+                index = this.index;
+                if (index == null) {
+                    index = new ConfigIndex(nodes().collect(Collectors.toList()), this.filters);
+                    this.index = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private synchronized void invalidate() {
+        this.index = null;
     }
 
     Stream<ConfigNode> nodes() {
@@ -144,19 +167,7 @@ class ConfigResolutionStrategy {
     }
 
     Optional<Object> optionalValueOf(ConfigKey key) {
-        return nodes()
-                .map(e -> e.valueOf(key))
-                .filter(Objects::nonNull)
-                .map(v -> filter(key, v))
-                .filter(Objects::nonNull)
-                .findFirst();
-    }
-
-    Object filter(ConfigKey key, Object value) {
-        for (ConfigurationFilter filter : this.filters) {
-            value = filter.filter(key.propertyName(), value);
-        }
-        return value;
+        return Optional.ofNullable(index().valueOf(key));
     }
 
     Stream<ConfigKey> allKeysRecursively() {
@@ -165,18 +176,11 @@ class ConfigResolutionStrategy {
     }
 
     List<SimpleKey> simpleSubkeysOf(ConfigKey prefix) {
-        return nodes()
-                .map(e -> e.descendant(prefix))
-                .filter(Objects::nonNull)
-                .flatMap(e -> e.childrenKeys().stream())
-                .distinct()
-                .collect(Collectors.toList());
+        return index().simpleSubkeysOf(prefix);
     }
 
     boolean hasKeyOrSubkeys(ConfigKey prefix) {
-        return nodes()
-                .map(e -> e.descendant(prefix))
-                .anyMatch(Objects::nonNull);
+        return index().hasKeyOrSubkeys(prefix);
     }
 
     Properties asProperties() {
@@ -193,4 +197,6 @@ class ConfigResolutionStrategy {
 
     private List<ConfigurationFilter> filters = new ArrayList<>();
 
+    private volatile ConfigIndex index;
+
 }
@@ -148,6 +148,9 @@ public class ConfigViewImpl implements ConfigView {
         withProfile(names.toArray(new String[]{}));
     }
 
+    /**
+     * Activate the view, indexing all configuration sources and reflecting them into the properties.
+     */
     public void activate() {
         this.strategy.activate();
     }
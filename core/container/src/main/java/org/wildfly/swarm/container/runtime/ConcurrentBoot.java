@@ -0,0 +1,272 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
+import org.wildfly.swarm.spi.api.Customizer;
+import org.wildfly.swarm.spi.api.SwarmProperties;
+
+/**
+ * Runs independent boot work on a bounded pool when <code>swarm.boot.concurrent</code> is set.
+ *
+ * <p>Customizers injecting related types, such as the same fraction or socket-binding group, may mutate the
+ * same state, so they are run one after another in the order given; others run concurrently. Results of
+ * {@link #map(List, Task)} are returned in input order, so callers may apply them exactly as a serial boot would.</p>
+ */
+public final class ConcurrentBoot {
+
+    private static ExecutorService pool;
+
+    private ConcurrentBoot() {
+    }
+
+    public static boolean isEnabled() {
+        return BootstrapProperties.flagIsSet(SwarmProperties.CONCURRENT_BOOT);
+    }
+
+    public static int parallelism() {
+        return Math.max(1, Integer.getInteger(SwarmProperties.CONCURRENT_BOOT_THREADS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Run customizers, in the order given unless concurrent.
+     *
+     * @param customizers The customizers to run.
+     * @param announce    Called on the running thread before each customizer runs.
+     * @throws Exception If any customizer fails.
+     */
+    public static void customize(Iterable<Customizer> customizers, Consumer<Customizer> announce) throws Exception {
+        List<Customizer> ordered = new ArrayList<>();
+        customizers.forEach(ordered::add);
+
+        if (!isEnabled() || ordered.size() < 2) {
+            for (Customizer each : ordered) {
+                announce.accept(each);
+                each.customize();
+            }
+            return;
+        }
+
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        Map<Customizer, CompletableFuture<Void>> futures = new IdentityHashMap<>();
+        for (int i = 0; i < ordered.size(); ++i) {
+            Customizer each = ordered.get(i);
+            Set<Customizer> dependencies = sharingState(each, ordered.subList(0, i));
+            futures.put(each, CompletableFuture.allOf(dependencies.stream()
+                    .map(futures::get)
+                    .toArray(CompletableFuture[]::new)).thenRunAsync(() -> {
+                announce.accept(each);
+                call(tccl, () -> {
+                    each.customize();
+                    return null;
+                });
+            }, pool()));
+        }
+
+        join(CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])));
+    }
+
+    /**
+     * Apply a task to each input, concurrently if enabled, preserving order.
+     *
+     * @param inputs The inputs.
+     * @param task   The task to apply.
+     * @param <T>    The input type.
+     * @param <R>    The result type.
+     * @return The results, in input order.
+     * @throws Exception If any task fails.
+     */
+    public static <T, R> List<R> map(List<T> inputs, Task<T, R> task) throws Exception {
+        List<R> results = new ArrayList<>(inputs.size());
+
+        if (!isEnabled() || inputs.size() < 2) {
+            for (T each : inputs) {
+                results.add(task.apply(each));
+            }
+            return results;
+        }
+
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        List<CompletableFuture<R>> futures = new ArrayList<>(inputs.size());
+        for (T each : inputs) {
+            futures.add(CompletableFuture.supplyAsync(() -> call(tccl, () -> task.apply(each)), pool()));
+        }
+
+        join(CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])));
+        for (CompletableFuture<R> each : futures) {
+            results.add(each.join());
+        }
+        return results;
+    }
+
+    /**
+     * Release the pool once boot has completed.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Customizers among <code>earlier</code> which inject a type related to one injected by <code>customizer</code>.
+     */
+    static Set<Customizer> sharingState(Customizer customizer, List<Customizer> earlier) {
+        Set<Customizer> sharing = new LinkedHashSet<>();
+        Set<Class<?>> injected = injectedTypes(customizer.getClass());
+        if (injected.isEmpty()) {
+            return sharing;
+        }
+        for (Customizer other : earlier) {
+            if (related(injected, injectedTypes(other.getClass()))) {
+                sharing.add(other);
+            }
+        }
+        return sharing;
+    }
+
+    private static boolean related(Set<Class<?>> types, Set<Class<?>> others) {
+        for (Class<?> type : types) {
+            for (Class<?> other : others) {
+                if (type.isAssignableFrom(other) || other.isAssignableFrom(type)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Set<Class<?>> injectedTypes(Class<?> cls) {
+        Set<Class<?>> types = new HashSet<>();
+        for (Class<?> each = cls; each != null && each != Object.class; each = each.getSuperclass()) {
+            for (Field field : each.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Inject.class)) {
+                    types.add(injectedType(field.getGenericType()));
+                }
+            }
+            for (Constructor<?> ctor : each.getDeclaredConstructors()) {
+                if (ctor.isAnnotationPresent(Inject.class)) {
+                    for (Type param : ctor.getGenericParameterTypes()) {
+                        types.add(injectedType(param));
+                    }
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * The raw type of an injection point, looking through <code>Instance</code> and <code>Provider</code>, which
+     * hand out the same beans as injecting their type argument directly would.
+     */
+    private static Class<?> injectedType(Type type) {
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Type raw = parameterized.getRawType();
+            if (raw == Instance.class || raw == Provider.class) {
+                return injectedType(parameterized.getActualTypeArguments()[0]);
+            }
+            return injectedType(raw);
+        }
+        if (type instanceof WildcardType) {
+            return injectedType(((WildcardType) type).getUpperBounds()[0]);
+        }
+        if (type instanceof TypeVariable) {
+            return injectedType(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        if (type instanceof GenericArrayType) {
+            return Object[].class;
+        }
+        return (Class<?>) type;
+    }
+
+    private static <R> R call(ClassLoader tccl, Callable<R> task) {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(tccl);
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    private static void join(CompletableFuture<?> future) throws Exception {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static synchronized ExecutorService pool() {
+        if (pool == null) {
+            AtomicInteger counter = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(parallelism(), (runnable) -> {
+                Thread thread = new Thread(runnable, "swarm-boot-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return pool;
+    }
+
+    @FunctionalInterface
+    public interface Task<T, R> {
+        R apply(T input) throws Exception;
+    }
+}
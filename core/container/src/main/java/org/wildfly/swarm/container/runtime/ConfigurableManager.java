@@ -21,7 +21,6 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -29,6 +28,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -36,13 +36,10 @@ import java.util.stream.Collectors;
 import org.jboss.logging.Logger;
 import org.wildfly.swarm.bootstrap.performance.Performance;
 import org.wildfly.swarm.config.runtime.Keyed;
-import org.wildfly.swarm.config.runtime.SubresourceInfo;
 import org.wildfly.swarm.container.runtime.cdi.DeploymentContext;
 import org.wildfly.swarm.internal.SwarmConfigMessages;
-import org.wildfly.swarm.spi.api.Defaultable;
 import org.wildfly.swarm.spi.api.Fraction;
 import org.wildfly.swarm.spi.api.annotations.Configurable;
-import org.wildfly.swarm.spi.api.annotations.Configurables;
 import org.wildfly.swarm.spi.api.config.ConfigKey;
 import org.wildfly.swarm.spi.api.config.ConfigView;
 import org.wildfly.swarm.spi.api.config.Converter;
@@ -54,41 +51,17 @@ import org.wildfly.swarm.spi.api.config.SimpleKey;
  */
 public class ConfigurableManager implements AutoCloseable {
 
-    private static final String SUBRESOURCES = "subresources";
-
     private static final String ACCEPT = "accept";
 
-    private static final Set<String> BLACKLISTED_FIELDS = new HashSet<String>() {{
-        add("pcs");
-        add("key");
-        add(SUBRESOURCES);
-    }};
-
-    private static final Set<Class<?>> BLACKLISTED_CLASSES = new HashSet<Class<?>>() {{
-        add(List.class);
-        add(Map.class);
-        add(Properties.class);
-    }};
-
-    private static final Set<Class<?>> CONFIGURABLE_VALUE_TYPES = new HashSet<Class<?>>() {{
-        add(Boolean.class);
-        add(Boolean.TYPE);
-        add(Short.class);
-        add(Short.TYPE);
-        add(Integer.class);
-        add(Integer.TYPE);
-        add(Long.class);
-        add(Long.TYPE);
-        add(Float.class);
-        add(Float.TYPE);
-        add(String.class);
-
-        add(List.class);
-        add(Map.class);
-        add(Properties.class);
-
-        add(Defaultable.class);
-    }};
+    /**
+     * Consumer lambda factories, bound once per consumer type rather than on every created subresource.
+     */
+    private static final ClassValue<Optional<MethodHandle>> LAMBDA_FACTORIES = new ClassValue<Optional<MethodHandle>>() {
+        @Override
+        protected Optional<MethodHandle> computeValue(Class<?> type) {
+            return Optional.ofNullable(lambdaFactory(type));
+        }
+    };
 
     private static Logger LOG = Logger.getLogger("org.wildfly.swarm.config");
 
@@ -268,29 +241,7 @@ public class ConfigurableManager implements AutoCloseable {
     }
 
     protected Method findGetKeyMethod(Object object) {
-        Method[] methods = object.getClass().getMethods();
-
-        for (Method method : methods) {
-            if (!Modifier.isPublic(method.getModifiers())) {
-                continue;
-            }
-
-            if (Modifier.isStatic(method.getModifiers())) {
-                continue;
-            }
-
-            if (!method.getName().equals("getKey")) {
-                continue;
-            }
-
-            if (method.getParameterCount() != 0) {
-                continue;
-            }
-
-            return method;
-        }
-
-        return null;
+        return ConfigurableMetadata.of(object.getClass()).getKeyMethod();
     }
 
     protected ConfigKey nameFor(Fraction fraction) throws Exception {
@@ -320,64 +271,58 @@ public class ConfigurableManager implements AutoCloseable {
     }
 
     protected void scan(ConfigKey prefix, Object instance, Class<?> curClass, boolean implicit) throws Exception {
-        if (curClass == null || curClass == Object.class || isBlacklisted(curClass)) {
+        if (curClass == null || curClass == Object.class) {
+            return;
+        }
+        ConfigurableMetadata metadata = ConfigurableMetadata.of(curClass);
+        if (metadata.isBlacklisted()) {
             return;
         }
-        Field[] fields = curClass.getDeclaredFields();
 
-        for (Field field : fields) {
-            if (!Modifier.isStatic(field.getModifiers())) {
-                if (isBlacklisted(field)) {
-                    continue;
-                }
-                if (implicit || field.getAnnotation(Configurable.class) != null || field.getAnnotation(Configurables.class) != null) {
-                    if (isConfigurableType(field.getType())) {
-                        List<ConfigKey> names = namesFor(prefix, field);
+        for (ConfigurableMetadata.ConfigurableField each : metadata.fields()) {
+            if (implicit || each.isAnnotated()) {
+                List<ConfigKey> names = namesFor(prefix, each);
 
-                        boolean configured = false;
+                boolean configured = false;
 
-                        for (ConfigKey name : names) {
-                            if (!seen(name)) {
-                                ConfigurableHandle configurable = new ObjectBackedConfigurableHandle(name, instance, field);
-                                this.configurables.add(configurable);
-                                configured = configure(configurable);
-                            }
-                            if (configured) {
-                                break;
-                            }
-                        }
+                for (ConfigKey name : names) {
+                    if (!seen(name)) {
+                        ConfigurableHandle configurable = new ObjectBackedConfigurableHandle(name, instance, each.field());
+                        this.configurables.add(configurable);
+                        configured = configure(configurable);
+                    }
+                    if (configured) {
+                        break;
                     }
                 }
             }
         }
 
         if (!rescanning) {
-            Method[] methods = curClass.getDeclaredMethods();
-            for (Method method : methods) {
-                if (method.isAnnotationPresent(Configurable.class)) {
-                    ConfigKey subPrefix = prefix.append(nameFor(method));
-                    if (method.getParameterCount() == 1) {
-                        // If doesn't exist, only create it if there's some
-                        // configuration keys that imply we want it.
-                        if (this.configView.hasKeyOrSubkeys(subPrefix)) {
-                            Object lambda = createLambda(subPrefix, method);
-                            if (lambda != null) {
-                                method.invoke(instance, lambda);
-                            }
+            for (ConfigurableMetadata.ConfigurableMethod each : metadata.methods()) {
+                Method method = each.method();
+                ConfigKey subPrefix = prefix.append(ConfigKey.of(each.name()));
+                if (method.getParameterCount() == 1) {
+                    // If doesn't exist, only create it if there's some
+                    // configuration keys that imply we want it.
+                    if (this.configView.hasKeyOrSubkeys(subPrefix)) {
+                        Object lambda = createLambda(subPrefix, method);
+                        if (lambda != null) {
+                            method.invoke(instance, lambda);
                         }
-                    } else if (method.getParameterCount() == 2) {
-                        List<SimpleKey> keysWithConfiguration = this.configView.simpleSubkeys(subPrefix);
-                        if (!keysWithConfiguration.isEmpty()) {
-                            for (SimpleKey key : keysWithConfiguration) {
-                                ConfigKey itemPrefix = subPrefix.append(key);
-                                Object lambda = createLambda(itemPrefix, method);
-                                if (lambda != null) {
-                                    method.invoke(instance, key.name(), lambda);
-                                }
+                    }
+                } else if (method.getParameterCount() == 2) {
+                    List<SimpleKey> keysWithConfiguration = this.configView.simpleSubkeys(subPrefix);
+                    if (!keysWithConfiguration.isEmpty()) {
+                        for (SimpleKey key : keysWithConfiguration) {
+                            ConfigKey itemPrefix = subPrefix.append(key);
+                            Object lambda = createLambda(itemPrefix, method);
+                            if (lambda != null) {
+                                method.invoke(instance, key.name(), lambda);
                             }
                         }
-
                     }
+
                 }
             }
         }
@@ -397,58 +342,25 @@ public class ConfigurableManager implements AutoCloseable {
         return this.seenObjects.contains(name) || this.configurables.stream().anyMatch(e -> e.key().equals(name));
     }
 
-    private boolean isConfigurableType(Class<?> type) {
-        return type.isEnum() || CONFIGURABLE_VALUE_TYPES.contains(type);
-    }
-
-    private boolean isBlacklisted(Class<?> cls) {
-        return BLACKLISTED_CLASSES.stream().anyMatch((e) -> {
-            if (e.isInterface()) {
-                for (Class<?> each : cls.getInterfaces()) {
-                    if (each == e) {
-                        return true;
-                    }
-                }
-                return false;
-            } else {
-                return e == cls;
-            }
-        });
-    }
-
-    private boolean isBlacklisted(Field field) {
-        if (BLACKLISTED_FIELDS.stream().anyMatch((e) -> e.equals(field.getName()))) {
-            return true;
-        }
-
-        return isBlacklisted(field.getType());
+    protected List<ConfigKey> namesFor(ConfigKey prefix, Field field) {
+        return namesFor(prefix, new ConfigurableMetadata.ConfigurableField(field));
     }
 
-    protected List<ConfigKey> namesFor(ConfigKey prefix, Field field) {
+    private List<ConfigKey> namesFor(ConfigKey prefix, ConfigurableMetadata.ConfigurableField field) {
 
         List<ConfigKey> names = new ArrayList<>();
 
-        Configurables plural = field.getAnnotation(Configurables.class);
-        if (plural != null) {
-            for (Configurable each : plural.value()) {
-                ConfigKey key = nameFor(prefix, each);
+        if (field.isAnnotated()) {
+            for (Configurable anno : field.annotations()) {
+                ConfigKey key = nameFor(prefix, anno);
                 if (key != null) {
                     names.add(key);
                 }
             }
         } else {
-            Configurable[] annos = field.getAnnotationsByType(Configurable.class);
-            if (annos != null && annos.length > 0) {
-                for (Configurable anno : annos) {
-                    ConfigKey key = nameFor(prefix, anno);
-                    if (key != null) {
-                        names.add(key);
-                    }
-                }
-            } else {
-                ConfigKey key = handleDeploymentConfiguration(prefix.append(nameFor(field)));
-                names.add(key);
-            }
+            // keys are mutable, so always build a fresh one
+            ConfigKey key = handleDeploymentConfiguration(prefix.append(ConfigKey.of(field.name())));
+            names.add(key);
         }
 
         return names;
@@ -481,40 +393,12 @@ public class ConfigurableManager implements AutoCloseable {
     }
 
     protected ConfigKey nameFor(Field member) {
-        StringBuilder str = new StringBuilder();
-
-        char[] chars = member.getName().toCharArray();
-
-        for (char c : chars) {
-            if (Character.isUpperCase(c)) {
-                str.append("-");
-            }
-
-            str.append(Character.toLowerCase(c));
-        }
-
-        return ConfigKey.of(str.toString());
+        return ConfigKey.of(ConfigurableMetadata.dashed(member.getName(), false));
     }
 
     protected ConfigKey nameFor(Method member) {
-        StringBuilder str = new StringBuilder();
-
-        char[] chars = member.getName().toCharArray();
-
-        for (char c : chars) {
-            if (Character.isUpperCase(c)) {
-                str.append("-");
-            }
-
-            str.append(Character.toLowerCase(c));
-        }
-
-        if (member.getParameterCount() == 2) {
-            // pluralize since it's keyed.
-            str.append("s");
-        }
-
-        return ConfigKey.of(str.toString());
+        // pluralize if it's keyed.
+        return ConfigKey.of(ConfigurableMetadata.dashed(member.getName(), member.getParameterCount() == 2));
     }
 
     protected void scanSubresources(ConfigKey prefix, Object instance) throws Exception {
@@ -526,13 +410,7 @@ public class ConfigurableManager implements AutoCloseable {
 
         Object subresources = method.invoke(instance);
 
-        Field[] fields = subresources.getClass().getDeclaredFields();
-
-        for (Field field : fields) {
-            if (field.getAnnotation(SubresourceInfo.class) == null && List.class.isAssignableFrom(field.getType())) {
-                continue;
-            }
-            field.setAccessible(true);
+        for (Field field : ConfigurableMetadata.of(subresources.getClass()).subresourceFields()) {
             Object value = field.get(subresources);
             ConfigKey subPrefix = prefix.append(nameFor(field));
             if (seen(subPrefix)) {
@@ -593,12 +471,24 @@ public class ConfigurableManager implements AutoCloseable {
     }
 
     protected Object createLambda(ConfigKey itemPrefix, Method factoryMethod) {
-
-        MethodHandles.Lookup lookup = MethodHandles.lookup();
-
         // The consumer is the last parameter
         Class<?> consumerType = factoryMethod.getParameterTypes()[factoryMethod.getParameterCount() - 1];
 
+        MethodHandle mh = LAMBDA_FACTORIES.get(consumerType).orElse(null);
+        if (mh == null) {
+            return null;
+        }
+
+        try {
+            return mh.invoke(this, itemPrefix);
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    private static MethodHandle lambdaFactory(Class<?> consumerType) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
         try {
             Method acceptMethod = null;
             for (Method method : consumerType.getMethods()) {
@@ -615,7 +505,7 @@ public class ConfigurableManager implements AutoCloseable {
 
             MethodType samType = MethodType.methodType(void.class, acceptMethod.getParameterTypes()[0]);
 
-            MethodHandle mh = LambdaMetafactory.metafactory(
+            return LambdaMetafactory.metafactory(
                     lookup,
                     ACCEPT,
                     MethodType.methodType(consumerType, ConfigurableManager.class, ConfigKey.class),
@@ -624,8 +514,6 @@ public class ConfigurableManager implements AutoCloseable {
                     samType)
                     .getTarget();
 
-            return mh.invoke(this, itemPrefix);
-
         } catch (Throwable t) {
             throw new RuntimeException(t);
         }
@@ -637,116 +525,15 @@ public class ConfigurableManager implements AutoCloseable {
 
 
     protected Method getKeyedFactoryMethod(Object instance, Field field) {
-        SubresourceInfo anno = field.getAnnotation(SubresourceInfo.class);
-        if (anno != null) {
-            String name = anno.value();
-            Method[] methods = instance.getClass().getMethods();
-            for (Method method : methods) {
-                if (!method.getName().equals(name)) {
-                    continue;
-                }
-
-                if (!Modifier.isPublic(method.getModifiers())) {
-                    continue;
-                }
-
-                if (Modifier.isStatic(method.getModifiers())) {
-                    continue;
-                }
-
-                if (method.getParameterCount() != 2) {
-                    continue;
-                }
-
-                if (method.getParameterTypes()[0] != String.class) {
-                    continue;
-                }
-
-                if (method.getParameterTypes()[1].getAnnotation(FunctionalInterface.class) == null) {
-                    continue;
-                }
-
-                boolean acceptMethodFound = false;
-                for (Method paramMethod : method.getParameterTypes()[1].getMethods()) {
-                    if (paramMethod.getName().equals(ACCEPT)) {
-                        acceptMethodFound = true;
-                        break;
-                    }
-                }
-
-                if (!acceptMethodFound) {
-                    continue;
-                }
-
-                return method;
-            }
-
-        }
-        return null;
+        return ConfigurableMetadata.of(instance.getClass()).keyedFactoryMethod(field);
     }
 
     protected Method getNonKeyedFactoryMethod(Object instance, Field field) {
-        String name = field.getName();
-        Method[] methods = instance.getClass().getMethods();
-        for (Method method : methods) {
-            if (!method.getName().equals(name)) {
-                continue;
-            }
-
-            if (!Modifier.isPublic(method.getModifiers())) {
-                continue;
-            }
-
-            if (Modifier.isStatic(method.getModifiers())) {
-                continue;
-            }
-
-            if (method.getParameterCount() != 1) {
-                continue;
-            }
-
-            if (method.getParameterTypes()[0].getAnnotation(FunctionalInterface.class) == null) {
-                continue;
-            }
-
-            boolean acceptMethodFound = false;
-            for (Method paramMethod : method.getParameterTypes()[0].getMethods()) {
-                if (paramMethod.getName().equals(ACCEPT)) {
-                    acceptMethodFound = true;
-                    break;
-                }
-            }
-
-            if (!acceptMethodFound) {
-                continue;
-            }
-
-            return method;
-        }
-
-        return null;
+        return ConfigurableMetadata.of(instance.getClass()).nonKeyedFactoryMethod(field);
     }
 
     protected Method getSubresourcesMethod(Object instance) {
-        Method[] methods = instance.getClass().getMethods();
-        for (Method method : methods) {
-            if (Modifier.isStatic(method.getModifiers())) {
-                continue;
-            }
-
-            if (!method.getName().equals(SUBRESOURCES)) {
-                continue;
-            }
-
-            if (method.getParameterCount() != 0) {
-                continue;
-            }
-
-            return method;
-
-        }
-
-        return null;
+        return ConfigurableMetadata.of(instance.getClass()).subresourcesMethod();
     }
 
     public void log() {
@@ -0,0 +1,359 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.wildfly.swarm.config.runtime.SubresourceInfo;
+import org.wildfly.swarm.spi.api.Defaultable;
+import org.wildfly.swarm.spi.api.annotations.Configurable;
+import org.wildfly.swarm.spi.api.annotations.Configurables;
+
+/**
+ * Reflection metadata used by {@link ConfigurableManager}, computed once per class.
+ *
+ * <p>Fraction classes are scanned on every boot, for every fraction and again on rescan; caching what the
+ * scan needs to know about each class turns the repeated reflective walks into lookups.</p>
+ */
+final class ConfigurableMetadata {
+
+    private static final String SUBRESOURCES = "subresources";
+
+    private static final String ACCEPT = "accept";
+
+    private static final Set<String> BLACKLISTED_FIELDS = set("pcs", "key", SUBRESOURCES);
+
+    private static final Set<Class<?>> BLACKLISTED_CLASSES = set(List.class, Map.class, Properties.class);
+
+    private static final Set<Class<?>> CONFIGURABLE_VALUE_TYPES = set(
+            Boolean.class, Boolean.TYPE,
+            Short.class, Short.TYPE,
+            Integer.class, Integer.TYPE,
+            Long.class, Long.TYPE,
+            Float.class, Float.TYPE,
+            String.class,
+            List.class, Map.class, Properties.class,
+            Defaultable.class);
+
+    private static final ClassValue<ConfigurableMetadata> METADATA = new ClassValue<ConfigurableMetadata>() {
+        @Override
+        protected ConfigurableMetadata computeValue(Class<?> type) {
+            return new ConfigurableMetadata(type);
+        }
+    };
+
+    static ConfigurableMetadata of(Class<?> type) {
+        return METADATA.get(type);
+    }
+
+    private ConfigurableMetadata(Class<?> type) {
+        this.type = type;
+        this.blacklisted = isBlacklisted(type);
+
+        List<ConfigurableField> fields = new ArrayList<>();
+        List<ConfigurableMethod> methods = new ArrayList<>();
+        if (!this.blacklisted) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                if (BLACKLISTED_FIELDS.contains(field.getName()) || isBlacklisted(field.getType())) {
+                    continue;
+                }
+                if (!field.getType().isEnum() && !CONFIGURABLE_VALUE_TYPES.contains(field.getType())) {
+                    continue;
+                }
+                fields.add(new ConfigurableField(field));
+            }
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(Configurable.class)) {
+                    methods.add(new ConfigurableMethod(method));
+                }
+            }
+        }
+        this.fields = Collections.unmodifiableList(fields);
+        this.methods = Collections.unmodifiableList(methods);
+    }
+
+    boolean isBlacklisted() {
+        return this.blacklisted;
+    }
+
+    /**
+     * Non-static fields of configurable types declared by this class.
+     */
+    List<ConfigurableField> fields() {
+        return this.fields;
+    }
+
+    /**
+     * Methods annotated with {@link Configurable} declared by this class.
+     */
+    List<ConfigurableMethod> methods() {
+        return this.methods;
+    }
+
+    Method getKeyMethod() {
+        Optional<Method> method = this.getKeyMethod;
+        if (method == null) {
+            method = Optional.ofNullable(findPublicMethod("getKey", 0));
+            this.getKeyMethod = method;
+        }
+        return method.orElse(null);
+    }
+
+    Method subresourcesMethod() {
+        Optional<Method> method = this.subresourcesMethod;
+        if (method == null) {
+            Method found = null;
+            for (Method each : this.type.getMethods()) {
+                if (!Modifier.isStatic(each.getModifiers()) && each.getName().equals(SUBRESOURCES) && each.getParameterCount() == 0) {
+                    found = each;
+                    break;
+                }
+            }
+            method = Optional.ofNullable(found);
+            this.subresourcesMethod = method;
+        }
+        return method.orElse(null);
+    }
+
+    /**
+     * Fields of a subresources holder to scan, made accessible.
+     */
+    List<Field> subresourceFields() {
+        List<Field> fields = this.subresourceFields;
+        if (fields == null) {
+            fields = new ArrayList<>();
+            for (Field field : this.type.getDeclaredFields()) {
+                if (field.getAnnotation(SubresourceInfo.class) == null && List.class.isAssignableFrom(field.getType())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                fields.add(field);
+            }
+            fields = Collections.unmodifiableList(fields);
+            this.subresourceFields = fields;
+        }
+        return fields;
+    }
+
+    Method keyedFactoryMethod(Field field) {
+        return this.keyedFactoryMethods.computeIfAbsent(field, (f) -> {
+            SubresourceInfo anno = f.getAnnotation(SubresourceInfo.class);
+            if (anno == null) {
+                return Optional.empty();
+            }
+            for (Method method : this.type.getMethods()) {
+                if (!method.getName().equals(anno.value())) {
+                    continue;
+                }
+                if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                if (method.getParameterCount() != 2 || method.getParameterTypes()[0] != String.class) {
+                    continue;
+                }
+                if (!isConsumer(method.getParameterTypes()[1])) {
+                    continue;
+                }
+                return Optional.of(method);
+            }
+            return Optional.empty();
+        }).orElse(null);
+    }
+
+    Method nonKeyedFactoryMethod(Field field) {
+        return this.nonKeyedFactoryMethods.computeIfAbsent(field, (f) -> {
+            for (Method method : this.type.getMethods()) {
+                if (!method.getName().equals(f.getName())) {
+                    continue;
+                }
+                if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                if (method.getParameterCount() != 1) {
+                    continue;
+                }
+                if (!isConsumer(method.getParameterTypes()[0])) {
+                    continue;
+                }
+                return Optional.of(method);
+            }
+            return Optional.empty();
+        }).orElse(null);
+    }
+
+    static String dashed(String name, boolean plural) {
+        StringBuilder str = new StringBuilder();
+
+        for (char c : name.toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                str.append("-");
+            }
+
+            str.append(Character.toLowerCase(c));
+        }
+
+        if (plural) {
+            str.append("s");
+        }
+
+        return str.toString();
+    }
+
+    private Method findPublicMethod(String name, int parameterCount) {
+        for (Method method : this.type.getMethods()) {
+            if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            if (method.getName().equals(name) && method.getParameterCount() == parameterCount) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isConsumer(Class<?> type) {
+        if (type.getAnnotation(FunctionalInterface.class) == null) {
+            return false;
+        }
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(ACCEPT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBlacklisted(Class<?> cls) {
+        for (Class<?> blacklisted : BLACKLISTED_CLASSES) {
+            if (blacklisted.isInterface()) {
+                for (Class<?> each : cls.getInterfaces()) {
+                    if (each == blacklisted) {
+                        return true;
+                    }
+                }
+            } else if (blacklisted == cls) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SafeVarargs
+    private static <T> Set<T> set(T... values) {
+        Set<T> set = new HashSet<>();
+        Collections.addAll(set, values);
+        return Collections.unmodifiableSet(set);
+    }
+
+    private final Class<?> type;
+
+    private final boolean blacklisted;
+
+    private final List<ConfigurableField> fields;
+
+    private final List<ConfigurableMethod> methods;
+
+    private volatile Optional<Method> getKeyMethod;
+
+    private volatile Optional<Method> subresourcesMethod;
+
+    private volatile List<Field> subresourceFields;
+
+    private final Map<Field, Optional<Method>> keyedFactoryMethods = new ConcurrentHashMap<>();
+
+    private final Map<Field, Optional<Method>> nonKeyedFactoryMethods = new ConcurrentHashMap<>();
+
+    static final class ConfigurableField {
+
+        ConfigurableField(Field field) {
+            this.field = field;
+            Configurables plural = field.getAnnotation(Configurables.class);
+            if (plural != null) {
+                this.annotations = plural.value();
+                this.plural = true;
+            } else {
+                this.annotations = field.getAnnotationsByType(Configurable.class);
+                this.plural = false;
+            }
+            this.name = dashed(field.getName(), false);
+        }
+
+        Field field() {
+            return this.field;
+        }
+
+        /**
+         * Whether the field is explicitly configurable, rather than only when implicitly scanned.
+         */
+        boolean isAnnotated() {
+            return this.plural || this.annotations.length > 0;
+        }
+
+        boolean isPlural() {
+            return this.plural;
+        }
+
+        Configurable[] annotations() {
+            return this.annotations;
+        }
+
+        String name() {
+            return this.name;
+        }
+
+        private final Field field;
+
+        private final Configurable[] annotations;
+
+        private final boolean plural;
+
+        private final String name;
+    }
+
+    static final class ConfigurableMethod {
+
+        ConfigurableMethod(Method method) {
+            this.method = method;
+            this.name = dashed(method.getName(), method.getParameterCount() == 2);
+        }
+
+        Method method() {
+            return this.method;
+        }
+
+        String name() {
+            return this.name;
+        }
+
+        private final Method method;
+
+        private final String name;
+    }
+}
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -42,7 +43,6 @@ import org.jboss.shrinkwrap.api.Filters;
 import org.jboss.shrinkwrap.api.GenericArchive;
 import org.jboss.shrinkwrap.api.Node;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
-import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 import org.jboss.shrinkwrap.api.importer.ExplodedImporter;
 import org.jboss.shrinkwrap.api.importer.ZipImporter;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
@@ -244,6 +244,8 @@ public class RuntimeDeployer implements Deployer {
                 }
             }
 
+            byte[] hash = this.contentRepository.addContent(deployment);
+
             if (BootstrapProperties.flagIsSet(SwarmProperties.EXPORT_DEPLOYMENT)) {
                 String exportLocation = System.getProperty(SwarmProperties.EXPORT_DEPLOYMENT);
                 if (exportLocation != null) {
@@ -257,12 +259,11 @@ public class RuntimeDeployer implements Deployer {
                     }
                     final File out = archivePath.toFile();
                     DeployerMessages.MESSAGES.exportingDeployment(out.getAbsolutePath());
-                    deployment.as(ZipExporter.class).exportTo(out, true);
+                    // reuse the content already exported into the repository
+                    Files.copy(this.contentRepository.getContentPath(hash), archivePath, StandardCopyOption.REPLACE_EXISTING);
                 }
             }
 
-            byte[] hash = this.contentRepository.addContent(deployment.as(ZipExporter.class).exportAsInputStream());
-
             final ModelNode deploymentAdd = new ModelNode();
 
             deploymentAdd.get(OP).set(ADD);
@@ -155,17 +155,11 @@ public class RuntimeServer implements Server {
         });
 
         try (AutoCloseable handle = Performance.time("pre-customizers")) {
-            for (Customizer each : this.preCustomizers) {
-                SwarmMessages.MESSAGES.callingPreCustomizer(each);
-                each.customize();
-            }
+            ConcurrentBoot.customize(this.preCustomizers, SwarmMessages.MESSAGES::callingPreCustomizer);
         }
 
         try (AutoCloseable handle = Performance.time("post-customizers")) {
-            for (Customizer each : this.postCustomizers) {
-                SwarmMessages.MESSAGES.callingPostCustomizer(each);
-                each.customize();
-            }
+            ConcurrentBoot.customize(this.postCustomizers, SwarmMessages.MESSAGES::callingPostCustomizer);
         }
 
         this.networkConfigurer.configure();
@@ -143,6 +143,11 @@ public class ServerBootstrapImpl implements ServerBootstrap {
                     }
 
                     weld.property("org.jboss.weld.se.shutdownHook", false);
+                    if (ConcurrentBoot.isEnabled()) {
+                        weld.property("org.jboss.weld.bootstrap.concurrentDeployment", true);
+                        weld.property("org.jboss.weld.executor.threadPoolType", "FIXED");
+                        weld.property("org.jboss.weld.executor.threadPoolSize", ConcurrentBoot.parallelism());
+                    }
                     WeldContainer weldContainer = null;
                     RuntimeServer server = null;
                     try (AutoCloseable weldRelated = Performance.time("Weld-related")) {
@@ -162,7 +167,15 @@ public class ServerBootstrapImpl implements ServerBootstrap {
                 return outerServer;
             });
         } finally {
-            SwarmMetricsMessages.MESSAGES.bootPerformance(Performance.dump());
+            ConcurrentBoot.shutdown();
+            if (SwarmMetricsMessages.MESSAGES.isTraceEnabled()) {
+                SwarmMetricsMessages.MESSAGES.bootPerformance(Performance.dump());
+            }
+            try {
+                Performance.export();
+            } catch (IOException e) {
+                SwarmMetricsMessages.MESSAGES.bootPerformanceExportFailed(System.getProperty(Performance.OUTPUT_PROPERTY), e);
+            }
         }
     }
 
@@ -16,13 +16,28 @@
 package org.wildfly.swarm.container.runtime.cdi.configurable;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Default;
 import javax.enterprise.inject.Produces;
 import javax.inject.Inject;
 
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.CompositeIndex;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
 import org.jboss.jandex.IndexView;
 import org.jboss.jandex.Indexer;
 import org.jboss.shrinkwrap.api.Archive;
@@ -39,6 +54,13 @@ public class DeploymentProducer {
 
     private static final String CLASS_SUFFIX = ".class";
 
+    // written at build time by org.wildfly.swarm.tools.DeploymentIndexWriter
+    static final String DEPLOYMENT_INDEX = "/META-INF/wildfly-swarm-jandex/deployment.idx";
+
+    private static final String WEB_INF_CLASSES = "/WEB-INF/classes/";
+
+    private static final int INDEX_CHUNK = 64;
+
     @Inject
     DeploymentContext context;
 
@@ -53,18 +75,119 @@ public class DeploymentProducer {
     @DeploymentScoped
     @Default
     IndexView index() {
-        Indexer indexer = new Indexer();
-        Map<ArchivePath, Node> c = context.getCurrentArchive().getContent();
+        return index(context.getCurrentArchive());
+    }
+
+    /**
+     * Index the classes of a deployment.
+     *
+     * <p>Starts from the index persisted into the deployment at build time, if any, and indexes only the
+     * classes it does not know, such as those added to the deployment since. These are indexed in parallel.
+     * Classes the persisted index knows but the deployment no longer contains are dropped from it.</p>
+     */
+    static IndexView index(Archive<?> archive) {
         try {
-            for (Map.Entry<ArchivePath, Node> each : c.entrySet()) {
-                if (each.getKey().get().endsWith(CLASS_SUFFIX)) {
-                    indexer.index(each.getValue().getAsset().openStream());
+            Index persisted = readPersistedIndex(archive);
+            Set<String> known = new HashSet<>();
+            if (persisted != null) {
+                for (ClassInfo each : persisted.getKnownClasses()) {
+                    known.add(each.name().toString());
                 }
             }
-        } catch (IOException e) {
+
+            String classRoot = archive.getName().endsWith(".war") ? WEB_INF_CLASSES : "/";
+            Set<String> present = new HashSet<>();
+            List<Node> unindexed = new ArrayList<>();
+            for (Map.Entry<ArchivePath, Node> each : archive.getContent().entrySet()) {
+                String path = each.getKey().get();
+                if (!path.endsWith(CLASS_SUFFIX) || each.getValue().getAsset() == null) {
+                    continue;
+                }
+                if (path.startsWith(classRoot)) {
+                    String name = className(path, classRoot);
+                    present.add(name);
+                    if (known.contains(name)) {
+                        continue;
+                    }
+                }
+                unindexed.add(each.getValue());
+            }
+
+            if (persisted != null && !present.containsAll(known)) {
+                persisted = retain(persisted, present);
+            }
+
+            if (persisted != null && unindexed.isEmpty()) {
+                return persisted;
+            }
+
+            List<IndexView> indexes = IntStream.range(0, (unindexed.size() + INDEX_CHUNK - 1) / INDEX_CHUNK)
+                    .parallel()
+                    .mapToObj(i -> index(unindexed.subList(i * INDEX_CHUNK, Math.min(unindexed.size(), (i + 1) * INDEX_CHUNK))))
+                    .collect(Collectors.toList());
+            if (persisted != null) {
+                indexes.add(persisted);
+            }
+            if (indexes.size() == 1) {
+                return indexes.get(0);
+            }
+            return CompositeIndex.create(indexes);
+        } catch (IOException | UncheckedIOException e) {
             throw new RuntimeException(e);
         }
+    }
+
+    private static Index readPersistedIndex(Archive<?> archive) throws IOException {
+        Node node = archive.get(DEPLOYMENT_INDEX);
+        if (node == null || node.getAsset() == null) {
+            return null;
+        }
+        try (InputStream in = node.getAsset().openStream()) {
+            return new IndexReader(in).read();
+        }
+    }
 
+    /**
+     * Copy an index, keeping only the given classes and the annotations, subclasses and implementors they contribute.
+     */
+    private static Index retain(Index index, Set<String> classNames) {
+        Map<DotName, List<AnnotationInstance>> annotations = new HashMap<>();
+        Map<DotName, List<ClassInfo>> subclasses = new HashMap<>();
+        Map<DotName, List<ClassInfo>> implementors = new HashMap<>();
+        Map<DotName, ClassInfo> classes = new HashMap<>();
+        for (ClassInfo each : index.getKnownClasses()) {
+            if (!classNames.contains(each.name().toString())) {
+                continue;
+            }
+            classes.put(each.name(), each);
+            for (Map.Entry<DotName, List<AnnotationInstance>> annotation : each.annotations().entrySet()) {
+                annotations.computeIfAbsent(annotation.getKey(), k -> new ArrayList<>()).addAll(annotation.getValue());
+            }
+            if (each.superName() != null) {
+                subclasses.computeIfAbsent(each.superName(), k -> new ArrayList<>()).add(each);
+            }
+            for (DotName interfaceName : each.interfaceNames()) {
+                implementors.computeIfAbsent(interfaceName, k -> new ArrayList<>()).add(each);
+            }
+        }
+        return Index.create(annotations, subclasses, implementors, classes);
+    }
+
+    private static Index index(List<Node> classes) {
+        Indexer indexer = new Indexer();
+        try {
+            for (Node each : classes) {
+                try (InputStream in = each.getAsset().openStream()) {
+                    indexer.index(in);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         return indexer.complete();
     }
+
+    private static String className(String path, String classRoot) {
+        return path.substring(classRoot.length(), path.length() - CLASS_SUFFIX.length()).replace('/', '.');
+    }
 }
@@ -15,6 +15,7 @@
  */
 package org.wildfly.swarm.container.runtime.marshal;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -28,6 +29,7 @@ import org.jboss.as.controller.PathElement;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.swarm.bootstrap.performance.Performance;
 import org.wildfly.swarm.config.runtime.invocation.Marshaller;
+import org.wildfly.swarm.container.runtime.ConcurrentBoot;
 import org.wildfly.swarm.spi.api.Fraction;
 import org.wildfly.swarm.spi.api.annotations.MarshalDMR;
 import org.wildfly.swarm.spi.api.annotations.WildFlySubsystem;
@@ -49,20 +51,31 @@ public class SubsystemMarshaller implements ConfigurationMarshaller {
     private Instance<Fraction> fractions;
 
     public void marshal(List<ModelNode> list) {
-        for (Fraction each : this.fractions) {
+        List<Fraction> all = new ArrayList<>();
+        this.fractions.forEach(all::add);
 
-            MarshalDMR anno = each.getClass().getAnnotation(MarshalDMR.class);
+        // marshalling each fraction only reads it, so may be done concurrently; results are applied in order
+        List<LinkedList<ModelNode>> marshalled;
+        try {
+            marshalled = ConcurrentBoot.map(all, (each) -> {
+                if (each.getClass().getAnnotation(MarshalDMR.class) == null) {
+                    return null;
+                }
+                try (AutoCloseable handle = Performance.time("marshall " + each.getClass().getSimpleName())) {
+                    return Marshaller.marshal(each);
+                }
+            });
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
 
-            if (anno != null) {
-                try {
-                    try (AutoCloseable handle = Performance.time("marshall " + each.getClass().getSimpleName())) {
-                        LinkedList<ModelNode> subList = Marshaller.marshal(each);
-                        if (!isAlreadyConfigured(subList, list)) {
-                            list.addAll(subList);
-                        }
-                    }
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
+        for (int i = 0; i < all.size(); ++i) {
+            Fraction each = all.get(i);
+            LinkedList<ModelNode> subList = marshalled.get(i);
+
+            if (subList != null) {
+                if (!isAlreadyConfigured(subList, list)) {
+                    list.addAll(subList);
                 }
             } else {
                 WildFlySubsystem subsysAnno = each.getClass().getAnnotation(WildFlySubsystem.class);
@@ -37,20 +37,32 @@ package org.wildfly.swarm.container.runtime.wildfly;
  * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
  */
 
-import java.io.BufferedInputStream;
-import java.io.File;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.enterprise.context.ApplicationScoped;
 
@@ -62,19 +74,77 @@ import org.jboss.msc.service.ServiceTarget;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 import org.jboss.vfs.VFS;
 import org.jboss.vfs.VirtualFile;
+import org.wildfly.swarm.spi.api.SwarmProperties;
 
 /**
  * A content-repository capable of providing a static bit of content.
  *
+ * <p>If <code>swarm.content.dir</code> is set, content is kept in that directory, named by its hash, along
+ * with a persisted index, so it survives restarts. Since exported zips carry fresh timestamps, archives are
+ * also indexed by a fingerprint of their paths and asset bytes; redeploying an unchanged archive finds its
+ * fingerprint and reuses the stored content without exporting it again. Content is reference-counted; content that is no longer
+ * referenced is marked and deleted by a later {@link #cleanObsoleteContent()} once it has stayed unreferenced
+ * for five minutes, and content left unused by a run is dropped when the server stops. The index is loaded on first use; content files it does not
+ * account for, such as those truncated by an interrupted run, are deleted then. Without the property,
+ * content lives in temporary files removed at shutdown, and {@link #cleanObsoleteContent()} does nothing.</p>
+ *
  * @author Bob McWhirter
  * @see org.jboss.as.selfcontained.ContentProvider
  */
 @ApplicationScoped
 public class SwarmContentRepository implements ContentRepository, Service<ContentRepository> {
 
-    private Map<String, Path> index = new HashMap<>();
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String INDEX_NAME = "index.properties";
+
+    private static final String CONTENT_SUFFIX = ".content";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final String CONTENT_PREFIX = "content.";
+
+    private static final String ARCHIVE_PREFIX = "archive.";
+
+    private static final long OBSOLETE_CONTENT_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+    private final Path root;
+
+    private final long obsoleteContentTimeout;
+
+    private Map<String, Path> index = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> references = new HashMap<>();
+
+    private final Map<String, Long> marked = new HashMap<>();
+
+    private final Set<String> used = new HashSet<>();
+
+    private final Map<String, byte[]> fingerprints = new HashMap<>();
+
+    private volatile boolean loaded;
+
+    public SwarmContentRepository() {
+        this(System.getProperty(SwarmProperties.CONTENT_DIR) == null ? null : Paths.get(System.getProperty(SwarmProperties.CONTENT_DIR)));
+    }
+
+    SwarmContentRepository(Path root) {
+        this(root, OBSOLETE_CONTENT_TIMEOUT);
+    }
+
+    SwarmContentRepository(Path root, long obsoleteContentTimeout) {
+        this.root = root;
+        this.obsoleteContentTimeout = obsoleteContentTimeout;
+        this.loaded = root == null;
+    }
 
     /**
      * Install the service.
@@ -87,36 +157,182 @@ public class SwarmContentRepository implements ContentRepository, Service<Conten
 
     @Override
     public byte[] addContent(InputStream stream) throws IOException {
-        try {
-            MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
-            byte[] sha1Bytes;
-            Path tmp = File.createTempFile("content", ".tmp").toPath();
-            try (OutputStream fos = Files.newOutputStream(tmp)) {
-                messageDigest.reset();
-                DigestOutputStream dos = new DigestOutputStream(fos, messageDigest);
-                BufferedInputStream bis = new BufferedInputStream(stream);
-                byte[] bytes = new byte[8192];
-                int read;
-                while ((read = bis.read(bytes)) > -1) {
-                    dos.write(bytes, 0, read);
+        ensureLoaded();
+        MessageDigest messageDigest = sha1();
+        Path tmp = createTempFile();
+        try (OutputStream out = openDigestStream(tmp, messageDigest)) {
+            byte[] bytes = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = stream.read(bytes)) > -1) {
+                out.write(bytes, 0, read);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        return store(tmp, messageDigest.digest());
+    }
+
+    /**
+     * Add an archive, exporting it straight into the repository.
+     *
+     * <p>The archive is exported once, hashed as it is written. If content with the same hash is already
+     * present, the new copy is discarded and the existing content is reused.</p>
+     *
+     * @param archive The archive to add.
+     * @return The SHA-1 hash of the content.
+     * @throws IOException If the archive cannot be exported.
+     */
+    public byte[] addContent(Archive<?> archive) throws IOException {
+        ensureLoaded();
+        String fingerprint = null;
+        if (this.root != null) {
+            fingerprint = toHex(fingerprint(archive));
+            byte[] known = reuse(fingerprint);
+            if (known != null) {
+                return known;
+            }
+        }
+
+        MessageDigest messageDigest = sha1();
+        Path tmp = createTempFile();
+        try (OutputStream out = openDigestStream(tmp, messageDigest)) {
+            archive.as(ZipExporter.class).exportTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        byte[] sha1Bytes = store(tmp, messageDigest.digest());
+        if (fingerprint != null) {
+            remember(fingerprint, sha1Bytes);
+        }
+        return sha1Bytes;
+    }
+
+    /**
+     * Retrieve the file backing some content.
+     *
+     * @param sha1Bytes The SHA-1 hash of the content.
+     * @return The path of the content, or <code>null</code> if not present.
+     */
+    public Path getContentPath(byte[] sha1Bytes) {
+        ensureLoaded();
+        return this.index.get(toKey(sha1Bytes));
+    }
+
+    private synchronized byte[] reuse(String fingerprint) {
+        byte[] sha1Bytes = this.fingerprints.get(fingerprint);
+        if (sha1Bytes == null) {
+            return null;
+        }
+        String key = toKey(sha1Bytes);
+        Path existing = this.index.get(key);
+        if (existing == null || !Files.exists(existing)) {
+            this.fingerprints.remove(fingerprint);
+            return null;
+        }
+        this.used.add(key);
+        this.marked.remove(key);
+        return sha1Bytes;
+    }
+
+    private synchronized void remember(String fingerprint, byte[] sha1Bytes) throws IOException {
+        this.fingerprints.put(fingerprint, sha1Bytes);
+        saveIndex();
+    }
+
+    private static byte[] fingerprint(Archive<?> archive) throws IOException {
+        MessageDigest messageDigest = sha1();
+        update(messageDigest, archive);
+        return messageDigest.digest();
+    }
+
+    private static void update(MessageDigest messageDigest, Archive<?> archive) throws IOException {
+        Map<String, Node> content = new TreeMap<>();
+        for (Map.Entry<ArchivePath, Node> each : archive.getContent().entrySet()) {
+            content.put(each.getKey().get(), each.getValue());
+        }
+        byte[] bytes = new byte[BUFFER_SIZE];
+        for (Map.Entry<String, Node> each : content.entrySet()) {
+            messageDigest.update(each.getKey().getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+            Asset asset = each.getValue().getAsset();
+            if (asset instanceof ArchiveAsset) {
+                // exporting a nested archive stamps it with the current time, so fingerprint its content instead
+                update(messageDigest, ((ArchiveAsset) asset).getArchive());
+            } else if (asset != null) {
+                try (InputStream in = asset.openStream()) {
+                    int read;
+                    while ((read = in.read(bytes)) > -1) {
+                        messageDigest.update(bytes, 0, read);
+                    }
                 }
-                fos.flush();
-                sha1Bytes = messageDigest.digest();
             }
-            String key = toKey(sha1Bytes);
+            messageDigest.update((byte) 0);
+        }
+    }
+
+    private Path createTempFile() throws IOException {
+        if (this.root == null) {
+            return Files.createTempFile("content", TEMP_SUFFIX);
+        }
+        // alongside the content, so it may be moved into place atomically
+        Files.createDirectories(this.root);
+        return Files.createTempFile(this.root, "content", TEMP_SUFFIX);
+    }
+
+    private synchronized byte[] store(Path tmp, byte[] sha1Bytes) throws IOException {
+        String key = toKey(sha1Bytes);
+        this.used.add(key);
+        this.marked.remove(key);
+
+        Path existing = this.index.get(key);
+        if (existing != null && Files.exists(existing)) {
+            Files.delete(tmp);
+            return sha1Bytes;
+        }
+
+        if (this.root == null) {
             this.index.put(key, tmp);
             return sha1Bytes;
+        }
+
+        Path target = this.root.resolve(toHex(sha1Bytes) + CONTENT_SUFFIX);
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        this.index.put(key, target);
+        saveIndex();
+        return sha1Bytes;
+    }
+
+    private static OutputStream openDigestStream(Path path, MessageDigest messageDigest) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new DigestOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), messageDigest);
+    }
+
+    private static MessageDigest sha1() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-1");
         } catch (NoSuchAlgorithmException e) {
             throw new IOException(e);
         }
     }
 
     @Override
-    public void addContentReference(ContentReference contentReference) {
+    public synchronized void addContentReference(ContentReference contentReference) {
+        ensureLoaded();
+        String key = toKey(contentReference.getHash());
+        this.references.merge(key, 1, Integer::sum);
+        this.used.add(key);
+        this.marked.remove(key);
     }
 
     @Override
     public VirtualFile getContent(byte[] sha1Bytes) {
+        ensureLoaded();
         String key = toKey(sha1Bytes);
         VirtualFile result = VFS.getChild(this.index.get(key).toUri());
         return result;
@@ -124,6 +340,7 @@ public class SwarmContentRepository implements ContentRepository, Service<Conten
 
     @Override
     public boolean hasContent(byte[] sha1Bytes) {
+        ensureLoaded();
         String key = toKey(sha1Bytes);
         boolean result = this.index.containsKey(key);
         return result;
@@ -138,21 +355,57 @@ public class SwarmContentRepository implements ContentRepository, Service<Conten
         return str.toString();
     }
 
+    private static String toHex(byte[] hash) {
+        StringBuilder str = new StringBuilder();
+        for (byte each : hash) {
+            str.append(String.format("%02x", each & 0xFF));
+        }
+        return str.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] hash = new byte[hex.length() / 2];
+        for (int i = 0; i < hash.length; ++i) {
+            hash[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return hash;
+    }
+
     @Override
     public boolean syncContent(ContentReference contentReference) {
         return true;
     }
 
     @Override
-    public void removeContent(ContentReference contentReference) {
-
+    public synchronized void removeContent(ContentReference contentReference) {
+        ensureLoaded();
+        String key = toKey(contentReference.getHash());
+        Integer count = this.references.get(key);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            this.references.put(key, count - 1);
+            return;
+        }
+        this.references.remove(key);
+        try {
+            delete(key);
+        } catch (IOException e) {
+            // left for cleanObsoleteContent() or the next shutdown
+        }
     }
 
-    public void removeAllContent() throws IOException {
+    public synchronized void removeAllContent() throws IOException {
+        ensureLoaded();
         IOException exception = null;
-        for (Path path: this.index.values()) {
+        for (String key : new ArrayList<>(this.index.keySet())) {
+            // persistent content used by this run is kept for the next one
+            if (this.root != null && this.used.contains(key)) {
+                continue;
+            }
             try {
-                Files.delete(path);
+                delete(key);
             } catch (IOException e) {
                 exception = e;
             }
@@ -164,13 +417,143 @@ public class SwarmContentRepository implements ContentRepository, Service<Conten
     }
 
     @Override
-    public Map<String, Set<String>> cleanObsoleteContent() {
+    public synchronized Map<String, Set<String>> cleanObsoleteContent() {
+        ensureLoaded();
+        Set<String> markedContent = new HashSet<>();
+        Set<String> deletedContent = new HashSet<>();
+        long now = System.currentTimeMillis();
+
+        // temporary content is only removed at shutdown
+        if (this.root != null) {
+            for (Map.Entry<String, Path> each : new ArrayList<>(this.index.entrySet())) {
+                String key = each.getKey();
+                if (this.references.containsKey(key)) {
+                    this.marked.remove(key);
+                    continue;
+                }
+                Long markedAt = this.marked.putIfAbsent(key, now);
+                if (markedAt == null) {
+                    markedContent.add(each.getValue().toString());
+                } else if (now - markedAt > this.obsoleteContentTimeout) {
+                    try {
+                        delete(key);
+                        deletedContent.add(each.getValue().toString());
+                    } catch (IOException e) {
+                        markedContent.add(each.getValue().toString());
+                    }
+                } else {
+                    markedContent.add(each.getValue().toString());
+                }
+            }
+        }
+
         HashMap<String, Set<String>> result = new HashMap<>();
-        result.put(ContentRepository.MARKED_CONTENT, Collections.emptySet());
-        result.put(ContentRepository.DELETED_CONTENT, Collections.emptySet());
+        result.put(ContentRepository.MARKED_CONTENT, markedContent);
+        result.put(ContentRepository.DELETED_CONTENT, deletedContent);
         return result;
     }
 
+    private void delete(String key) throws IOException {
+        Path path = this.index.remove(key);
+        this.fingerprints.values().removeIf(each -> toKey(each).equals(key));
+        this.marked.remove(key);
+        this.used.remove(key);
+        if (path != null) {
+            Files.deleteIfExists(path);
+        }
+        if (this.root != null) {
+            saveIndex();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (this.loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!this.loaded) {
+                loadIndex();
+                deleteOrphans();
+                this.loaded = true;
+            }
+        }
+    }
+
+    private void loadIndex() {
+        Path indexFile = this.root.resolve(INDEX_NAME);
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        Properties persisted = new Properties();
+        try (InputStream in = Files.newInputStream(indexFile)) {
+            persisted.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            // unreadable index, start afresh
+            return;
+        }
+        for (String name : persisted.stringPropertyNames()) {
+            try {
+                if (name.startsWith(CONTENT_PREFIX)) {
+                    String hex = name.substring(CONTENT_PREFIX.length());
+                    Path path = this.root.resolve(hex + CONTENT_SUFFIX);
+                    // drop content truncated by an interrupted run
+                    if (Files.size(path) == Long.parseLong(persisted.getProperty(name))) {
+                        this.index.put(toKey(fromHex(hex)), path);
+                    }
+                } else if (name.startsWith(ARCHIVE_PREFIX)) {
+                    this.fingerprints.put(name.substring(ARCHIVE_PREFIX.length()), fromHex(persisted.getProperty(name)));
+                }
+            } catch (IOException | RuntimeException e) {
+                // missing or corrupt, ignore
+            }
+        }
+        this.fingerprints.values().removeIf(each -> !this.index.containsKey(toKey(each)));
+    }
+
+    /**
+     * Delete content files the index does not account for, and temporary files abandoned by earlier runs.
+     */
+    private void deleteOrphans() {
+        Set<Path> indexed = new HashSet<>(this.index.values());
+        long abandoned = System.currentTimeMillis() - OBSOLETE_CONTENT_TIMEOUT;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.root)) {
+            for (Path each : files) {
+                String name = each.getFileName().toString();
+                if (name.endsWith(CONTENT_SUFFIX) && !indexed.contains(each)) {
+                    Files.deleteIfExists(each);
+                } else if (name.endsWith(TEMP_SUFFIX) && Files.getLastModifiedTime(each).toMillis() < abandoned) {
+                    // recent ones may belong to a concurrent writer
+                    Files.deleteIfExists(each);
+                }
+            }
+        } catch (IOException e) {
+            // missing directory, or left for the next run
+        }
+    }
+
+    private void saveIndex() throws IOException {
+        Properties persisted = new Properties();
+        for (Path each : this.index.values()) {
+            String name = each.getFileName().toString();
+            if (name.endsWith(CONTENT_SUFFIX)) {
+                persisted.setProperty(CONTENT_PREFIX + name.substring(0, name.length() - CONTENT_SUFFIX.length()), Long.toString(Files.size(each)));
+            }
+        }
+        for (Map.Entry<String, byte[]> each : this.fingerprints.entrySet()) {
+            persisted.setProperty(ARCHIVE_PREFIX + each.getKey(), toHex(each.getValue()));
+        }
+        Path tmp = Files.createTempFile(this.root, "index", TEMP_SUFFIX);
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            persisted.store(out, null);
+        }
+        Path indexFile = this.root.resolve(INDEX_NAME);
+        try {
+            Files.move(tmp, indexFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     @Override
     public void start(StartContext startContext) throws StartException {
     }
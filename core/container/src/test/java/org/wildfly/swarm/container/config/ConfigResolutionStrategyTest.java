@@ -16,9 +16,12 @@
 package org.wildfly.swarm.container.config;
 
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
+import org.wildfly.swarm.spi.api.ConfigurationFilter;
 import org.wildfly.swarm.spi.api.config.ConfigKey;
+import org.wildfly.swarm.spi.api.config.SimpleKey;
 
 import static org.fest.assertions.Assertions.assertThat;
 
@@ -122,5 +125,80 @@ public class ConfigResolutionStrategyTest {
         assertThat(props.getProperty("swarm.data-sources.ExampleDS.driver-name")).isEqualTo("cooper");
     }
 
+    @Test
+    public void testIndexIsRebuiltAfterChanges() {
+        Properties props = new Properties();
+
+        ConfigNode config = new ConfigNode() {{
+            recursiveChild("swarm.data-sources.ExampleDS.url", "jdbc:db");
+        }};
+
+        ConfigResolutionStrategy strategy = new ConfigResolutionStrategy(props);
+        strategy.add(config);
+        strategy.activate();
+
+        assertThat(strategy.valueOf(ConfigKey.parse("swarm.http.port"))).isNull();
+        assertThat(strategy.hasKeyOrSubkeys(ConfigKey.parse("swarm.http"))).isFalse();
+
+        strategy.withProperty("swarm.http.port", "8080");
+        strategy.add(new ConfigNode() {{
+            recursiveChild("swarm.data-sources.OtherDS.url", "jdbc:other");
+        }});
+
+        assertThat(strategy.valueOf(ConfigKey.parse("swarm.http.port"))).isEqualTo("8080");
+        assertThat(strategy.hasKeyOrSubkeys(ConfigKey.parse("swarm.http"))).isTrue();
+        assertThat(strategy.simpleSubkeysOf(ConfigKey.parse("swarm.data-sources")))
+                .containsOnly(new SimpleKey("ExampleDS"), new SimpleKey("OtherDS"));
+        assertThat(strategy.simpleSubkeysOf(ConfigKey.parse("swarm.nothing"))).isEmpty();
+    }
+
+    @Test
+    public void testFilteredOutValueFallsThrough() {
+        Properties props = new Properties() {{
+            setProperty("swarm.http.port", "secret");
+        }};
+
+        ConfigNode config = new ConfigNode() {{
+            recursiveChild("swarm.http.port", "8080");
+        }};
+
+        ConfigResolutionStrategy strategy = new ConfigResolutionStrategy(props);
+        strategy.add(config);
+        strategy.activate();
 
+        assertThat(strategy.valueOf(ConfigKey.parse("swarm.http.port"))).isEqualTo("secret");
+
+        strategy.withFilter(new ConfigurationFilter() {
+            @Override
+            public <T> T filter(String key, T value) {
+                return "secret".equals(value) ? null : value;
+            }
+        });
+
+        assertThat(strategy.valueOf(ConfigKey.parse("swarm.http.port"))).isEqualTo("8080");
+        assertThat(strategy.valueOf(ConfigKey.parse("swarm.http.port"))).isEqualTo("8080");
+    }
+
+    @Test
+    public void testFiltersRunOnEveryLookup() {
+        Properties props = new Properties() {{
+            setProperty("swarm.http.port", "8080");
+        }};
+
+        ConfigResolutionStrategy strategy = new ConfigResolutionStrategy(props);
+        strategy.activate();
+
+        AtomicReference<String> replacement = new AtomicReference<>("8081");
+        strategy.withFilter(new ConfigurationFilter() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T filter(String key, T value) {
+                return (T) replacement.get();
+            }
+        });
+
+        assertThat(strategy.valueOf(ConfigKey.parse("swarm.http.port"))).isEqualTo("8081");
+        replacement.set("8082");
+        assertThat(strategy.valueOf(ConfigKey.parse("swarm.http.port"))).isEqualTo("8082");
+    }
 }
@@ -0,0 +1,204 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import org.junit.After;
+import org.junit.Test;
+import org.wildfly.swarm.spi.api.Customizer;
+import org.wildfly.swarm.spi.api.SwarmProperties;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ConcurrentBootTest {
+
+    private static final List<String> RAN = Collections.synchronizedList(new ArrayList<>());
+
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+
+    private static final AtomicBoolean OVERLAPPED = new AtomicBoolean();
+
+    @After
+    public void tearDown() {
+        System.clearProperty(SwarmProperties.CONCURRENT_BOOT);
+        System.clearProperty(SwarmProperties.CONCURRENT_BOOT_THREADS);
+        ConcurrentBoot.shutdown();
+        RAN.clear();
+        OVERLAPPED.set(false);
+    }
+
+    @Test
+    public void testSerialCustomizersRunInOrderGiven() throws Exception {
+        ConcurrentBoot.customize(Arrays.asList(new SharedB(), new Independent(), new SharedA()), (c) -> {
+        });
+
+        assertThat(RAN).containsExactly("shared-b", "independent", "shared-a");
+    }
+
+    @Test
+    public void testMapPreservesOrder() throws Exception {
+        System.setProperty(SwarmProperties.CONCURRENT_BOOT, "true");
+
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 50; ++i) {
+            inputs.add(i);
+        }
+
+        List<Integer> results = ConcurrentBoot.map(inputs, (i) -> {
+            Thread.sleep((50 - i) % 5);
+            return i * 2;
+        });
+
+        for (int i = 0; i < 50; ++i) {
+            assertThat(results.get(i)).isEqualTo(i * 2);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFailureIsPropagated() throws Exception {
+        System.setProperty(SwarmProperties.CONCURRENT_BOOT, "true");
+
+        ConcurrentBoot.customize(Arrays.asList(new Independent(), () -> {
+            throw new IllegalArgumentException("failed");
+        }), (c) -> {
+        });
+    }
+
+    @Test
+    public void testCustomizersInjectingTheSameTypeAreSequenced() throws Exception {
+        Customizer a = new SharedA();
+        Customizer b = new SharedB();
+        Customizer independent = new Independent();
+
+        assertThat(ConcurrentBoot.sharingState(b, Arrays.asList(a, independent))).containsOnly(a);
+        assertThat(ConcurrentBoot.sharingState(independent, Arrays.asList(a, b))).isEmpty();
+
+        System.setProperty(SwarmProperties.CONCURRENT_BOOT, "true");
+        System.setProperty(SwarmProperties.CONCURRENT_BOOT_THREADS, "4");
+
+        ConcurrentBoot.customize(Arrays.asList(a, b, new SharedA(), independent), (c) -> {
+        });
+
+        assertThat(RAN).hasSize(4);
+        assertThat(OVERLAPPED.get()).isFalse();
+    }
+
+    @Test
+    public void testCustomizersInjectingRelatedTypesAreSequenced() throws Exception {
+        Customizer list = new SharedA();
+        Customizer collection = new SharedCollection();
+        Customizer instance = new SharedInstance();
+        Customizer provider = new SharedProvider();
+        Customizer independent = new Independent();
+
+        // a supertype, or the same type through Instance or Provider, reaches the same beans
+        assertThat(ConcurrentBoot.sharingState(collection, Arrays.asList(list, independent))).containsOnly(list);
+        assertThat(ConcurrentBoot.sharingState(list, Arrays.asList(collection, instance, provider))).containsOnly(collection, instance, provider);
+        assertThat(ConcurrentBoot.sharingState(provider, Arrays.asList(instance))).containsOnly(instance);
+        assertThat(ConcurrentBoot.sharingState(new Unrelated(), Arrays.asList(list, collection, instance, provider))).isEmpty();
+    }
+
+    private static void exclusively(String name) throws InterruptedException {
+        if (ACTIVE.incrementAndGet() > 1) {
+            OVERLAPPED.set(true);
+        }
+        Thread.sleep(20);
+        ACTIVE.decrementAndGet();
+        RAN.add(name);
+    }
+
+    static class Independent implements Customizer {
+        @Override
+        public void customize() {
+            RAN.add("independent");
+        }
+    }
+
+    static class SharedA implements Customizer {
+        @Inject
+        List<String> shared;
+
+        @Override
+        public void customize() throws Exception {
+            exclusively("shared-a");
+        }
+    }
+
+    static class SharedB implements Customizer {
+        @Inject
+        List<String> shared;
+
+        @Override
+        public void customize() throws Exception {
+            exclusively("shared-b");
+        }
+    }
+
+    static class SharedCollection implements Customizer {
+        @Inject
+        Collection<Object> shared;
+
+        @Override
+        public void customize() {
+        }
+    }
+
+    static class SharedInstance implements Customizer {
+        @Inject
+        Instance<List<String>> shared;
+
+        @Override
+        public void customize() {
+        }
+    }
+
+    static class SharedProvider implements Customizer {
+        final Provider<ArrayList<String>> shared;
+
+        @Inject
+        SharedProvider(Provider<ArrayList<String>> shared) {
+            this.shared = shared;
+        }
+
+        SharedProvider() {
+            this(null);
+        }
+
+        @Override
+        public void customize() {
+        }
+    }
+
+    static class Unrelated implements Customizer {
+        @Inject
+        Integer unrelated;
+
+        @Override
+        public void customize() {
+        }
+    }
+}
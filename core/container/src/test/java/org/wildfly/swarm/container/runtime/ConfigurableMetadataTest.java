@@ -0,0 +1,88 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.wildfly.swarm.spi.api.Defaultable;
+import org.wildfly.swarm.spi.api.annotations.Configurable;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ConfigurableMetadataTest {
+
+    @Test
+    public void testMetadataIsComputedOnce() {
+        assertThat(ConfigurableMetadata.of(Component.class)).isSameAs(ConfigurableMetadata.of(Component.class));
+    }
+
+    @Test
+    public void testCandidateFields() {
+        ConfigurableMetadata metadata = ConfigurableMetadata.of(Component.class);
+
+        List<String> names = metadata.fields().stream()
+                .map(ConfigurableMetadata.ConfigurableField::name)
+                .collect(Collectors.toList());
+
+        assertThat(names).containsOnly("max-threads", "context", "names");
+
+        ConfigurableMetadata.ConfigurableField context = metadata.fields().stream()
+                .filter(e -> e.name().equals("context"))
+                .findFirst()
+                .get();
+
+        assertThat(context.isAnnotated()).isTrue();
+        assertThat(context.annotations()).hasSize(1);
+        assertThat(context.annotations()[0].value()).isEqualTo("swarm.component.context");
+    }
+
+    @Test
+    public void testBlacklistedClass() {
+        assertThat(ConfigurableMetadata.of(Blacklisted.class).isBlacklisted()).isTrue();
+        assertThat(ConfigurableMetadata.of(Blacklisted.class).fields()).isEmpty();
+        assertThat(ConfigurableMetadata.of(Component.class).isBlacklisted()).isFalse();
+    }
+
+    @Test
+    public void testDashedNames() {
+        assertThat(ConfigurableMetadata.dashed("maxThreads", false)).isEqualTo("max-threads");
+        assertThat(ConfigurableMetadata.dashed("dataSource", true)).isEqualTo("data-sources");
+    }
+
+    public static class Component {
+
+        private static final String IGNORED = "ignored";
+
+        private Integer maxThreads;
+
+        @Configurable("swarm.component.context")
+        private Defaultable<String> context = Defaultable.string("/");
+
+        private List<String> names;
+
+        private Map<String, String> key;
+
+        private Object other;
+    }
+
+    public static class Blacklisted extends java.util.ArrayList<String> implements List<String> {
+
+        private String name;
+    }
+}
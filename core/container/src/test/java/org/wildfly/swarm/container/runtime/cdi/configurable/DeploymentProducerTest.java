@@ -0,0 +1,115 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime.cdi.configurable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.jandex.Indexer;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DeploymentProducerTest {
+
+    @Test
+    public void testIndexWithoutPersistedIndex() throws Exception {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "test.jar");
+        archive.addClasses(Indexed.class, Unindexed.class);
+
+        IndexView index = DeploymentProducer.index(archive);
+
+        assertThat(names(index)).containsOnly(Indexed.class.getName(), Unindexed.class.getName());
+    }
+
+    @Test
+    public void testIndexWithPersistedIndex() throws Exception {
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, "test.war");
+        archive.addClasses(Unindexed.class);
+        // Indexed cannot be read, so is only known from the persisted index, proving it is used
+        addUnreadable(archive, Indexed.class);
+        archive.add(new ByteArrayAsset(persistedIndex(Indexed.class)), DeploymentProducer.DEPLOYMENT_INDEX);
+
+        IndexView index = DeploymentProducer.index(archive);
+
+        assertThat(index.getKnownClasses()).hasSize(2);
+        assertThat(names(index)).containsOnly(Indexed.class.getName(), Unindexed.class.getName());
+    }
+
+    @Test
+    public void testClassesMissingFromDeploymentAreDroppedFromPersistedIndex() throws Exception {
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, "test.war");
+        addUnreadable(archive, Indexed.class);
+        // Phantom is known to the persisted index only, as if removed from the deployment since
+        archive.add(new ByteArrayAsset(persistedIndex(Indexed.class, Phantom.class)), DeploymentProducer.DEPLOYMENT_INDEX);
+
+        IndexView index = DeploymentProducer.index(archive);
+
+        assertThat(names(index)).containsOnly(Indexed.class.getName());
+        assertThat(index.getClassByName(DotName.createSimple(Phantom.class.getName()))).isNull();
+        assertThat(index.getAllKnownSubclasses(DotName.createSimple(Object.class.getName()))).hasSize(1);
+    }
+
+    private static void addUnreadable(WebArchive archive, Class<?> type) {
+        archive.add(new Asset() {
+            @Override
+            public InputStream openStream() {
+                throw new IllegalStateException("indexed again");
+            }
+        }, "WEB-INF/classes/" + type.getName().replace('.', '/') + ".class");
+    }
+
+    private static byte[] persistedIndex(Class<?>... classes) throws IOException {
+        Indexer indexer = new Indexer();
+        for (Class<?> each : classes) {
+            try (InputStream in = each.getResourceAsStream("/" + each.getName().replace('.', '/') + ".class")) {
+                indexer.index(in);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new IndexWriter(out).write(indexer.complete());
+        return out.toByteArray();
+    }
+
+    private static Set<String> names(IndexView index) {
+        Set<String> names = new HashSet<>();
+        for (ClassInfo each : index.getKnownClasses()) {
+            names.add(each.name().toString());
+        }
+        return names;
+    }
+
+    public static class Indexed {
+    }
+
+    public static class Unindexed {
+    }
+
+    public static class Phantom {
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime.wildfly;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.repository.ContentReference;
+import org.jboss.as.repository.ContentRepository;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SwarmContentRepositoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testContentSurvivesRestart() throws Exception {
+        Path root = folder.newFolder("content").toPath();
+
+        SwarmContentRepository first = new SwarmContentRepository(root);
+        byte[] hash = first.addContent(stream("hello"));
+        Path path = first.getContentPath(hash);
+        assertThat(Files.exists(path)).isTrue();
+
+        SwarmContentRepository second = new SwarmContentRepository(root);
+        assertThat(second.hasContent(hash)).isTrue();
+        assertThat(second.getContentPath(hash).equals(path)).isTrue();
+        assertThat(new String(Files.readAllBytes(path), StandardCharsets.UTF_8)).isEqualTo("hello");
+    }
+
+    @Test
+    public void testTruncatedContentIsDeleted() throws Exception {
+        Path root = folder.newFolder("content").toPath();
+
+        SwarmContentRepository first = new SwarmContentRepository(root);
+        byte[] hash = first.addContent(stream("hello"));
+        Path path = first.getContentPath(hash);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(2);
+        }
+
+        SwarmContentRepository second = new SwarmContentRepository(root);
+        assertThat(second.hasContent(hash)).isFalse();
+        assertThat(Files.exists(path)).isFalse();
+
+        // and may be added again
+        byte[] again = second.addContent(stream("hello"));
+        assertThat(again).isEqualTo(hash);
+        assertThat(new String(Files.readAllBytes(second.getContentPath(again)), StandardCharsets.UTF_8)).isEqualTo("hello");
+    }
+
+    @Test
+    public void testCorruptIndexStartsAfresh() throws Exception {
+        Path root = folder.newFolder("content").toPath();
+
+        SwarmContentRepository first = new SwarmContentRepository(root);
+        byte[] hash = first.addContent(stream("hello"));
+        Path path = first.getContentPath(hash);
+        Files.write(root.resolve("index.properties"), "content.zz=\\u00\narchive.abc=not-hex\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        SwarmContentRepository second = new SwarmContentRepository(root);
+        assertThat(second.hasContent(hash)).isFalse();
+        assertThat(Files.exists(path)).isFalse();
+    }
+
+    @Test
+    public void testNothingIsReadUntilUsed() throws Exception {
+        File root = new File(folder.getRoot(), "content");
+
+        SwarmContentRepository repository = new SwarmContentRepository(root.toPath());
+        assertThat(root.exists()).isFalse();
+
+        repository.addContent(stream("hello"));
+        assertThat(root.exists()).isTrue();
+    }
+
+    @Test
+    public void testUnchangedArchiveIsNotExportedAgain() throws Exception {
+        Path root = folder.newFolder("content").toPath();
+        AtomicInteger opened = new AtomicInteger();
+
+        SwarmContentRepository first = new SwarmContentRepository(root);
+        byte[] hash = first.addContent(archive(opened));
+        // fingerprinted, then exported
+        assertThat(opened.get()).isEqualTo(2);
+
+        opened.set(0);
+        assertThat(first.addContent(archive(opened))).isEqualTo(hash);
+        assertThat(opened.get()).isEqualTo(1);
+
+        opened.set(0);
+        SwarmContentRepository second = new SwarmContentRepository(root);
+        assertThat(second.addContent(archive(opened))).isEqualTo(hash);
+        assertThat(opened.get()).isEqualTo(1);
+        assertThat(second.hasContent(hash)).isTrue();
+    }
+
+    @Test
+    public void testContentIsDeletedWithItsLastReference() throws Exception {
+        Path root = folder.newFolder("content").toPath();
+
+        SwarmContentRepository repository = new SwarmContentRepository(root);
+        byte[] hash = repository.addContent(stream("hello"));
+        Path path = repository.getContentPath(hash);
+        repository.addContentReference(new ContentReference("a.war", hash));
+        repository.addContentReference(new ContentReference("b.war", hash));
+
+        repository.removeContent(new ContentReference("a.war", hash));
+        assertThat(repository.hasContent(hash)).isTrue();
+        assertThat(Files.exists(path)).isTrue();
+
+        repository.removeContent(new ContentReference("b.war", hash));
+        assertThat(repository.hasContent(hash)).isFalse();
+        assertThat(Files.exists(path)).isFalse();
+        assertThat(new SwarmContentRepository(root).hasContent(hash)).isFalse();
+    }
+
+    @Test
+    public void testObsoleteContentIsMarkedThenDeleted() throws Exception {
+        Path root = folder.newFolder("content").toPath();
+
+        SwarmContentRepository repository = new SwarmContentRepository(root, 0);
+        byte[] referenced = repository.addContent(stream("referenced"));
+        repository.addContentReference(new ContentReference("a.war", referenced));
+        byte[] obsolete = repository.addContent(stream("obsolete"));
+        Path path = repository.getContentPath(obsolete);
+
+        Map<String, Set<String>> result = repository.cleanObsoleteContent();
+        assertThat(result.get(ContentRepository.MARKED_CONTENT)).containsOnly(path.toString());
+        assertThat(result.get(ContentRepository.DELETED_CONTENT)).isEmpty();
+        assertThat(Files.exists(path)).isTrue();
+
+        Thread.sleep(10);
+        result = repository.cleanObsoleteContent();
+        assertThat(result.get(ContentRepository.MARKED_CONTENT)).isEmpty();
+        assertThat(result.get(ContentRepository.DELETED_CONTENT)).containsOnly(path.toString());
+        assertThat(Files.exists(path)).isFalse();
+        assertThat(repository.hasContent(referenced)).isTrue();
+    }
+
+    @Test
+    public void testTemporaryContentIsNotCleaned() throws Exception {
+        SwarmContentRepository repository = new SwarmContentRepository(null, 0);
+        byte[] hash = repository.addContent(stream("hello"));
+        try {
+            repository.cleanObsoleteContent();
+            Thread.sleep(10);
+            Map<String, Set<String>> result = repository.cleanObsoleteContent();
+            assertThat(result.get(ContentRepository.MARKED_CONTENT)).isEmpty();
+            assertThat(result.get(ContentRepository.DELETED_CONTENT)).isEmpty();
+            assertThat(repository.hasContent(hash)).isTrue();
+        } finally {
+            repository.removeAllContent();
+        }
+    }
+
+    private static JavaArchive archive(AtomicInteger opened) {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "test.jar");
+        archive.add(new Asset() {
+            @Override
+            public InputStream openStream() {
+                opened.incrementAndGet();
+                return stream("hello");
+            }
+        }, "hello.txt");
+        return archive;
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -107,6 +107,21 @@ public interface SwarmProperties {
      */
     String DEPLOYMENT_TIMEOUT = "swarm.deployment.timeout";
 
+    /**
+     * Directory in which deployment content is kept across restarts, defaults to temporary files
+     */
+    String CONTENT_DIR = "swarm.content.dir";
+
+    /**
+     * Run independent boot work, such as Weld deployment, customizers and subsystem marshalling, concurrently, defaults to false
+     */
+    String CONCURRENT_BOOT = "swarm.boot.concurrent";
+
+    /**
+     * Number of threads used by concurrent boot, defaults to the number of available processors
+     */
+    String CONCURRENT_BOOT_THREADS = "swarm.boot.concurrent.threads";
+
     /**
      * Port number for Swarm's Arquillian Daemon.
      */
@@ -65,6 +65,60 @@ public class FluentdFraction implements Fraction<FluentdFraction> {
         return tag;
     }
 
+    public FluentdFraction async(boolean async) {
+        this.async = async;
+        return this;
+    }
+
+    public boolean async() {
+        return this.async;
+    }
+
+    public FluentdFraction queueSize(int queueSize) {
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    public int queueSize() {
+        return this.queueSize;
+    }
+
+    public FluentdFraction batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public int batchSize() {
+        return this.batchSize;
+    }
+
+    public FluentdFraction flushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    public long flushInterval() {
+        return this.flushInterval;
+    }
+
+    public FluentdFraction overflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+        return this;
+    }
+
+    public String overflowPolicy() {
+        return this.overflowPolicy;
+    }
+
+    public FluentdFraction fallbackFile(String fallbackFile) {
+        this.fallbackFile = fallbackFile;
+        return this;
+    }
+
+    public String fallbackFile() {
+        return this.fallbackFile;
+    }
+
     @AttributeDocumentation("Host name of the fluentd server")
     private String hostname;
 
@@ -77,4 +131,22 @@ public class FluentdFraction implements Fraction<FluentdFraction> {
     @AttributeDocumentation("Logging tag")
     private String tag = "local";
 
+    @AttributeDocumentation("Send records from a background thread, in batches")
+    private boolean async = false;
+
+    @AttributeDocumentation("Maximum number of records queued in asynchronous mode")
+    private int queueSize = 8192;
+
+    @AttributeDocumentation("Maximum number of records sent in one batch in asynchronous mode")
+    private int batchSize = 256;
+
+    @AttributeDocumentation("Longest time, in milliseconds, a queued record waits for its batch to fill")
+    private long flushInterval = 100;
+
+    @AttributeDocumentation("What to do with a record when the queue is full: drop, block or fallback-to-file")
+    private String overflowPolicy = "drop";
+
+    @AttributeDocumentation("File receiving records when the queue is full, with the fallback-to-file overflow policy")
+    private String fallbackFile;
+
 }
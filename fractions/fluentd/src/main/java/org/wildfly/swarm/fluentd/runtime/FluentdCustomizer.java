@@ -54,6 +54,30 @@ public class FluentdCustomizer implements Customizer {
     @ConfigurationValue(FluentdProperties.PORT)
     private Optional<Integer> port;
 
+    @Inject
+    @ConfigurationValue(FluentdProperties.ASYNC)
+    private Optional<Boolean> async;
+
+    @Inject
+    @ConfigurationValue(FluentdProperties.QUEUE_SIZE)
+    private Optional<Integer> queueSize;
+
+    @Inject
+    @ConfigurationValue(FluentdProperties.BATCH_SIZE)
+    private Optional<Integer> batchSize;
+
+    @Inject
+    @ConfigurationValue(FluentdProperties.FLUSH_INTERVAL)
+    private Optional<Long> flushInterval;
+
+    @Inject
+    @ConfigurationValue(FluentdProperties.OVERFLOW_POLICY)
+    private Optional<String> overflowPolicy;
+
+    @Inject
+    @ConfigurationValue(FluentdProperties.FALLBACK_FILE)
+    private Optional<String> fallbackFile;
+
     @Override
     public void customize() {
         String hostname = this.hostname.orElse(this.fluentdFraction.hostname());
@@ -65,6 +89,15 @@ public class FluentdCustomizer implements Customizer {
             handlerProps.put("hostname", hostname);
             handlerProps.put("port", "" + port);
             handlerProps.put("tag", this.fluentdFraction.getTag());
+            handlerProps.put("async", "" + this.async.orElse(this.fluentdFraction.async()));
+            handlerProps.put("queueSize", "" + this.queueSize.orElse(this.fluentdFraction.queueSize()));
+            handlerProps.put("batchSize", "" + this.batchSize.orElse(this.fluentdFraction.batchSize()));
+            handlerProps.put("flushInterval", "" + this.flushInterval.orElse(this.fluentdFraction.flushInterval()));
+            handlerProps.put("overflowPolicy", this.overflowPolicy.orElse(this.fluentdFraction.overflowPolicy()));
+            String fallbackFile = this.fallbackFile.orElse(this.fluentdFraction.fallbackFile());
+            if (fallbackFile != null) {
+                handlerProps.put("fallbackFile", fallbackFile);
+            }
 
             final CustomHandler<?> fluentd = new CustomHandler<>("fluentd-handler")
                     .module("org.wildfly.swarm.fluentd:runtime")
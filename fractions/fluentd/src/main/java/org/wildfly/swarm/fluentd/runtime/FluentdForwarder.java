@@ -0,0 +1,311 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.fluentd.runtime;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+/**
+ * Sends log records to fluentd from a background thread.
+ *
+ * <p>Logging threads only capture a {@link FluentdRecord} into a bounded {@link RecordRing}. The flusher
+ * thread drains it, waiting up to the flush interval for a batch to fill, and writes each batch to the
+ * fluentd socket as a single forward-mode message, <code>[tag, [[time, record], ...]]</code>. A failed
+ * write is retried after reconnecting, with exponential backoff. When the ring is full, the
+ * {@link OverflowPolicy} decides whether a record is dropped, waits for room, or goes to a local file.</p>
+ */
+class FluentdForwarder {
+
+    private static final int CONNECT_TIMEOUT = 3000;
+
+    private static final long MAX_BACKOFF = TimeUnit.SECONDS.toMillis(30);
+
+    private static final long CLOSE_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+
+    FluentdForwarder(String hostname, int port, String tag, int queueSize, int batchSize, long flushInterval,
+                     OverflowPolicy overflowPolicy, File fallbackFile, BiConsumer<String, Exception> errorReporter) {
+        this.address = new InetSocketAddress(hostname, port);
+        this.tag = tag;
+        this.ring = new RecordRing<>(queueSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushInterval));
+        this.overflowPolicy = overflowPolicy;
+        this.fallbackFile = fallbackFile;
+        this.errorReporter = errorReporter;
+        if (overflowPolicy == OverflowPolicy.FALLBACK_TO_FILE && fallbackFile == null) {
+            throw new IllegalArgumentException("A fallback file is required by the " + overflowPolicy.getName() + " overflow policy");
+        }
+    }
+
+    void start() {
+        this.running = true;
+        this.flusher = new Thread(this::run, "fluentd-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queue a record, applying the overflow policy if the queue is full.
+     *
+     * @param record the record
+     */
+    void offer(FluentdRecord record) {
+        if (this.closed) {
+            this.dropped.incrementAndGet();
+            return;
+        }
+        if (this.ring.offer(record)) {
+            return;
+        }
+        switch (this.overflowPolicy) {
+            case BLOCK:
+                while (!this.ring.offer(record)) {
+                    if (this.closed) {
+                        this.dropped.incrementAndGet();
+                        return;
+                    }
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                }
+                break;
+            case FALLBACK_TO_FILE:
+                writeToFallback(record);
+                break;
+            default:
+                this.dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stop accepting records and send those queued, waiting a few seconds at most.
+     */
+    void close() {
+        this.closed = true;
+        this.running = false;
+        Thread flusher = this.flusher;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join(CLOSE_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (flusher.isAlive()) {
+                flusher.interrupt();
+            }
+        }
+        closeSocket();
+        synchronized (this.fallbackLock) {
+            if (this.fallbackWriter != null) {
+                try {
+                    this.fallbackWriter.close();
+                } catch (IOException e) {
+                    this.errorReporter.accept("Error closing fluentd fallback file", e);
+                }
+                this.fallbackWriter = null;
+            }
+        }
+    }
+
+    /**
+     * @return the number of records lost because the queue was full or fluentd could not be reached
+     */
+    long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    /**
+     * @return the number of records waiting to be sent
+     */
+    int getQueuedCount() {
+        return this.ring.size();
+    }
+
+    /**
+     * @return the number of records sent to fluentd
+     */
+    long getSentCount() {
+        return this.sent.get();
+    }
+
+    /**
+     * @return the number of records written to the fallback file
+     */
+    long getFallbackCount() {
+        return this.fallback.get();
+    }
+
+    private void run() {
+        List<FluentdRecord> batch = new ArrayList<>(this.batchSize);
+        MessagePackWriter writer = new MessagePackWriter(64 * 1024);
+        long backoff = 0;
+
+        while (this.running || !this.ring.isEmpty()) {
+            if (batch.isEmpty()) {
+                fill(batch);
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                writer.reset();
+                writer.packArrayHeader(2).packString(this.tag).packArrayHeader(batch.size());
+                for (FluentdRecord each : batch) {
+                    each.writeEntry(writer);
+                }
+            }
+
+            try {
+                send(writer);
+                this.sent.addAndGet(batch.size());
+                batch.clear();
+                backoff = 0;
+            } catch (IOException e) {
+                closeSocket();
+                if (!this.running) {
+                    this.dropped.addAndGet(batch.size() + this.ring.size());
+                    this.errorReporter.accept("Unable to send queued records to fluentd at " + this.address, e);
+                    return;
+                }
+                if (backoff == 0) {
+                    this.errorReporter.accept("Error sending records to fluentd at " + this.address, e);
+                }
+                backoff = Math.min(MAX_BACKOFF, Math.max(100, backoff * 2));
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoff));
+            }
+        }
+    }
+
+    /**
+     * Drain a batch, waiting up to the flush interval after the first record for the batch to fill.
+     */
+    private void fill(List<FluentdRecord> batch) {
+        long deadline = 0;
+        while (batch.size() < this.batchSize) {
+            this.ring.drainTo(batch, this.batchSize - batch.size());
+            if (batch.size() >= this.batchSize || !this.running) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this.flushInterval);
+                if (this.ring.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            if (deadline == 0) {
+                deadline = now + this.flushInterval;
+            } else if (now - deadline >= 0) {
+                return;
+            }
+            LockSupport.parkNanos(Math.min(deadline - now, TimeUnit.MILLISECONDS.toNanos(10)));
+        }
+    }
+
+    private void send(MessagePackWriter writer) throws IOException {
+        if (this.socket == null) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(this.address, CONNECT_TIMEOUT);
+                socket.setTcpNoDelay(true);
+                this.out = socket.getOutputStream();
+                this.socket = socket;
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+        writer.writeTo(this.out);
+        this.out.flush();
+    }
+
+    private void closeSocket() {
+        Socket socket = this.socket;
+        this.socket = null;
+        this.out = null;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void writeToFallback(FluentdRecord record) {
+        synchronized (this.fallbackLock) {
+            try {
+                if (this.fallbackWriter == null) {
+                    this.fallbackWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.fallbackFile, true), StandardCharsets.UTF_8));
+                }
+                this.fallbackWriter.write(record.toString());
+                this.fallbackWriter.write('\n');
+                this.fallbackWriter.flush();
+                this.fallback.incrementAndGet();
+            } catch (IOException e) {
+                this.dropped.incrementAndGet();
+                this.errorReporter.accept("Error writing to fluentd fallback file " + this.fallbackFile, e);
+            }
+        }
+    }
+
+    private final InetSocketAddress address;
+
+    private final String tag;
+
+    private final RecordRing<FluentdRecord> ring;
+
+    private final int batchSize;
+
+    private final long flushInterval;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final File fallbackFile;
+
+    private final BiConsumer<String, Exception> errorReporter;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong sent = new AtomicLong();
+
+    private final AtomicLong fallback = new AtomicLong();
+
+    private final Object fallbackLock = new Object();
+
+    private Writer fallbackWriter;
+
+    private volatile boolean running;
+
+    private volatile boolean closed;
+
+    private Thread flusher;
+
+    private volatile Socket socket;
+
+    private OutputStream out;
+}
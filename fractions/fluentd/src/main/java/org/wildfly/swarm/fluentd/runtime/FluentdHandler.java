@@ -1,5 +1,6 @@
 package org.wildfly.swarm.fluentd.runtime;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.ErrorManager;
@@ -61,9 +62,67 @@ public class FluentdHandler extends ExtHandler {
         this.tag = tag;
     }
 
+    /**
+     * Send records from a background thread, in batches, instead of on the logging thread.
+     *
+     * @param async whether to send asynchronously
+     */
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param flushInterval the longest time, in milliseconds, a queued record waits for its batch to fill
+     */
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * @param overflowPolicy one of <code>drop</code>, <code>block</code> or <code>fallback-to-file</code>
+     */
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = OverflowPolicy.forName(overflowPolicy);
+    }
+
+    public void setFallbackFile(String fallbackFile) {
+        this.fallbackFile = fallbackFile;
+    }
+
+    /**
+     * @return the number of records lost in asynchronous mode
+     */
+    public long getDroppedCount() {
+        FluentdForwarder forwarder = this.forwarder;
+        return forwarder == null ? 0 : forwarder.getDroppedCount();
+    }
+
+    /**
+     * @return the number of records waiting to be sent in asynchronous mode
+     */
+    public int getQueuedCount() {
+        FluentdForwarder forwarder = this.forwarder;
+        return forwarder == null ? 0 : forwarder.getQueuedCount();
+    }
+
     @Override
     protected void doPublish(ExtLogRecord record) {
 
+        // asynchronous mode: capture and queue the record, without taking the handler lock
+        FluentdForwarder forwarder = this.forwarder;
+        if (forwarder != null) {
+            forwarder.offer(FluentdRecord.of(record));
+            return;
+        }
+
         synchronized (this) {
             if (!initialized) {
                 try {
@@ -75,7 +134,10 @@ public class FluentdHandler extends ExtHandler {
             }
         }
 
-        if (initialized) {
+        forwarder = this.forwarder;
+        if (forwarder != null) {
+            forwarder.offer(FluentdRecord.of(record));
+        } else if (initialized) {
             Map<String, Object> entries = new HashMap<>();
 
             entries.put(Key.SEQUENCE.getKey(), record.getSequenceNumber());
@@ -93,7 +155,14 @@ public class FluentdHandler extends ExtHandler {
 
     private void initialize() {
         try {
-            this.sender = new RawSocketSender(hostname, port);
+            if (this.async) {
+                this.forwarder = new FluentdForwarder(hostname, port, tag, queueSize, batchSize, flushInterval, overflowPolicy,
+                                                      fallbackFile == null ? null : new File(fallbackFile),
+                                                      (message, e) -> reportError(message, e, ErrorManager.WRITE_FAILURE));
+                this.forwarder.start();
+            } else {
+                this.sender = new RawSocketSender(hostname, port);
+            }
             this.initialized = true;
             log.info("Connected to fluentd daemon");
         } catch (Throwable t) {
@@ -111,6 +180,10 @@ public class FluentdHandler extends ExtHandler {
         super.close();
         log.info("Disconnect from fluentd daemon ...");
         synchronized (this) {
+            if (this.forwarder != null) {
+                this.forwarder.close();
+                this.forwarder = null;
+            }
             safeClose(this.sender);
             this.sender = null;
             this.initialized = false;
@@ -140,4 +213,18 @@ public class FluentdHandler extends ExtHandler {
 
     private String tag;
 
+    private boolean async;
+
+    private int queueSize = 8192;
+
+    private int batchSize = 256;
+
+    private long flushInterval = 100;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    private String fallbackFile;
+
+    private volatile FluentdForwarder forwarder;
+
 }
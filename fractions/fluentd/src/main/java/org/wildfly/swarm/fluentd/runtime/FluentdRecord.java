@@ -0,0 +1,86 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.fluentd.runtime;
+
+import java.util.Map;
+
+import org.jboss.logmanager.ExtLogRecord;
+
+/**
+ * The fields of a log record sent to fluentd, captured on the logging thread.
+ */
+final class FluentdRecord {
+
+    FluentdRecord(long millis, long sequence, String level, String threadName, String message,
+                  int threadId, Map<String, String> mdc, String ndc) {
+        this.millis = millis;
+        this.sequence = sequence;
+        this.level = level;
+        this.threadName = threadName;
+        this.message = message;
+        this.threadId = threadId;
+        this.mdc = mdc;
+        this.ndc = ndc;
+    }
+
+    static FluentdRecord of(ExtLogRecord record) {
+        return new FluentdRecord(record.getMillis(),
+                                 record.getSequenceNumber(),
+                                 record.getLevel().getName(),
+                                 record.getThreadName(),
+                                 record.getFormattedMessage(),
+                                 record.getThreadID(),
+                                 record.getMdcCopy(),
+                                 record.getNdc());
+    }
+
+    /**
+     * Write this record as a forward-mode entry, <code>[time, record]</code>.
+     */
+    void writeEntry(MessagePackWriter writer) {
+        writer.packArrayHeader(2);
+        writer.packLong(this.millis / 1000);
+        writer.packMapHeader(7);
+        writer.packString(FluentdHandler.Key.SEQUENCE.getKey()).packLong(this.sequence);
+        writer.packString(FluentdHandler.Key.LEVEL.getKey()).packString(this.level);
+        writer.packString(FluentdHandler.Key.THREAD_NAME.getKey()).packString(this.threadName);
+        writer.packString(FluentdHandler.Key.MESSAGE.getKey()).packString(this.message);
+        writer.packString(FluentdHandler.Key.THREAD_ID.getKey()).packLong(this.threadId);
+        writer.packString(FluentdHandler.Key.MDC.getKey()).packStringMap(this.mdc);
+        writer.packString(FluentdHandler.Key.NDC.getKey()).packString(this.ndc);
+    }
+
+    @Override
+    public String toString() {
+        return this.millis + " " + this.level + " [" + this.threadName + "] " + this.message;
+    }
+
+    private final long millis;
+
+    private final long sequence;
+
+    private final String level;
+
+    private final String threadName;
+
+    private final String message;
+
+    private final int threadId;
+
+    private final Map<String, String> mdc;
+
+    private final String ndc;
+}
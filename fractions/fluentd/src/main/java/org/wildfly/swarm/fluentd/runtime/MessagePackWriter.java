@@ -0,0 +1,182 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.fluentd.runtime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Minimal MessagePack encoder for the types found in log records, writing into a reusable buffer.
+ */
+class MessagePackWriter {
+
+    MessagePackWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    void reset() {
+        this.length = 0;
+    }
+
+    int length() {
+        return this.length;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(this.buffer, this.length);
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(this.buffer, 0, this.length);
+    }
+
+    MessagePackWriter packArrayHeader(int size) {
+        if (size < 16) {
+            put(0x90 | size);
+        } else if (size < 0x10000) {
+            put(0xdc);
+            putShort(size);
+        } else {
+            put(0xdd);
+            putInt(size);
+        }
+        return this;
+    }
+
+    MessagePackWriter packMapHeader(int size) {
+        if (size < 16) {
+            put(0x80 | size);
+        } else if (size < 0x10000) {
+            put(0xde);
+            putShort(size);
+        } else {
+            put(0xdf);
+            putInt(size);
+        }
+        return this;
+    }
+
+    MessagePackWriter packNil() {
+        put(0xc0);
+        return this;
+    }
+
+    MessagePackWriter packLong(long value) {
+        if (value >= 0) {
+            if (value < 128) {
+                put((int) value);
+            } else if (value < 0x100) {
+                put(0xcc);
+                put((int) value);
+            } else if (value < 0x10000) {
+                put(0xcd);
+                putShort((int) value);
+            } else if (value < 0x100000000L) {
+                put(0xce);
+                putInt((int) value);
+            } else {
+                put(0xcf);
+                putLong(value);
+            }
+        } else {
+            if (value >= -32) {
+                put((int) value & 0xff);
+            } else if (value >= Byte.MIN_VALUE) {
+                put(0xd0);
+                put((int) value);
+            } else if (value >= Short.MIN_VALUE) {
+                put(0xd1);
+                putShort((int) value);
+            } else if (value >= Integer.MIN_VALUE) {
+                put(0xd2);
+                putInt((int) value);
+            } else {
+                put(0xd3);
+                putLong(value);
+            }
+        }
+        return this;
+    }
+
+    MessagePackWriter packString(String value) {
+        if (value == null) {
+            return packNil();
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int size = bytes.length;
+        if (size < 32) {
+            put(0xa0 | size);
+        } else if (size < 0x100) {
+            put(0xd9);
+            put(size);
+        } else if (size < 0x10000) {
+            put(0xda);
+            putShort(size);
+        } else {
+            put(0xdb);
+            putInt(size);
+        }
+        ensureCapacity(size);
+        System.arraycopy(bytes, 0, this.buffer, this.length, size);
+        this.length += size;
+        return this;
+    }
+
+    MessagePackWriter packStringMap(Map<String, String> map) {
+        if (map == null) {
+            return packNil();
+        }
+        packMapHeader(map.size());
+        for (Map.Entry<String, String> each : map.entrySet()) {
+            packString(each.getKey());
+            packString(each.getValue());
+        }
+        return this;
+    }
+
+    private void put(int b) {
+        ensureCapacity(1);
+        this.buffer[this.length++] = (byte) b;
+    }
+
+    private void putShort(int value) {
+        put(value >>> 8);
+        put(value);
+    }
+
+    private void putInt(int value) {
+        putShort(value >>> 16);
+        putShort(value);
+    }
+
+    private void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    private void ensureCapacity(int additional) {
+        if (this.length + additional > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.length + additional));
+        }
+    }
+
+    private byte[] buffer;
+
+    private int length;
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.fluentd.runtime;
+
+/**
+ * What an asynchronous {@link FluentdHandler} does with a record when its queue is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Discard the record, counting it as dropped.
+     */
+    DROP("drop"),
+    /**
+     * Wait on the logging thread until there is room.
+     */
+    BLOCK("block"),
+    /**
+     * Append the record to a local file instead.
+     */
+    FALLBACK_TO_FILE("fallback-to-file");
+
+    private final String name;
+
+    OverflowPolicy(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public static OverflowPolicy forName(String name) {
+        for (OverflowPolicy each : values()) {
+            if (each.name.equalsIgnoreCase(name) || each.name().equalsIgnoreCase(name)) {
+                return each;
+            }
+        }
+        throw new IllegalArgumentException("Unknown overflow policy: " + name);
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.fluentd.runtime;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free ring buffer for many producers and a single consumer.
+ *
+ * <p>Each slot carries a sequence number telling producers whether it is free for the current lap
+ * and the consumer whether it has been published, so neither side ever takes a lock or allocates.</p>
+ *
+ * @param <E> the element type
+ */
+class RecordRing<E> {
+
+    RecordRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; ++i) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * Add an element, if there is room.
+     *
+     * @param element the element
+     * @return false if the ring is full
+     */
+    boolean offer(E element) {
+        long position = this.tail.get();
+        int index;
+        for (;;) {
+            index = (int) (position & this.mask);
+            long difference = this.sequences.get(index) - position;
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = this.tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+        this.elements.lazySet(index, element);
+        // publish; orders the element write before the consumer sees the slot
+        this.sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Remove the oldest element. Only to be called by the single consumer.
+     *
+     * @return the element, or null if the ring is empty
+     */
+    E poll() {
+        long position = this.head;
+        int index = (int) (position & this.mask);
+        if (this.sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = this.elements.get(index);
+        this.elements.lazySet(index, null);
+        this.sequences.lazySet(index, position + this.mask + 1);
+        this.head = position + 1;
+        return element;
+    }
+
+    /**
+     * Remove up to {@code max} of the oldest elements. Only to be called by the single consumer.
+     *
+     * @return the number of elements removed
+     */
+    int drainTo(Collection<? super E> collection, int max) {
+        int count = 0;
+        E element;
+        while (count < max && (element = poll()) != null) {
+            collection.add(element);
+            ++count;
+        }
+        return count;
+    }
+
+    int size() {
+        long size = this.tail.get() - this.head;
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> elements;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile long head;
+}
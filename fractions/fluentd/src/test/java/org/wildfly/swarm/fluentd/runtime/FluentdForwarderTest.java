@@ -0,0 +1,258 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.fluentd.runtime;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class FluentdForwarderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void startFluentd() throws IOException {
+        this.server = new ServerSocket(0);
+        this.acceptor = new Thread(this::accept, "fluentd-stand-in");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    @After
+    public void stopFluentd() throws IOException {
+        this.server.close();
+    }
+
+    @Test
+    public void testRecordsAreBatchedInForwardMode() throws Exception {
+        FluentdForwarder forwarder = forwarder(1024, 10, 50, OverflowPolicy.DROP, null);
+        forwarder.start();
+        try {
+            for (int i = 0; i < 25; ++i) {
+                forwarder.offer(record(i));
+            }
+
+            List<Object> entries = new ArrayList<>();
+            int messages = 0;
+            while (entries.size() < 25) {
+                List<?> message = (List<?>) this.received.poll(10, TimeUnit.SECONDS);
+                assertThat(message).isNotNull();
+                ++messages;
+                assertThat(message).hasSize(2);
+                assertThat(message.get(0)).isEqualTo("app");
+                List<?> batch = (List<?>) message.get(1);
+                assertThat(batch.size()).isLessThanOrEqualTo(10);
+                entries.addAll(batch);
+            }
+            assertThat(messages).isLessThan(25);
+
+            for (int i = 0; i < 25; ++i) {
+                List<?> entry = (List<?>) entries.get(i);
+                assertThat(entry.get(0)).isEqualTo(1500000000L);
+                Map<?, ?> fields = (Map<?, ?>) entry.get(1);
+                assertThat(fields.get("sequence")).isEqualTo((long) i);
+                assertThat(fields.get("level")).isEqualTo("INFO");
+                assertThat(fields.get("message")).isEqualTo("message " + i);
+                assertThat(fields.get("mdc")).isEqualTo(Collections.singletonMap("request", "r" + i));
+                assertThat(fields.get("ndc")).isNull();
+            }
+        } finally {
+            forwarder.close();
+        }
+        assertThat(forwarder.getSentCount()).isEqualTo(25);
+        assertThat(forwarder.getDroppedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testQueuedRecordsAreSentOnClose() throws Exception {
+        FluentdForwarder forwarder = forwarder(1024, 100, 10000, OverflowPolicy.DROP, null);
+        forwarder.start();
+        for (int i = 0; i < 5; ++i) {
+            forwarder.offer(record(i));
+        }
+        forwarder.close();
+
+        assertThat(forwarder.getSentCount()).isEqualTo(5);
+        assertThat(forwarder.getQueuedCount()).isEqualTo(0);
+
+        forwarder.offer(record(5));
+        assertThat(forwarder.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDropPolicyCountsOverflow() {
+        // not started, so nothing drains the queue
+        FluentdForwarder forwarder = forwarder(4, 10, 50, OverflowPolicy.DROP, null);
+        for (int i = 0; i < 7; ++i) {
+            forwarder.offer(record(i));
+        }
+        assertThat(forwarder.getQueuedCount()).isEqualTo(4);
+        assertThat(forwarder.getDroppedCount()).isEqualTo(3);
+        forwarder.close();
+    }
+
+    @Test
+    public void testFallbackToFile() throws Exception {
+        File fallback = new File(this.folder.getRoot(), "fluentd-fallback.log");
+        FluentdForwarder forwarder = forwarder(2, 10, 50, OverflowPolicy.FALLBACK_TO_FILE, fallback);
+        for (int i = 0; i < 4; ++i) {
+            forwarder.offer(record(i));
+        }
+        forwarder.close();
+
+        assertThat(forwarder.getQueuedCount()).isEqualTo(2);
+        assertThat(forwarder.getFallbackCount()).isEqualTo(2);
+        assertThat(forwarder.getDroppedCount()).isEqualTo(0);
+
+        List<String> lines = Files.readAllLines(fallback.toPath(), StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).isEqualTo("1500000000000 INFO [main] message 2");
+        assertThat(lines.get(1)).isEqualTo("1500000000000 INFO [main] message 3");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFallbackFileIsRequired() {
+        forwarder(2, 10, 50, OverflowPolicy.FALLBACK_TO_FILE, null);
+    }
+
+    private FluentdForwarder forwarder(int queueSize, int batchSize, long flushInterval, OverflowPolicy policy, File fallbackFile) {
+        return new FluentdForwarder("localhost", this.server.getLocalPort(), "app", queueSize, batchSize, flushInterval,
+                                    policy, fallbackFile, (message, e) -> {
+        });
+    }
+
+    private static FluentdRecord record(int i) {
+        return new FluentdRecord(1500000000000L, i, "INFO", "main", "message " + i, 1,
+                                 Collections.singletonMap("request", "r" + i), null);
+    }
+
+    private void accept() {
+        try (Socket socket = this.server.accept()) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            while (true) {
+                this.received.add(unpack(in));
+            }
+        } catch (IOException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Decodes the subset of MessagePack written by {@link MessagePackWriter}.
+     */
+    private static Object unpack(DataInputStream in) throws IOException {
+        int b = in.readUnsignedByte();
+        if (b <= 0x7f) {
+            return (long) b;
+        }
+        if (b >= 0xe0) {
+            return (long) (byte) b;
+        }
+        if ((b & 0xf0) == 0x80) {
+            return unpackMap(in, b & 0x0f);
+        }
+        if ((b & 0xf0) == 0x90) {
+            return unpackArray(in, b & 0x0f);
+        }
+        if ((b & 0xe0) == 0xa0) {
+            return unpackString(in, b & 0x1f);
+        }
+        switch (b) {
+            case 0xc0:
+                return null;
+            case 0xcc:
+                return (long) in.readUnsignedByte();
+            case 0xcd:
+                return (long) in.readUnsignedShort();
+            case 0xce:
+                return in.readInt() & 0xffffffffL;
+            case 0xcf:
+            case 0xd3:
+                return in.readLong();
+            case 0xd0:
+                return (long) in.readByte();
+            case 0xd1:
+                return (long) in.readShort();
+            case 0xd2:
+                return (long) in.readInt();
+            case 0xd9:
+                return unpackString(in, in.readUnsignedByte());
+            case 0xda:
+                return unpackString(in, in.readUnsignedShort());
+            case 0xdb:
+                return unpackString(in, in.readInt());
+            case 0xdc:
+                return unpackArray(in, in.readUnsignedShort());
+            case 0xdd:
+                return unpackArray(in, in.readInt());
+            case 0xde:
+                return unpackMap(in, in.readUnsignedShort());
+            case 0xdf:
+                return unpackMap(in, in.readInt());
+            default:
+                throw new IOException("Unexpected MessagePack type 0x" + Integer.toHexString(b));
+        }
+    }
+
+    private static String unpackString(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<Object> unpackArray(DataInputStream in, int size) throws IOException {
+        List<Object> array = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            array.add(unpack(in));
+        }
+        return array;
+    }
+
+    private static Map<Object, Object> unpackMap(DataInputStream in, int size) throws IOException {
+        Map<Object, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; ++i) {
+            map.put(unpack(in), unpack(in));
+        }
+        return map;
+    }
+
+    private ServerSocket server;
+
+    private Thread acceptor;
+
+    private final BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.fluentd.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class RecordRingTest {
+
+    @Test
+    public void testCapacityIsBounded() {
+        RecordRing<Integer> ring = new RecordRing<>(5);
+        assertThat(ring.capacity()).isEqualTo(8);
+
+        for (int i = 0; i < 8; ++i) {
+            assertThat(ring.offer(i)).isTrue();
+        }
+        assertThat(ring.offer(8)).isFalse();
+        assertThat(ring.size()).isEqualTo(8);
+
+        assertThat(ring.poll()).isEqualTo(0);
+        assertThat(ring.offer(8)).isTrue();
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(ring.drainTo(drained, 100)).isEqualTo(8);
+        assertThat(drained).containsExactly(1, 2, 3, 4, 5, 6, 7, 8);
+        assertThat(ring.isEmpty()).isTrue();
+        assertThat(ring.poll()).isNull();
+    }
+
+    @Test
+    public void testManyProducers() throws Exception {
+        int producers = 4;
+        int perProducer = 20000;
+        RecordRing<long[]> ring = new RecordRing<>(64);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; ++p) {
+            final int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; ++i) {
+                    long[] element = new long[]{producer, i};
+                    while (!ring.offer(element)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+
+        // every element arrives once, in order per producer
+        long[] next = new long[producers];
+        int received = 0;
+        List<long[]> batch = new ArrayList<>();
+        while (received < producers * perProducer) {
+            batch.clear();
+            if (ring.drainTo(batch, 16) == 0) {
+                Thread.yield();
+                continue;
+            }
+            for (long[] each : batch) {
+                assertThat(each[1]).isEqualTo(next[(int) each[0]]);
+                ++next[(int) each[0]];
+            }
+            received += batch.size();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(ring.isEmpty()).isTrue();
+        for (int p = 0; p < producers; ++p) {
+            assertThat(next[p]).isEqualTo(perProducer);
+        }
+    }
+}
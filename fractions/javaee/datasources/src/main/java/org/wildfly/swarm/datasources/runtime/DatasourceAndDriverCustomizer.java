@@ -79,7 +79,8 @@ public class DatasourceAndDriverCustomizer implements Customizer {
     }
 
     protected void customizeJDBCDrivers() {
-        this.allDrivers.forEach(this::attemptInstallation);
+        DriverResourceIndex index = DriverResourceIndex.create();
+        this.allDrivers.forEach(info -> attemptInstallation(info, index));
     }
 
     protected void customizeDefaultDatasource() {
@@ -143,7 +144,11 @@ public class DatasourceAndDriverCustomizer implements Customizer {
     }
 
     protected void attemptInstallation(DriverInfo info) {
-        if (info.detect(this.fraction)) {
+        attemptInstallation(info, DriverResourceIndex.create());
+    }
+
+    private void attemptInstallation(DriverInfo info, DriverResourceIndex index) {
+        if (info.detect(this.fraction, index)) {
             DatasourcesMessages.MESSAGES.autodetectedJdbcDriver(info.name());
         }
     }
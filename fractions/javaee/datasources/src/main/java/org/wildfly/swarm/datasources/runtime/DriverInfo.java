@@ -17,17 +17,12 @@ package org.wildfly.swarm.datasources.runtime;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URI;
-import java.net.URL;
-import java.nio.file.Paths;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.jar.JarFile;
 
 import org.jboss.modules.DependencySpec;
-import org.jboss.modules.Module;
 import org.jboss.modules.ModuleIdentifier;
-import org.jboss.modules.ModuleLoadException;
 import org.jboss.modules.ModuleSpec;
 import org.jboss.modules.ResourceLoaderSpec;
 import org.jboss.modules.ResourceLoaders;
@@ -70,10 +65,6 @@ public abstract class DriverInfo {
         this.optionalClassNames = optionalClassNames;
     }
 
-    private static final String FILE_PREFIX = "file:";
-
-    private static final String JAR_FILE_PREFIX = "jar:file:";
-
     public String name() {
         return this.name;
     }
@@ -89,6 +80,14 @@ public abstract class DriverInfo {
     protected abstract void configureDefaultDS(DataSource datasource);
 
     public boolean detect(DatasourcesFraction fraction) {
+        return detect(fraction, DriverResourceIndex.create());
+    }
+
+    /**
+     * Detect the driver using an index shared by all drivers, so the application's resources
+     * are only scanned once.
+     */
+    boolean detect(DatasourcesFraction fraction, DriverResourceIndex index) {
         if (fraction.subresources().jdbcDriver(this.name) != null) {
             // already installed
             return true;
@@ -96,10 +95,10 @@ public abstract class DriverInfo {
 
         DatasourcesMessages.MESSAGES.attemptToAutoDetectJdbcDriver(this.name);
 
-        File primaryJar = attemptDetection();
+        File primaryJar = attemptDetection(index);
 
         if (primaryJar != null) {
-            Set<File> optionalJars = findOptionalJars();
+            Set<File> optionalJars = findOptionalJars(index);
 
             optionalJars.add(primaryJar);
 
@@ -139,16 +138,16 @@ public abstract class DriverInfo {
         return this.installed;
     }
 
-    private File attemptDetection() {
-        return findLocationOfClass(this.detectableClassName);
+    private File attemptDetection(DriverResourceIndex index) {
+        return findLocationOfClass(index, this.detectableClassName);
     }
 
-    private Set<File> findOptionalJars() {
+    private Set<File> findOptionalJars(DriverResourceIndex index) {
         Set<File> optionalJars = new HashSet<>();
 
         if (this.optionalClassNames != null) {
             for (String each : this.optionalClassNames) {
-                File file = findLocationOfClass(each);
+                File file = findLocationOfClass(index, each);
                 if (file != null) {
                     optionalJars.add(file);
                 }
@@ -158,17 +157,9 @@ public abstract class DriverInfo {
         return optionalJars;
     }
 
-    private File findLocationOfClass(String className) {
+    private File findLocationOfClass(DriverResourceIndex index, String className) {
         try {
-            ClassLoader cl = Module.getBootModuleLoader().loadModule(ModuleIdentifier.create("swarm.application")).getClassLoader();
-            File candidate = findLocationOfClass(cl, className);
-            if (candidate == null) {
-                candidate = findLocationOfClass(ClassLoader.getSystemClassLoader(), className);
-            }
-
-            return candidate;
-        } catch (ModuleLoadException e) {
-            // ignore
+            return index.locate(className);
         } catch (IOException e) {
             DatasourcesMessages.MESSAGES.errorLoadingAutodetectedJdbcDriver(this.name, e);
         }
@@ -176,50 +167,6 @@ public abstract class DriverInfo {
         return null;
     }
 
-    private File findLocationOfClass(ClassLoader classLoader, String className) throws IOException {
-
-        try {
-            Class<?> driverClass = classLoader.loadClass(className);
-
-            URL location = driverClass.getProtectionDomain().getCodeSource().getLocation();
-
-            String locationStr = location.toExternalForm();
-            if (locationStr.startsWith(JAR_FILE_PREFIX)) {
-                locationStr = locationStr.substring(JAR_FILE_PREFIX.length());
-            } else if (locationStr.startsWith(FILE_PREFIX)) {
-                locationStr = locationStr.substring(FILE_PREFIX.length());
-            }
-
-            int bangLoc = locationStr.indexOf('!');
-            if (bangLoc >= 0) {
-                locationStr = locationStr.substring(0, bangLoc);
-            }
-
-            locationStr = getPlatformPath(locationStr);
-
-            File locationFile = Paths.get(locationStr).toFile();
-
-            return locationFile;
-        } catch (ClassNotFoundException e) {
-            // ignore;
-        }
-
-        return null;
-    }
-
-    protected String getPlatformPath(String path) {
-        if (!isWindows()) {
-            return path;
-        }
-
-        URI uri = URI.create("file://" + path);
-        return Paths.get(uri).toString();
-    }
-
-    protected boolean isWindows() {
-        return System.getProperty("os.name").toLowerCase().contains("win");
-    }
-
     public boolean isInstalled() {
         return this.installed;
     }
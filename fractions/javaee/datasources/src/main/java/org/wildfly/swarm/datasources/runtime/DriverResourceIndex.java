@@ -0,0 +1,209 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.datasources.runtime;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.jboss.modules.Module;
+import org.jboss.modules.ModuleIdentifier;
+import org.jboss.modules.ModuleLoadException;
+
+/**
+ * Locates the jars providing JDBC driver classes without loading those classes.
+ *
+ * <p>All <code>META-INF/services/java.sql.Driver</code> files visible to the application are read
+ * once, mapping each driver class they list to the jar containing the file. Classes not listed there
+ * are found by probing for their <code>.class</code> resource. Only if a class is found somewhere
+ * that cannot be turned into a file is it loaded, to ask its code source.</p>
+ */
+class DriverResourceIndex {
+
+    static final String DRIVER_SERVICES = "META-INF/services/java.sql.Driver";
+
+    private static final String FILE_PREFIX = "file:";
+
+    private static final String JAR_PREFIX = "jar:";
+
+    private static final String SEPARATOR = "!/";
+
+    /**
+     * Index the <code>swarm.application</code> module, then the system class path.
+     */
+    static DriverResourceIndex create() {
+        List<ClassLoader> classLoaders = new ArrayList<>();
+        try {
+            classLoaders.add(Module.getBootModuleLoader().loadModule(ModuleIdentifier.create("swarm.application")).getClassLoader());
+        } catch (ModuleLoadException e) {
+            // ignore
+        }
+        classLoaders.add(ClassLoader.getSystemClassLoader());
+        return new DriverResourceIndex(classLoaders);
+    }
+
+    DriverResourceIndex(List<ClassLoader> classLoaders) {
+        this.classLoaders = classLoaders;
+        for (ClassLoader each : classLoaders) {
+            indexDriverServices(each);
+        }
+    }
+
+    /**
+     * Locate the jar, or class directory, containing a class.
+     *
+     * @param className the class name
+     * @return the location, or <code>null</code> if the class is not visible to the application
+     * @throws IOException if the class was found but its location could not be determined
+     */
+    File locate(String className) throws IOException {
+        Optional<File> location = this.locations.get(className);
+        if (location == null) {
+            location = Optional.ofNullable(probe(className));
+            this.locations.put(className, location);
+        }
+        return location.orElse(null);
+    }
+
+    private void indexDriverServices(ClassLoader classLoader) {
+        Enumeration<URL> services;
+        try {
+            services = classLoader.getResources(DRIVER_SERVICES);
+        } catch (IOException e) {
+            return;
+        }
+        for (URL each : Collections.list(services)) {
+            File location = toFile(each, DRIVER_SERVICES);
+            if (location == null) {
+                continue;
+            }
+            for (String className : readServices(each)) {
+                // first class loader wins, as with loadClass()
+                this.locations.putIfAbsent(className, Optional.of(location));
+            }
+        }
+    }
+
+    private File probe(String className) throws IOException {
+        String resourceName = className.replace('.', '/') + ".class";
+        for (ClassLoader each : this.classLoaders) {
+            URL resource = each.getResource(resourceName);
+            if (resource == null) {
+                continue;
+            }
+            File location = toFile(resource, resourceName);
+            if (location != null) {
+                return location;
+            }
+            return locationOfLoadedClass(each, className);
+        }
+        return null;
+    }
+
+    private static File locationOfLoadedClass(ClassLoader classLoader, String className) throws IOException {
+        try {
+            URL codeSource = classLoader.loadClass(className).getProtectionDomain().getCodeSource().getLocation();
+            String location = codeSource.toExternalForm();
+            if (location.startsWith(JAR_PREFIX)) {
+                location = location.substring(JAR_PREFIX.length());
+            }
+            int separator = location.indexOf('!');
+            if (separator >= 0) {
+                location = location.substring(0, separator);
+            }
+            File file = fileOf(location);
+            if (file == null) {
+                throw new IOException("Unable to determine the location of " + className + " from " + codeSource);
+            }
+            return file;
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static List<String> readServices(URL services) {
+        List<String> classNames = new ArrayList<>();
+        try (InputStream in = services.openStream()) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                if (comment >= 0) {
+                    line = line.substring(0, comment);
+                }
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    classNames.add(line);
+                }
+            }
+        } catch (IOException e) {
+            // unreadable, so not indexed; the class resource will be probed instead
+        }
+        return classNames;
+    }
+
+    /**
+     * Turn the URL of a resource into the jar or directory containing it.
+     *
+     * @return the file, or <code>null</code> for anything but a plain jar or directory on the file system
+     */
+    static File toFile(URL resource, String resourceName) {
+        String location = resource.toExternalForm();
+        if (location.startsWith(JAR_PREFIX)) {
+            int separator = location.indexOf(SEPARATOR);
+            if (separator < 0 || location.indexOf(SEPARATOR, separator + SEPARATOR.length()) >= 0) {
+                // not a jar, or a jar nested in another
+                return null;
+            }
+            location = location.substring(JAR_PREFIX.length(), separator);
+        } else if (location.endsWith(resourceName)) {
+            location = location.substring(0, location.length() - resourceName.length());
+        } else {
+            return null;
+        }
+        return fileOf(location);
+    }
+
+    private static File fileOf(String location) {
+        if (!location.startsWith(FILE_PREFIX)) {
+            return null;
+        }
+        try {
+            return new File(new URI(location));
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            // not escaped
+            return Paths.get(location.substring(FILE_PREFIX.length())).toFile();
+        }
+    }
+
+    private final List<ClassLoader> classLoaders;
+
+    private final Map<String, Optional<File>> locations = new HashMap<>();
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.datasources.runtime;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DriverResourceIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDriversAreLocatedWithoutLoadingClasses() throws Exception {
+        File driverJar = jar("driver.jar", DriverResourceIndex.DRIVER_SERVICES, "# a comment\ncom.example.jdbc.Driver\n",
+                             "com/example/jdbc/Driver.class", "not a class");
+        File helperJar = jar("helper with space.jar", "com/example/jdbc/xa/DataSource.class", "not a class");
+        File classes = this.folder.newFolder("classes");
+        File dirClass = new File(classes, "com/example/dir/Driver.class");
+        dirClass.getParentFile().mkdirs();
+        Files.write(dirClass.toPath(), "not a class".getBytes(StandardCharsets.UTF_8));
+
+        NonLoadingClassLoader classLoader = new NonLoadingClassLoader(driverJar, helperJar, classes);
+        DriverResourceIndex index = new DriverResourceIndex(Collections.singletonList(classLoader));
+
+        assertThat(index.locate("com.example.jdbc.Driver")).isEqualTo(driverJar);
+        assertThat(index.locate("com.example.jdbc.xa.DataSource")).isEqualTo(helperJar);
+        assertThat(index.locate("com.example.dir.Driver")).isEqualTo(classes);
+        assertThat(index.locate("org.h2.Driver")).isNull();
+        assertThat(classLoader.loadAttempts).isEqualTo(0);
+    }
+
+    @Test
+    public void testFirstClassLoaderWins() throws Exception {
+        File first = jar("first.jar", DriverResourceIndex.DRIVER_SERVICES, "com.example.jdbc.Driver");
+        File second = jar("second.jar", DriverResourceIndex.DRIVER_SERVICES, "com.example.jdbc.Driver");
+
+        DriverResourceIndex index = new DriverResourceIndex(Arrays.asList(new NonLoadingClassLoader(first),
+                                                                          new NonLoadingClassLoader(second)));
+
+        assertThat(index.locate("com.example.jdbc.Driver")).isEqualTo(first);
+    }
+
+    @Test
+    public void testNestedJarsAreNotFiles() throws Exception {
+        assertThat(DriverResourceIndex.toFile(new URL("jar:file:/tmp/app.jar!/m2repo/driver.jar!/org/h2/Driver.class"), "org/h2/Driver.class")).isNull();
+        assertThat(DriverResourceIndex.toFile(new URL("jar:file:/tmp/driver.jar!/org/h2/Driver.class"), "org/h2/Driver.class"))
+                .isEqualTo(new File("/tmp/driver.jar"));
+    }
+
+    private File jar(String name, String... entries) throws IOException {
+        File jar = new File(this.folder.getRoot(), name);
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (int i = 0; i < entries.length; i += 2) {
+                out.putNextEntry(new JarEntry(entries[i]));
+                out.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static class NonLoadingClassLoader extends URLClassLoader {
+
+        NonLoadingClassLoader(File... roots) throws IOException {
+            super(urls(roots), null);
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            ++this.loadAttempts;
+            throw new ClassNotFoundException(name);
+        }
+
+        private static URL[] urls(File... roots) throws IOException {
+            URL[] urls = new URL[roots.length];
+            for (int i = 0; i < roots.length; ++i) {
+                urls[i] = roots[i].toURI().toURL();
+            }
+            return urls;
+        }
+
+        private int loadAttempts;
+    }
+}
@@ -22,6 +22,8 @@ import java.util.Map;
 import javax.inject.Inject;
 import javax.ws.rs.core.Application;
 
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.IndexView;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ArchivePath;
 import org.jboss.shrinkwrap.api.ArchivePaths;
@@ -52,14 +54,23 @@ public class DefaultApplicationDeploymentProcessor implements DeploymentProcesso
     @Configurable("swarm.deployment.*.jaxrs.application-path")
     Defaultable<String> applicationPath = Defaultable.string("/");
 
+    private static final DotName APPLICATION_PATH = DotName.createSimple("javax.ws.rs.ApplicationPath");
+
     private final Archive archive;
 
+    private final IndexView index;
+
     @Inject
     DeploymentContext deploymentContext;
 
-    @Inject
     public DefaultApplicationDeploymentProcessor(Archive archive) {
+        this(archive, null);
+    }
+
+    @Inject
+    public DefaultApplicationDeploymentProcessor(Archive archive, IndexView index) {
         this.archive = archive;
+        this.index = index;
     }
 
     @Override
@@ -93,6 +104,25 @@ public class DefaultApplicationDeploymentProcessor implements DeploymentProcesso
         }
     }
 
+    /**
+     * Consult the deployment index for the classes of the deployment itself, reading only nested archives,
+     * which it does not cover.
+     */
+    private static boolean hasApplicationPathAnnotation(Archive<?> archive, IndexView index) {
+        if (!index.getAnnotations(APPLICATION_PATH).isEmpty()) {
+            return true;
+        }
+
+        for (Node node : archive.getContent().values()) {
+            Asset asset = node.getAsset();
+            if (asset instanceof ArchiveAsset && hasApplicationPathAnnotation(((ArchiveAsset) asset).getArchive())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     private static boolean hasApplicationPathAnnotation(Archive<?> archive) {
         Map<ArchivePath, Node> content = archive.getContent();
         for (Map.Entry<ArchivePath, Node> entry : content.entrySet()) {
@@ -165,7 +195,10 @@ public class DefaultApplicationDeploymentProcessor implements DeploymentProcesso
      * mapping for <code>javax.ws.rs.core.Application</code> servlet, <code>false</code> otherwise
      */
     private boolean hasApplicationPathOrServletMapping(Archive<?> archive) {
-        return hasApplicationServletMapping(archive) || hasApplicationPathAnnotation(archive);
+        if (hasApplicationServletMapping(archive)) {
+            return true;
+        }
+        return this.index != null ? hasApplicationPathAnnotation(archive, this.index) : hasApplicationPathAnnotation(archive);
     }
 
 }
@@ -47,6 +47,27 @@ public interface Monitor {
 
     ModelNode threads();
 
+    /**
+     * JSON form of {@link #getNodeInfo()}, cached until the server state changes.
+     *
+     * @return The node info.
+     */
+    String getNodeInfoJSON();
+
+    /**
+     * JSON form of {@link #heap()}, read directly from the platform MXBeans.
+     *
+     * @return The heap usage.
+     */
+    String heapJSON();
+
+    /**
+     * JSON form of {@link #threads()}, read directly from the platform MXBeans.
+     *
+     * @return The thread statistics.
+     */
+    String threadsJSON();
+
     void registerHealth(HealthMetaData metaData);
 
     void registerHealthBean(Object healthCheck);
@@ -0,0 +1,210 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.monitor.runtime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.jboss.logging.Logger;
+import org.wildfly.swarm.health.BuilderImpl;
+
+/**
+ * Invokes the health check beans behind <code>/health</code>.
+ *
+ * <p>Checks run in parallel on the given executor and must answer within the probe timeout; a check
+ * that fails or does not answer in time is reported <code>DOWN</code>. A check that is still running
+ * from an earlier probe is not invoked again; later probes wait on the run in flight. If
+ * <code>swarm.microprofile.health.cache-ttl</code> is set, the responses are reused for that many
+ * milliseconds, and concurrent probes wait for a single invocation of the checks.</p>
+ *
+ * @see org.wildfly.swarm.monitor.api.Monitor#getProbeTimeoutSeconds()
+ */
+class HealthCheckRunner {
+
+    static final String CACHE_TTL_PROPERTY = "swarm.microprofile.health.cache-ttl";
+
+    static final int POOL_SIZE = 4;
+
+    /**
+     * A small pool of daemon threads for the checks, kept apart from the HTTP worker.
+     */
+    static ExecutorService newExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<>(),
+                                                             r -> {
+                                                                 Thread thread = new Thread(r, "health-check-" + count.incrementAndGet());
+                                                                 thread.setDaemon(true);
+                                                                 return thread;
+                                                             });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    HealthCheckRunner(Executor executor, long timeout, TimeUnit timeoutUnit, long cacheTtl, TimeUnit cacheTtlUnit) {
+        this.executor = executor;
+        this.timeoutNanos = timeoutUnit.toNanos(timeout);
+        this.cacheTtlNanos = cacheTtlUnit.toNanos(Math.max(0, cacheTtl));
+    }
+
+    /**
+     * Invoke the checks.
+     *
+     * @param checks The {@link HealthCheck} beans.
+     * @return Their responses, in iteration order.
+     */
+    List<HealthCheckResponse> run(Collection<?> checks) {
+        List<Object> key = new ArrayList<>(checks);
+        if (this.cacheTtlNanos == 0) {
+            return invoke(key);
+        }
+
+        CachedResponses cached = this.cached;
+        if (cached != null && cached.isValidFor(key, System.nanoTime())) {
+            return cached.responses;
+        }
+
+        synchronized (this) {
+            cached = this.cached;
+            if (cached != null && cached.isValidFor(key, System.nanoTime())) {
+                // a concurrent probe just ran them
+                return cached.responses;
+            }
+            List<HealthCheckResponse> responses = Collections.unmodifiableList(invoke(key));
+            this.cached = new CachedResponses(key, responses, System.nanoTime() + this.cacheTtlNanos);
+            return responses;
+        }
+    }
+
+    private List<HealthCheckResponse> invoke(List<Object> checks) {
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        List<FutureTask<HealthCheckResponse>> tasks = new ArrayList<>(checks.size());
+        for (Object check : checks) {
+            FutureTask<HealthCheckResponse> task = new FutureTask<HealthCheckResponse>(() -> call((HealthCheck) check, tccl)) {
+                @Override
+                protected void done() {
+                    running.remove(check, this);
+                }
+            };
+            FutureTask<HealthCheckResponse> previous = this.running.putIfAbsent(check, task);
+            while (previous != null && previous.isDone()) {
+                // finished, but not yet removed by done()
+                previous = this.running.replace(check, previous, task) ? null : this.running.putIfAbsent(check, task);
+            }
+            if (previous != null) {
+                // still running from an earlier probe, wait on that run
+                tasks.add(previous);
+                continue;
+            }
+            tasks.add(task);
+            try {
+                this.executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                LOG.warn("Health check pool exhausted, running " + check.getClass().getName() + " in place");
+                task.run();
+            }
+        }
+
+        long deadline = System.nanoTime() + this.timeoutNanos;
+        List<HealthCheckResponse> responses = new ArrayList<>(tasks.size());
+
+        for (int i = 0; i < tasks.size(); ++i) {
+            FutureTask<HealthCheckResponse> task = tasks.get(i);
+            String name = checks.get(i).getClass().getName();
+            try {
+                HealthCheckResponse response = task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                responses.add(response != null ? response : down(name, "no response"));
+            } catch (TimeoutException e) {
+                // left running, so the next probe waits on it rather than piling up another invocation
+                LOG.warn("Health check " + name + " timed out");
+                responses.add(down(name, "timed out"));
+            } catch (ExecutionException e) {
+                LOG.warn("Health check " + name + " failed", e.getCause());
+                responses.add(down(name, String.valueOf(e.getCause())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                responses.add(down(name, "interrupted"));
+            }
+        }
+        return responses;
+    }
+
+    private static HealthCheckResponse call(HealthCheck check, ClassLoader tccl) {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(tccl);
+        try {
+            return check.call();
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    private static HealthCheckResponse down(String name, String reason) {
+        return new BuilderImpl()
+                .name(name)
+                .down()
+                .withData("reason", reason)
+                .build();
+    }
+
+    private static Logger LOG = Logger.getLogger("org.wildfly.swarm.monitor.health");
+
+    private final Executor executor;
+
+    private final long timeoutNanos;
+
+    private final long cacheTtlNanos;
+
+    private final ConcurrentMap<Object, FutureTask<HealthCheckResponse>> running = new ConcurrentHashMap<>();
+
+    private volatile CachedResponses cached;
+
+    private static final class CachedResponses {
+
+        CachedResponses(List<Object> checks, List<HealthCheckResponse> responses, long expiresAt) {
+            this.checks = checks;
+            this.responses = responses;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isValidFor(List<Object> checks, long now) {
+            return now - this.expiresAt < 0 && this.checks.equals(checks);
+        }
+
+        private final List<Object> checks;
+
+        private final List<HealthCheckResponse> responses;
+
+        private final long expiresAt;
+    }
+}
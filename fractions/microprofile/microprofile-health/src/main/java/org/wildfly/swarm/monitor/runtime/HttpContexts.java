@@ -28,7 +28,6 @@ import io.undertow.util.Headers;
 import io.undertow.util.HttpString;
 import io.undertow.util.Protocols;
 import io.undertow.util.StringReadChannelListener;
-import org.eclipse.microprofile.health.HealthCheck;
 import org.eclipse.microprofile.health.HealthCheckResponse;
 import org.jboss.logging.Logger;
 import org.wildfly.swarm.monitor.HealthMetaData;
@@ -45,13 +44,13 @@ import javax.enterprise.inject.Vetoed;
 import javax.naming.NamingException;
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The actual monitoring HTTP endpoints. These are wrapped by {@link SecureHttpContexts}.
@@ -93,6 +92,9 @@ public class HttpContexts implements HttpHandler {
             throw new RuntimeException("Failed to lookup monitor", e);
         }
 
+        this.healthChecks = new HealthCheckRunner(HealthCheckRunner.newExecutor(),
+                                                  this.monitor.getProbeTimeoutSeconds(), TimeUnit.SECONDS,
+                                                  Long.getLong(HealthCheckRunner.CACHE_TTL_PROPERTY, 0), TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -116,7 +118,12 @@ public class HttpContexts implements HttpHandler {
             threads(exchange);
             return;
         } else if (HEALTH.equals(exchange.getRequestPath())) {
-            proxyRequestsCDI(exchange);
+            if (exchange.isInIoThread()) {
+                // checks may block, keep them off the IO thread
+                exchange.dispatch(() -> proxyRequestsCDI(exchange));
+            } else {
+                proxyRequestsCDI(exchange);
+            }
             return;
         }
 
@@ -132,14 +139,9 @@ public class HttpContexts implements HttpHandler {
             return;
         }
 
-        List<org.eclipse.microprofile.health.HealthCheckResponse> responses = new ArrayList<>();
-
-        for (Object procedure : procedures) {
-            org.eclipse.microprofile.health.HealthCheckResponse status = ((HealthCheck)procedure).call();
-            responses.add(status);
-        }
+        List<org.eclipse.microprofile.health.HealthCheckResponse> responses = healthChecks.run(procedures);
 
-        StringBuffer sb = new StringBuffer(LCURL);
+        StringBuilder sb = new StringBuilder(LCURL);
         sb.append("\"checks\": [\n");
 
         int i = 0;
@@ -381,15 +383,15 @@ public class HttpContexts implements HttpHandler {
     }
 
     private void nodeInfo(HttpServerExchange exchange) {
-        exchange.getResponseSender().send(monitor.getNodeInfo().toJSONString(false));
+        exchange.getResponseSender().send(monitor.getNodeInfoJSON());
     }
 
     private void heap(HttpServerExchange exchange) {
-        exchange.getResponseSender().send(monitor.heap().toJSONString(false));
+        exchange.getResponseSender().send(monitor.heapJSON());
     }
 
     private void threads(HttpServerExchange exchange) {
-        exchange.getResponseSender().send(monitor.threads().toJSONString(false));
+        exchange.getResponseSender().send(monitor.threadsJSON());
     }
 
     public static String toJson(HealthCheckResponse status) {
@@ -450,6 +452,8 @@ public class HttpContexts implements HttpHandler {
 
     private XnioWorker worker;
 
+    private final HealthCheckRunner healthChecks;
+
     private static final String ID = "id";
 
     private static final String RESULT = "result";
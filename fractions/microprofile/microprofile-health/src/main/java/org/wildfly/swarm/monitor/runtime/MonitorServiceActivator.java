@@ -22,6 +22,7 @@ import javax.enterprise.inject.Any;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 
+import org.jboss.as.controller.ControlledProcessStateService;
 import org.jboss.as.controller.ModelController;
 import org.jboss.as.domain.management.SecurityRealm;
 import org.jboss.as.naming.ImmediateManagedReferenceFactory;
@@ -71,7 +72,8 @@ public class MonitorServiceActivator implements ServiceActivator {
 
         ServiceBuilder<MonitorService> serviceBuilder = monitorServiceServiceBuilder
                 .addDependency(ServerEnvironmentService.SERVICE_NAME, ServerEnvironment.class, service.getServerEnvironmentInjector())
-                .addDependency(Services.JBOSS_SERVER_CONTROLLER, ModelController.class, service.getModelControllerInjector());
+                .addDependency(Services.JBOSS_SERVER_CONTROLLER, ModelController.class, service.getModelControllerInjector())
+                .addDependency(ControlledProcessStateService.SERVICE_NAME, ControlledProcessStateService.class, service.getProcessStateInjector());
 
         if (securityRealm.isPresent()) { // configured through the fraction interface
             serviceBuilder.addDependency(
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.monitor.runtime;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Heap and thread statistics read directly from the platform MXBeans and written as JSON,
+ * with the same attributes as the <code>core-service=platform-mbean</code> resources.
+ *
+ * @see org.wildfly.swarm.monitor.api.Monitor#heapJSON()
+ * @see org.wildfly.swarm.monitor.api.Monitor#threadsJSON()
+ */
+final class PlatformInfo {
+
+    private PlatformInfo() {
+    }
+
+    static String heap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        StringBuilder sb = new StringBuilder("{");
+        sb.append("\"heap-memory-usage\" : ");
+        usage(sb, memory.getHeapMemoryUsage());
+        sb.append(", \"non-heap-memory-usage\" : ");
+        usage(sb, memory.getNonHeapMemoryUsage());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    static String threads() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean cpuTime = threads.isCurrentThreadCpuTimeSupported();
+
+        StringBuilder sb = new StringBuilder("{");
+        sb.append("\"thread-count\" : ").append(threads.getThreadCount());
+        sb.append(", \"peak-thread-count\" : ").append(threads.getPeakThreadCount());
+        sb.append(", \"total-started-thread-count\" : ").append(threads.getTotalStartedThreadCount());
+        sb.append(", \"current-thread-cpu-time\" : ").append(cpuTime ? threads.getCurrentThreadCpuTime() : -1);
+        sb.append(", \"current-thread-user-time\" : ").append(cpuTime ? threads.getCurrentThreadUserTime() : -1);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static void usage(StringBuilder sb, MemoryUsage usage) {
+        sb.append("{\"init\" : ").append(usage.getInit());
+        sb.append(", \"used\" : ").append(usage.getUsed());
+        sb.append(", \"committed\" : ").append(usage.getCommitted());
+        sb.append(", \"max\" : ").append(usage.getMax());
+        sb.append('}');
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.monitor.runtime;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.swarm.health.BuilderImpl;
+
+public class HealthCheckRunnerTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testChecksRunInParallel() {
+        HealthCheck slow1 = () -> sleepThenUp("one", 300);
+        HealthCheck slow2 = () -> sleepThenUp("two", 300);
+        HealthCheckRunner runner = new HealthCheckRunner(executor, 5, TimeUnit.SECONDS, 0, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        List<HealthCheckResponse> responses = runner.run(Arrays.asList(slow1, slow2));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertEquals(2, responses.size());
+        Assert.assertEquals("one", responses.get(0).getName());
+        Assert.assertEquals("two", responses.get(1).getName());
+        Assert.assertTrue("Expected checks to overlap, took " + elapsed + "ms", elapsed < 550);
+    }
+
+    @Test
+    public void testTimedOutOrFailingCheckIsDown() {
+        HealthCheck hanging = () -> sleepThenUp("hanging", 10_000);
+        HealthCheck failing = () -> {
+            throw new IllegalStateException("database unreachable");
+        };
+        HealthCheck healthy = () -> up("healthy");
+        HealthCheckRunner runner = new HealthCheckRunner(executor, 200, TimeUnit.MILLISECONDS, 0, TimeUnit.MILLISECONDS);
+
+        List<HealthCheckResponse> responses = runner.run(Arrays.asList(hanging, failing, healthy));
+
+        Assert.assertEquals(HealthCheckResponse.State.DOWN, responses.get(0).getState());
+        Assert.assertEquals(HealthCheckResponse.State.DOWN, responses.get(1).getState());
+        Assert.assertEquals(HealthCheckResponse.State.UP, responses.get(2).getState());
+    }
+
+    @Test
+    public void testRunningCheckIsNotResubmitted() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        HealthCheck slow = () -> {
+            calls.incrementAndGet();
+            return sleepThenUp("slow", 500);
+        };
+        HealthCheckRunner runner = new HealthCheckRunner(executor, 50, TimeUnit.MILLISECONDS, 0, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(HealthCheckResponse.State.DOWN, runner.run(Arrays.asList(slow)).get(0).getState());
+        Assert.assertEquals(HealthCheckResponse.State.DOWN, runner.run(Arrays.asList(slow)).get(0).getState());
+        Assert.assertEquals(1, calls.get());
+
+        // once the first run finishes the check is invoked again
+        Thread.sleep(600);
+        runner.run(Arrays.asList(slow));
+        Assert.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testResponsesAreCached() {
+        AtomicInteger calls = new AtomicInteger();
+        HealthCheck counting = () -> {
+            calls.incrementAndGet();
+            return up("counting");
+        };
+        HealthCheckRunner runner = new HealthCheckRunner(executor, 5, TimeUnit.SECONDS, 1, TimeUnit.HOURS);
+
+        runner.run(Arrays.asList(counting));
+        runner.run(Arrays.asList(counting));
+        Assert.assertEquals(1, calls.get());
+
+        // a different set of checks is not served from the cache
+        runner.run(Arrays.asList(counting, (HealthCheck) () -> up("other")));
+        Assert.assertEquals(2, calls.get());
+    }
+
+    private static HealthCheckResponse sleepThenUp(String name, long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return up(name);
+    }
+
+    private static HealthCheckResponse up(String name) {
+        return new BuilderImpl().name(name).up().build();
+    }
+}
@@ -2,10 +2,7 @@ package org.wildfly.swarm.mpjwtauth.deployment.auth.jaas;
 
 import io.undertow.security.idm.Credential;
 import org.wildfly.swarm.mpjwtauth.deployment.principal.JWTAuthContextInfo;
-import org.jose4j.jwt.JwtClaims;
-import org.jose4j.jwt.consumer.JwtConsumer;
-import org.jose4j.jwt.consumer.JwtConsumerBuilder;
-import org.jose4j.jwt.consumer.JwtContext;
+import org.wildfly.swarm.mpjwtauth.deployment.principal.JWTCallerPrincipalFactory;
 
 /**
  * This is an implementation of the undertow Credential that wraps the bearer token and configured JWTAuthContextInfo
@@ -30,12 +27,14 @@ public class JWTCredential implements Credential {
     }
 
     /**
-     * This just parses the token without validation to extract one of the following in order to obtain
-     * the name to be used for the principal:
+     * This verifies the token to obtain the name to be used for the principal, taken from the following in order:
      * upn
      * preferred_username
      * subject
      *
+     * The token is verified through {@link JWTCallerPrincipalFactory}, whose default implementation caches the verified principal, so the
+     * later validation of the same token by the login module does not parse it again.
+     *
      * If there is an exception it sets the name to INVALID_TOKEN_NAME and saves the exception for access
      * via {@link #getJwtException()}
      *
@@ -45,24 +44,7 @@ public class JWTCredential implements Credential {
         if (name == null) {
             name = "INVALID_TOKEN_NAME";
             try {
-                // Build a JwtConsumer that doesn't check signatures or do any validation.
-                JwtConsumer firstPassJwtConsumer = new JwtConsumerBuilder()
-                        .setSkipAllValidators()
-                        .setDisableRequireSignature()
-                        .setSkipSignatureVerification()
-                        .build();
-
-                //The first JwtConsumer is basically just used to parse the JWT into a JwtContext object.
-                JwtContext jwtContext = firstPassJwtConsumer.process(bearerToken);
-                JwtClaims claimsSet = jwtContext.getJwtClaims();
-                // We have to determine the unique name to use as the principal name. It comes from upn, preferred_username, sub in that order
-                name = claimsSet.getClaimValue("upn", String.class);
-                if (name == null) {
-                    name = claimsSet.getClaimValue("preferred_username", String.class);
-                    if (name == null) {
-                        name = claimsSet.getSubject();
-                    }
-                }
+                name = JWTCallerPrincipalFactory.instance().parse(bearerToken, authContextInfo).getName();
             } catch (Exception e) {
                 jwtException = e;
             }
@@ -31,6 +31,8 @@ public class JWTAuthContextInfo {
 
     private int expGracePeriodSecs = 60;
 
+    private volatile JWTVerifier verifier;
+
     public JWTAuthContextInfo() {
     }
 
@@ -51,6 +53,7 @@ public class JWTAuthContextInfo {
 
     public void setSignerKey(RSAPublicKey signerKey) {
         this.signerKey = signerKey;
+        this.verifier = null;
     }
 
     public String getIssuedBy() {
@@ -59,6 +62,7 @@ public class JWTAuthContextInfo {
 
     public void setIssuedBy(String issuedBy) {
         this.issuedBy = issuedBy;
+        this.verifier = null;
     }
 
     public int getExpGracePeriodSecs() {
@@ -67,5 +71,23 @@ public class JWTAuthContextInfo {
 
     public void setExpGracePeriodSecs(int expGracePeriodSecs) {
         this.expGracePeriodSecs = expGracePeriodSecs;
+        this.verifier = null;
+    }
+
+    /**
+     * @return the verifier for this context, built on first use and rebuilt after any change to the context
+     */
+    JWTVerifier getVerifier() {
+        JWTVerifier verifier = this.verifier;
+        if (verifier == null) {
+            synchronized (this) {
+                verifier = this.verifier;
+                if (verifier == null) {
+                    verifier = new JWTVerifier(this);
+                    this.verifier = verifier;
+                }
+            }
+        }
+        return verifier;
     }
 }
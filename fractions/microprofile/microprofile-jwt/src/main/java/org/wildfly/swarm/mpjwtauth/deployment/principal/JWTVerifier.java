@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.wildfly.swarm.mpjwtauth.deployment.principal;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.jwt.Claims;
+import org.jose4j.jwa.AlgorithmConstraints;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.MalformedClaimException;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.jose4j.jwt.consumer.JwtConsumer;
+import org.jose4j.jwt.consumer.JwtConsumerBuilder;
+import org.jose4j.jwt.consumer.JwtContext;
+
+/**
+ * Verifies tokens against a single {@link JWTAuthContextInfo}, with a {@link JwtConsumer} built once and a
+ * cache of the principals of tokens already verified. A cached principal is reused until the token expires,
+ * allowing for the expiration grace period, so clients presenting the same bearer token skip parsing and
+ * signature verification. Tokens failing verification are not cached.
+ *
+ * The cache size is set with the <code>swarm.microprofile.jwt.token-cache-size</code> system property;
+ * 0 disables the cache.
+ */
+class JWTVerifier {
+
+    static final String CACHE_SIZE_PROPERTY = "swarm.microprofile.jwt.token-cache-size";
+
+    private static final int DEFAULT_CACHE_SIZE = 1000;
+
+    JWTVerifier(JWTAuthContextInfo authContextInfo) {
+        this(authContextInfo, Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE));
+    }
+
+    JWTVerifier(JWTAuthContextInfo authContextInfo, int cacheSize) {
+        JwtConsumerBuilder builder = new JwtConsumerBuilder()
+                .setRequireExpirationTime()
+                .setRequireSubject()
+                .setSkipDefaultAudienceValidation()
+                .setExpectedIssuer(authContextInfo.getIssuedBy())
+                .setVerificationKey(authContextInfo.getSignerKey())
+                .setJwsAlgorithmConstraints(
+                        new AlgorithmConstraints(AlgorithmConstraints.ConstraintType.WHITELIST,
+                                AlgorithmIdentifiers.RSA_USING_SHA256));
+        if (authContextInfo.getExpGracePeriodSecs() > 0) {
+            builder.setAllowedClockSkewInSeconds(authContextInfo.getExpGracePeriodSecs());
+        } else {
+            builder.setEvaluationTime(NumericDate.fromSeconds(0));
+        }
+        this.jwtConsumer = builder.build();
+        this.expGracePeriodMillis = TimeUnit.SECONDS.toMillis(Math.max(0, authContextInfo.getExpGracePeriodSecs()));
+        this.cache = cacheSize > 0 ? new TokenCache<>(cacheSize) : null;
+    }
+
+    JWTCallerPrincipal verify(String token) throws ParseException {
+        if (this.cache != null) {
+            JWTCallerPrincipal cached = this.cache.get(token, System.currentTimeMillis());
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        JWTCallerPrincipal principal;
+        long expiresAt;
+        try {
+            JwtContext jwtContext = this.jwtConsumer.process(token);
+            String type = jwtContext.getJoseObjects().get(0).getHeader("typ");
+            //  Validate the JWT and process it to the Claims
+            this.jwtConsumer.processContext(jwtContext);
+            JwtClaims claimsSet = jwtContext.getJwtClaims();
+
+            // We have to determine the unique name to use as the principal name. It comes from upn, preferred_username, sub in that order
+            String principalName = claimsSet.getClaimValue("upn", String.class);
+            if (principalName == null) {
+                principalName = claimsSet.getClaimValue("preferred_username", String.class);
+                if (principalName == null) {
+                    principalName = claimsSet.getSubject();
+                }
+            }
+            // the consumer accepts the token until then too
+            expiresAt = claimsSet.getExpirationTime().getValueInMillis() + this.expGracePeriodMillis;
+            claimsSet.setClaim(Claims.raw_token.name(), token);
+            principal = new DefaultJWTCallerPrincipal(token, type, claimsSet, principalName);
+        } catch (InvalidJwtException e) {
+            throw new ParseException("Failed to verify token", e);
+        } catch (MalformedClaimException e) {
+            throw new ParseException("Failed to verify token claims", e);
+        }
+
+        if (this.cache != null) {
+            this.cache.put(token, principal, expiresAt);
+        }
+        return principal;
+    }
+
+    int cachedTokens() {
+        return this.cache == null ? 0 : this.cache.size();
+    }
+
+    private final JwtConsumer jwtConsumer;
+
+    private final long expGracePeriodMillis;
+
+    private final TokenCache<JWTCallerPrincipal> cache;
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.wildfly.swarm.mpjwtauth.deployment.principal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least-recently-used cache of verified tokens, keyed by the SHA-256 hash of the token.
+ * Entries are dropped once their expiration time has passed.
+ *
+ * @param <T> the type of the verified value
+ */
+class TokenCache<T> {
+
+    TokenCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<ByteBuffer, CachedToken<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, CachedToken<T>> eldest) {
+                return size() > TokenCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param token the bearer token
+     * @param now   the current time, in milliseconds since the epoch
+     * @return the cached value, or null if absent or expired
+     */
+    T get(String token, long now) {
+        ByteBuffer key = key(token);
+        synchronized (this.entries) {
+            CachedToken<T> entry = this.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now >= entry.expiresAt) {
+                this.entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    /**
+     * @param token     the bearer token
+     * @param value     the verified value
+     * @param expiresAt the expiration time of the token, in milliseconds since the epoch
+     */
+    void put(String token, T value, long expiresAt) {
+        ByteBuffer key = key(token);
+        synchronized (this.entries) {
+            this.entries.put(key, new CachedToken<>(value, expiresAt));
+        }
+    }
+
+    int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    private static ByteBuffer key(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE provides SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final int maxSize;
+
+    private final Map<ByteBuffer, CachedToken<T>> entries;
+
+    private static final class CachedToken<T> {
+        CachedToken(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private final T value;
+
+        private final long expiresAt;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+package org.wildfly.swarm.mpjwtauth.deployment.principal;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.NumericDate;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class JWTVerifierTest {
+
+    private static final String ISSUER = "https://server.example.com";
+
+    private static KeyPair keyPair;
+
+    @BeforeClass
+    public static void generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+    }
+
+    @Test
+    public void testSameTokenIsVerifiedOnce() throws Exception {
+        JWTVerifier verifier = new JWTVerifier(new JWTAuthContextInfo((RSAPublicKey) keyPair.getPublic(), ISSUER), 10);
+        String token = token(ISSUER, NumericDate.fromSeconds(NumericDate.now().getValue() + 600));
+
+        JWTCallerPrincipal principal = verifier.verify(token);
+
+        assertThat(principal.getName()).isEqualTo("jdoe@example.com");
+        assertThat(verifier.verify(token)).isSameAs(principal);
+        assertThat(verifier.cachedTokens()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFailureIsNotCached() throws Exception {
+        JWTVerifier verifier = new JWTVerifier(new JWTAuthContextInfo((RSAPublicKey) keyPair.getPublic(), ISSUER), 10);
+        String token = token("https://other.example.com", NumericDate.fromSeconds(NumericDate.now().getValue() + 600));
+
+        for (int i = 0; i < 2; ++i) {
+            try {
+                verifier.verify(token);
+                fail("token of another issuer verified");
+            } catch (ParseException e) {
+                // expected
+            }
+        }
+        assertThat(verifier.cachedTokens()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCachedTokenExpiresAfterGracePeriod() throws Exception {
+        JWTAuthContextInfo authContextInfo = new JWTAuthContextInfo((RSAPublicKey) keyPair.getPublic(), ISSUER);
+        authContextInfo.setExpGracePeriodSecs(1);
+        JWTVerifier verifier = new JWTVerifier(authContextInfo, 10);
+        NumericDate exp = NumericDate.fromSeconds(NumericDate.now().getValue() + 1);
+        String token = token(ISSUER, exp);
+
+        JWTCallerPrincipal principal = verifier.verify(token);
+        assertThat(verifier.verify(token)).isSameAs(principal);
+
+        // past the expiration time, but within the grace period
+        sleepUntil(exp.getValueInMillis() + 100);
+        assertThat(verifier.verify(token)).isSameAs(principal);
+
+        sleepUntil(exp.getValueInMillis() + 1100);
+        try {
+            verifier.verify(token);
+            fail("expired token verified");
+        } catch (ParseException e) {
+            // expected
+        }
+        assertThat(verifier.cachedTokens()).isEqualTo(0);
+    }
+
+    private static String token(String issuer, NumericDate exp) throws Exception {
+        JwtClaims claims = new JwtClaims();
+        claims.setIssuer(issuer);
+        claims.setSubject("24400320");
+        claims.setClaim("upn", "jdoe@example.com");
+        claims.setIssuedAtToNow();
+        claims.setExpirationTime(exp);
+
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setKey(keyPair.getPrivate());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        jws.setHeader("typ", "JWT");
+        return jws.getCompactSerialization();
+    }
+
+    private static void sleepUntil(long millis) throws InterruptedException {
+        long delay;
+        while ((delay = millis - System.currentTimeMillis()) > 0) {
+            Thread.sleep(delay);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.wildfly.swarm.mpjwtauth.deployment.principal;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TokenCacheTest {
+
+    @Test
+    public void testEntriesExpire() {
+        TokenCache<String> cache = new TokenCache<>(10);
+        cache.put("token", "principal", 1000);
+
+        assertThat(cache.get("token", 999)).isEqualTo("principal");
+        assertThat(cache.get("other", 999)).isNull();
+        assertThat(cache.get("token", 1000)).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        TokenCache<String> cache = new TokenCache<>(2);
+        cache.put("a", "A", Long.MAX_VALUE);
+        cache.put("b", "B", Long.MAX_VALUE);
+        assertThat(cache.get("a", 0)).isEqualTo("A");
+
+        cache.put("c", "C", Long.MAX_VALUE);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a", 0)).isEqualTo("A");
+        assertThat(cache.get("b", 0)).isNull();
+        assertThat(cache.get("c", 0)).isEqualTo("C");
+    }
+}
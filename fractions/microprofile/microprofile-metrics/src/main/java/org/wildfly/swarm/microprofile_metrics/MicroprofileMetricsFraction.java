@@ -16,10 +16,18 @@
  */
 package org.wildfly.swarm.microprofile_metrics;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import org.wildfly.swarm.config.runtime.AttributeDocumentation;
+import org.wildfly.swarm.spi.api.Defaultable;
 import org.wildfly.swarm.spi.api.Fraction;
 import org.wildfly.swarm.spi.api.annotations.Configurable;
 import org.wildfly.swarm.spi.api.annotations.DeploymentModule;
 
+import static org.wildfly.swarm.spi.api.Defaultable.integer;
+import static org.wildfly.swarm.spi.api.Defaultable.string;
+
 /**
  * @author Heiko W. Rupp
  */
@@ -27,4 +35,63 @@ import org.wildfly.swarm.spi.api.annotations.DeploymentModule;
 @DeploymentModule(name = "org.jboss.weld.spi")
 @Configurable("swarm.microprofile.metrics")
 public class MicroprofileMetricsFraction implements Fraction<MicroprofileMetricsFraction> {
+
+    public static final String DEFAULT_RESERVOIR = "exponentially-decaying";
+
+    public static final int DEFAULT_RESERVOIR_WINDOW = 60;
+
+    /**
+     * Set the reservoir of histograms and timers not configured otherwise.
+     *
+     * @param reservoir exponentially-decaying, hdr or sliding-time-window
+     * @return this fraction
+     */
+    public MicroprofileMetricsFraction reservoir(String reservoir) {
+        this.reservoir.set(reservoir);
+        return this;
+    }
+
+    public String reservoir() {
+        return this.reservoir.get();
+    }
+
+    /**
+     * Set the reservoir of a single histogram or timer.
+     *
+     * @param metricName the name of the metric
+     * @param reservoir  exponentially-decaying, hdr or sliding-time-window
+     * @return this fraction
+     */
+    public MicroprofileMetricsFraction reservoir(String metricName, String reservoir) {
+        this.reservoirs.put(metricName, reservoir);
+        return this;
+    }
+
+    public Map<String, String> reservoirs() {
+        return this.reservoirs;
+    }
+
+    /**
+     * Set the window of sliding-time-window reservoirs.
+     *
+     * @param seconds the window, in seconds
+     * @return this fraction
+     */
+    public MicroprofileMetricsFraction reservoirWindow(int seconds) {
+        this.reservoirWindow.set(seconds);
+        return this;
+    }
+
+    public int reservoirWindow() {
+        return this.reservoirWindow.get();
+    }
+
+    @AttributeDocumentation("Reservoir of histograms and timers not configured otherwise: exponentially-decaying, hdr or sliding-time-window")
+    private Defaultable<String> reservoir = string(DEFAULT_RESERVOIR);
+
+    @AttributeDocumentation("Reservoir of individual histograms and timers, keyed by metric name")
+    private Map<String, String> reservoirs = new HashMap<>();
+
+    @AttributeDocumentation("Window of sliding-time-window reservoirs, in seconds")
+    private Defaultable<Integer> reservoirWindow = integer(DEFAULT_RESERVOIR_WINDOW);
 }
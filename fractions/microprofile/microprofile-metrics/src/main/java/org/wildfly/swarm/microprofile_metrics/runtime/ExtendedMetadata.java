@@ -29,6 +29,7 @@ import org.eclipse.microprofile.metrics.MetricType;
 public class ExtendedMetadata extends Metadata {
 
     private String mbean;
+    private String reservoir;
     boolean multi;
 
     public ExtendedMetadata() {
@@ -51,6 +52,19 @@ public class ExtendedMetadata extends Metadata {
         this.mbean = mbean;
     }
 
+    /**
+     * The reservoir used by a histogram or timer, such as {@code hdr}; {@code null} for the default.
+     *
+     * @see org.wildfly.swarm.microprofile_metrics.runtime.app.ReservoirType
+     */
+    public String getReservoir() {
+        return reservoir;
+    }
+
+    public void setReservoir(String reservoir) {
+        this.reservoir = reservoir;
+    }
+
     public boolean isMulti() {
         return multi;
     }
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics.runtime;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the MBean attributes backing the base and vendor metrics.
+ *
+ * <p>Expressions of the form <code>objectName/attribute[#subItem]</code> are parsed once, when first
+ * seen. The attributes are grouped per MBean and fetched with a single
+ * {@link MBeanServer#getAttributes(ObjectName, String[])} call whose result is reused for
+ * <code>swarm.microprofile.metrics.jmx-cache-interval</code> milliseconds (default 1000), so a scrape
+ * costs one read per MBean rather than one per metric. An interval of 0 reads every attribute
+ * individually, on every access.</p>
+ */
+public class JmxCollector {
+
+    public static final String CACHE_INTERVAL_PROPERTY = "swarm.microprofile.metrics.jmx-cache-interval";
+
+    private static final long DEFAULT_CACHE_INTERVAL = 1000;
+
+    JmxCollector(MBeanServer mbs, long cacheInterval, TimeUnit unit) {
+        this.mbs = mbs;
+        this.cacheIntervalNanos = unit.toNanos(Math.max(0, cacheInterval));
+    }
+
+    public static JmxCollector instance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Retrieve the parsed form of an MBean expression, registering its attribute for bulk reads.
+     *
+     * @param mbeanExpression The expression, such as <code>java.lang:type=Memory/HeapMemoryUsage#used</code>.
+     * @return The attribute reference.
+     * @throws IllegalArgumentException If the expression is malformed.
+     */
+    public MBeanAttribute attribute(String mbeanExpression) {
+        if (mbeanExpression == null) {
+            throw new IllegalArgumentException("MBean Expression is null");
+        }
+        MBeanAttribute attribute = this.attributes.get(mbeanExpression);
+        if (attribute == null) {
+            attribute = this.attributes.computeIfAbsent(mbeanExpression, this::parse);
+        }
+        return attribute;
+    }
+
+    private MBeanAttribute parse(String mbeanExpression) {
+        int slashIndex = mbeanExpression.indexOf('/');
+        if (slashIndex < 0) {
+            throw new IllegalArgumentException(mbeanExpression);
+        }
+
+        String mbean = mbeanExpression.substring(0, slashIndex);
+        String attName = mbeanExpression.substring(slashIndex + 1);
+        String subItem = null;
+        int hashIndex = attName.indexOf('#');
+        if (hashIndex >= 0) {
+            subItem = attName.substring(hashIndex + 1);
+            attName = attName.substring(0, hashIndex);
+        }
+
+        ObjectName objectName;
+        try {
+            objectName = new ObjectName(mbean);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(mbeanExpression, e);
+        }
+
+        MBean owner = this.mbeans.computeIfAbsent(objectName, MBean::new);
+        owner.addAttribute(attName);
+        return new MBeanAttribute(mbeanExpression, owner, attName, subItem);
+    }
+
+    private final MBeanServer mbs;
+
+    private final long cacheIntervalNanos;
+
+    private final ConcurrentMap<String, MBeanAttribute> attributes = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<ObjectName, MBean> mbeans = new ConcurrentHashMap<>();
+
+    private static final class Holder {
+        static final JmxCollector INSTANCE = new JmxCollector(ManagementFactory.getPlatformMBeanServer(),
+                                                              Long.getLong(CACHE_INTERVAL_PROPERTY, DEFAULT_CACHE_INTERVAL),
+                                                              TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A single, pre-parsed MBean attribute, optionally a sub-item of a composite attribute.
+     */
+    public static final class MBeanAttribute {
+
+        private MBeanAttribute(String expression, MBean owner, String attribute, String subItem) {
+            this.expression = expression;
+            this.owner = owner;
+            this.attribute = attribute;
+            this.subItem = subItem;
+        }
+
+        /**
+         * Read the current value.
+         *
+         * @return The value of the attribute, or of its sub-item.
+         */
+        public Number getValue() {
+            Object value = this.owner.read(this.attribute);
+            if (value instanceof Number) {
+                return (Number) value;
+            } else if (value instanceof CompositeData) {
+                return (Number) ((CompositeData) value).get(this.subItem);
+            } else {
+                throw new IllegalArgumentException(this.expression);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return this.expression;
+        }
+
+        private final String expression;
+
+        private final MBean owner;
+
+        private final String attribute;
+
+        private final String subItem;
+    }
+
+    /**
+     * The registered attributes of one MBean, and their most recent bulk read.
+     */
+    private final class MBean {
+
+        MBean(ObjectName name) {
+            this.name = name;
+        }
+
+        synchronized void addAttribute(String attribute) {
+            if (!Arrays.asList(this.attributeNames).contains(attribute)) {
+                String[] names = Arrays.copyOf(this.attributeNames, this.attributeNames.length + 1);
+                names[names.length - 1] = attribute;
+                this.attributeNames = names;
+                this.reading = null;
+            }
+        }
+
+        Object read(String attribute) {
+            if (cacheIntervalNanos == 0) {
+                return readSingle(attribute);
+            }
+
+            Reading current = this.reading;
+            long now = System.nanoTime();
+            if (current == null || current.isStale(now)) {
+                current = refresh(now);
+            }
+
+            Object value = current.values.get(attribute);
+            if (value == null && !current.values.containsKey(attribute)) {
+                // not returned by the bulk read; read it alone to surface the cause
+                return readSingle(attribute);
+            }
+            return value;
+        }
+
+        private synchronized Reading refresh(long now) {
+            Reading current = this.reading;
+            if (current != null && !current.isStale(now)) {
+                // another scrape refreshed it in the meantime
+                return current;
+            }
+
+            AttributeList list;
+            try {
+                list = mbs.getAttributes(this.name, this.attributeNames);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+
+            Map<String, Object> values = new HashMap<>();
+            for (Attribute each : list.asList()) {
+                values.put(each.getName(), each.getValue());
+            }
+            current = new Reading(Collections.unmodifiableMap(values), System.nanoTime() + cacheIntervalNanos);
+            this.reading = current;
+            return current;
+        }
+
+        private Object readSingle(String attribute) {
+            try {
+                return mbs.getAttribute(this.name, attribute);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private final ObjectName name;
+
+        private volatile String[] attributeNames = new String[0];
+
+        private volatile Reading reading;
+    }
+
+    private static final class Reading {
+
+        Reading(Map<String, Object> values, long expiresAt) {
+            this.values = values;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isStale(long now) {
+            return now - this.expiresAt >= 0;
+        }
+
+        private final Map<String, Object> values;
+
+        private final long expiresAt;
+    }
+}
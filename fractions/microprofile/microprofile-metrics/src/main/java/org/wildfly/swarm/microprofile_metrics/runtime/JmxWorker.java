@@ -23,7 +23,6 @@ import org.jboss.logging.Logger;
 import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
-import javax.management.openmbean.CompositeData;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -38,7 +37,6 @@ import java.util.Set;
 public class JmxWorker {
 
     private static final String PLACEHOLDER = "%s";
-    private static MBeanServer mbs;
     private static JmxWorker worker;
     private static Logger LOG = Logger.getLogger("org.wildfly.swarm.microprofile_metrics");
 
@@ -48,7 +46,6 @@ public class JmxWorker {
     public static JmxWorker instance() {
         if (worker == null) {
             worker = new JmxWorker();
-            mbs = ManagementFactory.getPlatformMBeanServer();
         }
 
         return worker;
@@ -76,40 +73,10 @@ public class JmxWorker {
      *
      * @param mbeanExpression The expression to look for
      * @return The value of the Mbean attribute
+     * @see JmxCollector
      */
     public Number getValue(String mbeanExpression) {
-
-        if (mbeanExpression == null) {
-            throw new IllegalArgumentException("MBean Expression is null");
-        }
-        if (!mbeanExpression.contains("/")) {
-            throw new IllegalArgumentException(mbeanExpression);
-        }
-
-        int slashIndex = mbeanExpression.indexOf('/');
-        String mbean = mbeanExpression.substring(0, slashIndex);
-        String attName = mbeanExpression.substring(slashIndex + 1);
-        String subItem = null;
-        if (attName.contains("#")) {
-            int hashIndex = attName.indexOf('#');
-            subItem = attName.substring(hashIndex + 1);
-            attName = attName.substring(0, hashIndex);
-        }
-
-        try {
-            ObjectName objectName = new ObjectName(mbean);
-            Object attribute = mbs.getAttribute(objectName, attName);
-            if (attribute instanceof Number) {
-                return (Number) attribute;
-            } else if (attribute instanceof CompositeData) {
-                CompositeData compositeData = (CompositeData) attribute;
-                return (Number) compositeData.get(subItem);
-            } else {
-                throw new IllegalArgumentException(mbeanExpression);
-            }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return JmxCollector.instance().attribute(mbeanExpression).getValue();
     }
 
 
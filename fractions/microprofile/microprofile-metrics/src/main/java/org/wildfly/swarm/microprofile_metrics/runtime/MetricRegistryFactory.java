@@ -29,6 +29,8 @@ public class MetricRegistryFactory {
 
     private static final Map<MetricRegistry.Type, MetricRegistry> registries = new HashMap<>();
 
+    private static volatile ReservoirSelector reservoirSelector = new ReservoirSelector();
+
     private MetricRegistryFactory() { /* Singleton */ }
 
     //  @Produces
@@ -53,12 +55,19 @@ public class MetricRegistryFactory {
         return get(MetricRegistry.Type.VENDOR);
     }
 
+    /**
+     * Set how registries created from now on choose the reservoir of histograms and timers.
+     */
+    public static void setReservoirSelector(ReservoirSelector selector) {
+        reservoirSelector = selector;
+    }
+
     public static MetricRegistry get(MetricRegistry.Type type) {
 
         synchronized (registries) {
             if (registries.get(type) == null) {
 
-                MetricRegistry result = new MetricsRegistryImpl();
+                MetricRegistry result = new MetricsRegistryImpl(reservoirSelector);
                 registries.put(type, result);
             }
         }
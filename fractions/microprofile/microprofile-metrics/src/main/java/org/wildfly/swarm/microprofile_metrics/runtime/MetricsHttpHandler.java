@@ -16,12 +16,15 @@
  */
 package org.wildfly.swarm.microprofile_metrics.runtime;
 
+import io.undertow.connector.ByteBufferPool;
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.io.IoCallback;
+import io.undertow.io.Sender;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.HeaderValues;
 import io.undertow.util.Headers;
 import io.undertow.util.HttpString;
-import org.eclipse.microprofile.metrics.Metric;
 import org.eclipse.microprofile.metrics.MetricRegistry;
 import org.jboss.logging.Logger;
 import org.wildfly.swarm.microprofile_metrics.runtime.exporters.Exporter;
@@ -29,7 +32,14 @@ import org.wildfly.swarm.microprofile_metrics.runtime.exporters.JsonExporter;
 import org.wildfly.swarm.microprofile_metrics.runtime.exporters.JsonMetadataExporter;
 import org.wildfly.swarm.microprofile_metrics.runtime.exporters.PrometheusExporter;
 
-import java.util.Map;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 /**
@@ -39,10 +49,18 @@ import java.util.concurrent.CountDownLatch;
 public class MetricsHttpHandler implements HttpHandler {
 
     private static Logger LOG = Logger.getLogger("org.wildfly.swarm.microprofile.metrics");
+
+    // Exporters are stateless, so one of each serves all requests
+    private static final Exporter PROMETHEUS_EXPORTER = new PrometheusExporter();
+    private static final Exporter JSON_EXPORTER = new JsonExporter();
+    private static final Exporter JSON_METADATA_EXPORTER = new JsonMetadataExporter();
+
     private ThreadLocal<CountDownLatch> dispatched = new ThreadLocal<>();
 
     private HttpHandler next;
 
+    private final MetricsResponseCache responseCache = MetricsResponseCache.fromSystemProperties();
+
     public MetricsHttpHandler(HttpHandler next) {
 
         this.next = next;
@@ -76,12 +94,14 @@ public class MetricsHttpHandler implements HttpHandler {
             scopePath = scopePath.substring(0, scopePath.length() - 1);
         }
 
-        StringBuilder sb;
+        MetricRegistry.Type exportScope;
+        String exportMetric;
 
         if (scopePath.isEmpty()) {
             // All metrics
 
-            sb = exporter.exportAllScopes();
+            exportScope = null;
+            exportMetric = null;
 
         } else if (scopePath.contains("/")) {
             // One metric in a scope
@@ -96,10 +116,10 @@ public class MetricsHttpHandler implements HttpHandler {
             }
 
             MetricRegistry registry = MetricRegistryFactory.get(scope);
-            Map<String, Metric> metricValuesMap = registry.getMetrics();
 
-            if (metricValuesMap.containsKey(attribute)) {
-                sb = exporter.exportOneMetric(scope, attribute);
+            if (registry.getMetrics().containsKey(attribute)) {
+                exportScope = scope;
+                exportMetric = attribute;
             } else {
                 exchange.setStatusCode(404);
                 exchange.setReasonPhrase("Metric " + scopePath + " not found");
@@ -121,16 +141,64 @@ public class MetricsHttpHandler implements HttpHandler {
                 exchange.setReasonPhrase("No data in scope " + scopePath);
             }
 
-            sb = exporter.exportOneScope(scope);
+            exportScope = scope;
+            exportMetric = null;
         }
 
         exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, exporter.getContentType());
         provideCorsHeaders(exchange);
         exchange.getResponseHeaders().put(new HttpString("Access-Control-Max-Age"), "1209600");
-        exchange.getResponseSender().send(sb.toString());
+
+        if (responseCache != null) {
+            String key = exporter.getClass().getName() + ':' + scopePath;
+            exchange.getResponseSender().send(ByteBuffer.wrap(responseCache.get(key, () -> {
+                StringBuilder sb = new StringBuilder();
+                exporter.export(exportScope, exportMetric, sb::append);
+                return sb;
+            })));
+        } else {
+            send(exchange, exporter, exportScope, exportMetric);
+        }
 
     }
 
+    /**
+     * Encode the exporter's chunks straight into pooled buffers as they are rendered. Exporters rendering
+     * in chunks, such as the Prometheus one, thus never hold the whole payload as text. The buffers are
+     * returned to the pool once sent.
+     */
+    private void send(HttpServerExchange exchange, Exporter exporter, MetricRegistry.Type scope, String metricName) {
+        PooledEncoder encoder = new PooledEncoder(exchange.getConnection().getByteBufferPool());
+        ByteBuffer[] buffers;
+        try {
+            exporter.export(scope, metricName, encoder::encode);
+            buffers = encoder.finish();
+        } catch (RuntimeException e) {
+            release(encoder.pooled);
+            throw e;
+        }
+
+        exchange.getResponseSender().send(buffers, new IoCallback() {
+            @Override
+            public void onComplete(HttpServerExchange exchange, Sender sender) {
+                release(encoder.pooled);
+                IoCallback.END_EXCHANGE.onComplete(exchange, sender);
+            }
+
+            @Override
+            public void onException(HttpServerExchange exchange, Sender sender, IOException exception) {
+                release(encoder.pooled);
+                IoCallback.END_EXCHANGE.onException(exchange, sender, exception);
+            }
+        });
+    }
+
+    private static void release(List<PooledByteBuffer> pooled) {
+        for (PooledByteBuffer each : pooled) {
+            each.close();
+        }
+    }
+
     private void provideCorsHeaders(HttpServerExchange exchange) {
         exchange.getResponseHeaders().put(new HttpString("Access-Control-Allow-Origin"), "*");
         exchange.getResponseHeaders().put(new HttpString("Access-Control-Allow-Headers"), "origin, content-type, accept, authorization");
@@ -156,26 +224,82 @@ public class MetricsHttpHandler implements HttpHandler {
         Exporter exporter;
 
         if (acceptHeaders == null) {
-            exporter = new PrometheusExporter();
+            exporter = PROMETHEUS_EXPORTER;
         } else {
             // Header can look like "application/json, text/plain, */*"
             if (acceptHeaders.getFirst() != null && acceptHeaders.getFirst().startsWith("application/json")) {
 
                 String method = exchange.getRequestMethod().toString();
                 if (method.equals("GET")) {
-                    exporter = new JsonExporter();
+                    exporter = JSON_EXPORTER;
                 } else if (method.equals("OPTIONS")) {
-                    exporter = new JsonMetadataExporter();
+                    exporter = JSON_METADATA_EXPORTER;
                 } else {
                     throw new IllegalStateException("Unsupported method");
                 }
             } else {
                 // This is the fallback
-                exporter = new PrometheusExporter();
+                exporter = PROMETHEUS_EXPORTER;
             }
         }
         return exporter;
     }
 
+    /**
+     * Encodes text as UTF-8 into buffers taken from a pool, one after another.
+     */
+    private static final class PooledEncoder {
+
+        PooledEncoder(ByteBufferPool pool) {
+            this.pool = pool;
+        }
 
+        void encode(CharSequence chunk) {
+            CharBuffer in = CharBuffer.wrap(chunk);
+            while (this.encoder.encode(in, current(), false).isOverflow()) {
+                next();
+            }
+        }
+
+        ByteBuffer[] finish() {
+            CharBuffer empty = CharBuffer.allocate(0);
+            while (this.encoder.encode(empty, current(), true).isOverflow()) {
+                next();
+            }
+            while (this.encoder.flush(current()).isOverflow()) {
+                next();
+            }
+
+            ByteBuffer[] buffers = new ByteBuffer[this.pooled.size()];
+            for (int i = 0; i < buffers.length; ++i) {
+                buffers[i] = this.pooled.get(i).getBuffer();
+                buffers[i].flip();
+            }
+            return buffers;
+        }
+
+        private ByteBuffer current() {
+            if (this.out == null) {
+                next();
+            }
+            return this.out;
+        }
+
+        private void next() {
+            PooledByteBuffer each = this.pool.allocate();
+            this.pooled.add(each);
+            this.out = each.getBuffer();
+            this.out.clear();
+        }
+
+        private final ByteBufferPool pool;
+
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        private final List<PooledByteBuffer> pooled = new ArrayList<>();
+
+        private ByteBuffer out;
+    }
 }
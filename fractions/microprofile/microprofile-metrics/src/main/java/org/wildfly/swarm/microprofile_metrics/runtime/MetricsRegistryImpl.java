@@ -27,12 +27,11 @@ import org.eclipse.microprofile.metrics.MetricRegistry;
 import org.eclipse.microprofile.metrics.MetricType;
 import org.eclipse.microprofile.metrics.Timer;
 import org.wildfly.swarm.microprofile_metrics.runtime.app.CounterImpl;
-import org.wildfly.swarm.microprofile_metrics.runtime.app.ExponentiallyDecayingReservoir;
 import org.wildfly.swarm.microprofile_metrics.runtime.app.HistogramImpl;
 import org.wildfly.swarm.microprofile_metrics.runtime.app.MeterImpl;
 import org.wildfly.swarm.microprofile_metrics.runtime.app.TimerImpl;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.SortedMap;
@@ -47,8 +46,17 @@ import javax.enterprise.inject.Vetoed;
 @Vetoed
 public class MetricsRegistryImpl extends MetricRegistry {
 
-    private Map<String, Metadata> metadataMap = new java.util.HashMap<>();
+    private Map<String, Metadata> metadataMap = new ConcurrentHashMap<>();
     private Map<String, Metric> metricMap = new ConcurrentHashMap<>();
+    private final ReservoirSelector reservoirs;
+
+    public MetricsRegistryImpl() {
+        this(new ReservoirSelector());
+    }
+
+    public MetricsRegistryImpl(ReservoirSelector reservoirs) {
+        this.reservoirs = reservoirs;
+    }
 
     @Override
     public <T extends Metric> T register(String name, T metric) throws IllegalArgumentException {
@@ -73,9 +81,10 @@ public class MetricsRegistryImpl extends MetricRegistry {
         }
 
         Metadata m = new Metadata(name, type);
+        // metadata first, so exporters iterating the live metric map always find it
+        metadataMap.put(name, m);
         metricMap.put(name, metric);
 
-        metadataMap.put(name, m);
         return metric;
     }
 
@@ -86,8 +95,8 @@ public class MetricsRegistryImpl extends MetricRegistry {
             throw new IllegalArgumentException("A metric with name " + name + " already exists");
         }
 
-        metricMap.put(name, metric);
         metadataMap.put(name, metadata);
+        metricMap.put(name, metric);
 
         return metric;
     }
@@ -137,10 +146,10 @@ public class MetricsRegistryImpl extends MetricRegistry {
                     m = new MeterImpl();
                     break;
                 case HISTOGRAM:
-                    m = new HistogramImpl(new ExponentiallyDecayingReservoir());
+                    m = new HistogramImpl(reservoirs.newReservoir(metadata));
                     break;
                 case TIMER:
-                    m = new TimerImpl(new ExponentiallyDecayingReservoir());
+                    m = new TimerImpl(reservoirs.newReservoir(metadata));
                     break;
                 case INVALID:
                 default:
@@ -237,10 +246,12 @@ public class MetricsRegistryImpl extends MetricRegistry {
         return getMetrics(MetricType.TIMER, metricFilter);
     }
 
+    /**
+     * Live, read-only view of the metrics; safe to iterate while metrics are (un)registered.
+     */
     @Override
     public Map<String, Metric> getMetrics() {
-
-        return new HashMap<>(metricMap);
+        return Collections.unmodifiableMap(metricMap);
     }
 
     private <T extends Metric> SortedMap<String, T> getMetrics(MetricType type, MetricFilter filter) {
@@ -257,8 +268,11 @@ public class MetricsRegistryImpl extends MetricRegistry {
         return out;
     }
 
+    /**
+     * Live, read-only view of the metadata; safe to iterate while metrics are (un)registered.
+     */
     @Override
     public Map<String, Metadata> getMetadata() {
-        return new HashMap<>(metadataMap);
+        return Collections.unmodifiableMap(metadataMap);
     }
 }
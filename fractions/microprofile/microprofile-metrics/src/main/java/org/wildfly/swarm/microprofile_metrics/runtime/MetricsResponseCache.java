@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics.runtime;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of rendered exposition payloads, shared by concurrent scrapes.
+ *
+ * <p>Several scrapers hitting the same path within the TTL are served the same encoded bytes;
+ * if a payload is being rendered, other requests for it are served the previous payload, or wait
+ * for that rendering if there is none, rather than starting their own. Disabled unless <code>swarm.microprofile.metrics.cache-ttl</code> is set
+ * to a positive number of milliseconds.</p>
+ */
+class MetricsResponseCache {
+
+    static final String TTL_PROPERTY = "swarm.microprofile.metrics.cache-ttl";
+
+    MetricsResponseCache(long ttl, TimeUnit unit) {
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Create a cache as configured by system properties.
+     *
+     * @return The cache, or <code>null</code> if caching is disabled.
+     */
+    static MetricsResponseCache fromSystemProperties() {
+        long ttl = Long.getLong(TTL_PROPERTY, 0);
+        if (ttl <= 0) {
+            return null;
+        }
+        return new MetricsResponseCache(ttl, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Retrieve the UTF-8 encoded payload for a key, rendering it if absent or expired.
+     *
+     * @param key    The cache key, identifying exporter and request path.
+     * @param render Renders the payload.
+     * @return The encoded payload; callers must not modify it.
+     */
+    byte[] get(String key, Supplier<? extends CharSequence> render) {
+        while (true) {
+            long now = System.nanoTime();
+            Rendering current = this.cache.get(key);
+            if (current != null && (!current.isExpired(now) || !current.isDone())) {
+                // fresh, or still rendering
+                byte[] stale = current.stale;
+                return stale != null ? stale : current.await(key, this.cache);
+            }
+
+            Rendering fresh = new Rendering(render, now + this.ttlNanos, current != null ? current.payload() : null);
+            boolean installed = (current == null)
+                    ? this.cache.putIfAbsent(key, fresh) == null
+                    : this.cache.replace(key, current, fresh);
+            if (installed) {
+                fresh.run();
+                return fresh.await(key, this.cache);
+            }
+        }
+    }
+
+    private final long ttlNanos;
+
+    private final ConcurrentMap<String, Rendering> cache = new ConcurrentHashMap<>();
+
+    private static final class Rendering extends FutureTask<byte[]> {
+
+        Rendering(Supplier<? extends CharSequence> render, long expiresAt, byte[] stale) {
+            super(() -> render.get().toString().getBytes(StandardCharsets.UTF_8));
+            this.expiresAt = expiresAt;
+            this.stale = stale;
+        }
+
+        @Override
+        protected void done() {
+            this.stale = null;
+        }
+
+        /**
+         * @return The rendered payload, or <code>null</code> if rendering is in progress or failed.
+         */
+        byte[] payload() {
+            if (!isDone() || isCancelled()) {
+                return null;
+            }
+            try {
+                return get();
+            } catch (InterruptedException | ExecutionException e) {
+                return null;
+            }
+        }
+
+        boolean isExpired(long now) {
+            return now - this.expiresAt >= 0;
+        }
+
+        byte[] await(String key, ConcurrentMap<String, Rendering> cache) {
+            try {
+                return get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                // don't keep serving a failure; the next request renders again
+                cache.remove(key, this);
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+
+        private final long expiresAt;
+
+        // served while this rendering is in progress
+        volatile byte[] stale;
+    }
+}
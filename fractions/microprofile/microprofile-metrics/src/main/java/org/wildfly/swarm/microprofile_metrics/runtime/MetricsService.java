@@ -92,10 +92,10 @@ public class MetricsService implements Service<MetricsService> {
         Metric out;
         switch (em.getTypeRaw()) {
             case GAUGE:
-                out = new MGaugeImpl(em.getMbean());
+                out = new MGaugeImpl(JmxCollector.instance().attribute(em.getMbean()));
                 break;
             case COUNTER:
-                out = new MCounterImpl(em.getMbean());
+                out = new MCounterImpl(JmxCollector.instance().attribute(em.getMbean()));
                 break;
             default:
                 throw new IllegalStateException("Not yet supported: " + em);
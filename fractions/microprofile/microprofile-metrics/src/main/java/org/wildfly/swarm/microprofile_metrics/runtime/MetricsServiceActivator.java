@@ -31,6 +31,7 @@ import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceRegistryException;
 import org.jboss.msc.service.ServiceTarget;
 import org.wildfly.swarm.microprofile_metrics.MicroprofileMetricsFraction;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.ReservoirType;
 import org.wildfly.swarm.mp_metrics.cdi.RegistryFactory;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -52,6 +53,13 @@ public class MetricsServiceActivator implements ServiceActivator {
     @Override
     public void activate(ServiceActivatorContext serviceActivatorContext) throws ServiceRegistryException {
 
+        if (!fractionInstance.isUnsatisfied()) {
+            MicroprofileMetricsFraction fraction = fractionInstance.get();
+            MetricRegistryFactory.setReservoirSelector(new ReservoirSelector(ReservoirType.forName(fraction.reservoir()),
+                                                                             fraction.reservoirWindow(),
+                                                                             fraction.reservoirs()));
+        }
+
         ServiceTarget target = serviceActivatorContext.getServiceTarget();
 
         MetricsService service = new MetricsService();
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics.runtime;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.metrics.Metadata;
+import org.wildfly.swarm.microprofile_metrics.MicroprofileMetricsFraction;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.ExponentiallyDecayingReservoir;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.HdrReservoir;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.Reservoir;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.ReservoirType;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.SlidingTimeWindowReservoir;
+
+/**
+ * Chooses the {@link Reservoir} of each histogram and timer.
+ *
+ * <p>A reservoir named by the metric's {@link ExtendedMetadata} wins, then one configured for the metric's name,
+ * then the default.</p>
+ */
+public class ReservoirSelector {
+
+    public ReservoirSelector() {
+        this(ReservoirType.EXPONENTIALLY_DECAYING, MicroprofileMetricsFraction.DEFAULT_RESERVOIR_WINDOW, Collections.emptyMap());
+    }
+
+    /**
+     * @param defaultType   the reservoir of metrics not configured otherwise
+     * @param windowSeconds the window of {@link ReservoirType#SLIDING_TIME_WINDOW} reservoirs, in seconds
+     * @param perMetric     reservoir names, such as {@code hdr}, keyed by metric name
+     * @throws IllegalArgumentException if a reservoir name is not valid
+     */
+    public ReservoirSelector(ReservoirType defaultType, long windowSeconds, Map<String, String> perMetric) {
+        this.defaultType = defaultType;
+        this.windowSeconds = windowSeconds;
+        for (Map.Entry<String, String> each : perMetric.entrySet()) {
+            this.perMetric.put(each.getKey(), ReservoirType.forName(each.getValue()));
+        }
+    }
+
+    public ReservoirType typeFor(Metadata metadata) {
+        if (metadata instanceof ExtendedMetadata && ((ExtendedMetadata) metadata).getReservoir() != null) {
+            return ReservoirType.forName(((ExtendedMetadata) metadata).getReservoir());
+        }
+        return this.perMetric.getOrDefault(metadata.getName(), this.defaultType);
+    }
+
+    public Reservoir newReservoir(Metadata metadata) {
+        switch (typeFor(metadata)) {
+            case HDR:
+                return new HdrReservoir();
+            case SLIDING_TIME_WINDOW:
+                return new SlidingTimeWindowReservoir(this.windowSeconds, TimeUnit.SECONDS);
+            case EXPONENTIALLY_DECAYING:
+            default:
+                return new ExponentiallyDecayingReservoir();
+        }
+    }
+
+    private final ReservoirType defaultType;
+
+    private final long windowSeconds;
+
+    private final Map<String, ReservoirType> perMetric = new HashMap<>();
+}
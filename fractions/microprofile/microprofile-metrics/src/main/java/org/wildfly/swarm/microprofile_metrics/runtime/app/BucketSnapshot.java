@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics.runtime.app;
+
+import org.eclipse.microprofile.metrics.Snapshot;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A statistical snapshot of a {@link HdrReservoir}: distinct bucket values, each with the
+ * number of recorded values it represents.
+ */
+public class BucketSnapshot extends Snapshot {
+
+    private final long[] values;
+    private final long[] counts;
+    private final long count;
+    private final double mean;
+    private final long min;
+    private final long max;
+
+    /**
+     * Create a new {@link Snapshot}.
+     *
+     * @param values the bucket values, in ascending order
+     * @param counts the number of recorded values in each bucket
+     * @param count  the total number of recorded values
+     * @param mean   the exact mean of the recorded values
+     * @param min    the exact minimum of the recorded values
+     * @param max    the exact maximum of the recorded values
+     */
+    public BucketSnapshot(long[] values, long[] counts, long count, double mean, long min, long max) {
+        this.values = values;
+        this.counts = counts;
+        this.count = count;
+        this.mean = mean;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Returns the value at the given quantile.
+     *
+     * @param quantile a given quantile, in {@code [0..1]}
+     * @return the value in the distribution at {@code quantile}
+     */
+    @Override
+    public double getValue(double quantile) {
+        if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+            throw new IllegalArgumentException(quantile + " is not in [0..1]");
+        }
+
+        if (count == 0) {
+            return 0.0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < values.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return the number of values
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, count);
+    }
+
+    /**
+     * Returns the distinct bucket values holding at least one recorded value.
+     *
+     * @return the bucket values
+     */
+    @Override
+    public long[] getValues() {
+        return Arrays.copyOf(values, values.length);
+    }
+
+    @Override
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public long getMin() {
+        return min;
+    }
+
+    @Override
+    public double getMean() {
+        return mean;
+    }
+
+    @Override
+    public double getStdDev() {
+        if (count <= 1) {
+            return 0;
+        }
+
+        double variance = 0;
+        for (int i = 0; i < values.length; i++) {
+            final double diff = values[i] - mean;
+            variance += counts[i] * diff * diff;
+        }
+
+        return Math.sqrt(variance / count);
+    }
+
+    /**
+     * Writes the bucket values of the snapshot to the given stream, each followed by its count.
+     *
+     * @param output an output stream
+     */
+    @Override
+    public void dump(OutputStream output) {
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, UTF_8))) {
+            for (int i = 0; i < values.length; i++) {
+                out.printf("%d %d%n", values[i], counts[i]);
+            }
+        }
+    }
+}
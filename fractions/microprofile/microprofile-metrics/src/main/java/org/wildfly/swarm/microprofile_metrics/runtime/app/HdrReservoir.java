@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics.runtime.app;
+
+import org.eclipse.microprofile.metrics.Snapshot;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free reservoir recording every value into log-linear buckets, in the manner of an
+ * HDR histogram.
+ *
+ * <p>Each power of two is divided into 32 linear sub-buckets, so any recorded value is
+ * reproduced within about 3% of its magnitude, while minimum, maximum and mean are exact.
+ * Updates increment one bucket of a single shared array, of about 15 KB, and never allocate;
+ * the count and sum every update touches are striped cells, so concurrent updates only contend
+ * when recording similar values. Unlike {@link ExponentiallyDecayingReservoir} the distribution
+ * covers every value recorded since creation, rather than being biased towards recent ones.
+ * Negative values are recorded as {@code 0}.</p>
+ */
+public class HdrReservoir implements Reservoir {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // values below this are recorded exactly, one bucket each
+    private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;
+
+    static final int BUCKET_COUNT = LINEAR_LIMIT + (62 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, this.count.sum());
+    }
+
+    @Override
+    public void update(long value) {
+        long v = Math.max(0, value);
+        this.buckets.incrementAndGet(bucketIndex(v));
+        this.count.increment();
+        this.sum.add(v);
+
+        long current;
+        while (v < (current = this.min.get()) && !this.min.compareAndSet(current, v)) {
+            // retry
+        }
+        while (v > (current = this.max.get()) && !this.max.compareAndSet(current, v)) {
+            // retry
+        }
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        int used = 0;
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            counts[i] = this.buckets.get(i);
+            if (counts[i] > 0) {
+                ++used;
+            }
+        }
+        long count = this.count.sum();
+        long sum = this.sum.sum();
+        long min = this.min.get();
+        long max = this.max.get();
+
+        long[] values = new long[used];
+        long[] valueCounts = new long[used];
+        int cur = 0;
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            if (counts[i] > 0) {
+                values[cur] = Math.max(min, Math.min(max, bucketValue(i)));
+                valueCounts[cur] = counts[i];
+                ++cur;
+            }
+        }
+
+        if (count == 0) {
+            return new BucketSnapshot(values, valueCounts, 0, 0, 0, 0);
+        }
+        return new BucketSnapshot(values, valueCounts, count, (double) sum / count, min, max);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * The value representing a bucket: the midpoint of the values it holds.
+     */
+    static long bucketValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKET_COUNT + 1;
+        long lower = (long) ((index - LINEAR_LIMIT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+        return lower + ((1L << shift) >>> 1);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics.runtime.app;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link Reservoir} implementations histograms and timers may be configured with.
+ */
+public enum ReservoirType {
+
+    /**
+     * {@link ExponentiallyDecayingReservoir}, the default.
+     */
+    EXPONENTIALLY_DECAYING,
+
+    /**
+     * {@link HdrReservoir}.
+     */
+    HDR,
+
+    /**
+     * {@link SlidingTimeWindowReservoir}.
+     */
+    SLIDING_TIME_WINDOW;
+
+    /**
+     * Look up a type by name, such as {@code sliding-time-window}, ignoring case.
+     *
+     * @param name the name of the type
+     * @return the type
+     * @throws IllegalArgumentException if no type has that name
+     */
+    public static ReservoirType forName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid reservoir '" + name + "'; should be one of: "
+                                                       + Arrays.stream(values()).map(ReservoirType::toString).collect(Collectors.joining(",")));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase().replace('_', '-');
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics.runtime.app;
+
+import org.eclipse.microprofile.metrics.Snapshot;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free reservoir of the most recent values recorded within a sliding time window.
+ *
+ * <p>Values and their timestamps are written to a fixed-size ring buffer of primitive slots,
+ * claimed by a single atomic increment, so updates never block and never allocate. Snapshots
+ * contain the values whose timestamps fall within the window; when more values are recorded
+ * within one window than the buffer holds, only the most recent are retained.</p>
+ */
+public class SlidingTimeWindowReservoir implements Reservoir {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final AtomicLongArray values;
+    private final AtomicLongArray ticks;
+    private final AtomicLong cursor;
+    private final int mask;
+    private final long window;
+    private final Clock clock;
+
+    /**
+     * Creates a new {@link SlidingTimeWindowReservoir} holding up to 1024 values.
+     *
+     * @param window     the window's size
+     * @param windowUnit the unit of {@code window}
+     */
+    public SlidingTimeWindowReservoir(long window, TimeUnit windowUnit) {
+        this(window, windowUnit, DEFAULT_CAPACITY, Clock.defaultClock());
+    }
+
+    /**
+     * Creates a new {@link SlidingTimeWindowReservoir}.
+     *
+     * @param window     the window's size
+     * @param windowUnit the unit of {@code window}
+     * @param capacity   the maximum number of values retained, rounded up to a power of two
+     * @param clock      the clock used to timestamp values
+     */
+    public SlidingTimeWindowReservoir(long window, TimeUnit windowUnit, int capacity, Clock clock) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1) << 1);
+        this.values = new AtomicLongArray(size);
+        this.ticks = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            // claimed but not yet written slots must never appear to be in the window
+            this.ticks.set(i, Long.MIN_VALUE);
+        }
+        this.cursor = new AtomicLong();
+        this.mask = size - 1;
+        this.window = windowUnit.toNanos(window);
+        this.clock = clock;
+    }
+
+    @Override
+    public int size() {
+        final long now = clock.getTick();
+        final int used = (int) Math.min(cursor.get(), values.length());
+
+        int count = 0;
+        for (int slot = 0; slot < used; slot++) {
+            if (inWindow(now, ticks.get(slot))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void update(long value) {
+        final int slot = (int) (cursor.getAndIncrement() & mask);
+        // the value is published before its timestamp, which readers check on both sides
+        values.lazySet(slot, value);
+        ticks.lazySet(slot, clock.getTick());
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        return new UniformSnapshot(collect());
+    }
+
+    private long[] collect() {
+        final long now = clock.getTick();
+        final int used = (int) Math.min(cursor.get(), values.length());
+
+        long[] result = new long[used];
+        int count = 0;
+        for (int slot = 0; slot < used; slot++) {
+            final long tick = ticks.get(slot);
+            final long value = values.get(slot);
+            if (tick == ticks.get(slot) && inWindow(now, tick)) {
+                result[count++] = value;
+            }
+        }
+        return count == used ? result : Arrays.copyOf(result, count);
+    }
+
+    private boolean inWindow(long now, long tick) {
+        final long age = now - tick;
+        return age >= 0 && age <= window;
+    }
+}
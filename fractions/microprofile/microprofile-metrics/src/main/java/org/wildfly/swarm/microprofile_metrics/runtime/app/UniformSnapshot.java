@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics.runtime.app;
+
+import org.eclipse.microprofile.metrics.Snapshot;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A statistical snapshot of equally-weighted values.
+ */
+public class UniformSnapshot extends Snapshot {
+
+    private final long[] values;
+
+    /**
+     * Create a new {@link Snapshot} with the given values.
+     *
+     * @param values an unordered set of values, which is sorted in place and retained
+     */
+    public UniformSnapshot(long[] values) {
+        this.values = values;
+        Arrays.sort(this.values);
+    }
+
+    /**
+     * Returns the value at the given quantile.
+     *
+     * @param quantile a given quantile, in {@code [0..1]}
+     * @return the value in the distribution at {@code quantile}
+     */
+    @Override
+    public double getValue(double quantile) {
+        if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+            throw new IllegalArgumentException(quantile + " is not in [0..1]");
+        }
+
+        if (values.length == 0) {
+            return 0.0;
+        }
+
+        final double pos = quantile * (values.length + 1);
+        final int index = (int) pos;
+
+        if (index < 1) {
+            return values[0];
+        }
+
+        if (index >= values.length) {
+            return values[values.length - 1];
+        }
+
+        final double lower = values[index - 1];
+        final double upper = values[index];
+        return lower + (pos - Math.floor(pos)) * (upper - lower);
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public long[] getValues() {
+        return Arrays.copyOf(values, values.length);
+    }
+
+    @Override
+    public long getMax() {
+        if (values.length == 0) {
+            return 0;
+        }
+        return values[values.length - 1];
+    }
+
+    @Override
+    public long getMin() {
+        if (values.length == 0) {
+            return 0;
+        }
+        return values[0];
+    }
+
+    @Override
+    public double getMean() {
+        if (values.length == 0) {
+            return 0;
+        }
+
+        double sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    @Override
+    public double getStdDev() {
+        // two-pass algorithm for variance, avoids numeric overflow
+
+        if (values.length <= 1) {
+            return 0;
+        }
+
+        final double mean = getMean();
+        double variance = 0;
+
+        for (long value : values) {
+            final double diff = value - mean;
+            variance += diff * diff;
+        }
+
+        return Math.sqrt(variance / (values.length - 1));
+    }
+
+    @Override
+    public void dump(OutputStream output) {
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, UTF_8))) {
+            for (long value : values) {
+                out.printf("%d%n", value);
+            }
+        }
+    }
+}
@@ -16,6 +16,8 @@
  */
 package org.wildfly.swarm.microprofile_metrics.runtime.exporters;
 
+import java.util.function.Consumer;
+
 import org.eclipse.microprofile.metrics.MetricRegistry;
 
 /**
@@ -30,4 +32,23 @@ public interface Exporter {
     String getContentType();
 
     StringBuilder exportOneMetric(MetricRegistry.Type scope, String metricName);
+
+    /**
+     * Export all scopes, one scope or one metric, handing the text to a sink in one or more chunks.
+     *
+     * <p>A chunk is only valid until the sink returns, and never splits a line.</p>
+     *
+     * @param scope      the scope, or <code>null</code> for all scopes
+     * @param metricName the metric, or <code>null</code> for the whole scope
+     * @param sink       receives the chunks, in order
+     */
+    default void export(MetricRegistry.Type scope, String metricName, Consumer<CharSequence> sink) {
+        if (scope == null) {
+            sink.accept(exportAllScopes());
+        } else if (metricName == null) {
+            sink.accept(exportOneScope(scope));
+        } else {
+            sink.accept(exportOneMetric(scope, metricName));
+        }
+    }
 }
@@ -32,7 +32,7 @@ class Helper {
         int totalNonEmptyScopes = 0;
         for (MetricRegistry.Type scope : values) {
             MetricRegistry registry = MetricRegistryFactory.get(scope);
-            if (registry.getNames().size() > 0) {
+            if (!registry.getMetadata().isEmpty()) {
                 totalNonEmptyScopes++;
             }
         }
@@ -28,7 +28,7 @@ import org.wildfly.swarm.microprofile_metrics.runtime.app.HistogramImpl;
 import org.wildfly.swarm.microprofile_metrics.runtime.app.MeterImpl;
 import org.wildfly.swarm.microprofile_metrics.runtime.app.TimerImpl;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -183,7 +183,7 @@ public class JsonExporter implements Exporter {
             MetricRegistry.Type scope = values[i];
             MetricRegistry registry = MetricRegistryFactory.get(scope);
 
-            if (registry.getNames().size() > 0) {
+            if (!registry.getMetadata().isEmpty()) {
                 sb.append('"').append(scope.getName().toLowerCase()).append('"').append(" :\n");
                 getMetricsForAScope(sb, scope);
                 sb.append(JsonExporter.LF);
@@ -201,18 +201,11 @@ public class JsonExporter implements Exporter {
     @Override
     public StringBuilder exportOneMetric(MetricRegistry.Type scope, String metricName) {
         MetricRegistry registry = MetricRegistryFactory.get(scope);
-        Map<String, Metric> metricMap = registry.getMetrics();
-        Map<String, Metadata> metadataMap = registry.getMetadata();
-
-
-        Metric m = metricMap.get(metricName);
-
-        Map<String, Metric> outMap = new HashMap<>(1);
-        outMap.put(metricName, m);
+        Metric m = registry.getMetrics().get(metricName);
 
         StringBuilder sb = new StringBuilder();
         sb.append("{");
-        writeMetricsForMap(sb, outMap, metadataMap);
+        writeMetricsForMap(sb, Collections.singletonMap(metricName, m), registry.getMetadata());
         sb.append("}");
         sb.append(JsonExporter.LF);
 
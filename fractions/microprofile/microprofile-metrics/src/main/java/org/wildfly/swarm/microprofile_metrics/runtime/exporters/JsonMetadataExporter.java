@@ -20,7 +20,7 @@ import org.eclipse.microprofile.metrics.Metadata;
 import org.eclipse.microprofile.metrics.MetricRegistry;
 import org.wildfly.swarm.microprofile_metrics.runtime.MetricRegistryFactory;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -102,7 +102,7 @@ public class JsonMetadataExporter implements Exporter {
             MetricRegistry.Type scope = values[i];
             MetricRegistry registry = MetricRegistryFactory.get(scope);
 
-            if (registry.getNames().size() > 0) {
+            if (!registry.getMetadata().isEmpty()) {
                 sb.append('"').append(scope.getName().toLowerCase()).append('"').append(" :\n");
                 getDataForOneScope(scope, sb);
                 sb.append(LF);
@@ -121,16 +121,11 @@ public class JsonMetadataExporter implements Exporter {
     @Override
     public StringBuilder exportOneMetric(MetricRegistry.Type scope, String metricName) {
         MetricRegistry registry = MetricRegistryFactory.get(scope);
-        Map<String, Metadata> metadataMap = registry.getMetadata();
-
-        Metadata m = metadataMap.get(metricName);
-
-        Map<String, Metadata> outMap = new HashMap<>(1);
-        outMap.put(metricName, m);
+        Metadata m = registry.getMetadata().get(metricName);
 
         StringBuilder sb = new StringBuilder();
         sb.append("{");
-        writeMetadataForMap(sb, outMap);
+        writeMetadataForMap(sb, Collections.singletonMap(metricName, m));
         sb.append("}");
         sb.append(LF);
 
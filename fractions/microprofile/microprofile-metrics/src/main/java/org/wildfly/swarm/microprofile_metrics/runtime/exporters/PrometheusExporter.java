@@ -26,18 +26,25 @@ import org.eclipse.microprofile.metrics.MetricType;
 import org.eclipse.microprofile.metrics.MetricUnits;
 import org.eclipse.microprofile.metrics.Snapshot;
 import org.wildfly.swarm.microprofile_metrics.runtime.MetricRegistryFactory;
-import org.wildfly.swarm.microprofile_metrics.runtime.Tag;
 import org.wildfly.swarm.microprofile_metrics.runtime.app.HistogramImpl;
 import org.wildfly.swarm.microprofile_metrics.runtime.app.MeterImpl;
 import org.wildfly.swarm.microprofile_metrics.runtime.app.TimerImpl;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 /**
  * Export data in Prometheus text format
  *
+ * <p>The exporter is stateless and may be shared. Prometheus names are derived once per metric
+ * name and cached; the scope prefix and tag block of a metric are built once per scrape and reused
+ * for all of its lines. {@link #export(MetricRegistry.Type, String, Consumer)} hands the text over in chunks of
+ * about {@value #CHUNK_SIZE} characters, so a scrape never holds the whole exposition as text.</p>
+ *
  * @author Heiko W. Rupp
  */
 public class PrometheusExporter implements Exporter {
@@ -48,12 +55,27 @@ public class PrometheusExporter implements Exporter {
     private static final String SUMMARY = "summary";
     private static final String USCORE = "_";
     private static final String COUNTER = "counter";
-    private static final String QUANTILE = "quantile";
+
+    private static final String QUANTILE_50 = "quantile=\"0.5\"";
+    private static final String QUANTILE_75 = "quantile=\"0.75\"";
+    private static final String QUANTILE_95 = "quantile=\"0.95\"";
+    private static final String QUANTILE_98 = "quantile=\"0.98\"";
+    private static final String QUANTILE_99 = "quantile=\"0.99\"";
+    private static final String QUANTILE_999 = "quantile=\"0.999\"";
+
+    private static final Pattern CAMEL_CASE = Pattern.compile("(.)(\\p{Upper})");
+
+    // Guards against unbounded growth with dynamically named metrics
+    private static final int MAX_CACHED_NAMES = 10_000;
+
+    private static final Map<String, String> PROMETHEUS_NAMES = new ConcurrentHashMap<>();
+
+    static final int CHUNK_SIZE = 8192;
 
     public StringBuilder exportOneScope(MetricRegistry.Type scope) {
 
         StringBuilder sb = new StringBuilder();
-        getEntriesForScope(scope, sb);
+        getEntriesForScope(scope, sb, null);
 
         return sb;
     }
@@ -63,7 +85,7 @@ public class PrometheusExporter implements Exporter {
         StringBuilder sb = new StringBuilder();
 
         for (MetricRegistry.Type scope : MetricRegistry.Type.values()) {
-            getEntriesForScope(scope, sb);
+            getEntriesForScope(scope, sb, null);
         }
 
         return sb;
@@ -71,17 +93,28 @@ public class PrometheusExporter implements Exporter {
 
     @Override
     public StringBuilder exportOneMetric(MetricRegistry.Type scope, String metricName) {
-        MetricRegistry registry = MetricRegistryFactory.get(scope);
-        Map<String, Metric> metricMap = registry.getMetrics();
+        StringBuilder sb = new StringBuilder();
+        getEntriesForMetric(scope, metricName, sb);
+        return sb;
+    }
 
-        Metric m = metricMap.get(metricName);
+    @Override
+    public void export(MetricRegistry.Type scope, String metricName, Consumer<CharSequence> sink) {
+        StringBuilder sb = new StringBuilder(CHUNK_SIZE * 2);
 
-        Map<String, Metric> outMap = new HashMap<>(1);
-        outMap.put(metricName, m);
+        if (scope == null) {
+            for (MetricRegistry.Type each : MetricRegistry.Type.values()) {
+                getEntriesForScope(each, sb, sink);
+            }
+        } else if (metricName == null) {
+            getEntriesForScope(scope, sb, sink);
+        } else {
+            getEntriesForMetric(scope, metricName, sb);
+        }
 
-        StringBuilder sb = new StringBuilder();
-        exposeEntries(scope, sb, registry, outMap);
-        return sb;
+        if (sb.length() > 0) {
+            sink.accept(sb);
+        }
     }
 
 
@@ -90,70 +123,92 @@ public class PrometheusExporter implements Exporter {
         return "text/plain";
     }
 
-    private void getEntriesForScope(MetricRegistry.Type scope, StringBuilder sb) {
+    private void getEntriesForScope(MetricRegistry.Type scope, StringBuilder sb, Consumer<CharSequence> sink) {
+        MetricRegistry registry = MetricRegistryFactory.get(scope);
+
+        exposeEntries(scope, sb, sink, registry, registry.getMetrics());
+    }
+
+    private void getEntriesForMetric(MetricRegistry.Type scope, String metricName, StringBuilder sb) {
         MetricRegistry registry = MetricRegistryFactory.get(scope);
-        Map<String, Metric> metricMap = registry.getMetrics();
+        Metric m = registry.getMetrics().get(metricName);
 
-        exposeEntries(scope, sb, registry, metricMap);
+        exposeEntries(scope, sb, null, registry, Collections.singletonMap(metricName, m));
     }
 
-    private void exposeEntries(MetricRegistry.Type scope, StringBuilder sb, MetricRegistry registry, Map<String, Metric> metricMap) {
+    /**
+     * @param sink if not <code>null</code>, receives the text rendered so far whenever it reaches {@link #CHUNK_SIZE}
+     */
+    private void exposeEntries(MetricRegistry.Type scope, StringBuilder sb, Consumer<CharSequence> sink,
+                               MetricRegistry registry, Map<String, Metric> metricMap) {
+        Map<String, Metadata> metadataMap = registry.getMetadata();
+        String scopePrefix = scope.getName().toLowerCase() + ':';
+
         for (Map.Entry<String, Metric> entry : metricMap.entrySet()) {
             String key = entry.getKey();
-            Metadata md = registry.getMetadata().get(key);
-
+            Metadata md = metadataMap.get(key);
+            if (md == null) {
+                // unregistered while we were iterating
+                continue;
+            }
 
             Metric metric = entry.getValue();
+            String tags = getTagsAsString(md.getTags());
 
             switch (md.getTypeRaw()) {
                 case GAUGE:
                 case COUNTER:
-                    key = getPrometheusMetricName(md, key);
-                    String suffix = null;
+                    String name = scopePrefix + getPrometheusMetricName(key);
                     if (!md.getUnit().equals(MetricUnits.NONE)) {
-                        suffix = "_" + PrometheusUnit.getBaseUnitAsPrometheusString(md.getUnit());
+                        name = name + USCORE + PrometheusUnit.getBaseUnitAsPrometheusString(md.getUnit());
                     }
-                    writeTypeLine(sb, scope, key, md, suffix, null);
-                    createSimpleValueLine(sb, scope, key, md, metric);
+                    writeTypeLine(sb, name, null, md.getType());
+                    createSimpleValueLine(sb, name, tags, key, md, metric);
                     break;
                 case METERED:
                     MeterImpl meter = (MeterImpl) metric;
-                    writeMeterValues(sb, scope, meter, md);
+                    writeMeterValues(sb, baseName(scopePrefix, md), tags, meter);
                     break;
                 case TIMER:
                     TimerImpl timer = (TimerImpl) metric;
-                    writeTimerValues(sb, scope, timer, md);
+                    writeTimerValues(sb, baseName(scopePrefix, md), tags, timer, md);
                     break;
                 case HISTOGRAM:
                     HistogramImpl histogram = (HistogramImpl) metric;
-                    writeHistogramValues(sb, scope, histogram, md);
+                    writeHistogramValues(sb, baseName(scopePrefix, md), tags, histogram, md);
                     break;
                 default:
                     throw new IllegalArgumentException("Not supported: " + key);
 
             }
+
+            if (sink != null && sb.length() >= CHUNK_SIZE) {
+                sink.accept(sb);
+                sb.setLength(0);
+            }
         }
     }
 
-    private void writeTimerValues(StringBuilder sb, MetricRegistry.Type scope, TimerImpl timer, Metadata md) {
+    private void writeTimerValues(StringBuilder sb, String base, String tags, TimerImpl timer, Metadata md) {
 
         String unit = md.getUnit();
         unit = PrometheusUnit.getBaseUnitAsPrometheusString(unit);
 
         String theUnit = unit.equals("none") ? "" : USCORE + unit;
 
-        writeMeterRateValues(sb, scope, timer.getMeter(), md);
+        writeMeterRateValues(sb, base, tags, timer.getMeter());
+        // timers record nanoseconds, whatever unit their metadata declares
         Snapshot snapshot = timer.getSnapshot();
-        writeSnapshotBasics(sb, scope, md, snapshot, theUnit);
+        writeSnapshotBasics(sb, base, tags, MetricUnits.NANOSECONDS, snapshot, theUnit);
 
-        String suffix = USCORE + PrometheusUnit.getBaseUnitAsPrometheusString(md.getUnit());
-        writeTypeLine(sb,scope,md.getName(),md, suffix,SUMMARY);
-        writeValueLine(sb,scope,suffix + "_count",timer.getCount(),md);
+        String suffix = USCORE + unit;
+        writeTypeLine(sb, base, suffix, SUMMARY);
+        writeValueLine(sb, base, suffix + "_count", timer.getCount(), tags);
 
-        writeSnapshotQuantiles(sb, scope, md, snapshot, theUnit);
+        writeSnapshotQuantiles(sb, base, tags, MetricUnits.NANOSECONDS, snapshot, theUnit);
     }
 
-    private void writeHistogramValues(StringBuilder sb, MetricRegistry.Type scope, HistogramImpl histogram, Metadata md) {
+    private void writeHistogramValues(StringBuilder sb, String base, String tags, HistogramImpl histogram, Metadata md) {
 
         Snapshot snapshot = histogram.getSnapshot();
         String unit = md.getUnit();
@@ -161,77 +216,85 @@ public class PrometheusExporter implements Exporter {
 
         String theUnit = unit.equals("none") ? "" : USCORE + unit;
 
-        writeSnapshotBasics(sb, scope, md, snapshot, theUnit);
-        writeTypeLine(sb,scope,md.getName(),md, theUnit,SUMMARY);
-        writeValueLine(sb,scope,theUnit + "_count",histogram.getCount(),md);
-        writeSnapshotQuantiles(sb, scope, md, snapshot, theUnit);
+        writeSnapshotBasics(sb, base, tags, md.getUnit(), snapshot, theUnit);
+        writeTypeLine(sb, base, theUnit, SUMMARY);
+        writeValueLine(sb, base, theUnit + "_count", histogram.getCount(), tags);
+        writeSnapshotQuantiles(sb, base, tags, md.getUnit(), snapshot, theUnit);
     }
 
 
-    private void writeSnapshotBasics(StringBuilder sb, MetricRegistry.Type scope, Metadata md, Snapshot snapshot, String unit) {
+    /**
+     * @param valueUnit the unit the snapshot values are recorded in; they are scaled from it to the base unit
+     */
+    private void writeSnapshotBasics(StringBuilder sb, String base, String tags, String valueUnit, Snapshot snapshot, String unit) {
 
-        writeTypeAndValue(sb, scope, "_min" + unit, snapshot.getMin(), GAUGE, md);
-        writeTypeAndValue(sb, scope, "_max" + unit, snapshot.getMax(), GAUGE, md);
-        writeTypeAndValue(sb, scope, "_mean" + unit, snapshot.getMean(), GAUGE, md);
-        writeTypeAndValue(sb, scope, "_stddev" + unit, snapshot.getStdDev(), GAUGE, md);
+        writeTypeAndValue(sb, base, tags, "_min" + unit, PrometheusUnit.scaleToBase(valueUnit, (double) snapshot.getMin()), GAUGE);
+        writeTypeAndValue(sb, base, tags, "_max" + unit, PrometheusUnit.scaleToBase(valueUnit, (double) snapshot.getMax()), GAUGE);
+        writeTypeAndValue(sb, base, tags, "_mean" + unit, PrometheusUnit.scaleToBase(valueUnit, snapshot.getMean()), GAUGE);
+        writeTypeAndValue(sb, base, tags, "_stddev" + unit, PrometheusUnit.scaleToBase(valueUnit, snapshot.getStdDev()), GAUGE);
     }
 
-    private void writeSnapshotQuantiles(StringBuilder sb, MetricRegistry.Type scope, Metadata md, Snapshot snapshot, String unit) {
-        writeValueLine(sb, scope, unit, snapshot.getMedian(), md, new Tag(QUANTILE, "0.5"));
-        writeValueLine(sb, scope, unit, snapshot.get75thPercentile(), md, new Tag(QUANTILE, "0.75"));
-        writeValueLine(sb, scope, unit, snapshot.get95thPercentile(), md, new Tag(QUANTILE, "0.95"));
-        writeValueLine(sb, scope, unit, snapshot.get98thPercentile(), md, new Tag(QUANTILE, "0.98"));
-        writeValueLine(sb, scope, unit, snapshot.get99thPercentile(), md, new Tag(QUANTILE, "0.99"));
-        writeValueLine(sb, scope, unit, snapshot.get999thPercentile(), md, new Tag(QUANTILE, "0.999"));
+    private void writeSnapshotQuantiles(StringBuilder sb, String base, String tags, String valueUnit, Snapshot snapshot, String unit) {
+        writeValueLine(sb, base, unit, PrometheusUnit.scaleToBase(valueUnit, snapshot.getMedian()), tags, QUANTILE_50);
+        writeValueLine(sb, base, unit, PrometheusUnit.scaleToBase(valueUnit, snapshot.get75thPercentile()), tags, QUANTILE_75);
+        writeValueLine(sb, base, unit, PrometheusUnit.scaleToBase(valueUnit, snapshot.get95thPercentile()), tags, QUANTILE_95);
+        writeValueLine(sb, base, unit, PrometheusUnit.scaleToBase(valueUnit, snapshot.get98thPercentile()), tags, QUANTILE_98);
+        writeValueLine(sb, base, unit, PrometheusUnit.scaleToBase(valueUnit, snapshot.get99thPercentile()), tags, QUANTILE_99);
+        writeValueLine(sb, base, unit, PrometheusUnit.scaleToBase(valueUnit, snapshot.get999thPercentile()), tags, QUANTILE_999);
     }
 
-    private void writeMeterValues(StringBuilder sb, MetricRegistry.Type scope, Metered metric, Metadata md) {
-        writeTypeAndValue(sb, scope, "_total", metric.getCount(), COUNTER, md);
-        writeMeterRateValues(sb, scope, metric, md);
+    private void writeMeterValues(StringBuilder sb, String base, String tags, Metered metric) {
+        writeTypeAndValue(sb, base, tags, "_total", metric.getCount(), COUNTER);
+        writeMeterRateValues(sb, base, tags, metric);
     }
 
-    private void writeMeterRateValues(StringBuilder sb, MetricRegistry.Type scope, Metered metric, Metadata md) {
-        writeTypeAndValue(sb, scope, "_rate_per_second", metric.getMeanRate(), GAUGE, md);
-        writeTypeAndValue(sb, scope, "_one_min_rate_per_second", metric.getOneMinuteRate(), GAUGE, md);
-        writeTypeAndValue(sb, scope, "_five_min_rate_per_second", metric.getFiveMinuteRate(), GAUGE, md);
-        writeTypeAndValue(sb, scope, "_fifteen_min_rate_per_second", metric.getFifteenMinuteRate(), GAUGE, md);
+    private void writeMeterRateValues(StringBuilder sb, String base, String tags, Metered metric) {
+        writeTypeAndValue(sb, base, tags, "_rate_per_second", metric.getMeanRate(), GAUGE);
+        writeTypeAndValue(sb, base, tags, "_one_min_rate_per_second", metric.getOneMinuteRate(), GAUGE);
+        writeTypeAndValue(sb, base, tags, "_five_min_rate_per_second", metric.getFiveMinuteRate(), GAUGE);
+        writeTypeAndValue(sb, base, tags, "_fifteen_min_rate_per_second", metric.getFifteenMinuteRate(), GAUGE);
     }
 
-    private void writeTypeAndValue(StringBuilder sb, MetricRegistry.Type scope, String suffix, double valueRaw, String type, Metadata md) {
-        String key = md.getName();
-        writeTypeLine(sb, scope, key, md, suffix, type);
-        writeValueLine(sb, scope, suffix, valueRaw, md);
+    private void writeTypeAndValue(StringBuilder sb, String base, String tags, String suffix, double value, String type) {
+        writeTypeLine(sb, base, suffix, type);
+        writeValueLine(sb, base, suffix, value, tags);
     }
 
-    private void writeValueLine(StringBuilder sb, MetricRegistry.Type scope, String suffix, double valueRaw, Metadata md) {
-        writeValueLine(sb, scope, suffix, valueRaw, md, null);
+    private void writeValueLine(StringBuilder sb, String base, String suffix, double value, String tags) {
+        writeValueLine(sb, base, suffix, value, tags, null);
     }
 
-    private void writeValueLine(StringBuilder sb, MetricRegistry.Type scope, String suffix, double valueRaw, Metadata md, Tag extraTag) {
-        String name = md.getName();
-        name = getPrometheusMetricName(md, name);
-        fillBaseName(sb, scope, name);
+    /**
+     * @param value already in the base unit; counts and rates are written as they are
+     */
+    private void writeValueLine(StringBuilder sb, String base, String suffix, double value, String tags, String extraTag) {
+        sb.append(base);
         if (suffix != null) {
             sb.append(suffix);
         }
         // add tags
-
-        Map<String, String> tags = new HashMap<>(md.getTags());
-        if (extraTag != null) {
-            tags.put(extraTag.getKey(), extraTag.getValue());
-        }
-        if (!tags.isEmpty()) {
-            addTags(sb, tags);
+        if (!tags.isEmpty() || extraTag != null) {
+            sb.append('{').append(tags);
+            if (extraTag != null) {
+                if (!tags.isEmpty()) {
+                    sb.append(',');
+                }
+                sb.append(extraTag);
+            }
+            sb.append('}');
         }
 
         sb.append(SPACE);
-        sb.append(PrometheusUnit.scaleToBase(md.getUnit(), valueRaw)).append(LF);
+        sb.append(value).append(LF);
 
     }
 
-    private void addTags(StringBuilder sb, Map<String, String> tags) {
+    private String getTagsAsString(Map<String, String> tags) {
+        if (tags.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
         Iterator<Map.Entry<String, String>> iter = tags.entrySet().iterator();
-        sb.append("{");
         while (iter.hasNext()) {
             Map.Entry<String, String> tag = iter.next();
             sb.append(tag.getKey()).append("=\"").append(tag.getValue()).append("\"");
@@ -239,43 +302,29 @@ public class PrometheusExporter implements Exporter {
                 sb.append(",");
             }
         }
-        sb.append("}");
+        return sb.toString();
     }
 
-    private void fillBaseName(StringBuilder sb, MetricRegistry.Type scope, String key) {
-        sb.append(scope.getName().toLowerCase()).append(":").append(key);
+    private String baseName(String scopePrefix, Metadata md) {
+        return scopePrefix + getPrometheusMetricName(md.getName());
     }
 
-    private void writeTypeLine(StringBuilder sb, MetricRegistry.Type scope, String key, Metadata md, String suffix, String typeOverride) {
+    private void writeTypeLine(StringBuilder sb, String base, String suffix, String type) {
         sb.append("# TYPE ");
-        sb.append(scope.getName().toLowerCase());
-        sb.append(':').append(getPrometheusMetricName(md, key));
+        sb.append(base);
         if (suffix != null) {
             sb.append(suffix);
         }
         sb.append(SPACE);
-        if (typeOverride != null) {
-            sb.append(typeOverride);
-        } else if (md.getTypeRaw().equals(MetricType.TIMER)) {
-            sb.append(SUMMARY);
-        } else if (md.getTypeRaw().equals(MetricType.METERED)) {
-            sb.append(COUNTER);
-        } else {
-            sb.append(md.getType());
-        }
-        sb.append("\n");
+        sb.append(type);
+        sb.append(LF);
     }
 
-    private void createSimpleValueLine(StringBuilder sb, MetricRegistry.Type scope, String key, Metadata md, Metric metric) {
+    private void createSimpleValueLine(StringBuilder sb, String name, String tags, String key, Metadata md, Metric metric) {
 
         // value line
-        fillBaseName(sb, scope, key);
-        if (!md.getUnit().equals(MetricUnits.NONE)) {
-            String unit = PrometheusUnit.getBaseUnitAsPrometheusString(md.getUnit());
-            sb.append("_").append(unit);
-        }
-        String tags = md.getTagsAsString();
-        if (tags != null && !tags.isEmpty()) {
+        sb.append(name);
+        if (!tags.isEmpty()) {
             sb.append('{').append(tags).append('}');
         }
 
@@ -293,25 +342,33 @@ public class PrometheusExporter implements Exporter {
         }
 
         Double value = PrometheusUnit.scaleToBase(md.getUnit(), valIn);
-        sb.append(SPACE).append(value).append("\n");
+        sb.append(SPACE).append(value).append(LF);
 
     }
 
 
-    private String getPrometheusMetricName(Metadata entry, String name) {
+    static String getPrometheusMetricName(String name) {
+        String out = PROMETHEUS_NAMES.get(name);
+        if (out == null) {
+            out = toPrometheusMetricName(name);
+            if (PROMETHEUS_NAMES.size() < MAX_CACHED_NAMES) {
+                PROMETHEUS_NAMES.put(name, out);
+            }
+        }
+        return out;
+    }
+
+    private static String toPrometheusMetricName(String name) {
         String out = name.replace('-', '_').replace('.', '_').replace(' ', '_');
         out = decamelize(out);
-        if (entry == null) {
-            throw new IllegalStateException("No entry for " + name + " found");
-        }
         out = out.replace("__", USCORE);
         out = out.replace(":_", ":");
 
         return out;
     }
 
-    private String decamelize(String in) {
-        return in.replaceAll("(.)(\\p{Upper})", "$1_$2").toLowerCase();
+    private static String decamelize(String in) {
+        return CAMEL_CASE.matcher(in).replaceAll("$1_$2").toLowerCase();
     }
 
 }
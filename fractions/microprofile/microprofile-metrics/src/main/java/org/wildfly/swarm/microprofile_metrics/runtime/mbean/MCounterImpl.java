@@ -17,17 +17,21 @@
 package org.wildfly.swarm.microprofile_metrics.runtime.mbean;
 
 import org.eclipse.microprofile.metrics.Counter;
-import org.wildfly.swarm.microprofile_metrics.runtime.JmxWorker;
+import org.wildfly.swarm.microprofile_metrics.runtime.JmxCollector;
 
 /**
  * @author hrupp
  */
 public class MCounterImpl implements Counter {
     private static final String MUST_NOT_BE_CALLED = "Must not be called";
-    private String mbeanExpression;
+    private final JmxCollector.MBeanAttribute attribute;
 
     public MCounterImpl(String mbeanExpression) {
-        this.mbeanExpression = mbeanExpression;
+        this(JmxCollector.instance().attribute(mbeanExpression));
+    }
+
+    public MCounterImpl(JmxCollector.MBeanAttribute attribute) {
+        this.attribute = attribute;
     }
 
     @Override
@@ -52,6 +56,6 @@ public class MCounterImpl implements Counter {
 
     @Override
     public long getCount() {
-        return JmxWorker.instance().getValue(mbeanExpression).longValue();
+        return attribute.getValue().longValue();
     }
 }
@@ -17,7 +17,7 @@
 package org.wildfly.swarm.microprofile_metrics.runtime.mbean;
 
 import org.eclipse.microprofile.metrics.Gauge;
-import org.wildfly.swarm.microprofile_metrics.runtime.JmxWorker;
+import org.wildfly.swarm.microprofile_metrics.runtime.JmxCollector;
 
 /**
  * @author hrupp
@@ -25,15 +25,19 @@ import org.wildfly.swarm.microprofile_metrics.runtime.JmxWorker;
 public class MGaugeImpl implements Gauge {
 
 
-    private String mBeanExpression;
+    private final JmxCollector.MBeanAttribute attribute;
 
     public MGaugeImpl(String mBeanExpression) {
+        this(JmxCollector.instance().attribute(mBeanExpression));
+    }
+
+    public MGaugeImpl(JmxCollector.MBeanAttribute attribute) {
 
-        this.mBeanExpression = mBeanExpression;
+        this.attribute = attribute;
     }
 
     @Override
     public Number getValue() {
-        return JmxWorker.instance().getValue(mBeanExpression);
+        return attribute.getValue();
     }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics.runtime;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JmxCollectorTest {
+
+    public interface SampleMBean {
+        int getFirst();
+
+        long getSecond();
+    }
+
+    public static class Sample implements SampleMBean {
+
+        @Override
+        public int getFirst() {
+            reads.incrementAndGet();
+            return 42;
+        }
+
+        @Override
+        public long getSecond() {
+            reads.incrementAndGet();
+            return 4242L;
+        }
+
+        final AtomicInteger reads = new AtomicInteger();
+    }
+
+    private static final String NAME = "org.wildfly.swarm.test:type=Sample";
+
+    private MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+
+    private Sample sample = new Sample();
+
+    @Before
+    public void register() throws Exception {
+        mbs.registerMBean(sample, new ObjectName(NAME));
+    }
+
+    @After
+    public void unregister() throws Exception {
+        mbs.unregisterMBean(new ObjectName(NAME));
+    }
+
+    @Test
+    public void testAttributesOfOneMBeanAreReadTogetherAndCached() {
+        JmxCollector collector = new JmxCollector(mbs, 1, TimeUnit.HOURS);
+        JmxCollector.MBeanAttribute first = collector.attribute(NAME + "/First");
+        JmxCollector.MBeanAttribute second = collector.attribute(NAME + "/Second");
+
+        assertThat(first.getValue().intValue()).isEqualTo(42);
+        assertThat(second.getValue().longValue()).isEqualTo(4242L);
+        assertThat(first.getValue().intValue()).isEqualTo(42);
+
+        // one bulk read of both attributes
+        assertThat(sample.reads.get()).isEqualTo(2);
+        assertThat(collector.attribute(NAME + "/First")).isSameAs(first);
+    }
+
+    @Test
+    public void testZeroIntervalReadsEveryTime() {
+        JmxCollector collector = new JmxCollector(mbs, 0, TimeUnit.MILLISECONDS);
+        JmxCollector.MBeanAttribute first = collector.attribute(NAME + "/First");
+
+        first.getValue();
+        first.getValue();
+
+        assertThat(sample.reads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testCompositeSubItem() {
+        JmxCollector collector = new JmxCollector(mbs, 1, TimeUnit.HOURS);
+        Number max = collector.attribute("java.lang:type=Memory/HeapMemoryUsage#max").getValue();
+        Number used = collector.attribute("java.lang:type=Memory/HeapMemoryUsage#used").getValue();
+
+        assertThat(max).isNotNull();
+        assertThat(used.longValue()).isGreaterThan(0L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedExpression() {
+        new JmxCollector(mbs, 1, TimeUnit.HOURS).attribute("java.lang:type=Memory");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testUnknownAttribute() {
+        new JmxCollector(mbs, 1, TimeUnit.HOURS).attribute(NAME + "/Third").getValue();
+    }
+}
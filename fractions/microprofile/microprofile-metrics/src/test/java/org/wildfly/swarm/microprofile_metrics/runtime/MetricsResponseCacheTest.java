@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics.runtime;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MetricsResponseCacheTest {
+
+    @Test
+    public void testServesCachedPayloadWithinTtl() {
+        MetricsResponseCache cache = new MetricsResponseCache(1, TimeUnit.HOURS);
+        AtomicInteger renders = new AtomicInteger();
+
+        byte[] first = cache.get("prometheus:", () -> new StringBuilder("render-").append(renders.incrementAndGet()));
+        byte[] second = cache.get("prometheus:", () -> new StringBuilder("render-").append(renders.incrementAndGet()));
+
+        assertThat(new String(first, StandardCharsets.UTF_8)).isEqualTo("render-1");
+        assertThat(second).isSameAs(first);
+        assertThat(renders.get()).isEqualTo(1);
+
+        cache.get("json:", () -> new StringBuilder("render-").append(renders.incrementAndGet()));
+        assertThat(renders.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testRendersAgainOnceExpired() throws Exception {
+        MetricsResponseCache cache = new MetricsResponseCache(1, TimeUnit.MILLISECONDS);
+        AtomicInteger renders = new AtomicInteger();
+
+        cache.get("prometheus:", () -> new StringBuilder("render-").append(renders.incrementAndGet()));
+        Thread.sleep(5);
+        byte[] second = cache.get("prometheus:", () -> new StringBuilder("render-").append(renders.incrementAndGet()));
+
+        assertThat(new String(second, StandardCharsets.UTF_8)).isEqualTo("render-2");
+    }
+
+    @Test
+    public void testConcurrentScrapesShareOneRendering() throws Exception {
+        MetricsResponseCache cache = new MetricsResponseCache(1, TimeUnit.HOURS);
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get("prometheus:", () -> {
+                renders.incrementAndGet();
+                rendering.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return "payload";
+            })));
+            rendering.await();
+            for (int i = 0; i < 3; ++i) {
+                results.add(executor.submit(() -> cache.get("prometheus:", () -> {
+                    renders.incrementAndGet();
+                    return "other";
+                })));
+            }
+            release.countDown();
+
+            for (Future<byte[]> each : results) {
+                assertThat(new String(each.get(), StandardCharsets.UTF_8)).isEqualTo("payload");
+            }
+            assertThat(renders.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPreviousPayloadIsServedWhileRendering() throws Exception {
+        MetricsResponseCache cache = new MetricsResponseCache(1, TimeUnit.MILLISECONDS);
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        cache.get("prometheus:", () -> "previous");
+        Thread.sleep(5);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<byte[]> fresh = executor.submit(() -> cache.get("prometheus:", () -> {
+                rendering.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return "fresh";
+            }));
+            rendering.await();
+
+            byte[] stale = cache.get("prometheus:", () -> "other");
+            assertThat(new String(stale, StandardCharsets.UTF_8)).isEqualTo("previous");
+
+            release.countDown();
+            assertThat(new String(fresh.get(), StandardCharsets.UTF_8)).isEqualTo("fresh");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedRenderingIsNotCached() {
+        MetricsResponseCache cache = new MetricsResponseCache(1, TimeUnit.HOURS);
+
+        try {
+            cache.get("prometheus:", () -> {
+                throw new IllegalStateException("Value must not be null");
+            });
+        } catch (IllegalStateException expected) {
+            // fall through
+        }
+
+        byte[] payload = cache.get("prometheus:", () -> "recovered");
+        assertThat(new String(payload, StandardCharsets.UTF_8)).isEqualTo("recovered");
+    }
+}
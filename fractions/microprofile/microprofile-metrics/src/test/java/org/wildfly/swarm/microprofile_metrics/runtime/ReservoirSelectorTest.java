@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics.runtime;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.metrics.Histogram;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Timer;
+import org.junit.Test;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.BucketSnapshot;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.ReservoirType;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.UniformSnapshot;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.WeightedSnapshot;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReservoirSelectorTest {
+
+    @Test
+    public void testHistogramUsesDefaultReservoir() {
+        MetricsRegistryImpl registry = new MetricsRegistryImpl();
+
+        assertThat(update(registry.histogram("default")).getSnapshot()).isInstanceOf(WeightedSnapshot.class);
+    }
+
+    @Test
+    public void testHistogramUsesConfiguredDefault() {
+        MetricsRegistryImpl registry = new MetricsRegistryImpl(new ReservoirSelector(ReservoirType.HDR, 60, Collections.emptyMap()));
+
+        assertThat(update(registry.histogram("any")).getSnapshot()).isInstanceOf(BucketSnapshot.class);
+        assertThat(update(registry.timer("timed")).getSnapshot()).isInstanceOf(BucketSnapshot.class);
+    }
+
+    @Test
+    public void testHistogramUsesReservoirConfiguredForItsName() {
+        MetricsRegistryImpl registry = new MetricsRegistryImpl(
+                new ReservoirSelector(ReservoirType.EXPONENTIALLY_DECAYING, 60, Collections.singletonMap("windowed", "sliding-time-window")));
+
+        assertThat(update(registry.histogram("windowed")).getSnapshot()).isInstanceOf(UniformSnapshot.class);
+        assertThat(update(registry.histogram("other")).getSnapshot()).isInstanceOf(WeightedSnapshot.class);
+    }
+
+    @Test
+    public void testExtendedMetadataWins() {
+        MetricsRegistryImpl registry = new MetricsRegistryImpl(
+                new ReservoirSelector(ReservoirType.EXPONENTIALLY_DECAYING, 60, Collections.singletonMap("named", "sliding-time-window")));
+        ExtendedMetadata metadata = new ExtendedMetadata("named", MetricType.HISTOGRAM);
+        metadata.setReservoir("hdr");
+
+        assertThat(update(registry.histogram(metadata)).getSnapshot()).isInstanceOf(BucketSnapshot.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidReservoirIsRejected() {
+        new ReservoirSelector(ReservoirType.HDR, 60, Collections.singletonMap("named", "bogus"));
+    }
+
+    private static Histogram update(Histogram histogram) {
+        histogram.update(42);
+        return histogram;
+    }
+
+    private static Timer update(Timer timer) {
+        timer.update(42, TimeUnit.MILLISECONDS);
+        return timer;
+    }
+}
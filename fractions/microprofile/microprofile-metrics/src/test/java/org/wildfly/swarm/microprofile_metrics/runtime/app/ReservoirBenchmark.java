@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics.runtime.app;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the {@link Reservoir} implementations under contended updates and snapshots.
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main ReservoirBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservoirBenchmark {
+
+    @Param({"exponentially-decaying", "hdr", "sliding-time-window"})
+    public String type;
+
+    private Reservoir reservoir;
+
+    @Setup
+    public void setup() {
+        switch (ReservoirType.forName(type)) {
+            case HDR:
+                reservoir = new HdrReservoir();
+                break;
+            case SLIDING_TIME_WINDOW:
+                reservoir = new SlidingTimeWindowReservoir(60, TimeUnit.SECONDS);
+                break;
+            default:
+                reservoir = new ExponentiallyDecayingReservoir();
+        }
+        for (int i = 0; i < 10_000; i++) {
+            reservoir.update(duration());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void update() {
+        reservoir.update(duration());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void contendedUpdate() {
+        reservoir.update(duration());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void snapshot(Blackhole blackhole) {
+        blackhole.consume(reservoir.getSnapshot().get99thPercentile());
+    }
+
+    private static long duration() {
+        // request durations between 100us and 100ms, in nanoseconds
+        return ThreadLocalRandom.current().nextLong(100_000, 100_000_000);
+    }
+}
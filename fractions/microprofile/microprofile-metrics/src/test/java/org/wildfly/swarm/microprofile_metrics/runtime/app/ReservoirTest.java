@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics.runtime.app;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.microprofile.metrics.Snapshot;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Delta.delta;
+
+public class ReservoirTest {
+
+    @Test
+    public void testHdrBucketsAreOrderedAndPrecise() {
+        int previous = -1;
+        for (long value = 0; value < 1L << 40; value = value * 3 / 2 + 1) {
+            int index = HdrReservoir.bucketIndex(value);
+            assertThat(index).isGreaterThanOrEqualTo(previous);
+            assertThat((double) HdrReservoir.bucketValue(index)).isEqualTo(value, delta(value / 32.0 + 1));
+            previous = index;
+        }
+        assertThat(HdrReservoir.bucketIndex(Long.MAX_VALUE)).isEqualTo(HdrReservoir.BUCKET_COUNT - 1);
+        assertThat(HdrReservoir.bucketValue(HdrReservoir.BUCKET_COUNT - 1)).isPositive();
+    }
+
+    @Test
+    public void testHdrSnapshot() {
+        HdrReservoir reservoir = new HdrReservoir();
+        for (long i = 1; i <= 1000; i++) {
+            reservoir.update(i * 1000);
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertThat(reservoir.size()).isEqualTo(1000);
+        assertThat(snapshot.size()).isEqualTo(1000);
+        assertThat(snapshot.getMin()).isEqualTo(1000);
+        assertThat(snapshot.getMax()).isEqualTo(1_000_000);
+        assertThat(snapshot.getMean()).isEqualTo(500_500.0, delta(0.001));
+        assertThat(snapshot.getMedian()).isEqualTo(500_000, delta(500_000 / 32.0));
+        assertThat(snapshot.get99thPercentile()).isEqualTo(990_000, delta(990_000 / 32.0));
+        assertThat(snapshot.getStdDev()).isEqualTo(288_675, delta(288_675 / 32.0));
+    }
+
+    @Test
+    public void testEmptySnapshots() {
+        assertThat(new HdrReservoir().getSnapshot().getMax()).isEqualTo(0);
+        assertThat(new HdrReservoir().getSnapshot().getMedian()).isEqualTo(0.0);
+        assertThat(new SlidingTimeWindowReservoir(1, TimeUnit.SECONDS).getSnapshot().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testSlidingTimeWindowExpiresValues() {
+        AtomicLong tick = new AtomicLong();
+        Clock clock = new Clock() {
+            @Override
+            public long getTick() {
+                return tick.get();
+            }
+        };
+        SlidingTimeWindowReservoir reservoir = new SlidingTimeWindowReservoir(10, TimeUnit.NANOSECONDS, 8, clock);
+
+        reservoir.update(1);
+        tick.set(5);
+        reservoir.update(2);
+        assertThat(reservoir.getSnapshot().getValues()).isEqualTo(new long[]{1, 2});
+
+        tick.set(12);
+        assertThat(reservoir.getSnapshot().getValues()).isEqualTo(new long[]{2});
+
+        for (int i = 0; i < 20; i++) {
+            reservoir.update(100 + i);
+        }
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.size()).isEqualTo(8);
+        assertThat(snapshot.getMin()).isEqualTo(112);
+        assertThat(snapshot.getMax()).isEqualTo(119);
+    }
+
+    @Test
+    public void testReservoirTypeNames() {
+        assertThat(ReservoirType.forName("HDR")).isEqualTo(ReservoirType.HDR);
+        assertThat(ReservoirType.forName("sliding-time-window")).isEqualTo(ReservoirType.SLIDING_TIME_WINDOW);
+        assertThat(ReservoirType.EXPONENTIALLY_DECAYING.toString()).isEqualTo("exponentially-decaying");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownReservoirType() {
+        ReservoirType.forName("uniform");
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics.runtime.exporters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricFilter;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.junit.After;
+import org.junit.Test;
+import org.wildfly.swarm.microprofile_metrics.runtime.MetricRegistryFactory;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.Clock;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.CounterImpl;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.HdrReservoir;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.HistogramImpl;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.MeterImpl;
+import org.wildfly.swarm.microprofile_metrics.runtime.app.TimerImpl;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * The expected texts pin the exporter's output: values in base units, counts and rates unscaled.
+ */
+public class PrometheusExporterTest {
+
+    private final PrometheusExporter exporter = new PrometheusExporter();
+
+    private final MetricRegistry registry = MetricRegistryFactory.getApplicationRegistry();
+
+    private final ManualClock clock = new ManualClock();
+
+    @After
+    public void tearDown() {
+        this.registry.removeMatching(MetricFilter.ALL);
+    }
+
+    @Test
+    public void testCounter() {
+        Counter counter = this.registry.register("requests.handled", new CounterImpl(),
+                                                 metadata("requests.handled", MetricType.COUNTER, MetricUnits.NONE));
+        counter.inc(3);
+
+        assertThat(export()).isEqualTo(COUNTER);
+    }
+
+    @Test
+    public void testGauge() {
+        Gauge<Long> gauge = () -> 42L;
+        this.registry.register("cacheSize", gauge, metadata("cacheSize", MetricType.GAUGE, MetricUnits.MEGABYTES));
+
+        assertThat(export()).isEqualTo(GAUGE);
+    }
+
+    @Test
+    public void testMeter() {
+        MeterImpl meter = this.registry.register("orders", new MeterImpl(this.clock),
+                                                 metadata("orders", MetricType.METERED, MetricUnits.PER_SECOND));
+        meter.mark(20);
+        this.clock.advance(10, TimeUnit.SECONDS);
+
+        assertThat(export()).isEqualTo(METER);
+    }
+
+    @Test
+    public void testHistogram() {
+        HistogramImpl histogram = this.registry.register("payload", new HistogramImpl(new HdrReservoir()),
+                                                         metadata("payload", MetricType.HISTOGRAM, MetricUnits.KILOBYTES));
+        for (int i = 1; i <= 100; ++i) {
+            histogram.update(i);
+        }
+
+        assertThat(export()).isEqualTo(HISTOGRAM);
+    }
+
+    @Test
+    public void testTimer() {
+        TimerImpl timer = this.registry.register("checkout", new TimerImpl(new HdrReservoir(), this.clock),
+                                                 metadata("checkout", MetricType.TIMER, MetricUnits.MILLISECONDS));
+        for (int i = 1; i <= 10; ++i) {
+            timer.update(i, TimeUnit.MILLISECONDS);
+        }
+        this.clock.advance(10, TimeUnit.SECONDS);
+
+        assertThat(export()).isEqualTo(TIMER);
+    }
+
+    @Test
+    public void testExportInChunks() {
+        for (int i = 0; i < 500; ++i) {
+            this.registry.register("counter" + i, new CounterImpl(), metadata("counter" + i, MetricType.COUNTER, MetricUnits.NONE));
+        }
+
+        List<String> chunks = new ArrayList<>();
+        this.exporter.export(MetricRegistry.Type.APPLICATION, null, (chunk) -> chunks.add(chunk.toString()));
+
+        assertThat(chunks.size()).isGreaterThan(1);
+        for (String each : chunks) {
+            assertThat(each).endsWith("\n");
+        }
+        assertThat(String.join("", chunks)).isEqualTo(this.exporter.exportOneScope(MetricRegistry.Type.APPLICATION).toString());
+    }
+
+    private String export() {
+        String text = this.exporter.exportOneScope(MetricRegistry.Type.APPLICATION).toString();
+
+        StringBuilder chunked = new StringBuilder();
+        this.exporter.export(MetricRegistry.Type.APPLICATION, null, chunked::append);
+        assertThat(chunked.toString()).isEqualTo(text);
+
+        return text;
+    }
+
+    private static Metadata metadata(String name, MetricType type, String unit) {
+        Metadata metadata = new Metadata(name, type, unit);
+        metadata.addTag("app=shop");
+        metadata.addTag("tier=web");
+        return metadata;
+    }
+
+    private static final String COUNTER = ""
+            + "# TYPE application:requests_handled counter\n"
+            + "application:requests_handled{app=\"shop\",tier=\"web\"} 3.0\n";
+
+    private static final String GAUGE = ""
+            + "# TYPE application:cache_size_bytes gauge\n"
+            + "application:cache_size_bytes{app=\"shop\",tier=\"web\"} 4.2E7\n";
+
+    private static final String METER = ""
+            + "# TYPE application:orders_total counter\n"
+            + "application:orders_total{app=\"shop\",tier=\"web\"} 20.0\n"
+            + "# TYPE application:orders_rate_per_second gauge\n"
+            + "application:orders_rate_per_second{app=\"shop\",tier=\"web\"} 2.0\n"
+            + "# TYPE application:orders_one_min_rate_per_second gauge\n"
+            + "application:orders_one_min_rate_per_second{app=\"shop\",tier=\"web\"} 3.6801776585172936\n"
+            + "# TYPE application:orders_five_min_rate_per_second gauge\n"
+            + "application:orders_five_min_rate_per_second{app=\"shop\",tier=\"web\"} 3.9338858152864704\n"
+            + "# TYPE application:orders_fifteen_min_rate_per_second gauge\n"
+            + "application:orders_fifteen_min_rate_per_second{app=\"shop\",tier=\"web\"} 3.9778393920195874\n";
+
+    private static final String HISTOGRAM = ""
+            + "# TYPE application:payload_min_bytes gauge\n"
+            + "application:payload_min_bytes{app=\"shop\",tier=\"web\"} 1000.0\n"
+            + "# TYPE application:payload_max_bytes gauge\n"
+            + "application:payload_max_bytes{app=\"shop\",tier=\"web\"} 100000.0\n"
+            + "# TYPE application:payload_mean_bytes gauge\n"
+            + "application:payload_mean_bytes{app=\"shop\",tier=\"web\"} 50500.0\n"
+            + "# TYPE application:payload_stddev_bytes gauge\n"
+            + "application:payload_stddev_bytes{app=\"shop\",tier=\"web\"} 29058.73362691499\n"
+            + "# TYPE application:payload_bytes summary\n"
+            + "application:payload_bytes_count{app=\"shop\",tier=\"web\"} 100.0\n"
+            + "application:payload_bytes{app=\"shop\",tier=\"web\",quantile=\"0.5\"} 50000.0\n"
+            + "application:payload_bytes{app=\"shop\",tier=\"web\",quantile=\"0.75\"} 75000.0\n"
+            + "application:payload_bytes{app=\"shop\",tier=\"web\",quantile=\"0.95\"} 95000.0\n"
+            + "application:payload_bytes{app=\"shop\",tier=\"web\",quantile=\"0.98\"} 99000.0\n"
+            + "application:payload_bytes{app=\"shop\",tier=\"web\",quantile=\"0.99\"} 99000.0\n"
+            + "application:payload_bytes{app=\"shop\",tier=\"web\",quantile=\"0.999\"} 100000.0\n";
+
+    private static final String TIMER = ""
+            + "# TYPE application:checkout_rate_per_second gauge\n"
+            + "application:checkout_rate_per_second{app=\"shop\",tier=\"web\"} 1.0\n"
+            + "# TYPE application:checkout_one_min_rate_per_second gauge\n"
+            + "application:checkout_one_min_rate_per_second{app=\"shop\",tier=\"web\"} 1.8400888292586468\n"
+            + "# TYPE application:checkout_five_min_rate_per_second gauge\n"
+            + "application:checkout_five_min_rate_per_second{app=\"shop\",tier=\"web\"} 1.9669429076432352\n"
+            + "# TYPE application:checkout_fifteen_min_rate_per_second gauge\n"
+            + "application:checkout_fifteen_min_rate_per_second{app=\"shop\",tier=\"web\"} 1.9889196960097937\n"
+            + "# TYPE application:checkout_min_seconds gauge\n"
+            + "application:checkout_min_seconds{app=\"shop\",tier=\"web\"} 0.001\n"
+            + "# TYPE application:checkout_max_seconds gauge\n"
+            + "application:checkout_max_seconds{app=\"shop\",tier=\"web\"} 0.01\n"
+            + "# TYPE application:checkout_mean_seconds gauge\n"
+            + "application:checkout_mean_seconds{app=\"shop\",tier=\"web\"} 0.0055\n"
+            + "# TYPE application:checkout_stddev_seconds gauge\n"
+            + "application:checkout_stddev_seconds{app=\"shop\",tier=\"web\"} 0.002879266805480034\n"
+            + "# TYPE application:checkout_seconds summary\n"
+            + "application:checkout_seconds_count{app=\"shop\",tier=\"web\"} 10.0\n"
+            + "application:checkout_seconds{app=\"shop\",tier=\"web\",quantile=\"0.5\"} 0.005046272\n"
+            + "application:checkout_seconds{app=\"shop\",tier=\"web\",quantile=\"0.75\"} 0.008060928\n"
+            + "application:checkout_seconds{app=\"shop\",tier=\"web\",quantile=\"0.95\"} 0.01\n"
+            + "application:checkout_seconds{app=\"shop\",tier=\"web\",quantile=\"0.98\"} 0.01\n"
+            + "application:checkout_seconds{app=\"shop\",tier=\"web\",quantile=\"0.99\"} 0.01\n"
+            + "application:checkout_seconds{app=\"shop\",tier=\"web\",quantile=\"0.999\"} 0.01\n";
+
+    private static class ManualClock extends Clock {
+
+        @Override
+        public long getTick() {
+            return this.tick;
+        }
+
+        void advance(long duration, TimeUnit unit) {
+            this.tick += unit.toNanos(duration);
+        }
+
+        private long tick;
+    }
+}
@@ -316,15 +316,15 @@ class HttpContexts implements HttpHandler {
     }
 
     private void nodeInfo(HttpServerExchange exchange) {
-        exchange.getResponseSender().send(monitor.getNodeInfo().toJSONString(false));
+        exchange.getResponseSender().send(monitor.getNodeInfoJSON());
     }
 
     private void heap(HttpServerExchange exchange) {
-        exchange.getResponseSender().send(monitor.heap().toJSONString(false));
+        exchange.getResponseSender().send(monitor.heapJSON());
     }
 
     private void threads(HttpServerExchange exchange) {
-        exchange.getResponseSender().send(monitor.threads().toJSONString(false));
+        exchange.getResponseSender().send(monitor.threadsJSON());
     }
 
     public static List<String> getDefaultContextNames() {
@@ -15,6 +15,7 @@
  */
 package org.wildfly.swarm.monitor.runtime;
 
+import java.beans.PropertyChangeListener;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
@@ -22,9 +23,11 @@ import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.enterprise.inject.Vetoed;
 
+import org.jboss.as.controller.ControlledProcessStateService;
 import org.jboss.as.controller.ModelController;
 import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.as.domain.management.SecurityRealm;
@@ -76,6 +79,8 @@ public class MonitorService implements Monitor, Service<MonitorService> {
         serverEnvironment = serverEnvironmentValue.getValue();
         controllerClient = modelControllerValue.getValue().createClient(executorService);
 
+        processStateValue.getValue().addPropertyChangeListener(this.processStateListener);
+
         if (!securityRealm.isPresent()) {
             LOG.warn("You are running the monitoring endpoints without any security realm configuration!");
         }
@@ -83,6 +88,7 @@ public class MonitorService implements Monitor, Service<MonitorService> {
 
     @Override
     public void stop(StopContext stopContext) {
+        processStateValue.getValue().removePropertyChangeListener(this.processStateListener);
         if (executorService != null) {
             executorService.shutdownNow();
         }
@@ -116,6 +122,27 @@ public class MonitorService implements Monitor, Service<MonitorService> {
 
     }
 
+    @Override
+    public String getNodeInfoJSON() {
+        CachedNodeInfo current = this.nodeInfo;
+        long now = System.nanoTime();
+        if (current == null || current.isStale(now)) {
+            current = new CachedNodeInfo(getNodeInfo().toJSONString(false), now + NODE_INFO_TTL_NANOS);
+            this.nodeInfo = current;
+        }
+        return current.json;
+    }
+
+    @Override
+    public String heapJSON() {
+        return PlatformInfo.heap();
+    }
+
+    @Override
+    public String threadsJSON() {
+        return PlatformInfo.threads();
+    }
+
     @Override
     public ModelNode heap() {
 
@@ -203,14 +230,23 @@ public class MonitorService implements Monitor, Service<MonitorService> {
         return this.securityRealmServiceValue;
     }
 
+    public Injector<ControlledProcessStateService> getProcessStateInjector() {
+        return this.processStateValue;
+    }
+
     private static final long DEFAULT_PROBE_TIMEOUT_SECONDS = 2;
 
+    // Bounds staleness of attributes changing without a server state change, such as suspend-state
+    private static final long NODE_INFO_TTL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
     private final InjectedValue<ServerEnvironment> serverEnvironmentValue = new InjectedValue<ServerEnvironment>();
 
     private final InjectedValue<ModelController> modelControllerValue = new InjectedValue<ModelController>();
 
     private final InjectedValue<SecurityRealm> securityRealmServiceValue = new InjectedValue<SecurityRealm>();
 
+    private final InjectedValue<ControlledProcessStateService> processStateValue = new InjectedValue<ControlledProcessStateService>();
+
     private final Optional<String> securityRealm;
 
     private ExecutorService executorService;
@@ -220,4 +256,25 @@ public class MonitorService implements Monitor, Service<MonitorService> {
     private ModelControllerClient controllerClient;
 
     private CopyOnWriteArrayList<HealthMetaData> endpoints = new CopyOnWriteArrayList<HealthMetaData>();
+
+    private volatile CachedNodeInfo nodeInfo;
+
+    // drops the cached node info whenever the server state changes (reload, restart-required, ...)
+    private final PropertyChangeListener processStateListener = (event) -> this.nodeInfo = null;
+
+    private static final class CachedNodeInfo {
+
+        CachedNodeInfo(String json, long expiresAt) {
+            this.json = json;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isStale(long now) {
+            return now - this.expiresAt >= 0;
+        }
+
+        private final String json;
+
+        private final long expiresAt;
+    }
 }
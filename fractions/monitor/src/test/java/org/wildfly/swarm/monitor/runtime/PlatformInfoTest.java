@@ -0,0 +1,44 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.monitor.runtime;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PlatformInfoTest {
+
+    @Test
+    public void testHeap() {
+        String heap = PlatformInfo.heap();
+        Assert.assertTrue(heap, heap.startsWith("{\"heap-memory-usage\" : {\"init\" : "));
+        Assert.assertTrue(heap, heap.contains("\"non-heap-memory-usage\" : {"));
+        Assert.assertTrue(heap, heap.contains("\"used\" : "));
+        Assert.assertTrue(heap, heap.contains("\"committed\" : "));
+        Assert.assertTrue(heap, heap.contains("\"max\" : "));
+        Assert.assertTrue(heap, heap.endsWith("}}"));
+    }
+
+    @Test
+    public void testThreads() {
+        String threads = PlatformInfo.threads();
+        Assert.assertTrue(threads, threads.startsWith("{\"thread-count\" : "));
+        Assert.assertTrue(threads, threads.contains("\"peak-thread-count\" : "));
+        Assert.assertTrue(threads, threads.contains("\"total-started-thread-count\" : "));
+        Assert.assertTrue(threads, threads.contains("\"current-thread-cpu-time\" : "));
+        Assert.assertTrue(threads, threads.contains("\"current-thread-user-time\" : "));
+        Assert.assertTrue(threads, threads.endsWith("}"));
+    }
+}
@@ -18,6 +18,9 @@ package org.wildfly.swarm.topology.consul.runtime;
 import java.util.Collections;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import com.orbitz.consul.AgentClient;
@@ -39,10 +42,15 @@ import org.wildfly.swarm.topology.runtime.Registration;
  * @author John Hovell
  * @author Bob McWhirter
  */
-public class Advertiser implements Service<Advertiser>, Runnable {
+public class Advertiser implements Service<Advertiser> {
 
     public static final ServiceName SERVICE_NAME = ConsulService.SERVICE_NAME.append("advertiser");
 
+    /**
+     * Interval between TTL check passes, well within the 3s TTL of the registered checks.
+     */
+    private static final long CHECK_INTERVAL = 2;
+
     public Injector<AgentClient> getAgentClientInjector() {
         return this.agentClientInjector;
     }
@@ -87,14 +95,17 @@ public class Advertiser implements Service<Advertiser>, Runnable {
 
     @Override
     public void start(StartContext startContext) throws StartException {
-        this.thread = new Thread(this);
-
-        this.thread.start();
+        this.executor = Executors.newSingleThreadScheduledExecutor((r) -> {
+            Thread thread = new Thread(r, "consul-advertiser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::passChecks, 0, CHECK_INTERVAL, TimeUnit.SECONDS);
     }
 
     @Override
     public void stop(StopContext stopContext) {
-        this.thread.interrupt();
+        this.executor.shutdownNow();
     }
 
     @Override
@@ -102,29 +113,18 @@ public class Advertiser implements Service<Advertiser>, Runnable {
         return this;
     }
 
-    @Override
-    public void run() {
+    private void passChecks() {
         AgentClient client = this.agentClientInjector.getValue();
-        while (true) {
-            this.advertisements
-                    .stream()
-                    .forEach(e -> {
-                        try {
-                            client.pass(serviceId(e));
-                        } catch (NotRegisteredException ex) {
-                            TopologyMessages.MESSAGES.notRegistered(e.toString(), ex);
-                        } catch (Exception ex) {
-                            TopologyMessages.MESSAGES.errorOnCheck(e.toString(), ex);
-                        }
-                    });
-            try {
-                Thread.sleep(2000);
-            } catch (InterruptedException e) {
-                // ignore
-                break;
-            }
-        }
-
+        this.advertisements
+                .forEach(e -> {
+                    try {
+                        client.pass(serviceId(e));
+                    } catch (NotRegisteredException ex) {
+                        TopologyMessages.MESSAGES.notRegistered(e.toString(), ex);
+                    } catch (Exception ex) {
+                        TopologyMessages.MESSAGES.errorOnCheck(e.toString(), ex);
+                    }
+                });
     }
 
     private String serviceId(Registration registration) {
@@ -137,5 +137,5 @@ public class Advertiser implements Service<Advertiser>, Runnable {
 
     private Set<Registration> advertisements = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
-    private Thread thread;
+    private ScheduledExecutorService executor;
 }
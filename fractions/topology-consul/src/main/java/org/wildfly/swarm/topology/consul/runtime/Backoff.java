@@ -0,0 +1,51 @@
+/**
+ * Copyright 2015-2016 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.consul.runtime;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exponential backoff between retries of a failed Consul query.
+ *
+ * Not thread-safe; each watch owns its own instance.
+ */
+class Backoff {
+
+    Backoff(long initial, long max, TimeUnit unit) {
+        this.initial = unit.toMillis(initial);
+        this.max = unit.toMillis(max);
+        this.next = this.initial;
+    }
+
+    /**
+     * @return The delay, in milliseconds, before the next retry; doubles on each call up to the maximum.
+     */
+    long nextDelay() {
+        long delay = this.next;
+        this.next = Math.min(this.max, delay * 2);
+        return delay;
+    }
+
+    void reset() {
+        this.next = this.initial;
+    }
+
+    private final long initial;
+
+    private final long max;
+
+    private long next;
+}
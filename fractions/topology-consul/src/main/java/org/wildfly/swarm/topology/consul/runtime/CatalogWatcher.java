@@ -19,14 +19,17 @@ import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.net.HostAndPort;
 import com.orbitz.consul.CatalogClient;
 import com.orbitz.consul.HealthClient;
-import com.orbitz.consul.cache.ServiceHealthCache;
+import com.orbitz.consul.async.ConsulResponseCallback;
 import com.orbitz.consul.model.ConsulResponse;
-import com.orbitz.consul.option.CatalogOptions;
-import com.orbitz.consul.option.ImmutableCatalogOptions;
+import com.orbitz.consul.model.health.ServiceHealth;
 import com.orbitz.consul.option.ImmutableQueryOptions;
 import com.orbitz.consul.option.QueryOptions;
 import org.jboss.msc.inject.Injector;
@@ -42,20 +45,32 @@ import org.wildfly.swarm.topology.runtime.TopologyManager;
 /**
  * Catalog-watching service.
  *
- * This service regularly performs a blocking-wait poll of the catalog of all
- * services in order to avoid having to know a-priori which services are of
+ * This service performs a blocking query of the catalog of all services
+ * in order to avoid having to know a-priori which services are of
  * interest to the application.
  *
- * Any discovered service is setup with a related health-cache listener in
- * order to maintain the full topology.
+ * Any discovered service is watched with a blocking query of its healthy
+ * instances in order to maintain the full topology. All queries are issued
+ * asynchronously and re-issued from a single scheduler thread as soon as
+ * they complete, so no thread is held per service. Watches of services
+ * that leave the catalog are cancelled, and their registrations removed.
+ * Failed queries are retried with exponential backoff.
  *
  * @author John Hovell
  * @author Bob McWhirter
  */
-public class CatalogWatcher implements Service<CatalogWatcher>, Runnable {
+public class CatalogWatcher implements Service<CatalogWatcher> {
 
     public static final ServiceName SERVICE_NAME = ConsulService.SERVICE_NAME.append("catalog-watcher");
 
+    static final String SOURCE_KEY = "consul";
+
+    private static final String WAIT = "60s";
+
+    private static final long INITIAL_BACKOFF = 500;
+
+    private static final long MAX_BACKOFF = 30_000;
+
     public Injector<CatalogClient> getCatalogClientInjector() {
         return this.catalogClientInjector;
     }
@@ -70,21 +85,28 @@ public class CatalogWatcher implements Service<CatalogWatcher>, Runnable {
 
     @Override
     public void start(StartContext startContext) throws StartException {
-        this.thread = new Thread(this);
-        this.thread.start();
+        this.executor = Executors.newSingleThreadScheduledExecutor((r) -> {
+            Thread thread = new Thread(r, "consul-catalog-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.stopped = false;
+        this.executor.execute(this::watchCatalog);
     }
 
     @Override
     public void stop(StopContext stopContext) {
-        this.thread.interrupt();
+        this.stopped = true;
+        this.executor.shutdownNow();
 
-        this.watchers.entrySet().forEach(e -> {
+        this.watchers.forEach((name, watch) -> {
             try {
-                e.getValue().stop();
+                watch.cancel();
             } catch (Exception ex) {
-                ConsulTopologyMessages.MESSAGES.errorStoppingCatalogWatcher(e.getKey(), ex);
+                ConsulTopologyMessages.MESSAGES.errorStoppingCatalogWatcher(name, ex);
             }
         });
+        this.watchers.clear();
     }
 
     @Override
@@ -92,70 +114,101 @@ public class CatalogWatcher implements Service<CatalogWatcher>, Runnable {
         return null;
     }
 
-    @Override
-    public void run() {
-        CatalogClient client = this.catalogClientInjector.getValue();
-
-        BigInteger index = null;
-
-        while (true) {
+    private void watchCatalog() {
+        if (this.stopped) {
+            return;
+        }
 
-            try {
-                QueryOptions options = QueryOptions.BLANK;
+        this.catalogClientInjector.getValue().getServices(options(this.catalogIndex), new ConsulResponseCallback<Map<String, List<String>>>() {
+            @Override
+            public void onComplete(ConsulResponse<Map<String, List<String>>> response) {
+                schedule(() -> {
+                    CatalogWatcher.this.catalogBackoff.reset();
+                    CatalogWatcher.this.catalogIndex = nextIndex(CatalogWatcher.this.catalogIndex, response.getIndex());
+                    updateWatchers(response.getResponse());
+                    watchCatalog();
+                }, 0);
+            }
 
-                if (index != null) {
-                    options = ImmutableQueryOptions.builder()
-                            .wait("60s")
-                            .index(index)
-                            .build();
+            @Override
+            public void onFailure(Throwable t) {
+                if (!CatalogWatcher.this.stopped) {
+                    ConsulTopologyMessages.MESSAGES.errorOnCatalogUpdate(t);
                 }
-
-                ConsulResponse<Map<String, List<String>>> services = client.getServices(options);
-
-                index = services.getIndex();
-
-                Map<String, List<String>> response = services.getResponse();
-
-                response.keySet().forEach(e -> {
-                    setupWatcher(e);
+                retry(CatalogWatcher.this.catalogBackoff, () -> {
+                    // the index may be stale; start over with a non-blocking query
+                    CatalogWatcher.this.catalogIndex = null;
+                    watchCatalog();
                 });
-            } catch (Exception ex) {
-                ConsulTopologyMessages.MESSAGES.errorOnCatalogUpdate(ex);
             }
+        });
+    }
 
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                break;
+    /**
+     * Start watching new services and cancel the watches of vanished ones. Like all watch state, only
+     * touched on the scheduler thread; client callbacks hand their responses over to it.
+     */
+    private void updateWatchers(Map<String, List<String>> services) {
+        services.keySet().forEach(e -> {
+            if (!this.watchers.containsKey(e)) {
+                HealthWatch watch = new HealthWatch(e);
+                this.watchers.put(e, watch);
+                watch.watch();
             }
-        }
+        });
+
+        this.watchers.keySet().removeIf(e -> {
+            if (services.containsKey(e)) {
+                return false;
+            }
+            this.watchers.get(e).cancel();
+            this.topologyManagerInjector.getValue().unregisterAll(SOURCE_KEY, e);
+            return true;
+        });
     }
 
-    private void setupWatcher(String serviceName) {
-        if (watchers.containsKey(serviceName)) {
+    private void schedule(Runnable task, long delay) {
+        if (this.stopped) {
             return;
         }
+        try {
+            this.executor.schedule(task, delay, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // rejected once stopped
+        }
+    }
 
-        CatalogOptions options = ImmutableCatalogOptions.builder()
-                .build();
-
-        ServiceHealthCache healthCache = ServiceHealthCache.newCache(
-                this.healthClientInjector.getValue(),
-                serviceName,
-                true,
-                options,
-                5
-        );
+    /**
+     * Schedule a retry after the next delay of a backoff. The delay is taken on the scheduler thread, as
+     * backoffs, like all watch state, are not thread-safe.
+     */
+    private void retry(Backoff backoff, Runnable task) {
+        schedule(() -> schedule(task, backoff.nextDelay()), 0);
+    }
 
+    /**
+     * The index to block on next. An index that is not positive, or that went backwards (as it may when the
+     * Consul servers' state is restored or a different server answers), must not be blocked on; the next
+     * query is then non-blocking, and blocks on the fresh index it returns.
+     */
+    static BigInteger nextIndex(BigInteger previous, BigInteger index) {
+        if (index == null || index.signum() <= 0) {
+            return null;
+        }
+        if (previous != null && index.compareTo(previous) < 0) {
+            return null;
+        }
+        return index;
+    }
 
-        try {
-            healthCache.addListener(new ServiceCacheListener(serviceName, this.topologyManagerInjector.getValue()));
-            healthCache.start();
-            healthCache.awaitInitialized(1, TimeUnit.SECONDS);
-            this.watchers.put(serviceName, healthCache);
-        } catch (Exception e) {
-            ConsulTopologyMessages.MESSAGES.errorSettingUpCatalogWatcher(serviceName, e);
+    private static QueryOptions options(BigInteger index) {
+        if (index == null) {
+            return QueryOptions.BLANK;
         }
+        return ImmutableQueryOptions.builder()
+                .wait(WAIT)
+                .index(index)
+                .build();
     }
 
     private InjectedValue<CatalogClient> catalogClientInjector = new InjectedValue<>();
@@ -164,7 +217,80 @@ public class CatalogWatcher implements Service<CatalogWatcher>, Runnable {
 
     private InjectedValue<TopologyManager> topologyManagerInjector = new InjectedValue<>();
 
-    private Thread thread;
+    private final Map<String, HealthWatch> watchers = new ConcurrentHashMap<>();
+
+    private final Backoff catalogBackoff = new Backoff(INITIAL_BACKOFF, MAX_BACKOFF, TimeUnit.MILLISECONDS);
+
+    private volatile BigInteger catalogIndex;
+
+    private volatile boolean stopped;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Blocking-query watch of the healthy instances of a single service.
+     */
+    private class HealthWatch implements ConsulResponseCallback<List<ServiceHealth>> {
+
+        HealthWatch(String serviceName) {
+            this.serviceName = serviceName;
+            this.listener = new ServiceCacheListener(serviceName, CatalogWatcher.this.topologyManagerInjector.getValue());
+        }
+
+        void watch() {
+            if (this.cancelled || CatalogWatcher.this.stopped) {
+                return;
+            }
+            CatalogWatcher.this.healthClientInjector.getValue().getHealthyServiceInstances(this.serviceName, options(this.index), this);
+        }
+
+        void cancel() {
+            this.cancelled = true;
+        }
+
+        @Override
+        public void onComplete(ConsulResponse<List<ServiceHealth>> response) {
+            schedule(() -> update(response), 0);
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            if (this.cancelled) {
+                return;
+            }
+            if (!CatalogWatcher.this.stopped) {
+                ConsulTopologyMessages.MESSAGES.errorOnHealthUpdate(this.serviceName, t);
+            }
+            retry(this.backoff, () -> {
+                this.index = null;
+                watch();
+            });
+        }
+
+        private void update(ConsulResponse<List<ServiceHealth>> response) {
+            if (this.cancelled) {
+                return;
+            }
+            this.backoff.reset();
+            this.index = nextIndex(this.index, response.getIndex());
+
+            Map<HostAndPort, ServiceHealth> values = new HashMap<>();
+            for (ServiceHealth each : response.getResponse()) {
+                values.put(HostAndPort.fromParts(each.getService().getAddress(), each.getService().getPort()), each);
+            }
+            this.listener.notify(values);
+
+            watch();
+        }
+
+        private final String serviceName;
 
-    private Map<String, ServiceHealthCache> watchers = new HashMap<>();
+        private final ServiceCacheListener listener;
+
+        private final Backoff backoff = new Backoff(INITIAL_BACKOFF, MAX_BACKOFF, TimeUnit.MILLISECONDS);
+
+        private volatile boolean cancelled;
+
+        private volatile BigInteger index;
+    }
 }
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2015-2016 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.consul.runtime;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class BackoffTest {
+
+    @Test
+    public void testDoublesUpToMaximumAndResets() {
+        Backoff backoff = new Backoff(1, 5, TimeUnit.SECONDS);
+        assertThat(backoff.nextDelay()).isEqualTo(1000);
+        assertThat(backoff.nextDelay()).isEqualTo(2000);
+        assertThat(backoff.nextDelay()).isEqualTo(4000);
+        assertThat(backoff.nextDelay()).isEqualTo(5000);
+        assertThat(backoff.nextDelay()).isEqualTo(5000);
+
+        backoff.reset();
+        assertThat(backoff.nextDelay()).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Copyright 2015-2016 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.consul.runtime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import com.orbitz.consul.Consul;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.swarm.topology.runtime.TopologyManager;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Runs the watcher against a minimal stand-in for the Consul HTTP API, which answers blocking
+ * queries as soon as its catalog changes, or after a short wait.
+ */
+public class CatalogWatcherTest {
+
+    @Before
+    public void setUp() throws Exception {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.createContext("/v1/agent/self", (exchange) -> respond(exchange, 200, "{}"));
+        this.server.createContext("/v1/catalog/services", this::catalog);
+        this.server.createContext("/v1/health/service/", this::health);
+        this.server.start();
+
+        this.consul = Consul.builder()
+                .withClientBuilder(new ResteasyClientBuilder().connectionPoolSize(20))
+                .withUrl("http://127.0.0.1:" + this.server.getAddress().getPort())
+                .build();
+
+        this.topologyManager = new TopologyManager();
+        this.watcher = new CatalogWatcher();
+        this.watcher.getCatalogClientInjector().inject(this.consul.catalogClient());
+        this.watcher.getHealthClientInjector().inject(this.consul.healthClient());
+        this.watcher.getTopologyManagerInjector().inject(this.topologyManager);
+    }
+
+    @After
+    public void tearDown() {
+        this.watcher.stop(null);
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testServicesAreWatchedAndVanishedServicesRemoved() throws Exception {
+        setService("foo", "10.0.0.1", 8080);
+        this.watcher.start(null);
+
+        await(() -> this.topologyManager.registrationsForService("foo").size() == 1);
+        assertThat(this.topologyManager.registrationsForService("foo", "http")).hasSize(1);
+
+        setService("bar", "10.0.0.2", 8081);
+        await(() -> this.topologyManager.registrationsForService("bar").size() == 1);
+
+        removeService("foo");
+        await(() -> this.topologyManager.registrationsForService("foo").isEmpty());
+        assertThat(this.topologyManager.registrationsForService("bar")).hasSize(1);
+    }
+
+    @Test
+    public void testRecoversFromErrors() throws Exception {
+        this.failures = 3;
+        setService("foo", "10.0.0.1", 8080);
+        this.watcher.start(null);
+
+        await(() -> this.topologyManager.registrationsForService("foo").size() == 1);
+        assertThat(this.failures).isEqualTo(0);
+    }
+
+    @Test
+    public void testIndexThatIsZeroOrGoesBackwardsIsNotBlockedOn() {
+        assertThat(CatalogWatcher.nextIndex(null, BigInteger.valueOf(5))).isEqualTo(BigInteger.valueOf(5));
+        assertThat(CatalogWatcher.nextIndex(BigInteger.valueOf(5), BigInteger.valueOf(5))).isEqualTo(BigInteger.valueOf(5));
+        assertThat(CatalogWatcher.nextIndex(BigInteger.valueOf(5), BigInteger.valueOf(7))).isEqualTo(BigInteger.valueOf(7));
+        assertThat(CatalogWatcher.nextIndex(BigInteger.valueOf(5), BigInteger.valueOf(3))).isNull();
+        assertThat(CatalogWatcher.nextIndex(null, BigInteger.ZERO)).isNull();
+        assertThat(CatalogWatcher.nextIndex(BigInteger.valueOf(5), null)).isNull();
+    }
+
+    private void catalog(HttpExchange exchange) throws IOException {
+        synchronized (this) {
+            if (this.failures > 0) {
+                --this.failures;
+                respond(exchange, 500, "unavailable");
+                return;
+            }
+        }
+        long index = awaitChange(exchange);
+        StringBuilder json = new StringBuilder("{");
+        synchronized (this) {
+            for (String name : this.services.keySet()) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append('"').append(name).append("\":[\"http\"]");
+            }
+        }
+        json.append('}');
+        respond(exchange, 200, json.toString(), index);
+    }
+
+    private void health(HttpExchange exchange) throws IOException {
+        String name = exchange.getRequestURI().getPath().substring("/v1/health/service/".length());
+        long index = awaitChange(exchange);
+        String instance;
+        synchronized (this) {
+            instance = this.services.get(name);
+        }
+        String json = "[]";
+        if (instance != null) {
+            String[] parts = instance.split(":");
+            json = "[{\"Node\":{\"Node\":\"node1\",\"Address\":\"" + parts[0] + "\",\"Datacenter\":\"dc1\"},"
+                    + "\"Service\":{\"ID\":\"" + name + "\",\"Service\":\"" + name + "\",\"Tags\":[\"http\"],"
+                    + "\"Address\":\"" + parts[0] + "\",\"Port\":" + parts[1] + ",\"EnableTagOverride\":false},"
+                    + "\"Checks\":[]}]";
+        }
+        respond(exchange, 200, json, index);
+    }
+
+    private synchronized long awaitChange(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null && query.contains("index=" + this.index)) {
+            try {
+                wait(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return this.index;
+    }
+
+    private synchronized void setService(String name, String address, int port) {
+        this.services.put(name, address + ":" + port);
+        ++this.index;
+        notifyAll();
+    }
+
+    private synchronized void removeService(String name) {
+        this.services.remove(name);
+        ++this.index;
+        notifyAll();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        respond(exchange, status, body, 1);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body, long index) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("X-Consul-Index", String.valueOf(index));
+        exchange.getResponseHeaders().add("X-Consul-Lastcontact", "0");
+        exchange.getResponseHeaders().add("X-Consul-Knownleader", "true");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("condition not met within 10s");
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private HttpServer server;
+
+    private Consul consul;
+
+    private TopologyManager topologyManager;
+
+    private CatalogWatcher watcher;
+
+    private final Map<String, String> services = new LinkedHashMap<>();
+
+    private long index = 1;
+
+    private volatile int failures;
+}
@@ -93,6 +93,43 @@ public class TopologyProxyService implements Service<TopologyProxyService>, Topo
         }
     }
 
+    /**
+     * Apply only the entries added and removed for the proxied services touched by the change;
+     * a service not yet synchronized is reconciled against the full topology.
+     */
+    @Override
+    public void onChange(Topology topology, Topology.Change change) {
+        Map<String, List<Topology.Entry>> topologyMap = null;
+        for (String serviceName : serviceNames) {
+            List<Topology.Entry> added = change.getAdded().getOrDefault(serviceName, Collections.emptyList());
+            List<Topology.Entry> removed = change.getRemoved().getOrDefault(serviceName, Collections.emptyList());
+            List<Topology.Entry> oldEntries = proxyEntries.get(serviceName);
+            if (oldEntries == null) {
+                if (topologyMap == null) {
+                    topologyMap = topology.asMap();
+                }
+                updateProxyHosts(serviceName, topologyMap.getOrDefault(serviceName, Collections.emptyList()));
+            } else if (!added.isEmpty() || !removed.isEmpty()) {
+                // the full reconcile may have read a newer topology than this change
+                List<Topology.Entry> entries = new ArrayList<>(oldEntries);
+                List<Topology.Entry> entriesToRemove = new ArrayList<>();
+                List<Topology.Entry> entriesToAdd = new ArrayList<>();
+                for (Topology.Entry entry : removed) {
+                    if (entries.remove(entry)) {
+                        entriesToRemove.add(entry);
+                    }
+                }
+                for (Topology.Entry entry : added) {
+                    if (!entries.contains(entry)) {
+                        entries.add(entry);
+                        entriesToAdd.add(entry);
+                    }
+                }
+                updateProxyHosts(serviceName, entries, entriesToRemove, entriesToAdd);
+            }
+        }
+    }
+
     public Injector<HttpHandler> getHandlerInjectorFor(String serviceName) {
         InjectedValue<HttpHandler> injector = proxyHandlerMap.get(serviceName);
         if (injector == null) {
@@ -103,6 +140,28 @@ public class TopologyProxyService implements Service<TopologyProxyService>, Topo
     }
 
     private void updateProxyHosts(String serviceName, List<Topology.Entry> entries) {
+        List<Topology.Entry> oldEntries = proxyEntries.get(serviceName);
+        List<Topology.Entry> entriesToRemove = new ArrayList<>();
+        List<Topology.Entry> entriesToAdd = new ArrayList<>();
+        if (oldEntries == null) {
+            entriesToAdd.addAll(entries);
+        } else {
+            for (Topology.Entry oldEntry : oldEntries) {
+                if (!entries.contains(oldEntry)) {
+                    entriesToRemove.add(oldEntry);
+                }
+            }
+            for (Topology.Entry entry : entries) {
+                if (!oldEntries.contains(entry)) {
+                    entriesToAdd.add(entry);
+                }
+            }
+        }
+        updateProxyHosts(serviceName, entries, entriesToRemove, entriesToAdd);
+    }
+
+    private void updateProxyHosts(String serviceName, List<Topology.Entry> entries,
+                                  List<Topology.Entry> entriesToRemove, List<Topology.Entry> entriesToAdd) {
         HttpHandler proxyHandler = proxyHandlerMap.get(serviceName).getOptionalValue();
 
         if (proxyHandler == null) {
@@ -123,23 +182,6 @@ public class TopologyProxyService implements Service<TopologyProxyService>, Topo
             proxyClient = (LoadBalancingProxyClient) ((ProxyHandler) proxyHandler).getProxyClient();
         }
 
-        List<Topology.Entry> oldEntries = proxyEntries.get(serviceName);
-        List<Topology.Entry> entriesToRemove = new ArrayList<>();
-        List<Topology.Entry> entriesToAdd = new ArrayList<>();
-        if (oldEntries == null) {
-            entriesToAdd.addAll(entries);
-        } else {
-            for (Topology.Entry oldEntry : oldEntries) {
-                if (!entries.contains(oldEntry)) {
-                    entriesToRemove.add(oldEntry);
-                }
-            }
-            for (Topology.Entry entry : entries) {
-                if (!oldEntries.contains(entry)) {
-                    entriesToAdd.add(entry);
-                }
-            }
-        }
         for (Topology.Entry entry : entriesToRemove) {
             try {
                 proxyClient.removeHost(entryToURI(entry));
@@ -16,17 +16,19 @@
 package org.wildfly.swarm.topology.webapp.runtime;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import javax.enterprise.inject.Vetoed;
@@ -36,6 +38,8 @@ import javax.servlet.AsyncEvent;
 import javax.servlet.AsyncListener;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -46,12 +50,22 @@ import org.wildfly.swarm.topology.TopologyListener;
 
 
 /**
+ * Streams the topology to clients as server-sent events.
+ *
+ * <p>A single topology listener serves all connections: each topology version is rendered at most
+ * once per scheme, and the same bytes are written to every connection. Writes are queued per connection and
+ * performed with non-blocking I/O; a connection with too many events still queued is dropped.</p>
+ *
  * @author Bob McWhirter
  */
 @Vetoed
 @WebServlet(urlPatterns = {"/system/stream"}, asyncSupported = true)
 public class TopologySSEServlet extends HttpServlet {
 
+    private static final byte[] KEEP_ALIVE = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final int MAX_PENDING_EVENTS = 16;
+
     @Override
     public void init(ServletConfig config) throws ServletException {
 
@@ -63,7 +77,18 @@ public class TopologySSEServlet extends HttpServlet {
             throw new ServletException(e);
         }
 
-        this.keepAliveExecutor = Executors.newScheduledThreadPool(2);
+        this.keepAliveExecutor = Executors.newSingleThreadScheduledExecutor();
+        this.keepAliveExecutor.scheduleAtFixedRate(this::keepAlive, 10, 15, TimeUnit.SECONDS);
+        this.topology.addListener(this.topologyListener);
+    }
+
+    @Override
+    public void destroy() {
+        this.topology.removeListener(this.topologyListener);
+        this.keepAliveExecutor.shutdownNow();
+        this.connections.forEach(SSEConnection::close);
+        this.connections.clear();
+        super.destroy();
     }
 
     @Override
@@ -73,34 +98,44 @@ public class TopologySSEServlet extends HttpServlet {
         resp.setCharacterEncoding("UTF-8");
 
         AsyncContext asyncContext = req.startAsync();
-        PrintWriter writer = resp.getWriter();
-
-        TopologyListener topologyListener = new SSETopologyListener(writer, req.isSecure());
+        ServletOutputStream out = resp.getOutputStream();
+        SSEConnection connection = new SSEConnection(asyncContext, out, req.isSecure());
 
-        ScheduledFuture keepAlive = this.keepAliveExecutor.scheduleAtFixedRate(
-                new KeepAliveRunnable(writer, topologyListener),
-                10,
-                15,
-                TimeUnit.SECONDS);
         asyncContext.setTimeout(0);
-        asyncContext.addListener(new TopologyAsyncListener(topology, topologyListener, keepAlive));
-
+        asyncContext.addListener(new TopologyAsyncListener(() -> this.connections.remove(connection)));
+        out.setWriteListener(connection);
+
+        // register before rendering, so a change racing with this request is not missed,
+        // and hold the connection until the initial event is queued so it cannot overtake a newer one
+        synchronized (connection) {
+            this.connections.add(connection);
+            RenderedTopology rendered = this.rendered;
+            if (rendered == null) {
+                rendered = new RenderedTopology(this.topology.asMap());
+            }
+            connection.send(rendered.event(connection.secure));
+        }
+    }
 
-        this.topology.addListener(topologyListener);
-        String json = topologyToJson(req.isSecure());
-        writer.write("event: topologyChange\n");
-        writer.write("data: " + json);
-        writer.flush();
+    private void onChange(Topology topology) {
+        RenderedTopology rendered = new RenderedTopology(topology.asMap());
+        this.rendered = rendered;
+        for (SSEConnection each : this.connections) {
+            each.send(rendered.event(each.secure));
+        }
+    }
 
+    private void keepAlive() {
+        for (SSEConnection each : this.connections) {
+            each.send(KEEP_ALIVE);
+        }
     }
 
-    private String topologyToJson(boolean secure) {
+    private String topologyToJson(Map<String, List<Topology.Entry>> map, boolean secure) {
         StringBuilder json = new StringBuilder();
 
         json.append("{");
 
-        Map<String, List<Topology.Entry>> map = this.topology.asMap();
-
         Set<String> keys = map.keySet();
         Iterator<String> keyIter = keys.iterator();
 
@@ -180,70 +215,139 @@ public class TopologySSEServlet extends HttpServlet {
 
     private ScheduledExecutorService keepAliveExecutor;
 
-    private class KeepAliveRunnable implements Runnable {
-        private final PrintWriter writer;
+    private final Set<SSEConnection> connections = new CopyOnWriteArraySet<>();
 
-        private final TopologyListener topologyListener;
+    private final TopologyListener topologyListener = this::onChange;
 
-        public KeepAliveRunnable(PrintWriter writer, TopologyListener topologyListener) {
-            this.writer = writer;
-            this.topologyListener = topologyListener;
+    private volatile RenderedTopology rendered;
+
+    /**
+     * A topology version, rendered lazily and at most once for each scheme.
+     */
+    private class RenderedTopology {
+
+        RenderedTopology(Map<String, List<Topology.Entry>> map) {
+            this.map = map;
+        }
+
+        synchronized byte[] event(boolean secure) {
+            int index = secure ? 1 : 0;
+            if (this.events[index] == null) {
+                String event = "event: topologyChange\n" + "data: " + topologyToJson(this.map, secure);
+                this.events[index] = event.getBytes(StandardCharsets.UTF_8);
+            }
+            return this.events[index];
+        }
+
+        private final Map<String, List<Topology.Entry>> map;
+
+        private final byte[][] events = new byte[2][];
+    }
+
+    /**
+     * A client connection, written with non-blocking servlet I/O so a slow client never stalls the notifier.
+     */
+    private class SSEConnection implements WriteListener {
+
+        SSEConnection(AsyncContext asyncContext, ServletOutputStream out, boolean secure) {
+            this.asyncContext = asyncContext;
+            this.out = out;
+            this.secure = secure;
+        }
+
+        void send(byte[] bytes) {
+            synchronized (this) {
+                if (this.closed) {
+                    return;
+                }
+                if (this.pending.size() >= MAX_PENDING_EVENTS) {
+                    // the client has fallen behind
+                    close();
+                    return;
+                }
+                this.pending.add(bytes);
+            }
+            onWritePossible();
         }
 
         @Override
-        public void run() {
+        public synchronized void onWritePossible() {
+            if (this.closed) {
+                return;
+            }
             try {
-                writer.write(":\n\n");
-                writer.flush();
-            } catch (Throwable t) {
-                TopologySSEServlet.this.topology.removeListener(topologyListener);
-                throw t;
+                while (!this.pending.isEmpty() && this.out.isReady()) {
+                    this.out.write(this.pending.poll());
+                }
+                if (this.pending.isEmpty() && this.out.isReady()) {
+                    this.out.flush();
+                }
+            } catch (IOException | RuntimeException e) {
+                // client went away
+                close();
             }
+        }
 
+        @Override
+        public void onError(Throwable t) {
+            close();
         }
-    }
 
-    public static class TopologyAsyncListener implements AsyncListener {
-        private final ScheduledFuture keepAlive;
+        synchronized void close() {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.pending.clear();
+            TopologySSEServlet.this.connections.remove(this);
+            try {
+                this.asyncContext.complete();
+            } catch (IllegalStateException e) {
+                // already completed
+            }
+        }
+
+        private final AsyncContext asyncContext;
+
+        private final ServletOutputStream out;
 
-        private final TopologyListener topologyListener;
+        private final boolean secure;
 
-        private final Topology topology;
+        private final Queue<byte[]> pending = new ArrayDeque<>();
+
+        private boolean closed;
+    }
+
+    public static class TopologyAsyncListener implements AsyncListener {
+        private final Runnable close;
 
         public TopologyAsyncListener() {
             // Do Nothing
-            this.topology = null;
-            this.topologyListener = null;
-            this.keepAlive = null;
+            this.close = null;
         }
 
-        public TopologyAsyncListener(Topology topology, TopologyListener topologyListener, ScheduledFuture scheduledFuture) {
-            this.topology = topology;
-            this.topologyListener = topologyListener;
-            this.keepAlive = scheduledFuture;
+        public TopologyAsyncListener(Runnable close) {
+            this.close = close;
         }
 
         @Override
         public void onComplete(AsyncEvent asyncEvent) throws IOException {
-            if (topology != null) {
-                topology.removeListener(topologyListener);
-                keepAlive.cancel(true);
+            if (close != null) {
+                close.run();
             }
         }
 
         @Override
         public void onTimeout(AsyncEvent asyncEvent) throws IOException {
-            if (topology != null) {
-                topology.removeListener(topologyListener);
-                keepAlive.cancel(true);
+            if (close != null) {
+                close.run();
             }
         }
 
         @Override
         public void onError(AsyncEvent asyncEvent) throws IOException {
-            if (topology != null) {
-                topology.removeListener(topologyListener);
-                keepAlive.cancel(true);
+            if (close != null) {
+                close.run();
             }
         }
 
@@ -251,27 +355,4 @@ public class TopologySSEServlet extends HttpServlet {
         public void onStartAsync(AsyncEvent asyncEvent) throws IOException {
         }
     }
-
-    private class SSETopologyListener implements TopologyListener {
-        Object writeLock = new Object();
-
-        final PrintWriter writer;
-
-        final boolean secure;
-
-        private SSETopologyListener(PrintWriter writer, boolean secure) {
-            this.writer = writer;
-            this.secure = secure;
-        }
-
-        @Override
-        public void onChange(Topology topology) {
-            String json = topologyToJson(secure);
-            synchronized (writeLock) {
-                writer.write("event: topologyChange\n");
-                writer.write("data: " + json);
-                writer.flush();
-            }
-        }
-    }
 }
@@ -49,4 +49,26 @@ public interface Topology {
         List<String> getTags();
 
     }
+
+    /**
+     * The entries added and removed by a change to the topology.
+     */
+    interface Change {
+
+        /**
+         * @return The version of the topology after the change; increases with every change.
+         */
+        long getVersion();
+
+        /**
+         * @return The added entries, keyed by service name.
+         */
+        Map<String, List<Entry>> getAdded();
+
+        /**
+         * @return The removed entries, keyed by service name.
+         */
+        Map<String, List<Entry>> getRemoved();
+
+    }
 }
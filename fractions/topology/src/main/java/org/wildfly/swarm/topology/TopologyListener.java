@@ -20,4 +20,16 @@ package org.wildfly.swarm.topology;
  */
 public interface TopologyListener {
     void onChange(Topology topology);
+
+    /**
+     * Receive the entries added and removed by a change. Changes are delivered in order.
+     *
+     * <p>By default, delegates to {@link #onChange(Topology)}.</p>
+     *
+     * @param topology The topology.
+     * @param change   The change.
+     */
+    default void onChange(Topology topology, Topology.Change change) {
+        onChange(topology);
+    }
 }
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.runtime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.wildfly.swarm.topology.Topology;
+
+/**
+ * The registrations added and removed between two topology snapshots.
+ */
+class RegistrationChange implements Topology.Change {
+
+    RegistrationChange(long version, Collection<Registration> added, Collection<Registration> removed) {
+        this.version = version;
+        this.added = byName(added);
+        this.removed = byName(removed);
+    }
+
+    @Override
+    public long getVersion() {
+        return this.version;
+    }
+
+    @Override
+    public Map<String, List<Topology.Entry>> getAdded() {
+        return this.added;
+    }
+
+    @Override
+    public Map<String, List<Topology.Entry>> getRemoved() {
+        return this.removed;
+    }
+
+    @Override
+    public String toString() {
+        return "[RegistrationChange: " + this.version + "; added=" + this.added + "; removed=" + this.removed + "]";
+    }
+
+    private static Map<String, List<Topology.Entry>> byName(Collection<Registration> registrations) {
+        if (registrations.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, List<Topology.Entry>> map = new LinkedHashMap<>();
+        for (Registration each : registrations) {
+            map.computeIfAbsent(each.getName(), (k) -> new ArrayList<>()).add(each);
+        }
+        map.replaceAll((name, list) -> Collections.unmodifiableList(list));
+        return Collections.unmodifiableMap(map);
+    }
+
+    private final long version;
+
+    private final Map<String, List<Topology.Entry>> added;
+
+    private final Map<String, List<Topology.Entry>> removed;
+}
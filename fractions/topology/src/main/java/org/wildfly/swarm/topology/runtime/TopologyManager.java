@@ -17,14 +17,14 @@ package org.wildfly.swarm.topology.runtime;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Executor;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceTarget;
@@ -39,17 +39,32 @@ import org.wildfly.swarm.topology.deployment.RegistrationAdvertiser;
  */
 public class TopologyManager implements Topology {
 
+    /**
+     * Window, in milliseconds, within which changes are coalesced into a single notification.
+     */
+    public static final String NOTIFY_WINDOW_PROPERTY = "swarm.topology.notify-window";
+
+    private static final long DEFAULT_NOTIFY_WINDOW = 100;
+
     public static final TopologyManager INSTANCE = new TopologyManager();
 
+    public TopologyManager() {
+        this(Long.getLong(NOTIFY_WINDOW_PROPERTY, DEFAULT_NOTIFY_WINDOW));
+    }
+
+    TopologyManager(long notifyWindow) {
+        this.notifyWindow = Math.max(0, notifyWindow);
+    }
+
     public void setServiceTarget(ServiceTarget serviceTarget) {
         this.serviceTarget = serviceTarget;
     }
 
-    public synchronized void addListener(TopologyListener listener) {
+    public void addListener(TopologyListener listener) {
         this.listeners.add(listener);
     }
 
-    public synchronized void removeListener(TopologyListener listener) {
+    public void removeListener(TopologyListener listener) {
         this.listeners.remove(listener);
     }
 
@@ -62,101 +77,118 @@ public class TopologyManager implements Topology {
         return new AdvertisementHandleImpl(httpAdvert, httpsAdvert);
     }
 
-    public synchronized Set<Registration> registrationsForSourceKey(String sourceKey) {
-        Set<Registration> result = Collections.unmodifiableSet(
-                this.registrations.stream()
-                        .filter(e -> e.getSourceKey().equals(sourceKey))
-                        .collect(Collectors.toSet())
-        );
-        return result;
+    /**
+     * @return The version of the current topology; increases with every change.
+     */
+    public long getVersion() {
+        return this.snapshot.getVersion();
     }
 
-    public synchronized Set<Registration> registrationsForService(String name) {
-        Set<Registration> result = Collections.unmodifiableSet(
-                this.registrations.stream()
-                        .filter(e -> e.getName().equals(name))
-                        .collect(Collectors.toSet())
-        );
-
-        return result;
+    public Set<Registration> registrationsForSourceKey(String sourceKey) {
+        return this.snapshot.registrationsForSourceKey(sourceKey);
     }
 
-    public synchronized Set<Registration> registrationsForService(String name, String tag) {
-        Set<Registration> result = Collections.unmodifiableSet(
-                this.registrations.stream()
-                        .filter(e -> e.getName().equals(name) && e.hasTag(tag))
-                        .collect(Collectors.toSet())
-        );
+    public Set<Registration> registrationsForService(String name) {
+        return this.snapshot.registrationsForService(name);
+    }
 
-        return result;
+    public Set<Registration> registrationsForService(String name, String tag) {
+        return this.snapshot.registrationsForService(name, tag);
     }
 
     public synchronized void register(Registration registration) {
-        if (!this.registrations.contains(registration)) {
-            this.registrations.add(registration);
-            fireListeners();
+        if (!this.snapshot.contains(registration)) {
+            publish(this.snapshot.with(registration));
         }
     }
 
     public synchronized void unregister(Registration registration) {
-        boolean removed = this.registrations.removeIf(e -> e.equals(registration));
-        if (removed) {
-            fireListeners();
-        }
+        remove(e -> e.equals(registration));
     }
 
     public synchronized void unregisterAll(String sourceKey) {
-        boolean removed = this.registrations.removeIf(e -> e.getSourceKey().equals(sourceKey));
-        if (removed) {
-            fireListeners();
-        }
+        remove(e -> e.getSourceKey().equals(sourceKey));
     }
 
     public synchronized void unregisterAll(String sourceKey, String name) {
-        boolean removed = this.registrations.removeIf(e -> e.getSourceKey().equals(sourceKey) && e.getName().equals(name));
-        if (removed) {
-            fireListeners();
-        }
+        remove(e -> e.getSourceKey().equals(sourceKey) && e.getName().equals(name));
     }
 
     @Override
-    public synchronized Map<String, List<Entry>> asMap() {
-        Map<String, List<Entry>> map = new HashMap<>();
-
-        for (Registration registration : this.registrations) {
-            List<Entry> list = map.get(registration.getName());
-            if (list == null) {
-                list = new ArrayList<>();
-                map.put(registration.getName(), list);
-            }
-            list.add(registration);
+    public Map<String, List<Entry>> asMap() {
+        return this.snapshot.asMap();
+    }
+
+    private void remove(Predicate<Registration> filter) {
+        if (this.snapshot.registrations().stream().anyMatch(filter)) {
+            publish(this.snapshot.without(filter));
         }
+    }
 
-        return map;
+    private void publish(TopologySnapshot next) {
+        this.snapshot = next;
+        if (!this.flushScheduled) {
+            this.flushScheduled = true;
+            this.executor.schedule(this::flush, this.notifyWindow, TimeUnit.MILLISECONDS);
+        }
     }
 
-    private void fireListeners() {
-        List<TopologyListener> currentListeners = new ArrayList<>();
-        currentListeners.addAll(this.listeners);
-        currentListeners.forEach((e) -> {
-            executor.execute(() -> {
-                try {
-                    e.onChange(this);
-                } catch (Throwable t) {
-                    TopologyMessages.MESSAGES.errorFiringEvent(e.getClass().getName(), t);
-                    removeListener(e);
-                }
-            });
-        });
+    /**
+     * Deliver the net change since the last delivered snapshot. Runs on the single notifier
+     * thread, so changes reach each listener in version order, and a burst of changes within
+     * the notify window results in one notification.
+     */
+    private void flush() {
+        TopologySnapshot current;
+        synchronized (this) {
+            this.flushScheduled = false;
+            current = this.snapshot;
+        }
+        TopologySnapshot previous = this.delivered;
+        this.delivered = current;
+
+        List<Registration> added = new ArrayList<>();
+        List<Registration> removed = new ArrayList<>();
+        for (Registration each : current.registrations()) {
+            if (!previous.contains(each)) {
+                added.add(each);
+            }
+        }
+        for (Registration each : previous.registrations()) {
+            if (!current.contains(each)) {
+                removed.add(each);
+            }
+        }
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        Topology.Change change = new RegistrationChange(current.getVersion(), added, removed);
+        for (TopologyListener each : this.listeners) {
+            try {
+                each.onChange(this, change);
+            } catch (Throwable t) {
+                TopologyMessages.MESSAGES.errorFiringEvent(each.getClass().getName(), t);
+                removeListener(each);
+            }
+        }
     }
 
-    private List<TopologyListener> listeners = new ArrayList<>();
+    private final List<TopologyListener> listeners = new CopyOnWriteArrayList<>();
 
-    private List<Registration> registrations = new ArrayList<>();
+    private volatile TopologySnapshot snapshot = TopologySnapshot.EMPTY;
 
-    private Executor executor = Executors.newFixedThreadPool(2);
+    private TopologySnapshot delivered = TopologySnapshot.EMPTY;
 
-    private ServiceTarget serviceTarget;
+    private boolean flushScheduled;
+
+    private final long notifyWindow;
 
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor((r) -> {
+        Thread thread = new Thread(r, "topology-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
 
+    private ServiceTarget serviceTarget;
 }
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.runtime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.wildfly.swarm.topology.Topology;
+
+/**
+ * Immutable, versioned view of all registrations, indexed by service name, tag and source key.
+ *
+ * <p>{@link TopologyManager} publishes a new snapshot on every change, so lookups never lock and
+ * never copy. Tags are indexed as they are when a registration is added.</p>
+ */
+final class TopologySnapshot {
+
+    static final TopologySnapshot EMPTY = new TopologySnapshot(0, Collections.emptySet());
+
+    private TopologySnapshot(long version, Collection<Registration> registrations) {
+        this.version = version;
+        this.registrations = Collections.unmodifiableSet(new LinkedHashSet<>(registrations));
+
+        Map<String, Set<Registration>> byName = new HashMap<>();
+        Map<String, Map<String, Set<Registration>>> byNameAndTag = new HashMap<>();
+        Map<String, Set<Registration>> bySourceKey = new HashMap<>();
+        Map<String, List<Topology.Entry>> entries = new LinkedHashMap<>();
+
+        for (Registration each : this.registrations) {
+            byName.computeIfAbsent(each.getName(), (k) -> new LinkedHashSet<>()).add(each);
+            bySourceKey.computeIfAbsent(each.getSourceKey(), (k) -> new LinkedHashSet<>()).add(each);
+            Map<String, Set<Registration>> byTag = byNameAndTag.computeIfAbsent(each.getName(), (k) -> new HashMap<>());
+            for (String tag : each.getTags()) {
+                byTag.computeIfAbsent(tag, (k) -> new LinkedHashSet<>()).add(each);
+            }
+            entries.computeIfAbsent(each.getName(), (k) -> new ArrayList<>()).add(each);
+        }
+
+        this.byName = freeze(byName);
+        this.bySourceKey = freeze(bySourceKey);
+        Map<String, Map<String, Set<Registration>>> frozenByNameAndTag = new HashMap<>();
+        byNameAndTag.forEach((name, byTag) -> frozenByNameAndTag.put(name, freeze(byTag)));
+        this.byNameAndTag = frozenByNameAndTag;
+        entries.replaceAll((name, list) -> Collections.unmodifiableList(list));
+        this.entries = Collections.unmodifiableMap(entries);
+    }
+
+    long getVersion() {
+        return this.version;
+    }
+
+    boolean contains(Registration registration) {
+        return this.registrations.contains(registration);
+    }
+
+    Set<Registration> registrations() {
+        return this.registrations;
+    }
+
+    Set<Registration> registrationsForSourceKey(String sourceKey) {
+        return this.bySourceKey.getOrDefault(sourceKey, Collections.emptySet());
+    }
+
+    Set<Registration> registrationsForService(String name) {
+        return this.byName.getOrDefault(name, Collections.emptySet());
+    }
+
+    Set<Registration> registrationsForService(String name, String tag) {
+        Map<String, Set<Registration>> byTag = this.byNameAndTag.get(name);
+        if (byTag == null) {
+            return Collections.emptySet();
+        }
+        return byTag.getOrDefault(tag, Collections.emptySet());
+    }
+
+    Map<String, List<Topology.Entry>> asMap() {
+        return this.entries;
+    }
+
+    TopologySnapshot with(Registration registration) {
+        List<Registration> next = new ArrayList<>(this.registrations.size() + 1);
+        next.addAll(this.registrations);
+        next.add(registration);
+        return new TopologySnapshot(this.version + 1, next);
+    }
+
+    TopologySnapshot without(Predicate<Registration> filter) {
+        List<Registration> next = new ArrayList<>(this.registrations.size());
+        for (Registration each : this.registrations) {
+            if (!filter.test(each)) {
+                next.add(each);
+            }
+        }
+        return new TopologySnapshot(this.version + 1, next);
+    }
+
+    private static Map<String, Set<Registration>> freeze(Map<String, Set<Registration>> map) {
+        Map<String, Set<Registration>> frozen = new HashMap<>();
+        map.forEach((key, set) -> frozen.put(key, Collections.unmodifiableSet(set)));
+        return frozen;
+    }
+
+    private final long version;
+
+    private final Set<Registration> registrations;
+
+    private final Map<String, Set<Registration>> byName;
+
+    private final Map<String, Map<String, Set<Registration>>> byNameAndTag;
+
+    private final Map<String, Set<Registration>> bySourceKey;
+
+    private final Map<String, List<Topology.Entry>> entries;
+}
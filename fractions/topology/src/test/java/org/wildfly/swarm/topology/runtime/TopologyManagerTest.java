@@ -0,0 +1,117 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.runtime;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyListener;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TopologyManagerTest {
+
+    @Test
+    public void testIndexedLookups() {
+        TopologyManager manager = new TopologyManager();
+        manager.register(new Registration("a", "foo", "10.0.0.1", 8080, "http"));
+        manager.register(new Registration("a", "foo", "10.0.0.2", 8443, "https"));
+        manager.register(new Registration("b", "bar", "10.0.0.3", 8080, "http"));
+
+        assertThat(manager.registrationsForService("foo")).hasSize(2);
+        assertThat(manager.registrationsForService("foo", "https")).hasSize(1);
+        assertThat(manager.registrationsForService("foo", "missing")).isEmpty();
+        assertThat(manager.registrationsForService("missing", "http")).isEmpty();
+        assertThat(manager.registrationsForSourceKey("b")).hasSize(1);
+        assertThat(manager.asMap().keySet()).containsOnly("foo", "bar");
+        assertThat(manager.getVersion()).isEqualTo(3);
+
+        manager.unregisterAll("a", "foo");
+        assertThat(manager.registrationsForService("foo")).isEmpty();
+        assertThat(manager.asMap().keySet()).containsOnly("bar");
+        assertThat(manager.getVersion()).isEqualTo(4);
+    }
+
+    @Test
+    public void testNoChangeDoesNotBumpVersion() {
+        TopologyManager manager = new TopologyManager();
+        manager.register(new Registration("a", "foo", "10.0.0.1", 8080));
+        manager.register(new Registration("a", "foo", "10.0.0.1", 8080));
+        manager.unregisterAll("missing");
+
+        assertThat(manager.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void testChangesAreDeliveredInOrder() throws Exception {
+        BlockingQueue<Topology.Change> changes = new LinkedBlockingQueue<>();
+        TopologyManager manager = new TopologyManager(0);
+        manager.addListener(listener(changes));
+
+        Registration registration = new Registration("a", "foo", "10.0.0.1", 8080);
+        manager.register(registration);
+
+        Topology.Change added = changes.poll(5, TimeUnit.SECONDS);
+        assertThat(added.getVersion()).isEqualTo(1);
+        List<Topology.Entry> entries = added.getAdded().get("foo");
+        assertThat(entries).containsOnly(registration);
+        assertThat(added.getRemoved()).isEmpty();
+
+        manager.unregister(registration);
+
+        Topology.Change removed = changes.poll(5, TimeUnit.SECONDS);
+        assertThat(removed.getVersion()).isEqualTo(2);
+        assertThat(removed.getAdded()).isEmpty();
+        assertThat(removed.getRemoved().get("foo")).containsOnly(registration);
+    }
+
+    @Test
+    public void testBurstIsCoalesced() throws Exception {
+        BlockingQueue<Topology.Change> changes = new LinkedBlockingQueue<>();
+        TopologyManager manager = new TopologyManager(200);
+        manager.addListener(listener(changes));
+
+        Registration shortLived = new Registration("a", "foo", "10.0.0.1", 8080);
+        manager.register(shortLived);
+        manager.register(new Registration("a", "foo", "10.0.0.2", 8080));
+        manager.register(new Registration("a", "bar", "10.0.0.3", 8080));
+        manager.unregister(shortLived);
+
+        Topology.Change change = changes.poll(5, TimeUnit.SECONDS);
+        assertThat(change.getVersion()).isEqualTo(4);
+        assertThat(change.getAdded().keySet()).containsOnly("foo", "bar");
+        assertThat(change.getAdded().get("foo")).hasSize(1);
+        assertThat(change.getRemoved()).isEmpty();
+        assertThat(changes.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    private static TopologyListener listener(BlockingQueue<Topology.Change> changes) {
+        return new TopologyListener() {
+            @Override
+            public void onChange(Topology topology) {
+            }
+
+            @Override
+            public void onChange(Topology topology, Topology.Change change) {
+                changes.add(change);
+            }
+        };
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.fractions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipFile;
+
+/**
+ * Class and package names referenced by previously scanned archives, one file per archive.
+ *
+ * <p>Archives are identified by a checksum of their central directory: the name, size and CRC of
+ * every entry. It changes with the content of any entry, but not with timestamps, so an archive
+ * rebuilt from unchanged classes keeps its cache entry. Only the most recently used entries are kept, so
+ * archives changing with every build do not accumulate. The directory may be deleted at any time.</p>
+ */
+class DetectionCache {
+
+    private static final String VERSION = "v1";
+
+    private static final String SUFFIX = ".classes";
+
+    static final int DEFAULT_MAX_ENTRIES = 32;
+
+    DetectionCache(Path directory) {
+        this(directory, DEFAULT_MAX_ENTRIES);
+    }
+
+    DetectionCache(Path directory, int maxEntries) {
+        this.directory = directory.resolve(VERSION);
+        this.maxEntries = maxEntries;
+    }
+
+    String checksum(ZipFile zip) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        byte[] numbers = new byte[16];
+        zip.stream().forEach(entry -> {
+            digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+            putLong(numbers, 0, entry.getSize());
+            putLong(numbers, 8, entry.getCrc());
+            digest.update(numbers);
+        });
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @return the names referenced by the archive, or <code>null</code> if it has not been scanned before
+     */
+    Set<String> read(String checksum) {
+        Path names = this.directory.resolve(checksum + SUFFIX);
+        if (!Files.exists(names)) {
+            return null;
+        }
+        try {
+            Set<String> result = new HashSet<>(Files.readAllLines(names, StandardCharsets.UTF_8));
+            // mark as recently used
+            Files.setLastModifiedTime(names, FileTime.fromMillis(System.currentTimeMillis()));
+            return result;
+        } catch (IOException e) {
+            // unreadable, scan again
+            return null;
+        }
+    }
+
+    void write(String checksum, Set<String> names) throws IOException {
+        Files.createDirectories(this.directory);
+        Path tmp = Files.createTempFile(this.directory, checksum, ".tmp");
+        try {
+            Files.write(tmp, names, StandardCharsets.UTF_8);
+            Files.move(tmp, this.directory.resolve(checksum + SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        evict();
+    }
+
+    /**
+     * Delete the least recently used entries beyond the maximum.
+     */
+    private void evict() {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "*" + SUFFIX)) {
+            stream.forEach(entries::add);
+        } catch (IOException e) {
+            return;
+        }
+        if (entries.size() <= this.maxEntries) {
+            return;
+        }
+
+        Map<Path, Long> used = new HashMap<>();
+        for (Path each : entries) {
+            try {
+                used.put(each, Files.getLastModifiedTime(each).toMillis());
+            } catch (IOException e) {
+                used.put(each, 0L);
+            }
+        }
+        entries.sort(Comparator.comparing(used::get));
+
+        for (Path each : entries.subList(0, entries.size() - this.maxEntries)) {
+            try {
+                Files.deleteIfExists(each);
+            } catch (IOException e) {
+                // another build may be using it, try again next time
+            }
+        }
+    }
+
+    private static void putLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; --i) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private final Path directory;
+
+    private final int maxEntries;
+}
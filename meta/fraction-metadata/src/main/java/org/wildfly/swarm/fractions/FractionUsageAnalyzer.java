@@ -25,12 +25,17 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
@@ -80,6 +85,24 @@ public class FractionUsageAnalyzer {
         return this;
     }
 
+    /**
+     * Number of threads scanning archive entries. Defaults to 1, scanning sequentially; zero or less uses
+     * one thread per available processor.
+     */
+    public FractionUsageAnalyzer parallelism(final int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Directory remembering the classes referenced by each scanned archive, by checksum, so unchanged
+     * archives are not parsed again by later analyses.
+     */
+    public FractionUsageAnalyzer cache(final Path cacheDirectory) {
+        this.cache = cacheDirectory == null ? null : new DetectionCache(cacheDirectory);
+        return this;
+    }
+
     public FractionUsageAnalyzer testClass(String testClass) {
         this.testClass = testClass;
 
@@ -106,7 +129,18 @@ public class FractionUsageAnalyzer {
 
         loadDetectorsAndScanners();
 
-        sources.forEach(this::scanFile);
+        int threads = this.parallelism > 0 ? this.parallelism : Runtime.getRuntime().availableProcessors();
+        if (threads > 1) {
+            this.pool = new ForkJoinPool(threads);
+        }
+        try {
+            sources.forEach(this::scanFile);
+        } finally {
+            if (this.pool != null) {
+                this.pool.shutdown();
+                this.pool = null;
+            }
+        }
 
         Set<String> detectedFractionNames =
                 detectors.stream()
@@ -176,7 +210,12 @@ public class FractionUsageAnalyzer {
     private Consumer<Scanner<?>> zipFileScannerConsumer(File source) {
         return s -> {
             try (ZipFile zip = new ZipFile(source)) {
-                scanEntries(zip);
+                // the cache does not know which class is the test class
+                if (this.cache != null && !this.removeTestClassFromScanning) {
+                    scanEntriesWithCache(zip);
+                } else {
+                    scanEntries(zip, null);
+                }
             } catch (IOException e) {
                 log.error("", e);
             }
@@ -201,11 +240,7 @@ public class FractionUsageAnalyzer {
 
         final String suffix = suffix(source.getSource().getFileName().toString());
 
-        Collection<FractionDetector<?>> validDetectors =
-                detectors.stream()
-                        .filter(d -> d.extensionToDetect().equals(suffix))
-                        .filter(d -> !d.detectionComplete())
-                        .collect(Collectors.toList());
+        Collection<FractionDetector<?>> validDetectors = incompleteDetectors(suffix);
 
         if (validDetectors.size() > 0) {
             fireScanner(suffix, s -> {
@@ -219,7 +254,7 @@ public class FractionUsageAnalyzer {
 
     }
 
-    private void scanSource(ZipEntry entry, ZipFile source) {
+    private void scanSource(ZipEntry entry, ZipFile source, Set<String> classNames) {
         if (this.removeTestClassFromScanning &&
                 transformClassSource(entry.getName()).equals(testClass)) {
             return;
@@ -227,11 +262,19 @@ public class FractionUsageAnalyzer {
 
         final String suffix = suffix(entry.getName());
 
-        Collection<FractionDetector<?>> validDetectors =
-                detectors.stream()
-                        .filter(d -> d.extensionToDetect().equals(suffix))
-                        .filter(d -> !d.detectionComplete())
-                        .collect(Collectors.toList());
+        Collection<FractionDetector<?>> validDetectors = incompleteDetectors(suffix);
+
+        if (classNames != null && CLASS.equals(suffix)) {
+            // record names even once detectors are complete, the cache entry must describe the whole jar
+            try {
+                Set<String> names = this.classScanner.collect(new ZipPathSource(source, entry));
+                classNames.addAll(names);
+                this.classScanner.detect(names, convertDetectors(validDetectors));
+            } catch (IOException e) {
+                log.error("", e);
+            }
+            return;
+        }
 
         if (validDetectors.size() > 0) {
             fireScanner(suffix, s -> {
@@ -244,30 +287,99 @@ public class FractionUsageAnalyzer {
         }
     }
 
-    private void scanEntries(ZipFile source) throws IOException {
-        final Enumeration<? extends ZipEntry> entries = source.entries();
-        while (entries.hasMoreElements()) {
-            ZipEntry entry = entries.nextElement();
-            if (!entry.isDirectory()) {
-                scanSource(entry, source);
+    /**
+     * Scan the entries of a zip, collecting the class and package names referenced by its classes if
+     * <code>classNames</code> is not null.
+     */
+    private void scanEntries(ZipFile source, Set<String> classNames) {
+        List<ZipEntry> entries = source.stream()
+                .filter(e -> !e.isDirectory())
+                .collect(Collectors.toList());
+
+        scanAll(entries, entry -> scanSource(entry, source, classNames));
+    }
+
+    private void scanEntriesWithCache(ZipFile source) throws IOException {
+        String checksum = this.cache.checksum(source);
+        Set<String> cachedNames = this.cache.read(checksum);
+        if (cachedNames != null) {
+            this.classScanner.detect(cachedNames, convertDetectors(incompleteDetectors(CLASS)));
+
+            List<ZipEntry> entries = source.stream()
+                    .filter(e -> !e.isDirectory() && !CLASS.equals(suffix(e.getName())))
+                    .collect(Collectors.toList());
+            scanAll(entries, entry -> scanSource(entry, source, null));
+            return;
+        }
+
+        Set<String> classNames = ConcurrentHashMap.newKeySet();
+        scanEntries(source, classNames);
+
+        // scanning may have stopped early, once every detector was complete
+        if (!allDetectionComplete()) {
+            try {
+                this.cache.write(checksum, classNames);
+            } catch (IOException e) {
+                log.error("Unable to cache fraction detection results for " + source.getName(), e);
             }
         }
     }
 
     private void scanEntries(Path source, Path basePath) throws IOException {
         if (Files.isDirectory(source)) {
+            List<Path> files = new ArrayList<>();
             Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    scanSource(new FilePathSource(basePath, file.toFile()));
+                    files.add(file);
                     return super.visitFile(file, attrs);
                 }
             });
+            scanAll(files, file -> scanSource(new FilePathSource(basePath, file.toFile())));
         } else {
             scanSource(new FilePathSource(basePath, source.toFile()));
         }
     }
 
+    /**
+     * Scan each item, on the pool if scanning in parallel, until every detector is complete.
+     */
+    private <T> void scanAll(List<T> items, Consumer<T> scan) {
+        ScanTask<T> task = new ScanTask<>(items, 0, items.size(), scan);
+        if (this.pool == null || items.size() <= SCAN_CHUNK) {
+            task.scanSequentially();
+        } else if (ForkJoinTask.getPool() == this.pool) {
+            // nested jar, already scanning on the pool
+            task.invoke();
+        } else {
+            this.pool.invoke(task);
+        }
+    }
+
+    private boolean allDetectionComplete() {
+        for (FractionDetector<?> each : this.detectors) {
+            if (!each.detectionComplete()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Collection<FractionDetector<?>> incompleteDetectors(String suffix) {
+        List<FractionDetector<?>> candidates = this.detectorsBySuffix.get(suffix);
+        if (candidates == null) {
+            return Collections.emptyList();
+        }
+
+        List<FractionDetector<?>> incomplete = new ArrayList<>(candidates.size());
+        for (FractionDetector<?> each : candidates) {
+            if (!each.detectionComplete()) {
+                incomplete.add(each);
+            }
+        }
+        return incomplete;
+    }
+
     private <T> Collection<FractionDetector<T>> convertDetectors(Collection<FractionDetector<?>> untypedDetectors) {
         Collection<FractionDetector<T>> detectors = new HashSet<>();
 
@@ -282,11 +394,11 @@ public class FractionUsageAnalyzer {
     }
 
     private void fireScanner(String suffix, Consumer<Scanner<?>> scannerConsumer) {
-        List<Scanner<?>> scanners = this.scanners.stream()
-                .filter(s -> s.extension().equals(suffix))
-                .collect(Collectors.toList());
+        List<Scanner<?>> scanners = this.scannersBySuffix.get(suffix);
 
-        scanners.forEach(scannerConsumer);
+        if (scanners != null) {
+            scanners.forEach(scannerConsumer);
+        }
     }
 
     private String suffix(String name) {
@@ -303,11 +415,12 @@ public class FractionUsageAnalyzer {
 
         scanners.add(new WarScanner());
         scanners.add(new JarScanner());
-        scanners.add(new ClassAndPackageScanner());
+        scanners.add(this.classScanner);
         scanners.add(new WebXmlDescriptorScanner());
         scanners.add(new FilePresenceScanner());
 
-        ClassAndPackageScanner.classesPackagesAlreadyDetected.clear();
+        detectors.forEach(d -> detectorsBySuffix.computeIfAbsent(d.extensionToDetect(), k -> new ArrayList<>()).add(d));
+        scanners.forEach(s -> scannersBySuffix.computeIfAbsent(s.extension(), k -> new ArrayList<>()).add(s));
 
         detectorsLoaded = true;
     }
@@ -319,6 +432,10 @@ public class FractionUsageAnalyzer {
         return entry;
     }
 
+    private static final String CLASS = "class";
+
+    private static final int SCAN_CHUNK = 64;
+
     private final List<File> sources = new ArrayList<>();
 
     private final FractionList fractionList;
@@ -327,12 +444,65 @@ public class FractionUsageAnalyzer {
 
     private Collection<Scanner<?>> scanners = new HashSet<>();
 
+    private final Map<String, List<FractionDetector<?>>> detectorsBySuffix = new HashMap<>();
+
+    private final Map<String, List<Scanner<?>>> scannersBySuffix = new HashMap<>();
+
+    private final ClassAndPackageScanner classScanner = new ClassAndPackageScanner();
+
     private boolean detectorsLoaded = false;
 
+    private int parallelism = 1;
+
+    private DetectionCache cache;
+
+    private ForkJoinPool pool;
+
     private SimpleLogger log = new SimpleLogger() {
     };
 
     private String testClass;
 
     private boolean removeTestClassFromScanning;
+
+    /**
+     * Splits a list of entries in halves until small enough to scan on one thread.
+     */
+    private final class ScanTask<T> extends RecursiveAction {
+
+        ScanTask(List<T> items, int from, int to, Consumer<T> scan) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.scan = scan;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= SCAN_CHUNK) {
+                scanSequentially();
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new ScanTask<>(this.items, this.from, middle, this.scan),
+                      new ScanTask<>(this.items, middle, this.to, this.scan));
+        }
+
+        void scanSequentially() {
+            for (int i = this.from; i < this.to; ++i) {
+                if ((i - this.from) % SCAN_CHUNK == 0 && allDetectionComplete()) {
+                    return;
+                }
+                this.scan.accept(this.items.get(i));
+            }
+        }
+
+        private final List<T> items;
+
+        private final int from;
+
+        private final int to;
+
+        private final Consumer<T> scan;
+    }
 }
@@ -18,9 +18,12 @@ package org.wildfly.swarm.fractions.scanner;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import org.objectweb.asm.AnnotationVisitor;
@@ -51,18 +54,58 @@ public class ClassAndPackageScanner implements Scanner<String> {
 
     @Override
     public void scan(PathSource pathSource, Collection<FractionDetector<String>> detectors, Consumer<File> handleFileAsZip) throws IOException {
+        detect(collect(pathSource), detectors);
+    }
+
+    /**
+     * Collect the names of the classes, and their packages, referenced by a class file.
+     *
+     * @param pathSource the class file
+     * @return the dotted class and package names
+     * @throws IOException if the class cannot be read
+     */
+    public Set<String> collect(PathSource pathSource) throws IOException {
+        Set<String> names = new HashSet<>();
         try (InputStream input = pathSource.getInputStream()) {
-            new ClassReader(input).accept(new PackageCollector(detectors), 0);
+            new ClassReader(input).accept(new PackageCollector(names), 0);
         }
+        return names;
     }
 
-    public static Set<String> classesPackagesAlreadyDetected = new HashSet<>();
+    /**
+     * Pass names not seen before by this scanner to the detectors. Safe to call from several threads;
+     * each detector only sees one thread at a time.
+     *
+     * @param names     the dotted class and package names
+     * @param detectors the detectors
+     */
+    public void detect(Collection<String> names, Collection<FractionDetector<String>> detectors) {
+        List<String> unseen = new ArrayList<>();
+        for (String each : names) {
+            if (this.classesPackagesAlreadyDetected.add(each)) {
+                unseen.add(each);
+            }
+        }
+        if (unseen.isEmpty()) {
+            return;
+        }
+
+        for (FractionDetector<String> detector : detectors) {
+            synchronized (detector) {
+                for (String each : unseen) {
+                    detector.detect(each);
+                }
+            }
+        }
+    }
+
+    private final Set<String> classesPackagesAlreadyDetected = ConcurrentHashMap.newKeySet();
 
     private static class PackageCollector extends ClassVisitor {
 
-        PackageCollector(Collection<FractionDetector<String>> detectors) {
+        PackageCollector(Set<String> names) {
             super(Opcodes.ASM5);
-            this.detectors = detectors;
+            this.names = names;
         }
 
         @Override
@@ -317,10 +360,7 @@ public class ClassAndPackageScanner implements Scanner<String> {
         }
 
         private void addClass(String name) {
-            if (!classesPackagesAlreadyDetected.contains(name)) {
-                classesPackagesAlreadyDetected.add(name);
-                this.detectors.forEach(d -> d.detect(name.replace('/', '.')));
-            }
+            this.names.add(name.replace('/', '.'));
         }
 
         private String addPackage(String name) {
@@ -332,13 +372,7 @@ public class ClassAndPackageScanner implements Scanner<String> {
                 }
                 name = name.replace('/', '.');
 
-                if (!classesPackagesAlreadyDetected.contains(name)) {
-                    classesPackagesAlreadyDetected.add(name);
-
-                    for (FractionDetector<String> detector : this.detectors) {
-                        detector.detect(name);
-                    }
-                }
+                this.names.add(name);
             }
 
             return name;
@@ -408,7 +442,7 @@ public class ClassAndPackageScanner implements Scanner<String> {
             }
         }
 
-        private Collection<FractionDetector<String>> detectors;
+        private final Set<String> names;
 
         private final AnnotationVisitor ANNOTATION_VISITOR =
                 new AnnotationVisitor(Opcodes.ASM5) {
@@ -39,7 +39,11 @@ public class FilePresenceScanner implements Scanner<PathSource> {
     public void scan(PathSource fileSource, Collection<FractionDetector<PathSource>> detectors, Consumer<File> handleFileAsZip) throws IOException {
         detectors.stream()
                 .filter(d -> FileDetector.class.isAssignableFrom(d.getClass()))
-                .forEach(d -> d.detect(fileSource));
+                .forEach(d -> {
+                    synchronized (d) {
+                        d.detect(fileSource);
+                    }
+                });
     }
 
     private static final String XML = "xml";
@@ -38,7 +38,11 @@ public class WebXmlDescriptorScanner implements Scanner<PathSource> {
         if (pathSource.getSource().getFileName().endsWith("web.xml")) {
             detectors.stream()
                     .filter(d -> WebXmlFractionDetector.class.isAssignableFrom(d.getClass()))
-                    .forEach(d -> d.detect(pathSource));
+                    .forEach(d -> {
+                        synchronized (d) {
+                            d.detect(pathSource);
+                        }
+                    });
         }
     }
 }
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.fractions;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DetectionCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testChecksumIgnoresTimestamps() throws Exception {
+        File first = zip("first.jar", 1000L, "content");
+        File second = zip("second.jar", 2000000L, "content");
+        File changed = zip("changed.jar", 1000L, "changed");
+
+        DetectionCache cache = new DetectionCache(this.folder.newFolder("cache").toPath());
+
+        assertThat(checksum(cache, first)).isEqualTo(checksum(cache, second));
+        assertThat(checksum(cache, first)).isNotEqualTo(checksum(cache, changed));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        DetectionCache cache = new DetectionCache(this.folder.newFolder("cache").toPath());
+        assertThat(cache.read("abc")).isNull();
+
+        Set<String> names = new HashSet<>(Arrays.asList("javax.ws.rs", "javax.ws.rs.Path", "org.example.MyResource"));
+        cache.write("abc", names);
+
+        assertThat(cache.read("abc")).isEqualTo(names);
+        assertThat(new DetectionCache(this.folder.getRoot().toPath().resolve("cache")).read("abc")).isEqualTo(names);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        Path directory = this.folder.newFolder("cache").toPath();
+        DetectionCache cache = new DetectionCache(directory, 2);
+        Set<String> names = Collections.singleton("javax.ws.rs.Path");
+        long now = System.currentTimeMillis();
+
+        cache.write("one", names);
+        Files.setLastModifiedTime(directory.resolve("v1/one.classes"), FileTime.fromMillis(now - 3_000_000));
+        cache.write("two", names);
+        Files.setLastModifiedTime(directory.resolve("v1/two.classes"), FileTime.fromMillis(now - 2_000_000));
+
+        assertThat(cache.read("one")).isEqualTo(names);
+        cache.write("three", names);
+
+        assertThat(cache.read("one")).isEqualTo(names);
+        assertThat(cache.read("two")).isNull();
+        assertThat(cache.read("three")).isEqualTo(names);
+    }
+
+    private static String checksum(DetectionCache cache, File file) throws IOException {
+        try (ZipFile zip = new ZipFile(file)) {
+            return cache.checksum(zip);
+        }
+    }
+
+    private File zip(String name, long time, String content) throws IOException {
+        File file = new File(this.folder.getRoot(), name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            ZipEntry entry = new ZipEntry("org/example/MyResource.class");
+            entry.setTime(time);
+            out.putNextEntry(entry);
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        return file;
+    }
+}
@@ -17,9 +17,15 @@ package org.wildfly.swarm.fractions;
 
 import java.io.File;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
 import org.jboss.shrinkwrap.api.exporter.ExplodedExporter;
 import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
@@ -83,4 +89,58 @@ public class FractionUsageAnalyzerTest {
                            .count())
                 .isEqualTo(1);
     }
+
+    @Test
+    public void testParallelFractionMatching() throws Exception {
+        JAXRSArchive archive = ShrinkWrap.create(JAXRSArchive.class);
+        archive.addClass(MyResource.class);
+        // enough entries to be split across threads
+        for (int i = 0; i < 500; ++i) {
+            archive.add(new StringAsset("entry " + i), "entry-" + i + ".txt");
+        }
+        FractionUsageAnalyzer analyzer = new FractionUsageAnalyzer().parallelism(4);
+
+        final File out = Files.createTempFile(archive.getName(), ".war").toFile();
+        archive.as(ZipExporter.class).exportTo(out, true);
+        out.deleteOnExit();
+
+        analyzer.source(out);
+        assertThat(analyzer.detectNeededFractions()
+                           .stream()
+                           .filter(fd -> fd.getArtifactId().equals("jaxrs"))
+                           .count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void testCachedFractionMatching() throws Exception {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "resources.jar");
+        archive.addClass(MyResource.class);
+
+        final File out = Files.createTempFile(archive.getName(), ".jar").toFile();
+        archive.as(ZipExporter.class).exportTo(out, true);
+        out.deleteOnExit();
+
+        File cacheDir = TempFileManager.INSTANCE.newTempDirectory("fractionusagecache", null);
+
+        assertThat(jaxrsDetected(new FractionUsageAnalyzer().cache(cacheDir.toPath()).source(out))).isTrue();
+
+        List<Path> cached;
+        try (Stream<Path> files = Files.list(cacheDir.toPath().resolve("v1"))) {
+            cached = files.collect(Collectors.toList());
+        }
+        assertThat(cached).hasSize(1);
+
+        assertThat(jaxrsDetected(new FractionUsageAnalyzer().cache(cacheDir.toPath()).source(out))).isTrue();
+
+        // the cached names are used instead of scanning the jar again
+        Files.write(cached.get(0), Collections.emptyList());
+        assertThat(jaxrsDetected(new FractionUsageAnalyzer().cache(cacheDir.toPath()).source(out))).isFalse();
+    }
+
+    private static boolean jaxrsDetected(FractionUsageAnalyzer analyzer) throws Exception {
+        return analyzer.detectNeededFractions()
+                .stream()
+                .anyMatch(fd -> fd.getArtifactId().equals("jaxrs"));
+    }
 }
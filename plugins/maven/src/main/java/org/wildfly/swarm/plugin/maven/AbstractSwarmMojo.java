@@ -15,6 +15,7 @@
  */
 package org.wildfly.swarm.plugin.maven;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -88,6 +89,19 @@ public abstract class AbstractSwarmMojo extends AbstractMojo {
     @Parameter(defaultValue = "when_missing", property = "swarm.detect.mode")
     protected BuildTool.FractionDetectionMode fractionDetectMode;
 
+    /**
+     * Threads scanning the project for fractions; zero or less uses one per available processor.
+     */
+    @Parameter(defaultValue = "0", property = "swarm.detect.parallelism")
+    protected int fractionDetectParallelism;
+
+    /**
+     * Directory caching fraction detection results per scanned archive. It is under the build directory by default,
+     * so a clean build discards it, and only the most recently used entries are kept.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/wildfly-swarm/fraction-detection", property = "swarm.detect.cache")
+    protected File fractionDetectCache;
+
     @Inject
     protected ArtifactResolver resolver;
 
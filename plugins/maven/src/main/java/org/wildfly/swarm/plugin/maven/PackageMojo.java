@@ -69,6 +69,18 @@ public class PackageMojo extends AbstractSwarmMojo {
     @Parameter(alias = "hollow", defaultValue = "false", property = "swarm.hollow")
     protected boolean hollow;
 
+    /**
+     * Write a Jandex index of the deployment into it, so the classes are not indexed again at every boot.
+     */
+    @Parameter(alias = "indexDeployment", defaultValue = "true", property = "swarm.index.deployment")
+    protected boolean indexDeployment;
+
+    /**
+     * Reuse the unchanged, already compressed entries of the previous uberjar instead of compressing everything again.
+     */
+    @Parameter(alias = "incremental", defaultValue = "false", property = "swarm.package.incremental")
+    protected boolean incremental;
+
     /**
      * Flag to skip packaging entirely.
      */
@@ -135,6 +147,10 @@ public class PackageMojo extends AbstractSwarmMojo {
                 .executable(executable)
                 .executableScript(executableScript)
                 .fractionDetectionMode(fractionDetectMode)
+                .fractionDetectionParallelism(fractionDetectParallelism)
+                .fractionDetectionCache(fractionDetectCache == null ? null : fractionDetectCache.toPath())
+                .indexDeployment(indexDeployment)
+                .incremental(incremental)
                 .hollow(hollow)
                 .logger(new SimpleLogger() {
                     @Override
@@ -43,6 +43,8 @@ import net.lingala.zip4j.core.ZipFile;
 import net.lingala.zip4j.exception.ZipException;
 import net.lingala.zip4j.model.FileHeader;
 import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.ArchivePaths;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.FileAsset;
 import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
@@ -52,6 +54,8 @@ import org.jboss.shrinkwrap.api.importer.ZipImporter;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.jboss.shrinkwrap.impl.base.io.IOUtil;
 import org.wildfly.swarm.bootstrap.Main;
+import org.wildfly.swarm.bootstrap.env.BootIndex;
+import org.wildfly.swarm.bootstrap.env.FractionManifest;
 import org.wildfly.swarm.bootstrap.env.WildFlySwarmManifest;
 import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
 import org.wildfly.swarm.bootstrap.util.MavenArtifactDescriptor;
@@ -153,6 +157,30 @@ public class BuildTool {
         return this;
     }
 
+    public BuildTool fractionDetectionParallelism(int parallelism) {
+        this.fractionDetectionParallelism = parallelism;
+
+        return this;
+    }
+
+    public BuildTool fractionDetectionCache(Path cacheDirectory) {
+        this.fractionDetectionCache = cacheDirectory;
+
+        return this;
+    }
+
+    public BuildTool incremental(boolean incremental) {
+        this.incremental = incremental;
+
+        return this;
+    }
+
+    public BuildTool indexDeployment(boolean indexDeployment) {
+        this.indexDeployment = indexDeployment;
+
+        return this;
+    }
+
     public BuildTool executable(boolean executable) {
         this.executable = executable;
 
@@ -239,6 +267,7 @@ public class BuildTool {
         addProjectAsset(this.dependencyManager);
         populateUberJarMavenRepository(this.dependencyManager);
         addUberjarResources();
+        addBootIndex();
 
         return this.archive;
     }
@@ -305,7 +334,7 @@ public class BuildTool {
         if (this.hollow) {
             return;
         }
-        this.archive.add(new WebInfLibFilteringArchiveAsset(this.projectAsset, this.dependencyManager));
+        this.archive.add(new WebInfLibFilteringArchiveAsset(this.projectAsset, this.dependencyManager, this.indexDeployment));
     }
 
     private void detectFractions() throws Exception {
@@ -314,6 +343,8 @@ public class BuildTool {
         this.projectAsset.getArchive().as(ZipExporter.class).exportTo(tmpFile, true);
         final FractionUsageAnalyzer analyzer = new FractionUsageAnalyzer()
                 .logger(log)
+                .parallelism(this.fractionDetectionParallelism)
+                .cache(this.fractionDetectionCache)
                 .source(tmpFile);
 
         if (testClass != null && !"".equals(testClass)) {
@@ -437,6 +468,47 @@ public class BuildTool {
 
     }
 
+    private void addBootIndex() throws IOException {
+        BootIndex index = new BootIndex();
+        Set<String> bootstrapArtifacts = new HashSet<>(this.dependencyManager.getWildFlySwarmManifest().bootstrapArtifacts());
+
+        for (ArtifactSpec each : this.dependencyManager.getDependencies()) {
+            if (!each.isResolved() || !bootstrapArtifacts.contains(each.mavenGav())) {
+                continue;
+            }
+            byte[] fractionManifest = null;
+            List<String> moduleXmls = new ArrayList<>();
+            try (JarFile jarFile = new JarFile(each.file)) {
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry entry = entries.nextElement();
+                    if (entry.getName().equals(FractionManifest.CLASSPATH_LOCATION)) {
+                        try (InputStream in = jarFile.getInputStream(entry)) {
+                            ByteArrayOutputStream out = new ByteArrayOutputStream();
+                            IOUtil.copy(in, out);
+                            fractionManifest = out.toByteArray();
+                        }
+                    } else if (entry.getName().endsWith("/module.xml")) {
+                        moduleXmls.add(entry.getName());
+                    }
+                }
+            }
+            index.addArtifact(BootIndex.key(each.groupId(), each.artifactId(), each.version(), each.classifier()),
+                              fractionManifest, moduleXmls);
+        }
+
+        boolean explosionRequired = this.archive.getContent().keySet().stream()
+                .map(ArchivePath::get)
+                .anyMatch(path -> path.startsWith("/modules/")
+                        && !path.endsWith("/module.xml")
+                        && this.archive.get(path).getAsset() != null);
+        index.setExplosionRequired(explosionRequired);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.write(out);
+        this.archive.add(new ByteArrayAsset(out.toByteArray()), BootIndex.CLASSPATH_LOCATION);
+    }
+
     public static File getOutputFile(String baseName, Path directory) {
         return new File(directory.toFile(), baseName + "-swarm.jar");
     }
@@ -446,14 +518,16 @@ public class BuildTool {
         if (!out.getParentFile().exists() && !out.getParentFile().mkdirs()) {
             this.log.error("Failed to create parent directory for: " + out.getAbsolutePath());
         }
-        ZipExporter exporter = this.archive.as(ZipExporter.class);
-        try (FileOutputStream fos = new FileOutputStream(out)) {
-            if (executable) {
-                try (InputStream is = getLaunchScript()) {
-                    IOUtil.copy(is, fos);
+        if (!this.incremental || !writeJarIncrementally(out)) {
+            ZipExporter exporter = this.archive.as(ZipExporter.class);
+            try (FileOutputStream fos = new FileOutputStream(out)) {
+                if (executable) {
+                    try (InputStream is = getLaunchScript()) {
+                        IOUtil.copy(is, fos);
+                    }
                 }
+                exporter.exportTo(fos);
             }
-            exporter.exportTo(fos);
         }
         if (executable) {
             if (!out.setExecutable(true)) {
@@ -463,6 +537,34 @@ public class BuildTool {
         return out;
     }
 
+    /**
+     * Write the uberjar reusing the unchanged entries of the previous one. Nested jars are only
+     * STORED, and so mappable in place by the bootstrap, on this opt-in path; the default
+     * {@link ZipExporter} path deflates them.
+     *
+     * @return <code>false</code> if the archive requires ZIP64 and must be exported instead.
+     */
+    private boolean writeJarIncrementally(File out) throws IOException {
+        byte[] launchScript = null;
+        if (executable) {
+            try (InputStream is = getLaunchScript()) {
+                ByteArrayOutputStream script = new ByteArrayOutputStream();
+                IOUtil.copy(is, script);
+                launchScript = script.toByteArray();
+            }
+        }
+
+        IncrementalJarWriter writer = new IncrementalJarWriter(out);
+        try {
+            writer.write(this.archive.get(ArchivePaths.root()), launchScript);
+        } catch (java.util.zip.ZipException e) {
+            this.log.info("Unable to package incrementally, exporting the whole archive: " + e.getMessage());
+            return false;
+        }
+        this.log.info("Reused " + writer.getReusedCount() + " of " + writer.getEntryCount() + " entries of " + out.getName());
+        return true;
+    }
+
     private InputStream getLaunchScript() throws IOException {
         return (executableScript != null) ? new FileInputStream(executableScript) :
                 getClass().getResourceAsStream("launch.sh");
@@ -593,6 +695,14 @@ public class BuildTool {
 
     private FractionDetectionMode fractionDetectionMode = FractionDetectionMode.when_missing;
 
+    private int fractionDetectionParallelism = 1;
+
+    private Path fractionDetectionCache;
+
+    private boolean indexDeployment = true;
+
+    private boolean incremental;
+
     private SimpleLogger log = STD_LOGGER;
 
     private boolean hollow;
@@ -16,19 +16,21 @@
 package org.wildfly.swarm.tools;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.jar.JarFile;
 import java.util.stream.Collectors;
@@ -237,6 +239,7 @@ public class DependencyManager implements ResolvedDependencies {
 
         this.removableDependencies.addAll(justJars);
         this.removableDependencies.removeAll(nonBootstrapTransitive);
+        this.removableChecksums = null;
 
     }
 
@@ -271,22 +274,16 @@ public class DependencyManager implements ResolvedDependencies {
         }
 
         String path = node.getPath().get();
+        List<byte[]> candidates = removableChecksums().get(path.substring(path.lastIndexOf('/') + 1));
+        if (candidates == null) {
+            return false;
+        }
+
         try (final InputStream inputStream = asset.openStream()) {
             byte[] checksum = checksum(inputStream);
 
-            return this.removableDependencies.stream()
-                    .filter(e -> path.endsWith(e.artifactId() + "-" + e.version() + ".jar"))
-                    .map(e -> {
-                        try (final FileInputStream in = new FileInputStream(e.file)) {
-                            return checksum(in);
-                        } catch (IOException | NoSuchAlgorithmException | DigestException e1) {
-                            return null;
-                        }
-                    })
-                    .filter(e -> e != null)
-                    .anyMatch(e -> {
-                        return Arrays.equals(e, checksum);
-                    });
+            return candidates.stream()
+                    .anyMatch(e -> Arrays.equals(e, checksum));
         } catch (NoSuchAlgorithmException | IOException | DigestException e) {
             e.printStackTrace();
         }
@@ -294,8 +291,32 @@ public class DependencyManager implements ResolvedDependencies {
         return false;
     }
 
+    /**
+     * Checksums of the removable dependencies by <code>artifactId-version.jar</code> name, computed once, in parallel,
+     * instead of for every node checked.
+     */
+    private synchronized Map<String, List<byte[]>> removableChecksums() {
+        if (this.removableChecksums == null) {
+            this.removableChecksums = this.removableDependencies.parallelStream()
+                    .filter(e -> e.file != null)
+                    .map(e -> new AbstractMap.SimpleImmutableEntry<>(e.artifactId() + "-" + e.version() + ".jar", checksum(e.file)))
+                    .filter(e -> e.getValue() != null)
+                    .collect(Collectors.groupingBy(Map.Entry::getKey,
+                                                   Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
+        }
+        return this.removableChecksums;
+    }
+
+    private byte[] checksum(File file) {
+        try (final InputStream in = Files.newInputStream(file.toPath())) {
+            return checksum(in);
+        } catch (IOException | NoSuchAlgorithmException | DigestException e) {
+            return null;
+        }
+    }
+
     protected byte[] checksum(InputStream in) throws IOException, NoSuchAlgorithmException, DigestException {
-        byte[] buf = new byte[1024];
+        byte[] buf = new byte[CHECKSUM_BUFFER_SIZE];
         int len = 0;
 
         MessageDigest md = MessageDigest.getInstance("SHA1");
@@ -366,12 +387,16 @@ public class DependencyManager implements ResolvedDependencies {
 
     private static final String JAR = "jar";
 
+    private static final int CHECKSUM_BUFFER_SIZE = 64 * 1024;
+
     private final WildFlySwarmManifest applicationManifest = new WildFlySwarmManifest();
 
     private final Set<ArtifactSpec> dependencies = new HashSet<>();
 
     private final Set<ArtifactSpec> removableDependencies = new HashSet<>();
 
+    private Map<String, List<byte[]>> removableChecksums;
+
     private final Set<ArtifactSpec> moduleDependencies = new HashSet<>();
 
     private ProjectAsset projectAsset;
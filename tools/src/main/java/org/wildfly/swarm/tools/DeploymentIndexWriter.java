@@ -0,0 +1,77 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.jboss.jandex.IndexWriter;
+import org.jboss.jandex.Indexer;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+
+/**
+ * Writes a persisted Jandex index of the deployment's classes into the deployment, so it is not indexed
+ * again at every boot.
+ *
+ * <p>The index is stored as <code>META-INF/wildfly-swarm-jandex/deployment.idx</code> and read back by the
+ * container's <code>DeploymentProducer</code>. The standard <code>META-INF/jandex.idx</code> is deliberately
+ * not used: the server would trust it and miss classes added to the deployment at runtime.</p>
+ */
+public class DeploymentIndexWriter {
+
+    public static final String DEPLOYMENT_INDEX = "META-INF/wildfly-swarm-jandex/deployment.idx";
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final String WEB_INF_CLASSES = "/WEB-INF/classes/";
+
+    private DeploymentIndexWriter() {
+    }
+
+    /**
+     * Index the classes of an archive, adding the index to it.
+     *
+     * <p>Only classes beneath the class root (<code>WEB-INF/classes</code> of a <code>.war</code>, the root
+     * of anything else) are recorded; any other classes are indexed at runtime.</p>
+     *
+     * @param archive The archive to index.
+     * @throws IOException If a class cannot be read.
+     */
+    public static void write(Archive<?> archive) throws IOException {
+        String classRoot = archive.getName().endsWith(".war") ? WEB_INF_CLASSES : "/";
+        Indexer indexer = new Indexer();
+
+        for (Map.Entry<ArchivePath, Node> each : archive.getContent().entrySet()) {
+            String path = each.getKey().get();
+            Asset asset = each.getValue().getAsset();
+            if (asset != null && path.startsWith(classRoot) && path.endsWith(CLASS_SUFFIX)) {
+                try (InputStream in = asset.openStream()) {
+                    indexer.index(in);
+                }
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new IndexWriter(out).write(indexer.complete());
+        archive.add(new ByteArrayAsset(out.toByteArray()), DEPLOYMENT_INDEX);
+    }
+}
@@ -0,0 +1,499 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.Asset;
+
+/**
+ * Writes an archive as a jar, reusing the compressed entries of the jar it replaces.
+ *
+ * <p>The central directory of the previous jar is read first. An entry whose name, size, CRC and
+ * compression method are unchanged has its compressed bytes copied as-is instead of being compressed
+ * again; only new or changed entries are compressed. Nested jars are STORED, as compressing them gains
+ * little and storing them lets the bootstrap map them in place.</p>
+ *
+ * <p>The jar is written to a temporary file replacing the previous one once complete. ZIP64 is not
+ * supported: jars requiring it raise a {@link ZipException} so the caller can fall back to a full export.</p>
+ */
+final class IncrementalJarWriter {
+
+    private static final int STORED = 0;
+
+    private static final int DEFLATED = 8;
+
+    private static final int LOC_SIG = 0x04034b50;
+
+    private static final int CEN_SIG = 0x02014b50;
+
+    private static final int END_SIG = 0x06054b50;
+
+    private static final int LOC_HEADER = 30;
+
+    private static final int CEN_HEADER = 46;
+
+    private static final int END_HEADER = 22;
+
+    private static final int MAX_COMMENT = 0xFFFF;
+
+    private static final int VERSION = 20;
+
+    private static final int UTF8_FLAG = 0x0800;
+
+    private static final int MAX_ENTRIES = 0xFFFF;
+
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String MANIFEST_DIRECTORY = "META-INF/";
+
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+    IncrementalJarWriter(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Write the archive rooted at a node, replacing the jar.
+     *
+     * @param root   The root node of the archive.
+     * @param prefix Bytes preceding the archive, such as a launch script, or <code>null</code>.
+     * @throws ZipException If the archive requires ZIP64.
+     * @throws IOException  If the archive cannot be written.
+     */
+    void write(Node root, byte[] prefix) throws IOException {
+        Map<String, PreviousEntry> previous = readPrevious();
+
+        List<Node> nodes = new ArrayList<>();
+        collect(root, nodes);
+        nodes.sort(Comparator.comparingInt((Node e) -> order(name(e))).thenComparing(IncrementalJarWriter::name));
+        if (nodes.size() >= MAX_ENTRIES) {
+            throw new ZipException("Too many entries without ZIP64: " + nodes.size());
+        }
+
+        this.reused = 0;
+        this.entries = 0;
+
+        File tmp = new File(this.file.getAbsoluteFile().getParentFile(), this.file.getName() + ".tmp");
+        boolean complete = false;
+        try {
+            try (RandomAccessFile in = previous.isEmpty() ? null : new RandomAccessFile(this.file, "r");
+                 CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), BUFFER_SIZE))) {
+                if (prefix != null) {
+                    out.write(prefix);
+                }
+                // offsets are relative to the start of the archive, as when the prefix is written by an exporter
+                long start = out.getCount();
+                long now = dosTime(System.currentTimeMillis());
+
+                List<CentralEntry> central = new ArrayList<>(nodes.size());
+                for (Node each : nodes) {
+                    central.add(writeEntry(each, previous, in, out, out.getCount() - start, now));
+                    ++this.entries;
+                }
+
+                long centralStart = out.getCount() - start;
+                for (CentralEntry each : central) {
+                    each.write(out);
+                }
+                long centralSize = out.getCount() - start - centralStart;
+                if (centralStart > MAX_SIZE || centralSize > MAX_SIZE) {
+                    throw new ZipException("Archive too large without ZIP64");
+                }
+
+                writeInt(out, END_SIG);
+                writeShort(out, 0);
+                writeShort(out, 0);
+                writeShort(out, central.size());
+                writeShort(out, central.size());
+                writeInt(out, centralSize);
+                writeInt(out, centralStart);
+                writeShort(out, 0);
+            }
+            Files.move(tmp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            complete = true;
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(tmp.toPath());
+            }
+        }
+    }
+
+    int getEntryCount() {
+        return this.entries;
+    }
+
+    int getReusedCount() {
+        return this.reused;
+    }
+
+    private CentralEntry writeEntry(Node node, Map<String, PreviousEntry> previous, RandomAccessFile in,
+                                    OutputStream out, long offset, long now) throws IOException {
+        if (offset > MAX_SIZE) {
+            throw new ZipException("Archive too large without ZIP64");
+        }
+
+        String name = name(node);
+        Asset asset = node.getAsset();
+        if (asset == null) {
+            CentralEntry entry = new CentralEntry(name, STORED, now, 0, 0, 0, offset);
+            entry.writeLocal(out);
+            return entry;
+        }
+
+        byte[] data = readFully(asset);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        int method = name.endsWith(".jar") ? STORED : DEFLATED;
+
+        PreviousEntry reusable = previous.get(name);
+        if (reusable != null && in != null && reusable.method == method
+                && reusable.crc == crc.getValue() && reusable.size == data.length) {
+            CentralEntry entry = new CentralEntry(name, method, reusable.time, reusable.crc,
+                                                  reusable.compressedSize, reusable.size, offset);
+            entry.writeLocal(out);
+            copy(in, reusable, out);
+            ++this.reused;
+            return entry;
+        }
+
+        byte[] compressed = method == STORED ? data : deflate(data);
+        if (compressed.length > MAX_SIZE || data.length > MAX_SIZE) {
+            throw new ZipException("Entry too large without ZIP64: " + name);
+        }
+        CentralEntry entry = new CentralEntry(name, method, now, crc.getValue(), compressed.length, data.length, offset);
+        entry.writeLocal(out);
+        out.write(compressed);
+        return entry;
+    }
+
+    /**
+     * Read the central directory of the previous jar.
+     *
+     * @return The reusable entries by name; empty if there is no previous jar or it cannot be read,
+     * in which case every entry is compressed again.
+     */
+    private Map<String, PreviousEntry> readPrevious() {
+        if (!this.file.isFile()) {
+            return Collections.emptyMap();
+        }
+        try (RandomAccessFile in = new RandomAccessFile(this.file, "r")) {
+            int tailLength = (int) Math.min(in.length(), END_HEADER + MAX_COMMENT);
+            byte[] tail = new byte[tailLength];
+            in.seek(in.length() - tailLength);
+            in.readFully(tail);
+
+            int end = -1;
+            for (int pos = tailLength - END_HEADER; pos >= 0; --pos) {
+                if (u32(tail, pos) == END_SIG && pos + END_HEADER + u16(tail, pos + 20) == tailLength) {
+                    end = pos;
+                    break;
+                }
+            }
+            if (end < 0) {
+                return Collections.emptyMap();
+            }
+
+            int total = u16(tail, end + 10);
+            long size = u32(tail, end + 12);
+            long offset = u32(tail, end + 16);
+            if (total == MAX_ENTRIES || size == MAX_SIZE || offset == MAX_SIZE) {
+                return Collections.emptyMap();
+            }
+            long centralStart = in.length() - tailLength + end - size;
+            long prefix = centralStart - offset;
+            if (prefix < 0 || size > Integer.MAX_VALUE) {
+                return Collections.emptyMap();
+            }
+
+            byte[] central = new byte[(int) size];
+            in.seek(centralStart);
+            in.readFully(central);
+
+            Map<String, PreviousEntry> result = new HashMap<>(total * 2);
+            int pos = 0;
+            for (int i = 0; i < total; ++i) {
+                if (u32(central, pos) != CEN_SIG) {
+                    return Collections.emptyMap();
+                }
+                int flags = u16(central, pos + 8);
+                int method = u16(central, pos + 10);
+                int nameLength = u16(central, pos + 28);
+                String name = new String(central, pos + CEN_HEADER, nameLength, StandardCharsets.UTF_8);
+                if ((flags & 1) == 0 && (method == STORED || method == DEFLATED)) {
+                    result.put(name, new PreviousEntry(method,
+                                                       u32(central, pos + 12),
+                                                       u32(central, pos + 16),
+                                                       u32(central, pos + 20),
+                                                       u32(central, pos + 24),
+                                                       u32(central, pos + 42) + prefix));
+                }
+                pos += CEN_HEADER + nameLength + u16(central, pos + 30) + u16(central, pos + 32);
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    private static void copy(RandomAccessFile in, PreviousEntry entry, OutputStream out) throws IOException {
+        byte[] header = new byte[LOC_HEADER];
+        in.seek(entry.localHeaderOffset);
+        in.readFully(header);
+        if (u32(header, 0) != LOC_SIG) {
+            throw new IOException("Invalid local header in previous archive");
+        }
+        in.seek(entry.localHeaderOffset + LOC_HEADER + u16(header, 26) + u16(header, 28));
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = entry.compressedSize;
+        while (remaining > 0) {
+            int len = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (len < 0) {
+                throw new IOException("Truncated entry in previous archive");
+            }
+            out.write(buffer, 0, len);
+            remaining -= len;
+        }
+    }
+
+    private static void collect(Node node, List<Node> nodes) {
+        for (Node each : node.getChildren()) {
+            nodes.add(each);
+            if (each.getAsset() == null) {
+                collect(each, nodes);
+            }
+        }
+    }
+
+    private static String name(Node node) {
+        String name = node.getPath().get().substring(1);
+        return node.getAsset() == null ? name + "/" : name;
+    }
+
+    /**
+     * The manifest leads, so it can be found by {@link java.util.jar.JarInputStream}.
+     */
+    private static int order(String name) {
+        if (name.equals(MANIFEST_DIRECTORY)) {
+            return 0;
+        }
+        if (name.equals(MANIFEST)) {
+            return 1;
+        }
+        return 2;
+    }
+
+    private static byte[] readFully(Asset asset) throws IOException {
+        try (InputStream in = asset.openStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int len;
+            while ((len = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, len);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int len = deflater.deflate(buffer);
+                out.write(buffer, 0, len);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static long dosTime(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (long) (year - 1980) << 25
+                | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5
+                | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    private static int u16(byte[] bytes, int pos) {
+        return (bytes[pos] & 0xFF) | (bytes[pos + 1] & 0xFF) << 8;
+    }
+
+    private static long u32(byte[] bytes, int pos) {
+        return (u16(bytes, pos) | (long) u16(bytes, pos + 2) << 16) & 0xFFFFFFFFL;
+    }
+
+    private static void writeShort(OutputStream out, int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+
+    private static void writeInt(OutputStream out, long value) throws IOException {
+        writeShort(out, (int) (value & 0xFFFF));
+        writeShort(out, (int) ((value >>> 16) & 0xFFFF));
+    }
+
+    private final File file;
+
+    private int entries;
+
+    private int reused;
+
+    private static final class PreviousEntry {
+
+        PreviousEntry(int method, long time, long crc, long compressedSize, long size, long localHeaderOffset) {
+            this.method = method;
+            this.time = time;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        private final int method;
+
+        private final long time;
+
+        private final long crc;
+
+        private final long compressedSize;
+
+        private final long size;
+
+        private final long localHeaderOffset;
+    }
+
+    private static final class CentralEntry {
+
+        CentralEntry(String name, int method, long time, long crc, long compressedSize, long size, long offset) {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            this.method = method;
+            this.time = time;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.offset = offset;
+        }
+
+        void writeLocal(OutputStream out) throws IOException {
+            writeInt(out, LOC_SIG);
+            writeShort(out, VERSION);
+            writeCommon(out);
+            writeShort(out, 0);
+            out.write(this.name);
+        }
+
+        void write(OutputStream out) throws IOException {
+            writeInt(out, CEN_SIG);
+            writeShort(out, VERSION);
+            writeShort(out, VERSION);
+            writeCommon(out);
+            writeShort(out, 0);
+            writeShort(out, 0);
+            writeShort(out, 0);
+            writeShort(out, 0);
+            writeInt(out, 0);
+            writeInt(out, this.offset);
+            out.write(this.name);
+        }
+
+        private void writeCommon(OutputStream out) throws IOException {
+            writeShort(out, UTF8_FLAG);
+            writeShort(out, this.method);
+            writeInt(out, this.time);
+            writeInt(out, this.crc);
+            writeInt(out, this.compressedSize);
+            writeInt(out, this.size);
+            writeShort(out, this.name.length);
+        }
+
+        private final byte[] name;
+
+        private final int method;
+
+        private final long time;
+
+        private final long crc;
+
+        private final long compressedSize;
+
+        private final long size;
+
+        private final long offset;
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            ++this.count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+
+        long getCount() {
+            return this.count;
+        }
+
+        private long count;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.wildfly.swarm.tools;
 
+import java.io.IOException;
 import java.io.InputStream;
 
 import org.jboss.shrinkwrap.api.Archive;
@@ -29,9 +30,18 @@ public class WebInfLibFilteringArchiveAsset implements ProjectAsset {
 
     private final ResolvedDependencies resolvedDependencies;
 
+    private final boolean indexed;
+
+    private Archive<?> filtered;
+
     public WebInfLibFilteringArchiveAsset(ProjectAsset asset, ResolvedDependencies resolvedDependencies) {
+        this(asset, resolvedDependencies, false);
+    }
+
+    public WebInfLibFilteringArchiveAsset(ProjectAsset asset, ResolvedDependencies resolvedDependencies, boolean indexed) {
         this.asset = asset;
         this.resolvedDependencies = resolvedDependencies;
+        this.indexed = indexed;
     }
 
     @Override
@@ -46,6 +56,24 @@ public class WebInfLibFilteringArchiveAsset implements ProjectAsset {
 
     @Override
     public InputStream openStream() {
-        return new WebInfLibFilteringArchive(this.asset.getArchive(), this.resolvedDependencies).as(ZipExporter.class).exportAsInputStream();
+        return filtered().as(ZipExporter.class).exportAsInputStream();
+    }
+
+    /**
+     * The filtered archive, with its index when indexed, built on first use only.
+     */
+    private synchronized Archive<?> filtered() {
+        if (this.filtered == null) {
+            Archive<?> archive = new WebInfLibFilteringArchive(this.asset.getArchive(), this.resolvedDependencies);
+            if (this.indexed) {
+                try {
+                    DeploymentIndexWriter.write(archive);
+                } catch (IOException e) {
+                    throw new RuntimeException("Could not index deployment " + this.asset.getSimpleName(), e);
+                }
+            }
+            this.filtered = archive;
+        }
+        return this.filtered;
     }
 }
@@ -20,6 +20,7 @@ import java.util.Set;
 import java.util.function.Consumer;
 
 import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
 import org.jboss.shrinkwrap.api.asset.StringAsset;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.junit.Before;
@@ -187,6 +188,28 @@ public class DependencyManagerTest {
         assertThat( manifest.getDependencies() ).containsOnly( COMMON_DEP.mavenGav() );
     }
 
+    @Test
+    public void testIsRemovable() throws Exception {
+        DeclaredDependencies declaredDependencies = new DeclaredDependencies();
+
+        declaredDependencies.add(JAXRS_FRACTION, JAXRS_SPEC);
+        declaredDependencies.add(JAXRS_FRACTION, COMMON_DEP);
+        declaredDependencies.add(JAXRS_FRACTION, UNDERTOW_FRACTION);
+        declaredDependencies.add(JAXRS_FRACTION, SERVLET_SPEC);
+
+        manager.analyzeDependencies(false, declaredDependencies);
+
+        JavaArchive war = ShrinkWrap.create(JavaArchive.class);
+        war.add(new FileAsset(COMMON_DEP.file), "WEB-INF/lib/utility-1.0.jar");
+        war.add(new FileAsset(COMMON_DEP.file), "WEB-INF/lib/other-1.0.jar");
+        war.add(new StringAsset("modified"), "WEB-INF/lib/jboss-servlet-api_3.1_spec-1.0.0.Final.jar");
+
+        assertThat(manager.isRemovable(war.get("WEB-INF/lib/utility-1.0.jar"))).isTrue();
+        assertThat(manager.isRemovable(war.get("WEB-INF/lib/other-1.0.jar"))).isFalse();
+        assertThat(manager.isRemovable(war.get("WEB-INF/lib/jboss-servlet-api_3.1_spec-1.0.0.Final.jar"))).isFalse();
+        assertThat(manager.isRemovable(war.get("WEB-INF/lib"))).isFalse();
+    }
+
     @Test
     public void testComparison() throws Exception {
         Set<ArtifactSpec> samples = new HashSet<>();
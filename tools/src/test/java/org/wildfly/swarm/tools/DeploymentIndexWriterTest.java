@@ -0,0 +1,69 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.InputStream;
+
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.ClassAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DeploymentIndexWriterTest {
+
+    @Test
+    public void testWarIndexCoversClassRootOnly() throws Exception {
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, "test.war");
+        archive.addClass(Deployed.class);
+        archive.addAsWebResource(new ClassAsset(Other.class), "Other.class");
+
+        DeploymentIndexWriter.write(archive);
+
+        Index index = read(archive.get(DeploymentIndexWriter.DEPLOYMENT_INDEX));
+        assertThat(index.getKnownClasses()).hasSize(1);
+        assertThat(index.getKnownClasses().iterator().next().name().toString()).isEqualTo(Deployed.class.getName());
+    }
+
+    @Test
+    public void testJarIndex() throws Exception {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "test.jar");
+        archive.addClasses(Deployed.class, Other.class);
+
+        DeploymentIndexWriter.write(archive);
+
+        Index index = read(archive.get(DeploymentIndexWriter.DEPLOYMENT_INDEX));
+        assertThat(index.getKnownClasses()).hasSize(2);
+    }
+
+    private static Index read(Node node) throws Exception {
+        assertThat(node).isNotNull();
+        try (InputStream in = node.getAsset().openStream()) {
+            return new IndexReader(in).read();
+        }
+    }
+
+    public static class Deployed {
+    }
+
+    public static class Other {
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.jar.JarInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jboss.shrinkwrap.api.ArchivePaths;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class IncrementalJarWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testUnchangedEntriesAreReused() throws Exception {
+        JavaArchive archive = createArchive();
+        File jar = new File(folder.getRoot(), "test-swarm.jar");
+
+        IncrementalJarWriter writer = new IncrementalJarWriter(jar);
+        writer.write(archive.get(ArchivePaths.root()), null);
+        assertThat(writer.getReusedCount()).isEqualTo(0);
+
+        archive.add(new StringAsset("changed"), "org/test/B.class");
+
+        writer = new IncrementalJarWriter(jar);
+        writer.write(archive.get(ArchivePaths.root()), null);
+        // A.class, the manifest and the nested jar
+        assertThat(writer.getReusedCount()).isEqualTo(3);
+
+        try (ZipFile zip = new ZipFile(jar)) {
+            assertThat(read(zip, "org/test/A.class")).isEqualTo("aaaaaaaaaaaaaaaa");
+            assertThat(read(zip, "org/test/B.class")).isEqualTo("changed");
+            assertThat(zip.getEntry("m2repo/inner-1.0.jar").getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(zip.getEntry("org/test/A.class").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+        }
+        try (JarInputStream in = new JarInputStream(new FileInputStream(jar))) {
+            assertThat(in.getManifest().getMainAttributes().getValue("Main-Class")).isEqualTo("org.test.Main");
+        }
+    }
+
+    @Test
+    public void testLaunchScriptIsTolerated() throws Exception {
+        JavaArchive archive = createArchive();
+        File jar = new File(folder.getRoot(), "test-swarm.jar");
+        byte[] script = "#!/bin/sh\nexec java -jar $0 \"$@\"\n".getBytes(StandardCharsets.UTF_8);
+
+        new IncrementalJarWriter(jar).write(archive.get(ArchivePaths.root()), script);
+
+        IncrementalJarWriter writer = new IncrementalJarWriter(jar);
+        writer.write(archive.get(ArchivePaths.root()), script);
+        assertThat(writer.getReusedCount()).isEqualTo(4);
+
+        try (ZipFile zip = new ZipFile(jar)) {
+            assertThat(read(zip, "org/test/B.class")).isEqualTo("bbbbbbbbbbbbbbbb");
+        }
+    }
+
+    private static JavaArchive createArchive() {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class);
+        archive.add(new StringAsset("Manifest-Version: 1.0\nMain-Class: org.test.Main\n\n"), "META-INF/MANIFEST.MF");
+        archive.add(new StringAsset("aaaaaaaaaaaaaaaa"), "org/test/A.class");
+        archive.add(new StringAsset("bbbbbbbbbbbbbbbb"), "org/test/B.class");
+        archive.add(new ByteArrayAsset(new byte[4096]), "m2repo/inner-1.0.jar");
+        return archive;
+    }
+
+    private static String read(ZipFile zip, String name) throws IOException {
+        try (InputStream in = zip.getInputStream(zip.getEntry(name))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[64];
+            int len;
+            while ((len = in.read(buf)) >= 0) {
+                out.write(buf, 0, len);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}